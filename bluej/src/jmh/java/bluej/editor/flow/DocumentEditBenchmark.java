@@ -0,0 +1,167 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import bluej.editor.flow.FlowEditor.OffScreenFlowEditorPaneListener;
+import javafx.application.Platform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Benchmarks for editing a large (50,000 line) document: typing a character at a time, and
+ * pasting a large block, both through FlowEditorPane (which is how the editor makes its
+ * changes) and directly on the HoleDocument.  The editor pane benchmarks need the JavaFX
+ * platform, so need a display (or the Monocle headless properties used by the tests).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentEditBenchmark
+{
+    private static final int LINES = 50000;
+    private static final int PASTE_LINES = 1000;
+    
+    private String content;
+    private String paste;
+    private FlowEditorPane editorPane;
+    private HoleDocument document;
+    
+    @Setup
+    public void makeContent()
+    {
+        content = makeLines(LINES);
+        paste = makeLines(PASTE_LINES);
+        try
+        {
+            Platform.startup(() -> {});
+        }
+        catch (IllegalStateException e)
+        {
+            // Already started
+        }
+    }
+    
+    private static String makeLines(int count)
+    {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < count; i++)
+        {
+            s.append("        int value").append(i).append(" = compute(").append(i).append(", \"text\");\n");
+        }
+        return s.toString();
+    }
+    
+    // Start each iteration from the same content, with the caret in the middle:
+    @Setup(Level.Iteration)
+    public void makeDocuments()
+    {
+        onFX(() -> {
+            editorPane = new FlowEditorPane(content, new OffScreenFlowEditorPaneListener());
+            editorPane.positionCaret(editorPane.getDocument().getLineStart(LINES / 2));
+        });
+        document = new HoleDocument();
+        document.replaceText(0, 0, content);
+    }
+    
+    @SuppressWarnings("threadchecker")
+    private static void onFX(Runnable runnable)
+    {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try
+            {
+                runnable.run();
+                done.complete(null);
+            }
+            catch (Throwable t)
+            {
+                done.completeExceptionally(t);
+            }
+        });
+        done.join();
+    }
+
+    /** Typing a character (then a newline every so often) in the middle of the editor */
+    @Benchmark
+    public void typeInEditor(Blackhole bh)
+    {
+        onFX(() -> {
+            typeCharacter(editorPane);
+            bh.consume(editorPane.getCaretPosition());
+        });
+    }
+    
+    @OnThread(Tag.FXPlatform)
+    private static void typeCharacter(FlowEditorPane editorPane)
+    {
+        // Type a newline every 40 characters:
+        editorPane.replaceSelection(editorPane.getCaretPosition() % 40 == 0 ? "\n" : "x");
+    }
+
+    /** Pasting a large block of lines in the middle of the editor */
+    @Benchmark
+    public void pasteInEditor(Blackhole bh)
+    {
+        onFX(() -> {
+            editorPane.replaceSelection(paste);
+            bh.consume(editorPane.getCaretPosition());
+        });
+    }
+
+    /** Typing a character in the middle of the document, without the editor */
+    @Benchmark
+    @SuppressWarnings("threadchecker")
+    public void typeInDocument(Blackhole bh)
+    {
+        int position = document.getLineStart(LINES / 2) + 4;
+        document.replaceText(position, position, "x");
+        bh.consume(document.getLineFromPosition(position));
+    }
+
+    /** Pasting a large block of lines in the middle of the document, without the editor */
+    @Benchmark
+    @SuppressWarnings("threadchecker")
+    public void pasteInDocument(Blackhole bh)
+    {
+        int position = document.getLineStart(LINES / 2);
+        document.replaceText(position, position, paste);
+        bh.consume(document.getLineCount());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser.lexer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import bluej.parser.JavaParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for lexing (and parsing) Java source.  The corpus is every source file
+ * (".java" or ".dat") beneath the directory given by the "bench.sources" system property,
+ * which defaults to the parser test fixtures.  Run with -prof gc to see allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark
+{
+    private List<String> sources;
+
+    @Setup
+    public void loadSources() throws IOException
+    {
+        Path dir = Paths.get(System.getProperty("bench.sources", "src/test/resources/bluej/parser"));
+        try (Stream<Path> files = Files.walk(dir))
+        {
+            sources = files.filter(f -> f.toString().endsWith(".java") || f.toString().endsWith(".dat")).sorted().map(f -> {
+                try
+                {
+                    return Files.readString(f, StandardCharsets.UTF_8);
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }).collect(Collectors.toList());
+        }
+    }
+
+    /** The lexer as used by the parser, reading via a Reader */
+    @Benchmark
+    public void lexReader(Blackhole bh)
+    {
+        for (String source : sources)
+        {
+            JavaLexer lexer = new JavaLexer(new StringReader(source));
+            LocatableToken token;
+            do
+            {
+                token = lexer.nextToken();
+                bh.consume(token);
+            }
+            while (token.getType() != JavaTokenTypes.EOF);
+        }
+    }
+
+    /** The lexer reading directly from the source text */
+    @Benchmark
+    public void lexCharSequence(Blackhole bh)
+    {
+        for (String source : sources)
+        {
+            JavaLexer lexer = new JavaLexer(source);
+            LocatableToken token;
+            do
+            {
+                token = lexer.nextToken();
+                bh.consume(token);
+            }
+            while (token.getType() != JavaTokenTypes.EOF);
+        }
+    }
+
+    /** A full parse, for comparison with the cost of lexing alone */
+    @Benchmark
+    public void parse(Blackhole bh)
+    {
+        for (String source : sources)
+        {
+            JavaParser parser = new JavaParser(source);
+            parser.parseCU();
+            bh.consume(parser);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.framedjava.elements;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import bluej.Boot;
+import bluej.Config;
+import bluej.editor.flow.HoleDocument;
+import bluej.editor.flow.JavaSyntaxView;
+import bluej.editor.flow.ScopeColorsBorderPane;
+import bluej.editor.stride.FrameShelf;
+import bluej.editor.stride.FrameShelfStorage;
+import bluej.parser.entity.ClassLoaderResolver;
+import bluej.parser.entity.EntityResolver;
+import bluej.stride.framedjava.frames.CallFrame;
+import bluej.stride.framedjava.frames.ClassFrame;
+import bluej.stride.framedjava.slots.ExpressionSlot;
+import bluej.stride.generic.Frame;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import nu.xom.Builder;
+import nu.xom.ParsingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Benchmarks for the analysis document behind a large Stride class (the Java code that
+ * ClassElement generates for code completion and error checking) when a single slot is edited.
+ * Previously each edit made a whole new document and parsed it from scratch; now the previous
+ * version's document is patched with just the changed text and reparsed incrementally.
+ * The frame benchmarks measure the whole path of a slot edit in the editor: regenerating
+ * the code elements, updating the source positions (which patches the document) and
+ * building the location map, either for just the changed frames or for all of them.
+ * The documents need the JavaFX platform, so need a display (or the Monocle headless
+ * properties used by the tests).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisDocumentBenchmark
+{
+    private static final int METHODS = 500;
+    
+    private EntityResolver resolver;
+    // Two versions of the generated source, differing only in one slot in the middle:
+    private String[] versions;
+    private int editPosition;
+    private int editLength;
+    private int currentVersion;
+    private HoleDocument document;
+    private JavaSyntaxView view;
+    
+    @Setup
+    public void makeContent()
+    {
+        try
+        {
+            Platform.startup(() -> {});
+        }
+        catch (IllegalStateException e)
+        {
+            // Already started
+        }
+        resolver = new ClassLoaderResolver(getClass().getClassLoader());
+        String before = makeClass(METHODS / 2);
+        String after = makeClass(METHODS - METHODS / 2);
+        versions = new String[] {
+            before + "        int edited = compute(1, \"text\");\n" + after,
+            before + "        int edited = compute(12, \"text\");\n" + after
+        };
+        editPosition = before.length() + "        int edited = compute(".length();
+    }
+    
+    private static String makeClass(int methods)
+    {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < methods; i++)
+        {
+            s.append("    /**\n     * Method ").append(i).append("\n     */\n");
+            s.append("    public int method").append(i).append("(int x, String s)\n    {\n");
+            for (int j = 0; j < 8; j++)
+            {
+                s.append("        int value").append(j).append(" = compute(x + ").append(j).append(", s);\n");
+            }
+            s.append("        if (value0 > 0)\n        {\n            return value0;\n        }\n");
+            s.append("        return x;\n    }\n");
+        }
+        return s.toString();
+    }
+    
+    // Start each iteration from a fully parsed document of the first version:
+    @Setup(Level.Iteration)
+    public void makeDocument()
+    {
+        currentVersion = 0;
+        editLength = 1;
+        onFX(() -> {
+            document = new HoleDocument();
+            view = makeView(document, versions[0]);
+        });
+    }
+    
+    @OnThread(Tag.FXPlatform)
+    private JavaSyntaxView makeView(HoleDocument document, String src)
+    {
+        JavaSyntaxView v = new JavaSyntaxView(document, null, new ScopeColorsBorderPane(), resolver, new ReadOnlyBooleanWrapper(false));
+        document.replaceText(0, 0, "public class Big\n{\n" + src + "}\n");
+        v.enableParser(true);
+        v.flushReparseQueue();
+        return v;
+    }
+    
+    @SuppressWarnings("threadchecker")
+    private static void onFX(Runnable runnable)
+    {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try
+            {
+                runnable.run();
+                done.complete(null);
+            }
+            catch (Throwable t)
+            {
+                done.completeExceptionally(t);
+            }
+        });
+        done.join();
+    }
+
+    /** Making and parsing a new document for the edited source (the old behaviour) */
+    @Benchmark
+    public void parseNewDocument(Blackhole bh)
+    {
+        onFX(() -> {
+            currentVersion = 1 - currentVersion;
+            JavaSyntaxView v = makeView(new HoleDocument(), versions[currentVersion]);
+            bh.consume(v.getParser());
+        });
+    }
+
+    /** Patching the previous document with the edit and reparsing the affected part */
+    @Benchmark
+    public void patchDocument(Blackhole bh)
+    {
+        onFX(() -> {
+            patch();
+            bh.consume(view.getParser());
+        });
+    }
+    
+    @OnThread(Tag.FXPlatform)
+    private void patch()
+    {
+        // Offset by the class header added in makeView:
+        int start = editPosition + "public class Big\n{\n".length();
+        currentVersion = 1 - currentVersion;
+        String replacement = currentVersion == 0 ? "1" : "12";
+        document.replaceText(start, start + editLength, replacement);
+        editLength = replacement.length();
+        view.flushReparseQueue();
+    }
+
+    /**
+     * A class of frames (in a minimal editor) with one call slot in the middle which is edited.
+     */
+    @State(Scope.Benchmark)
+    public static class Frames
+    {
+        private File tempDir;
+        private ClassFrame classFrame;
+        private ExpressionSlot<?> slot;
+        private boolean edited;
+
+        @Setup
+        public void makeFrames() throws IOException, ParsingException
+        {
+            try
+            {
+                Platform.startup(() -> {});
+            }
+            catch (IllegalStateException e)
+            {
+                // Already started
+            }
+            Config.initialise(Boot.getBluejLibDir(), new Properties(), false);
+            tempDir = Files.createTempDirectory("frames").toFile();
+
+            StringBuilder xml = new StringBuilder("<class name=\"Big\" enable=\"true\" strideversion=\"1\"><javadoc/><imports/><implements/><fields/><constructors/><methods>");
+            for (int i = 0; i < METHODS; i++)
+            {
+                xml.append("<method access=\"public\" type=\"void\" type-java=\"void\" name=\"method" + i + "\" enable=\"true\">"
+                    + "<javadoc xml:space=\"preserve\">Method " + i + "</javadoc><params/><throws/><body>");
+                for (int j = 0; j < 8; j++)
+                {
+                    String call = "compute(" + i + ", " + j + ")";
+                    xml.append("<call expression=\"" + call + "\" expression-java=\"" + call + "\" enable=\"true\"/>");
+                }
+                xml.append("</body></method>");
+            }
+            xml.append("</methods></class>");
+            ClassElement element = new ClassElement(new Builder().build(new StringReader(xml.toString())).getRootElement(),
+                new ClassLoaderResolver(AnalysisDocumentBenchmark.class.getClassLoader()), "");
+
+            onFX(() -> {
+                classFrame = element.createTopLevelFrame(new BenchmarkEditor(tempDir));
+                Frame middle = classFrame.getMethodsCanvas().getBlockContents().get(METHODS / 2);
+                CallFrame call = (CallFrame)middle.getAllFrames().filter(f -> f instanceof CallFrame).findFirst().get();
+                slot = (ExpressionSlot<?>)call.getEditableSlots().filter(s -> s instanceof ExpressionSlot).findFirst().get();
+                classFrame.regenerateCodeIfChanged();
+                classFrame.getCode().updateSourcePositions();
+                classFrame.getCode().getLocationMap();
+            });
+        }
+
+        @TearDown
+        public void deleteTempDir() throws IOException
+        {
+            File[] files = tempDir.listFiles();
+            if (files != null)
+            {
+                for (File f : files)
+                    Files.delete(f.toPath());
+            }
+            Files.delete(tempDir.toPath());
+        }
+
+        @OnThread(Tag.FXPlatform)
+        private void editSlot(boolean all, Blackhole bh)
+        {
+            edited = !edited;
+            slot.setText(edited ? "compute(12, 0)" : "compute(1, 0)");
+            if (all)
+                classFrame.markAllCodeChanged();
+            classFrame.regenerateCodeIfChanged();
+            ClassElement code = classFrame.getCode();
+            code.updateSourcePositions();
+            bh.consume(code.getLocationMap());
+        }
+    }
+
+    /**
+     * The editor which the frames live in.  A shelf is the simplest one available, but it doesn't
+     * track modifications like the real editor does, so we do that here.
+     */
+    private static class BenchmarkEditor extends FrameShelf
+    {
+        public BenchmarkEditor(File dir)
+        {
+            super(null, new FrameShelfStorage(dir));
+        }
+
+        @Override
+        public void modifiedFrame(Frame f, boolean force)
+        {
+            if (f != null)
+                f.markCodeChanged();
+        }
+    }
+
+    /** Editing a slot, then regenerating the code for just the changed frames */
+    @Benchmark
+    public void editSlotRegenerateChanged(Frames frames, Blackhole bh)
+    {
+        onFX(() -> frames.editSlot(false, bh));
+    }
+
+    /** Editing a slot, then regenerating the code for all the frames */
+    @Benchmark
+    public void editSlotRegenerateAll(Frames frames, Blackhole bh)
+    {
+        onFX(() -> frames.editSlot(true, bh));
+    }
+}
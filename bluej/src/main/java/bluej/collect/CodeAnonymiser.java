@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2012,2016  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2016,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -90,7 +90,7 @@ class CodeAnonymiser
         
         int importOrPackageLine;
         
-        JavaLexer lexer = new JavaLexer(new StringReader(sourceCode));
+        JavaLexer lexer = new JavaLexer(sourceCode);
         lexer.setGenerateWhitespaceTokens(true);
         
         importOrPackageLine = -1;
@@ -131,6 +131,44 @@ class CodeAnonymiser
         return result.toString();
     }
 
+    /**
+     * Gets the number of lines at the start of the given Java source which may be
+     * changed by anonymisation (i.e. up to and including the line on which the
+     * program proper begins).  All later lines are left as-is by {@link #anonymise(String)}.
+     * Only the start of the source is examined.
+     */
+    public static int countHeaderLines(CharSequence sourceCode)
+    {
+        JavaLexer lexer = new JavaLexer(sourceCode);
+        lexer.setGenerateWhitespaceTokens(true);
+
+        int importOrPackageLine = -1;
+        LocatableToken token;
+        for (token = lexer.nextToken(); token.getType() != JavaTokenTypes.EOF; token = lexer.nextToken())
+        {
+            switch (token.getType())
+            {
+            case JavaTokenTypes.ML_COMMENT:
+            case JavaTokenTypes.SL_COMMENT:
+            case JavaTokenTypes.WHITESPACE:
+                break;
+            case JavaTokenTypes.LITERAL_import:
+            case JavaTokenTypes.LITERAL_package:
+                importOrPackageLine = token.getLine();
+                break;
+            default:
+                if (token.getLine() != importOrPackageLine)
+                {
+                    // Lines are numbered from one, so this includes the token's line:
+                    return token.getLine();
+                }
+                break;
+            }
+        }
+        // No program, so the whole source is subject to anonymisation:
+        return token.getEndLine();
+    }
+
     private static String replaceWords(String substring)
     {
         StringBuilder s = new StringBuilder(substring.length());
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2012,2014,2016,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2014,2016,2019,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -98,4 +98,12 @@ public class DataCollectionCompileObserverWrapper implements FXCompileObserver
         wrapped.endCompile(sources, successful, type, compilationSequence);
     }
 
+    @Override
+    public void compileCancelled(CompileInputFile[] sources, CompileType type)
+    {
+        // Nothing was compiled, so there is nothing to record:
+        diagnostics.clear();
+        wrapped.compileCancelled(sources, type);
+    }
+
 }
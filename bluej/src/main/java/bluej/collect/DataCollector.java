@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -560,10 +560,10 @@ public class DataCollector
     }
 
 
-    public static void editJava(Package pkg, File path, String source, boolean includeOneLineEdits)
+    public static void editJava(Package pkg, File path, SourceEditTracker edits, boolean includeOneLineEdits)
     {
         if (dontSend()) return;
-        DataCollectorImpl.edit(pkg, Collections.singletonList(new EditedFileInfo("diff", path, source, includeOneLineEdits, null, null)));
+        DataCollectorImpl.editJava(pkg, path, edits, includeOneLineEdits);
     }
 
     public static void editStride(Package pkg, File javaPath, String javaSource, File stridePath, String strideSource, StrideEditReason reason)
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2012,2013,2014,2015,2016,2017,2019,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2013,2014,2015,2016,2017,2019,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -47,6 +47,7 @@ import bluej.utility.Utility;
 import difflib.Delta;
 import difflib.DiffUtils;
 import difflib.Patch;
+import javafx.application.Platform;
 import org.apache.http.entity.mime.MultipartEntity;
 import threadchecker.OnThread;
 import threadchecker.Tag;
@@ -77,6 +78,12 @@ public class DataCollectorImpl
      */
     private static IdentityHashMap<Inspector, Package> inspectorPackages = new IdentityHashMap<Inspector, Package>();
 
+    /**
+     * How many edits made from tracked changes are sent before another checkpoint,
+     * as a safeguard against anything which makes the recorded version drift.
+     */
+    private static final int CHANGES_PER_CHECKPOINT = 100;
+
     /**
      * Submits an event with no extra data.  A useful short-hand for calling submitEvent
      * with no content in the event.
@@ -534,6 +541,123 @@ public class DataCollectorImpl
         });
     }
     
+    /**
+     * Records an edit to a Java file, using the changes tracked since the last recorded
+     * edit where possible.  The complete source is recorded instead (as a checkpoint)
+     * if there is no tracked version, if the anonymised start of the file is affected,
+     * or periodically.  If the server turns out not to have the version which the changes
+     * were tracked from, the edit is not sent, and a checkpoint is recorded in its place.
+     */
+    static void editJava(final Package pkg, File path, SourceEditTracker tracker, boolean includeOneLineEdits)
+    {
+        final ProjectDetails projDetails = new ProjectDetails(pkg.getProject());
+        final String relativePath = CollectUtility.toPath(projDetails, path);
+        final FileKey fileKey = new FileKey(projDetails, relativePath);
+
+        List<LineChange> changes = null;
+        int headerLines = 0;
+        if (tracker.isTracking() && tracker.getChangesSinceCheckpoint() < CHANGES_PER_CHECKPOINT)
+        {
+            changes = tracker.getChanges();
+            if (changes.isEmpty())
+            {
+                return;
+            }
+            headerLines = CodeAnonymiser.countHeaderLines(tracker.getDocument().getContent(0, tracker.getDocument().getLength()));
+            int firstUnanonymised = Math.max(headerLines, tracker.getRecordedHeaderLines());
+            if (changes.get(0).oldStart() < firstUnanonymised || changes.get(0).newStart() < firstUnanonymised)
+            {
+                changes = null;
+            }
+        }
+
+        if (changes == null)
+        {
+            String source = tracker.getDocument().getFullContent();
+            tracker.checkpointRecorded(CodeAnonymiser.countHeaderLines(source));
+            // Changes are now tracked from this version, so it must be sent even if it is only a one-line edit:
+            edit(pkg, Collections.singletonList(new EditedFileInfo("diff", path, source, true, null, null)));
+            return;
+        }
+
+        //Edit solely within one line
+        if (changes.size() == 1 && changes.get(0).oldLines().size() == 1 && changes.get(0).newLines().size() == 1
+                && !includeOneLineEdits)
+        {
+            // Leave it to be recorded along with later changes:
+            return;
+        }
+        tracker.changesRecorded(headerLines);
+
+        final List<LineChange> recordedChanges = changes;
+        final int lineCount = tracker.getLineCount();
+        submitEvent(pkg.getProject(), pkg, EventName.EDIT, new Event() {
+            // The version which the server will have once this is sent:
+            private List<String> newVersion;
+
+            @Override
+            @OnThread(Tag.Worker)
+            public MultipartEntity makeData(int sequenceNum, Map<FileKey, List<String>> fileVersions)
+            {
+                List<String> previousDoc = fileVersions.get(fileKey);
+                newVersion = previousDoc == null ? null : applyChanges(previousDoc, recordedChanges);
+                if (newVersion == null || newVersion.size() != lineCount)
+                {
+                    // The server has a different version to the one we tracked from (e.g. an earlier
+                    // edit was not sent).  Don't send this edit; instead, record the whole file
+                    // (which is diffed against what the server does have) from the FX thread:
+                    newVersion = null;
+                    Platform.runLater(() -> {
+                        if (tracker.isTracking())
+                        {
+                            tracker.checkpointNeeded();
+                            editJava(pkg, path, tracker, true);
+                        }
+                    });
+                    return null;
+                }
+
+                MultipartEntity mpe = new MultipartEntity();
+                addSourceHistoryItem(mpe, relativePath, "diff", makeDiff(recordedChanges), null);
+                return mpe;
+            }
+
+            @Override
+            public void success(Map<FileKey, List<String>> fileVersions)
+            {
+                fileVersions.put(fileKey, newVersion);
+            }
+        });
+    }
+
+    /**
+     * Applies tracked line changes to a recorded version of a file.  Returns null if the
+     * lines which the changes replace are not in the recorded version.
+     */
+    @OnThread(Tag.Any)
+    // protected for testing purposes
+    protected static List<String> applyChanges(List<String> previousDoc, List<LineChange> changes)
+    {
+        List<String> lines = new ArrayList<>(previousDoc);
+        // Apply from the end, so that earlier line numbers stay valid:
+        for (int i = changes.size() - 1; i >= 0; i--)
+        {
+            LineChange change = changes.get(i);
+            if (lines.size() < change.oldStart() + change.oldLines().size())
+            {
+                return null;
+            }
+            List<String> replaced = lines.subList(change.oldStart(), change.oldStart() + change.oldLines().size());
+            if (!replaced.equals(change.oldLines()))
+            {
+                return null;
+            }
+            replaced.clear();
+            replaced.addAll(change.newLines());
+        }
+        return lines;
+    }
+
     @SuppressWarnings("unchecked")
     @OnThread(Tag.Any)
     // protected for testing purposes
@@ -544,34 +668,56 @@ public class DataCollectorImpl
         // It's broken in 1.2.1 for patches that purely add lines
         
         for (Delta delta: patch.getDeltas()) {
-            int srcLine, srcSize, destLine, destSize;
-            srcSize = delta.getOriginal().size();
-            destSize = delta.getRevised().size();
-            // It seems that the line numbers given back when the patch is a pure-insert
-            // (i.e. zero lines are modified in the original file) are off by one, so
-            // correct for this:
-            if (srcSize > 0)
-            {
-                srcLine = delta.getOriginal().getPosition() + 1;
-                destLine = delta.getRevised().getPosition() + 1;
-            }
-            else
-            {
-                srcLine = delta.getOriginal().getPosition();
-                destLine = delta.getRevised().getPosition();
-            }
-            diff.append("@@ -" + srcLine + "," + srcSize + " +" + destLine + "," + destSize + " @@\n");
-            for (String l : (List<String>)delta.getOriginal().getLines())
-            {
-                diff.append("-" + l + "\n");
-            }
-            for (String l : (List<String>)delta.getRevised().getLines())
-            {
-                diff.append("+" + l + "\n");
-            }
+            appendHunk(diff, delta.getOriginal().getPosition(), (List<String>)delta.getOriginal().getLines(),
+                delta.getRevised().getPosition(), (List<String>)delta.getRevised().getLines());
         }
         return diff.toString();
     }
+
+    /**
+     * Makes a diff in the same format as {@link #makeDiff(Patch)}, from tracked line changes.
+     */
+    @OnThread(Tag.Any)
+    // protected for testing purposes
+    protected static String makeDiff(List<LineChange> changes)
+    {
+        StringBuilder diff = new StringBuilder();
+        for (LineChange change : changes)
+        {
+            appendHunk(diff, change.oldStart(), change.oldLines(), change.newStart(), change.newLines());
+        }
+        return diff.toString();
+    }
+
+    @OnThread(Tag.Any)
+    private static void appendHunk(StringBuilder diff, int srcPosition, List<String> srcLines, int destPosition, List<String> destLines)
+    {
+        int srcLine, srcSize, destLine, destSize;
+        srcSize = srcLines.size();
+        destSize = destLines.size();
+        // It seems that the line numbers given back when the patch is a pure-insert
+        // (i.e. zero lines are modified in the original file) are off by one, so
+        // correct for this:
+        if (srcSize > 0)
+        {
+            srcLine = srcPosition + 1;
+            destLine = destPosition + 1;
+        }
+        else
+        {
+            srcLine = srcPosition;
+            destLine = destPosition;
+        }
+        diff.append("@@ -" + srcLine + "," + srcSize + " +" + destLine + "," + destSize + " @@\n");
+        for (String l : srcLines)
+        {
+            diff.append("-" + l + "\n");
+        }
+        for (String l : destLines)
+        {
+            diff.append("+" + l + "\n");
+        }
+    }
     
     
     public static void debuggerTerminate(Project project)
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2013,2016,2018,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 2013,2016,2018,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -27,32 +27,23 @@ import bluej.extensions2.event.ApplicationEvent;
 import bluej.extmgr.ExtensionsManager;
 import bluej.pkgmgr.Project;
 import javafx.application.Platform;
-import org.apache.http.Header;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.mime.MultipartEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.params.BasicHttpParams;
-import org.apache.http.params.HttpConnectionParams;
-import org.apache.http.params.HttpParams;
-import org.apache.http.util.EntityUtils;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class that handles submitting compilation data to the remote server.
  * 
  * The class has nothing to do with collecting the data, and deliberately
- * does not depend on any other BlueJ classes.  Package-visible.
+ * does not depend on any other BlueJ classes.  Events are taken from the
+ * queue in batches and passed to an {@link EventPoster}, which spools them
+ * to disk before sending.  If the server cannot be reached, events carry on
+ * being spooled, and sending is retried with an increasing delay.
+ * Package-visible.
  * 
  * @author Davin McCall
  */
@@ -62,25 +53,44 @@ class DataSubmitter
         //For testing:
         //"http://localhost:3000/master_events";
 
+    private static final String spoolFileName = "blackbox-spool.dat";
+
+    // The most events to spool at once:
+    private static final int MAX_BATCH = 100;
+
+    // The delay before retrying after the server could not be reached, which
+    // doubles on each failure up to the maximum:
+    private static final long FIRST_RETRY_MILLIS = 5000;
+    private static final long MAX_RETRY_MILLIS = 5 * 60 * 1000;
+
+    // How long the sending thread (and its connection) stays around with nothing to do:
+    private static final long IDLE_MILLIS = 30000;
     
-    private static AtomicBoolean givenUp = new AtomicBoolean(false);
+    /**
+     * Set once we have reported that events could not be sent.
+     */
+    private static final AtomicBoolean failureReported = new AtomicBoolean(false);
     
     /**
-     * isRunning is only touched while synchonized on queue
+     * isRunning and isSending are only touched while synchonized on queue.
+     * isSending is set while a batch taken from the queue is being processed.
      */
     private static boolean isRunning = false;
+    private static boolean isSending = false;
     
-    private static List<Event> queue = new LinkedList<Event>();
-    
-    private static int sequenceNum;
+    private static final ArrayDeque<Event> queue = new ArrayDeque<Event>();
 
     /**
-     * The versions of the files as we have last sent them to the server.
-     * 
-     * Should only be accessed by the postData method, which is running on
-     * the event-sending thread
+     * Set (while synchronized on queue) when a new session starts, so that the
+     * sending thread restarts the sequence numbers.
      */
-    private static Map<FileKey, List<String> > fileVersions = new HashMap<FileKey, List<String> >();
+    private static boolean restartSequence = false;
+
+    /**
+     * Created on first use.  Should only be accessed by the event-sending thread.
+     */
+    @OnThread(Tag.Worker)
+    private static EventPoster poster;
     
     /**
      * Submit data to be posted to the server. The data is added to a queue which is processed by
@@ -90,23 +100,25 @@ class DataSubmitter
      */
     static void submitEvent(Event evt)
     {
-        //This thread only reads the boolean, and is an optimisation:
-        if (givenUp.get())
-            return;
-        
         synchronized (queue) {
             queue.add(evt);
             
             if (! isRunning) {
-                new Thread("Process Blackbox queue") {
+                Thread thread = new Thread("Process Blackbox queue") {
                     @OnThread(value = Tag.Worker, ignoreParent = true)
                     public void run()
                     {
                         processQueue();
                     }
-                }.start();
+                };
+                // Anything unsent is spooled, so there is no need to keep BlueJ running for it:
+                thread.setDaemon(true);
+                thread.start();
                 isRunning = true;
             }
+            else {
+                queue.notifyAll();
+            }
         }
     }
     
@@ -116,29 +128,76 @@ class DataSubmitter
     @OnThread(Tag.Worker)
     private static void processQueue()
     {
+        if (poster == null)
+        {
+            int timeout = Boot.isTrialRecording() ? 30000 : 10000;
+            poster = new EventPoster(submitUrl, new EventSpool(Config.getUserConfigFile(spoolFileName)), timeout);
+        }
+
+        long retryDelay = 0;
+        long nextSendTime = 0;
         while (true) {
-            Event evt;
+            List<Event> batch = new ArrayList<>();
+            boolean restart;
             synchronized (queue) {
-                if (queue.isEmpty()) {
+                isSending = false;
+                queue.notifyAll(); // in case anyone is waiting for us to finish
+
+                // Wait for more events, or until it is time to retry sending:
+                long idleEndTime = System.currentTimeMillis() + IDLE_MILLIS;
+                try {
+                    while (queue.isEmpty()) {
+                        long waitTime = (poster.hasPending() ? nextSendTime : idleEndTime) - System.currentTimeMillis();
+                        if (waitTime <= 0) {
+                            break;
+                        }
+                        queue.wait(waitTime);
+                    }
+                }
+                catch (InterruptedException e) {
+                    // Carry on with whatever there is
+                }
+
+                if (queue.isEmpty() && !poster.hasPending()) {
+                    // Done for now; the next event starts a new thread:
+                    poster.close();
                     isRunning = false;
-                    queue.notifyAll(); // in case anyone is waiting for us to finish
                     return;
                 }
-                evt = queue.remove(0);
+                while (!queue.isEmpty() && batch.size() < MAX_BATCH) {
+                    batch.add(queue.removeFirst());
+                }
+                isSending = !batch.isEmpty();
+                restart = restartSequence;
+                restartSequence = false;
             }
-            
 
-            if (!givenUp.get())
+            if (restart)
+            {
+                poster.restartSequence();
+            }
+            poster.spool(batch);
+            if (System.currentTimeMillis() < nextSendTime)
+            {
+                // Still waiting to retry; the events stay spooled until then.
+                continue;
+            }
+            if (poster.sendPending())
+            {
+                retryDelay = 0;
+            }
+            else
             {
-                givenUp.set(!postData(evt));
-                // If we just gave up on this event:
-                if (givenUp.get())
+                retryDelay = retryDelay == 0 ? FIRST_RETRY_MILLIS : Math.min(retryDelay * 2, MAX_RETRY_MILLIS);
+                nextSendTime = System.currentTimeMillis() + retryDelay;
+                // The first time sending fails, let the user know:
+                if (failureReported.compareAndSet(false, true))
                 {
                     Platform.runLater(() ->
                     {
                         ExtensionsManager.getInstance().delegateEvent(new ApplicationEvent(ApplicationEvent.EventType.DATA_SUBMISSION_FAILED_EVENT));
                         if (Boot.isTrialRecording()) {
-                            // If we just gave up, and we are specifically in a trial, show a dialog
+                            // If we are specifically in a trial, show a dialog
                             // to the user warning them of this:
                             new DataSubmissionFailedDialog().show();
                             Project.getProjects().forEach(project -> project.setAllEditorStatus(" - NOT RECORDING"));
@@ -150,64 +209,8 @@ class DataSubmitter
     }
     
     /**
-     * Actually post the data to the server.
-     * 
-     * Returns false if there was an error.
-     */
-    @OnThread(Tag.Worker)
-    private static boolean postData(Event evt)
-    {   
-        HttpParams params = new BasicHttpParams();
-        HttpConnectionParams.setConnectionTimeout(params, Boot.isTrialRecording() ? 30000 : 10000);
-        HttpConnectionParams.setSoTimeout(params, Boot.isTrialRecording() ? 30000 : 10000);
-        HttpClient client = new DefaultHttpClient(params);
-        
-        try {
-            HttpPost post = new HttpPost(submitUrl);
-
-            MultipartEntity mpe = evt.makeData(sequenceNum, fileVersions);
-            if (mpe == null)
-            {
-                return true; // nothing to send, no error
-            }
-            
-            //Only increment sequence number if we actually send data:
-            sequenceNum += 1;
-            post.setEntity(mpe);
-            HttpResponse response = client.execute(post);
-            
-            for (Header h : response.getAllHeaders())
-            {
-                if ("X-Status".equals(h.getName()) && !"Created".equals(h.getValue()))
-                {
-                    return false;
-                }
-            }
-            
-            if (response.getStatusLine().getStatusCode() != 200)
-            {
-                return false;
-            }
-            
-            evt.success(fileVersions);
-                
-            EntityUtils.consume(response.getEntity());
-        }
-        catch (ClientProtocolException cpe) {
-            return false;
-        }
-        catch (IOException ioe) {
-            //For now:
-            ioe.printStackTrace();
-            
-            return false;
-        }
-        
-        return true;
-    }
-    
-    /**
-     * Waits until all pending events have been sent to the server, or the timeout expires.  If events are still being added in parallel
+     * Waits until all pending events have been sent to the server (or spooled, if the server
+     * cannot be reached), or the timeout expires.  If events are still being added in parallel
      * to this call, there will be undefined behaviour.
      */
     public static void waitForQueueFlush(int maxMillis)
@@ -219,8 +222,8 @@ class DataSubmitter
             synchronized (queue)
             {
                 // Keep waiting if there is anything in the queue,
-                // or the queue is empty but the submitter thread is still running.
-                while (!queue.isEmpty() || isRunning)
+                // or the queue is empty but the submitter thread is still processing it.
+                while (!queue.isEmpty() || isSending)
                 {
                     long waitTime = endTime - System.currentTimeMillis();
                     if (waitTime <= 0) {
@@ -238,12 +241,18 @@ class DataSubmitter
 
     public static void initSequence()
     {
-        sequenceNum = 1; //Server relies on it starting at 1, do not change
-        
+        synchronized (queue)
+        {
+            restartSequence = true;
+        }
     }
 
+    /**
+     * Check whether we have reported that events could not be sent.  (They are still
+     * spooled, and sent once the server can be reached.)
+     */
     public static boolean hasGivenUp()
     {
-        return givenUp.get();
+        return failureReported.get();
     }
 }
@@ -0,0 +1,250 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import bluej.collect.EventSpool.SpooledEvent;
+import bluej.utility.Debug;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.mime.MultipartEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Posts batches of events to the server. Each batch is encoded and written to
+ * an {@link EventSpool} first, and the spooled events are then posted in order
+ * over a single keep-alive HTTP client, so that a burst of events does not
+ * need a new connection per event.
+ *
+ * <p>An event counts as successfully submitted (for the purpose of the diffs
+ * made by later events) once it is spooled, since the spool will deliver it
+ * eventually. Package-visible.
+ */
+@OnThread(Tag.Worker)
+class EventPoster
+{
+    private enum PostResult { ACCEPTED, REJECTED, UNREACHABLE }
+    // The HTTP status for being asked to slow down, which is not an error in the event:
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final String submitUrl;
+    private final EventSpool spool;
+    private final RequestConfig config;
+    // Created when first needed, and after close():
+    private CloseableHttpClient client;
+
+    private int sequenceNum = 1; //Server relies on it starting at 1, do not change
+
+    /**
+     * The versions of the files as we have last spooled them for the server.
+     */
+    private final Map<FileKey, List<String>> fileVersions = new HashMap<>();
+
+    /**
+     * Create a poster which sends events to the given URL.
+     *
+     * @param submitUrl      the URL to post each event to
+     * @param spool          the spool which holds events until they are sent
+     * @param timeoutMillis  the connection and socket timeout
+     */
+    EventPoster(String submitUrl, EventSpool spool, int timeoutMillis)
+    {
+        this.submitUrl = submitUrl;
+        this.spool = spool;
+
+        config = RequestConfig.custom()
+                .setConnectTimeout(timeoutMillis)
+                .setConnectionRequestTimeout(timeoutMillis)
+                .setSocketTimeout(timeoutMillis)
+                .build();
+    }
+
+    /**
+     * Restart the sequence numbering of events, at the start of a session.
+     */
+    void restartSequence()
+    {
+        sequenceNum = 1;
+    }
+
+    /**
+     * Spool the given events, and then send all pending events (including
+     * any left from an earlier session).
+     *
+     * @return  false if the server could not be reached; the unsent events remain spooled.
+     */
+    boolean submit(List<Event> batch)
+    {
+        spool(batch);
+        return sendPending();
+    }
+
+    /**
+     * Encode the given events and add them to the spool, without sending them.
+     */
+    void spool(List<Event> batch)
+    {
+        List<SpooledEvent> encoded = new ArrayList<>(batch.size());
+        for (Event evt : batch) {
+            MultipartEntity mpe = evt.makeData(sequenceNum, fileVersions);
+            if (mpe == null) {
+                continue; // nothing to send
+            }
+
+            try {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                mpe.writeTo(body);
+                encoded.add(new SpooledEvent(mpe.getContentType().getValue(), body.toByteArray()));
+            }
+            catch (IOException ioe) {
+                // Only possible from the local files referenced by the entity
+                Debug.reportError("Error encoding Blackbox event", ioe);
+                continue;
+            }
+
+            //Only increment sequence number if we actually send data:
+            sequenceNum += 1;
+            evt.success(fileVersions);
+        }
+
+        spool.append(encoded);
+    }
+
+    /**
+     * Send all pending events in order, stopping if the server cannot be reached.
+     * An event which the server rejects is dropped, and sending carries on with
+     * the next one.
+     *
+     * @return  false if the server could not be reached.
+     */
+    boolean sendPending()
+    {
+        SpooledEvent event;
+        while ((event = spool.peek()) != null) {
+            PostResult result = post(event);
+            if (result == PostResult.UNREACHABLE) {
+                // Keep the event to send later
+                return false;
+            }
+            if (result == PostResult.REJECTED) {
+                Debug.message("Blackbox event rejected by server; not sending it again");
+            }
+            // The server has seen the event, so don't send it again even if it was rejected:
+            spool.markSent();
+        }
+        return true;
+    }
+
+    /**
+     * Check whether there are spooled events which have not been sent.
+     */
+    boolean hasPending()
+    {
+        return spool.getPendingCount() > 0;
+    }
+
+    /**
+     * Post a single event.
+     *
+     * @return  whether the server accepted the event, rejected it, or could not be reached.
+     *          The event only counts as rejected if the server explicitly says so (in the
+     *          X-Status header) or responds with a client error (4xx other than 429).
+     *          Other failures, including server errors, count as unreachable.
+     */
+    private PostResult post(SpooledEvent event)
+    {
+        HttpPost post = new HttpPost(submitUrl);
+        ByteArrayEntity entity = new ByteArrayEntity(event.body());
+        entity.setContentType(event.contentType());
+        post.setEntity(entity);
+
+        if (client == null) {
+            client = HttpClients.custom()
+                    .setConnectionManager(new PoolingHttpClientConnectionManager())
+                    .setDefaultRequestConfig(config)
+                    .build();
+        }
+
+        try (CloseableHttpResponse response = client.execute(post)) {
+            // Always read the whole response, so that the connection can be reused:
+            HttpEntity responseEntity = response.getEntity();
+            EntityUtils.consume(responseEntity);
+
+            for (Header h : response.getAllHeaders())
+            {
+                if ("X-Status".equals(h.getName()) && !"Created".equals(h.getValue()))
+                {
+                    return PostResult.REJECTED;
+                }
+            }
+
+            int status = response.getStatusLine().getStatusCode();
+            if (status >= 200 && status < 300) {
+                return PostResult.ACCEPTED;
+            }
+            if (status >= 400 && status < 500 && status != TOO_MANY_REQUESTS) {
+                return PostResult.REJECTED;
+            }
+            // A server error (or being asked to slow down) says nothing about the event itself,
+            // so try it again later:
+            Debug.message("Blackbox server responded with status " + status + "; will retry");
+            return PostResult.UNREACHABLE;
+        }
+        catch (IOException ioe) {
+            Debug.message("Error posting Blackbox event: " + ioe);
+            return PostResult.UNREACHABLE;
+        }
+    }
+
+    /**
+     * Release the HTTP client and the spool file.  The poster can still be used
+     * afterwards; they are opened again when needed.
+     */
+    void close()
+    {
+        if (client != null) {
+            try {
+                client.close();
+            }
+            catch (IOException ioe) {
+                // Nothing more we can do
+            }
+            client = null;
+        }
+        spool.close();
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * An append-only journal of encoded events which have been accepted for
+ * submission but which the server has not yet received. Events which are
+ * still pending when BlueJ exits (or crashes, or loses its connection) are
+ * read back in and sent by the next session.
+ *
+ * <p>The file is a sequence of records: 'E' followed by an encoded event
+ * (content type, body length and body), or 'S' which marks the oldest pending
+ * event as sent. A record which was only partly written is ignored. Sent
+ * records are not forced to disk, so after a crash an event may be sent
+ * twice, but an accepted event is never lost. The file
+ * is deleted whenever nothing is pending, so it only grows while the server
+ * is unreachable. Package-visible.
+ */
+@OnThread(Tag.Worker)
+class EventSpool
+{
+    /**
+     * An event, encoded ready to be posted to the server.
+     */
+    record SpooledEvent(String contentType, byte[] body) { }
+
+    private static final int EVENT_RECORD = 'E';
+    private static final int SENT_RECORD = 'S';
+
+    // A spool file bigger than this when loaded is discarded rather than sent:
+    private static final long MAX_SPOOL_BYTES = 32 * 1024 * 1024;
+
+    private final File file;
+    private final ArrayDeque<SpooledEvent> pending = new ArrayDeque<>();
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    // Set if writing fails, after which pending events are only kept in memory:
+    private boolean writeFailed = false;
+
+    /**
+     * Open the spool stored in the given file, loading any events left pending
+     * by a previous session.
+     */
+    EventSpool(File file)
+    {
+        this.file = file;
+        load();
+    }
+
+    private void load()
+    {
+        if (!file.exists()) {
+            return;
+        }
+        if (file.length() > MAX_SPOOL_BYTES) {
+            Debug.message("Discarding oversized Blackbox spool: " + file);
+            file.delete();
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int tag = in.read();
+                if (tag == EVENT_RECORD) {
+                    String contentType = in.readUTF();
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_SPOOL_BYTES) {
+                        break;
+                    }
+                    byte[] body = new byte[length];
+                    in.readFully(body);
+                    pending.addLast(new SpooledEvent(contentType, body));
+                }
+                else if (tag == SENT_RECORD) {
+                    pending.pollFirst();
+                }
+                else {
+                    // End of file, or garbage after a partly-written record
+                    break;
+                }
+            }
+        }
+        catch (EOFException eofe) {
+            // Partly-written final record; ignore it
+        }
+        catch (IOException e) {
+            Debug.reportError("Error reading Blackbox spool " + file, e);
+        }
+
+        // Rewrite the file with just the pending events, so that we never
+        // append after a damaged record:
+        file.delete();
+        if (!pending.isEmpty()) {
+            try {
+                openForAppend();
+                for (SpooledEvent event : pending) {
+                    writeEvent(event);
+                }
+                sync();
+            }
+            catch (IOException ioe) {
+                writeFailed(ioe);
+            }
+        }
+    }
+
+    /**
+     * Add events to the end of the spool. They are written to disk before this
+     * method returns.
+     */
+    void append(List<SpooledEvent> events)
+    {
+        pending.addAll(events);
+        if (writeFailed || events.isEmpty()) {
+            return;
+        }
+
+        try {
+            openForAppend();
+            for (SpooledEvent event : events) {
+                writeEvent(event);
+            }
+            sync();
+        }
+        catch (IOException ioe) {
+            writeFailed(ioe);
+        }
+    }
+
+    /**
+     * Get the oldest pending event, or null if there is none.
+     */
+    SpooledEvent peek()
+    {
+        return pending.peekFirst();
+    }
+
+    /**
+     * Mark the oldest pending event as sent.
+     */
+    void markSent()
+    {
+        if (pending.pollFirst() == null) {
+            return;
+        }
+
+        if (pending.isEmpty()) {
+            // Nothing left to send; start again with an empty file
+            close();
+            file.delete();
+        }
+        else if (!writeFailed) {
+            try {
+                openForAppend();
+                out.write(SENT_RECORD);
+                out.flush();
+            }
+            catch (IOException ioe) {
+                writeFailed(ioe);
+            }
+        }
+    }
+
+    /**
+     * Get the number of events which have not yet been sent.
+     */
+    int getPendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Close the spool file. Pending events are kept and will be loaded when the
+     * spool is next opened.
+     */
+    void close()
+    {
+        if (out != null) {
+            try {
+                out.close();
+            }
+            catch (IOException ioe) {
+                Debug.reportError("Error closing Blackbox spool", ioe);
+            }
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    private void openForAppend() throws IOException
+    {
+        if (out == null) {
+            fileOut = new FileOutputStream(file, true);
+            out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        }
+    }
+
+    private void writeEvent(SpooledEvent event) throws IOException
+    {
+        out.write(EVENT_RECORD);
+        out.writeUTF(event.contentType());
+        out.writeInt(event.body().length);
+        out.write(event.body());
+    }
+
+    private void sync() throws IOException
+    {
+        out.flush();
+        fileOut.getFD().sync();
+    }
+
+    private void writeFailed(IOException ioe)
+    {
+        Debug.reportError("Error writing Blackbox spool " + file, ioe);
+        writeFailed = true;
+        close();
+        file.delete();
+    }
+}
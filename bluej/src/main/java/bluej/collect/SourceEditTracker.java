@@ -0,0 +1,308 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import bluej.editor.flow.Document;
+import bluej.extensions2.editor.DocumentListener;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of which lines of a Java editor's document have changed since
+ * the source was last recorded, by listening to the document's edits, so that
+ * the next edit event can be made from just the changed lines rather than by
+ * diffing the whole file.
+ *
+ * <p>Nothing is tracked until a complete copy of the source has been recorded
+ * (a checkpoint).  After that, each changed region holds the lines it replaced,
+ * so memory use is proportional to the size of the changes, not of the file.
+ */
+@OnThread(Tag.FXPlatform)
+public class SourceEditTracker implements DocumentListener
+{
+    /**
+     * A region of changed lines, in current document line numbers, along with
+     * the lines it had when last recorded.
+     */
+    private static class Region
+    {
+        private int start;
+        private final int length;
+        private final List<String> oldLines;
+
+        private Region(int start, int length, List<String> oldLines)
+        {
+            this.start = start;
+            this.length = length;
+            this.oldLines = oldLines;
+        }
+    }
+
+    private final Document document;
+    // Changed regions, in order and not overlapping.  Only valid if tracking is true.
+    private final List<Region> regions = new ArrayList<>();
+    private boolean tracking = false;
+    // The number of lines which were anonymised in the last recorded version:
+    private int recordedHeaderLines;
+    // The number of times changes have been recorded since the last checkpoint:
+    private int changesSinceCheckpoint;
+
+    /**
+     * Create a tracker for the given document.  The tracker must also be added
+     * as a listener to the document, ahead of any listener which records edits.
+     */
+    public SourceEditTracker(Document document)
+    {
+        this.document = document;
+    }
+
+    Document getDocument()
+    {
+        return document;
+    }
+
+    @Override
+    public void textReplaced(int origStartIncl, String replaced, String replacement, int linesRemoved, int linesAdded)
+    {
+        if (!tracking)
+        {
+            return;
+        }
+
+        // The edit covered these lines before it happened:
+        int editStart = document.getLineFromPosition(origStartIncl);
+        int editEnd = editStart + linesRemoved + 1;
+        int delta = linesAdded - linesRemoved;
+
+        // Find the regions which the edit overlaps or touches:
+        int first = 0;
+        while (first < regions.size() && regions.get(first).start + regions.get(first).length < editStart)
+        {
+            first += 1;
+        }
+        int last = first;
+        while (last < regions.size() && regions.get(last).start <= editEnd)
+        {
+            last += 1;
+        }
+
+        int unionStart = editStart;
+        int unionEnd = editEnd;
+        if (first < last)
+        {
+            unionStart = Math.min(unionStart, regions.get(first).start);
+            Region lastRegion = regions.get(last - 1);
+            unionEnd = Math.max(unionEnd, lastRegion.start + lastRegion.length);
+        }
+
+        // Work out what the edited lines were before the edit:
+        int lineStart = document.getLineStart(editStart);
+        int lineEnd = document.getLineEnd(editStart + linesAdded);
+        String editedBefore = document.getContent(lineStart, origStartIncl).toString()
+                + replaced
+                + document.getContent(origStartIncl + replacement.length(), lineEnd).toString();
+        List<String> editedLines = Arrays.asList(editedBefore.split("\n", -1));
+
+        // Collect the recorded lines for the whole merged region.  Lines outside existing
+        // regions are unchanged since recording, so their content before the edit is used:
+        List<String> oldLines = new ArrayList<>();
+        int line = unionStart;
+        for (Region region : regions.subList(first, last))
+        {
+            for (; line < region.start; line++)
+            {
+                oldLines.add(getLineBeforeEdit(line, editStart, editEnd, delta, editedLines));
+            }
+            oldLines.addAll(region.oldLines);
+            line = region.start + region.length;
+        }
+        for (; line < unionEnd; line++)
+        {
+            oldLines.add(getLineBeforeEdit(line, editStart, editEnd, delta, editedLines));
+        }
+
+        regions.subList(first, last).clear();
+        regions.add(first, new Region(unionStart, unionEnd - unionStart + delta, oldLines));
+        for (Region region : regions.subList(first + 1, regions.size()))
+        {
+            region.start += delta;
+        }
+    }
+
+    /**
+     * Get the content which a line had before the current edit.
+     */
+    private String getLineBeforeEdit(int line, int editStart, int editEnd, int delta, List<String> editedLines)
+    {
+        if (line < editStart)
+        {
+            return getLine(line);
+        }
+        else if (line >= editEnd)
+        {
+            return getLine(line + delta);
+        }
+        else
+        {
+            return editedLines.get(line - editStart);
+        }
+    }
+
+    private String getLine(int line)
+    {
+        return document.getContent(document.getLineStart(line), document.getLineEnd(line)).toString();
+    }
+
+    /**
+     * Check whether changes are being tracked, i.e. whether a checkpoint has been recorded.
+     */
+    boolean isTracking()
+    {
+        return tracking;
+    }
+
+    int getRecordedHeaderLines()
+    {
+        return recordedHeaderLines;
+    }
+
+    int getChangesSinceCheckpoint()
+    {
+        return changesSinceCheckpoint;
+    }
+
+    /**
+     * Get the number of lines which the current source gives when split with
+     * {@link bluej.utility.Utility#splitLines(String)}.
+     */
+    int getLineCount()
+    {
+        int lineCount = document.getLineCount();
+        // A trailing newline does not give an extra empty line when the source is split:
+        if (lineCount > 1 && document.getLineStart(lineCount - 1) == document.getLength())
+        {
+            return lineCount - 1;
+        }
+        return lineCount;
+    }
+
+    /**
+     * Get the changes since the source was last recorded, with line numbers and
+     * lines as they would be given by splitting the source with
+     * {@link bluej.utility.Utility#splitLines(String)}.  Unchanged lines are trimmed
+     * from each change, and changes which turn out to have no effect are left out.
+     */
+    List<LineChange> getChanges()
+    {
+        int lineCount = document.getLineCount();
+        int recordedLineCount = lineCount;
+        for (Region region : regions)
+        {
+            recordedLineCount -= region.length - region.oldLines.size();
+        }
+
+        List<LineChange> changes = new ArrayList<>();
+        int shift = 0;
+        for (Region region : regions)
+        {
+            int oldStart = region.start - shift;
+            List<String> oldLines = new ArrayList<>(region.oldLines);
+            List<String> newLines = new ArrayList<>(region.length);
+            for (int line = region.start; line < region.start + region.length; line++)
+            {
+                newLines.add(getLine(line));
+            }
+            shift += region.length - region.oldLines.size();
+
+            // A trailing newline does not give an extra empty line when the source is split:
+            if (oldStart + oldLines.size() == recordedLineCount && recordedLineCount > 1 && oldLines.get(oldLines.size() - 1).isEmpty())
+            {
+                oldLines.remove(oldLines.size() - 1);
+            }
+            if (region.start + region.length == lineCount && lineCount > 1 && newLines.get(newLines.size() - 1).isEmpty())
+            {
+                newLines.remove(newLines.size() - 1);
+            }
+
+            // Trim unchanged lines from both ends:
+            int common = 0;
+            while (common < oldLines.size() && common < newLines.size() && oldLines.get(common).equals(newLines.get(common)))
+            {
+                common += 1;
+            }
+            oldLines.subList(0, common).clear();
+            newLines.subList(0, common).clear();
+            while (!oldLines.isEmpty() && !newLines.isEmpty() && oldLines.get(oldLines.size() - 1).equals(newLines.get(newLines.size() - 1)))
+            {
+                oldLines.remove(oldLines.size() - 1);
+                newLines.remove(newLines.size() - 1);
+            }
+
+            if (!oldLines.isEmpty() || !newLines.isEmpty())
+            {
+                changes.add(new LineChange(oldStart + common, oldLines, region.start + common, newLines));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Note that the complete current source has been recorded, and start tracking
+     * changes from it.
+     *
+     * @param headerLines  the number of lines at the start of the source which are anonymised
+     */
+    void checkpointRecorded(int headerLines)
+    {
+        regions.clear();
+        tracking = true;
+        recordedHeaderLines = headerLines;
+        changesSinceCheckpoint = 0;
+    }
+
+    /**
+     * Note that the recorded source is not the one which changes have been tracked from
+     * (for example, because an edit could not be sent), so that changes cannot be tracked
+     * until another checkpoint is recorded.
+     */
+    void checkpointNeeded()
+    {
+        regions.clear();
+        tracking = false;
+    }
+
+    /**
+     * Note that the changes given by {@link #getChanges()} have been recorded.
+     *
+     * @param headerLines  the number of lines at the start of the source which are anonymised
+     */
+    void changesRecorded(int headerLines)
+    {
+        regions.clear();
+        recordedHeaderLines = headerLines;
+        changesSinceCheckpoint += 1;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2016  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2016,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -52,4 +52,13 @@ public interface CompileObserver
      */
     @OnThread(Tag.Any)
     void endCompile(CompileInputFile[] sources, boolean succesful, CompileType type, int compilationSequence);
+    
+    /**
+     * A compilation job was cancelled, because its results were no longer wanted.
+     * If the job had already started (startCompile was called), it did not finish;
+     * either way, the outcome says nothing about whether the sources have errors.
+     * This is called instead of endCompile.
+     */
+    @OnThread(Tag.Any)
+    void compileCancelled(CompileInputFile[] sources, CompileType type);
 }
@@ -0,0 +1,85 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+/**
+ * Records the time spent by the compiler in each of its phases (parsing, entering
+ * symbols, analysis, and generation) during a compilation, for reporting.
+ */
+class CompileTimings implements TaskListener
+{
+    private final long startTime = System.nanoTime();
+    private final Map<TaskEvent.Kind, Long> phaseStarts = new EnumMap<>(TaskEvent.Kind.class);
+    private final Map<TaskEvent.Kind, Long> phaseTotals = new EnumMap<>(TaskEvent.Kind.class);
+
+    @Override
+    public void started(TaskEvent e)
+    {
+        phaseStarts.put(e.getKind(), System.nanoTime());
+    }
+
+    @Override
+    public void finished(TaskEvent e)
+    {
+        Long start = phaseStarts.remove(e.getKind());
+        if (start != null) {
+            phaseTotals.merge(e.getKind(), System.nanoTime() - start, Long::sum);
+        }
+    }
+
+    /**
+     * Get the total time (in milliseconds) spent in the given phase.
+     */
+    public long getPhaseMillis(TaskEvent.Kind kind)
+    {
+        return millis(phaseTotals.getOrDefault(kind, 0L));
+    }
+
+    /**
+     * Get a description of the time taken so far, in total and in each phase, for example
+     * "120ms (parse 20ms, enter 10ms, analyze 70ms, generate 15ms)".
+     */
+    public String describe()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(millis(System.nanoTime() - startTime)).append("ms (");
+        String separator = "";
+        for (TaskEvent.Kind kind : new TaskEvent.Kind[] {TaskEvent.Kind.PARSE, TaskEvent.Kind.ENTER,
+                TaskEvent.Kind.ANALYZE, TaskEvent.Kind.GENERATE}) {
+            sb.append(separator).append(kind.name().toLowerCase()).append(' ')
+                    .append(millis(phaseTotals.getOrDefault(kind, 0L))).append("ms");
+            separator = ", ";
+        }
+        return sb.append(')').toString();
+    }
+
+    private static long millis(long nanos)
+    {
+        return nanos / 1_000_000;
+    }
+}
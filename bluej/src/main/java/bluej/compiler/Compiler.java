@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2016,2018  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2016,2018,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -25,6 +25,8 @@ package bluej.compiler;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 /**
  * Compiler class - an abstract interface to a source-to-bytecode compiler. This
@@ -44,6 +46,10 @@ abstract class Compiler
     private File[] bootClassPath;
     private boolean debug;
     private boolean deprecation;
+    /** Check for whether the current compilation has been cancelled - may be null */
+    private BooleanSupplier cancellationCheck;
+    /** The time taken by the last compilation - may be null */
+    private CompileTimings lastTimings;
     
     /**
      * Set the destination directory - the base directory for where the compiled class files
@@ -82,6 +88,44 @@ abstract class Compiler
         this.deprecation = deprecation;
     }
 
+    /**
+     * Specify how to check whether the current compilation has been cancelled (if
+     * the compiler supports cancellation).
+     * 
+     * @param cancellationCheck  Returns true once the compilation is cancelled; may be null
+     */
+    public void setCancellationCheck(BooleanSupplier cancellationCheck)
+    {
+        this.cancellationCheck = cancellationCheck;
+    }
+
+    /**
+     * Check whether the current compilation has been cancelled.
+     */
+    public boolean isCancelled()
+    {
+        return cancellationCheck != null && cancellationCheck.getAsBoolean();
+    }
+
+    /**
+     * Record the time taken by the compilation just performed. (Called by subclasses.)
+     */
+    protected void setTimings(CompileTimings timings)
+    {
+        this.lastTimings = timings;
+    }
+
+    /**
+     * Get the time taken by the last compilation, if it was recorded, and forget it.
+     * Returns null if no timings are available.
+     */
+    public CompileTimings takeTimings()
+    {
+        CompileTimings timings = lastTimings;
+        lastTimings = null;
+        return timings;
+    }
+
     public boolean isDebug()
     {
         return debug;
@@ -127,4 +171,65 @@ abstract class Compiler
     public abstract boolean compile(File[] sources, CompileObserver observer,
             boolean internal, List<String> options, Charset fileCharset, CompileType type);
 
+    /**
+     * Compile some source files, keeping the generated classes in memory rather than
+     * writing them to the destination directory. Nothing is written to disk; the
+     * sources may be given entirely from memory. Classes needed by the sources are
+     * read (but not compiled) from the class path and source path.
+     * 
+     * @param sources
+     *            The files to compile (they need not exist on disk)
+     * @param sourceContents
+     *            Content to use in place of the content of some of the source files
+     * @param classOutput
+     *            A map which will receive the generated classes, from binary class
+     *            name to class file bytes
+     * @param observer
+     *            The compilation observer
+     * @param internal
+     *            True if compiling BlueJ-generated code (shell files); false if
+     *            compiling user code
+     * @param options
+     *            Option strings to pass to the compiler
+     * @param fileCharset
+     *            The character set in which source files are encoded 
+     * 
+     * @return  true if the compilation was successful
+     */
+    public abstract boolean compileToMemory(File[] sources, Map<File, String> sourceContents,
+            Map<String, byte[]> classOutput, CompileObserver observer, boolean internal,
+            List<String> options, Charset fileCharset, CompileType type);
+
+    /**
+     * Check some source files for errors, without generating any class files. Errors
+     * and warnings are reported to the observer as for compile(). The check may stop
+     * early if the compilation is cancelled (see setCancellationCheck()).
+     * 
+     * @param sources
+     *            The files to check
+     * @param unsavedSources
+     *            Content to use in place of the content of some of the source files
+     *            (for instance, because the content has not been saved yet)
+     * @param observer
+     *            The compilation observer
+     * @param internal
+     *            True if checking BlueJ-generated code (shell files); false if
+     *            checking user code
+     * @param options
+     *            Option strings to pass to the compiler
+     * @param fileCharset
+     *            The character set in which source files are encoded 
+     * 
+     * @return  true if no errors were found
+     */
+    public abstract boolean analyse(File[] sources, Map<File, String> unsavedSources, CompileObserver observer,
+            boolean internal, List<String> options, Charset fileCharset, CompileType type);
+
+    /**
+     * Release any resources held for compiling the project in the given directory,
+     * which has been closed.
+     */
+    public void projectClosed(File projectDir)
+    {
+    }
 }
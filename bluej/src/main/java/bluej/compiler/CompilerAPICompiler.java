@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2018  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2018,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -30,18 +30,31 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticListener;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
 import bluej.Config;
 import bluej.compiler.Diagnostic.DiagnosticOrigin;
+import bluej.utility.Debug;
+import bluej.utility.FileUtility;
 
 /**
  * A compiler implementation using the Compiler API introduced in Java 6.
@@ -52,6 +65,11 @@ public class CompilerAPICompiler extends Compiler
 {
     private static final AtomicInteger nextDiagnosticIdentifier = new AtomicInteger(1);
 
+    /** The system compiler; obtained on first use */
+    private JavaCompiler systemCompiler;
+    /** Cached file managers, shared by the compilers of all compiler threads */
+    private static final FileManagerCache fileManagers = new FileManagerCache();
+
     public CompilerAPICompiler()
     {
         setDebug(true);
@@ -77,17 +95,310 @@ public class CompilerAPICompiler extends Compiler
             final boolean internal, List<String> userOptions, Charset fileCharset, CompileType type)
     {
         boolean result = true;
-        JavaCompiler jc = ToolProvider.getSystemJavaCompiler();
-        List<String> optionsList = new ArrayList<String>();
+        JavaCompiler jc = getSystemCompiler(observer, type);
+        if (jc == null) {
+            return false;
+        }
+        
+        DiagnosticListener<JavaFileObject> diagListener = makeDiagnosticListener(sources, observer, internal, type);
+        FileManagerCache.Entry fileManager = null;
+        
+        try
+        {  
+            //setup the filemanager
+            fileManager = acquireFileManager(fileCharset, userOptions);
+            StandardJavaFileManager sjfm = fileManager.getFileManager();
+            File tempDir = null;
+            if (type.keepClasses())
+            {
+                sjfm.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(getDestDir()));
+            }
+            else
+            {
+                // We could make a new file manager that memory-mapped the output files
+                // and discarded them... but creating a temporary dir is much more
+                // straightforward:
+                tempDir = Files.createTempDirectory("bluej").toFile();
+                sjfm.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(tempDir));
+            }
+            
+            //get the source files for compilation  
+            Iterable<? extends JavaFileObject> compilationUnits1 =
+                sjfm.getJavaFileObjectsFromFiles(Arrays.asList(sources));
+            
+            //compile
+            CompilationTask task = jc.getTask(null, sjfm, diagListener, getOptions(userOptions), null, compilationUnits1);
+            CompileTimings timings = addTimings(task);
+            result = task.call();
+            reportTimings("Compiled", sources, fileManager, timings);
+            if (tempDir != null)
+                tempDir.delete();
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace(System.out);
+            return false;
+        }
+        finally
+        {
+            if (fileManager != null) {
+                fileManagers.release(fileManager);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Compile some source files, with the generated classes captured in memory (via a
+     * file manager which forwards everything but class output to the cached file manager).
+     * Classes which are needed by the sources are not compiled implicitly, since their
+     * class files would not be written.
+     */
+    @Override
+    public boolean compileToMemory(final File[] sources, Map<File, String> sourceContents,
+            Map<String, byte[]> classOutput, final CompileObserver observer, final boolean internal,
+            List<String> userOptions, Charset fileCharset, CompileType type)
+    {
+        JavaCompiler jc = getSystemCompiler(observer, type);
+        if (jc == null) {
+            return false;
+        }
+        
+        DiagnosticListener<JavaFileObject> diagListener = makeDiagnosticListener(sources, observer, internal, type);
+        FileManagerCache.Entry fileManager = null;
+        try
+        {
+            fileManager = acquireFileManager(fileCharset, userOptions);
+            StandardJavaFileManager sjfm = fileManager.getFileManager();
+            JavaFileManager memoryManager = new ForwardingJavaFileManager<JavaFileManager>(sjfm) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className,
+                        JavaFileObject.Kind kind, FileObject sibling) throws IOException
+                {
+                    if (location == StandardLocation.CLASS_OUTPUT && kind == JavaFileObject.Kind.CLASS) {
+                        return new MemoryClassFile(className, classOutput);
+                    }
+                    return super.getJavaFileForOutput(location, className, kind, sibling);
+                }
+                
+                @Override
+                public void close()
+                {
+                    // The underlying file manager is cached, and must stay open
+                }
+            };
+            
+            List<JavaFileObject> compilationUnits = new ArrayList<>();
+            for (File source : sources) {
+                String content = sourceContents.get(source);
+                if (content != null) {
+                    compilationUnits.add(new MemorySourceFile(source, content));
+                }
+                else {
+                    sjfm.getJavaFileObjects(source).forEach(compilationUnits::add);
+                }
+            }
+            
+            List<String> optionsList = getOptions(userOptions);
+            optionsList.add("-implicit:none");
+            
+            CompilationTask task = jc.getTask(null, memoryManager, diagListener, optionsList, null, compilationUnits);
+            CompileTimings timings = addTimings(task);
+            boolean result = task.call();
+            reportTimings("Compiled (to memory)", sources, fileManager, timings);
+            return result;
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace(System.out);
+            return false;
+        }
+        finally
+        {
+            if (fileManager != null) {
+                fileManagers.release(fileManager);
+            }
+        }
+    }
+
+    /**
+     * Check some source files for errors. The compiler is stopped once the sources have
+     * been analysed (attributed and flow-checked), so no class files are generated, and
+     * nothing is written to disk. Sources with unsaved content are given to the compiler
+     * from memory.
+     * 
+     * <p>Annotation processing is disabled, since processors may want to write files.
+     */
+    @Override
+    public boolean analyse(final File[] sources, Map<File, String> unsavedSources, final CompileObserver observer,
+            final boolean internal, List<String> userOptions, Charset fileCharset, CompileType type)
+    {
+        JavaCompiler jc = getSystemCompiler(observer, type);
+        if (jc == null) {
+            return false;
+        }
+        
+        AtomicBoolean errorReported = new AtomicBoolean(false);
+        DiagnosticListener<JavaFileObject> bjListener = makeDiagnosticListener(sources, observer, internal, type);
+        DiagnosticListener<JavaFileObject> diagListener = diag -> {
+            if (diag.getKind() == Diagnostic.Kind.ERROR) {
+                errorReported.set(true);
+            }
+            bjListener.report(diag);
+        };
         
+        FileManagerCache.Entry fileManager = null;
+        try
+        {
+            fileManager = acquireFileManager(fileCharset, userOptions);
+            StandardJavaFileManager sjfm = fileManager.getFileManager();
+            
+            List<JavaFileObject> compilationUnits = new ArrayList<>();
+            for (File source : sources) {
+                String content = unsavedSources.get(source);
+                if (content != null) {
+                    compilationUnits.add(new MemorySourceFile(source, content));
+                }
+                else {
+                    sjfm.getJavaFileObjects(source).forEach(compilationUnits::add);
+                }
+            }
+            
+            List<String> optionsList = getOptions(userOptions);
+            optionsList.add("-proc:none");
+            
+            boolean result;
+            CompilationTask task = jc.getTask(null, sjfm, diagListener, optionsList, null, compilationUnits);
+            CompileTimings timings = addTimings(task);
+            if (task instanceof JavacTask) {
+                ((JavacTask) task).addTaskListener(new TaskListener() {
+                    @Override
+                    public void started(TaskEvent e)
+                    {
+                        if (isCancelled()) {
+                            // Abandons the compilation:
+                            throw new CancellationException();
+                        }
+                    }
+                });
+                try {
+                    ((JavacTask) task).analyze();
+                }
+                catch (RuntimeException e) {
+                    if (e.getCause() instanceof CancellationException) {
+                        setTimings(timings);
+                        Debug.message("Cancelled analysis of " + sources.length + " file(s) after " + timings.describe());
+                        return false;
+                    }
+                    throw e;
+                }
+                result = !errorReported.get();
+                reportTimings("Analysed", sources, fileManager, timings);
+            }
+            else {
+                // Not javac (never expected); we can only do a full compilation, into
+                // a temporary directory:
+                File tempDir = Files.createTempDirectory("bluej").toFile();
+                sjfm.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(tempDir));
+                result = jc.getTask(null, sjfm, diagListener, optionsList, null, compilationUnits).call();
+                FileUtility.deleteDir(tempDir);
+            }
+            return result;
+        }
+        catch (IOException | IllegalStateException e)
+        {
+            // IllegalStateException can be thrown by analyze() if the compiler itself failed
+            e.printStackTrace(System.out);
+            return false;
+        }
+        finally
+        {
+            if (fileManager != null) {
+                fileManagers.release(fileManager);
+            }
+        }
+    }
+
+    @Override
+    public void projectClosed(File projectDir)
+    {
+        fileManagers.discard(projectDir);
+    }
+
+    /**
+     * Get the system Java compiler. If it is not available, reports an error to
+     * the observer and returns null.
+     */
+    private JavaCompiler getSystemCompiler(CompileObserver observer, CompileType type)
+    {
+        if (systemCompiler == null) {
+            systemCompiler = ToolProvider.getSystemJavaCompiler();
+        }
+        JavaCompiler jc = systemCompiler;
         if (jc == null) {
             // We'd expect that this should never happen, but it's been reported once.
             observer.compilerMessage(new bluej.compiler.Diagnostic(bluej.compiler.Diagnostic.ERROR,
                     "The compiler does not appear to be available."), type);
-            return false;
         }
-        
-        DiagnosticListener<JavaFileObject> diagListener = new DiagnosticListener<JavaFileObject>() {
+        return jc;
+    }
+
+    /**
+     * Get a file manager (with the source path, class path and boot class path set) for
+     * the current configuration, re-using a cached one if possible. It must be released
+     * once the compilation is done.
+     */
+    private FileManagerCache.Entry acquireFileManager(Charset fileCharset, List<String> userOptions) throws IOException
+    {
+        return fileManagers.acquire(systemCompiler, getDestDir(), getClassPath(), getBootClassPath(),
+                fileCharset, userOptions);
+    }
+
+    /**
+     * Start recording the time taken by each phase of a compilation task.
+     */
+    private static CompileTimings addTimings(CompilationTask task)
+    {
+        CompileTimings timings = new CompileTimings();
+        if (task instanceof JavacTask) {
+            ((JavacTask) task).addTaskListener(timings);
+        }
+        return timings;
+    }
+
+    private void reportTimings(String action, File[] sources, FileManagerCache.Entry fileManager,
+            CompileTimings timings)
+    {
+        setTimings(timings);
+        Debug.message(action + " " + sources.length + " file(s) in " + timings.describe()
+                + (fileManager.isReused() ? " with cached file manager" : " with new file manager"));
+    }
+
+    /**
+     * Get the full list of options to pass to the compiler.
+     */
+    private List<String> getOptions(List<String> userOptions)
+    {
+        List<String> optionsList = new ArrayList<String>();
+        if(isDebug()) {
+            optionsList.add("-g");
+        }
+        if(isDeprecation()) {
+            optionsList.add("-deprecation");
+        }
+        optionsList.addAll(userOptions);
+        return optionsList;
+    }
+
+    /**
+     * Make a listener which converts compiler diagnostics to BlueJ diagnostics, and
+     * passes them to the observer.
+     */
+    private DiagnosticListener<JavaFileObject> makeDiagnosticListener(final File[] sources,
+            final CompileObserver observer, final boolean internal, final CompileType type)
+    {
+        return new DiagnosticListener<JavaFileObject>() {
             @Override
             public void report(Diagnostic<? extends JavaFileObject> diag)
             {
@@ -180,65 +491,6 @@ public class CompilerAPICompiler extends Compiler
                     observer.compilerMessage(bjDiagnostic, type);
             }
         };
-        
-        try
-        {  
-            //setup the filemanager
-            StandardJavaFileManager sjfm = jc.getStandardFileManager(diagListener, null, fileCharset);
-            List<File> pathList = new ArrayList<File>();
-            List<File> outputList = new ArrayList<File>();
-            outputList.add(getDestDir());
-            pathList.addAll(getClassPath());
-            
-            // In BlueJ, the destination directory and the source path are
-            // always the same
-            sjfm.setLocation(StandardLocation.SOURCE_PATH, outputList);
-            sjfm.setLocation(StandardLocation.CLASS_PATH, pathList);
-            File tempDir = null;
-            if (type.keepClasses())
-            {
-                sjfm.setLocation(StandardLocation.CLASS_OUTPUT, outputList);
-            }
-            else
-            {
-                // We could make a new file manager that memory-mapped the output files
-                // and discarded them... but creating a temporary dir is much more
-                // straightforward:
-                tempDir = Files.createTempDirectory("bluej").toFile();
-                sjfm.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(tempDir));
-            }
-            
-            //get the source files for compilation  
-            Iterable<? extends JavaFileObject> compilationUnits1 =
-                sjfm.getJavaFileObjectsFromFiles(Arrays.asList(sources));
-            //add any options
-            if(isDebug()) {
-                optionsList.add("-g");
-            }
-            if(isDeprecation()) {
-                optionsList.add("-deprecation");
-            }
-            
-            File[] bootClassPath = getBootClassPath();
-            if (bootClassPath != null && bootClassPath.length != 0) {
-                sjfm.setLocation(StandardLocation.PLATFORM_CLASS_PATH, Arrays.asList(bootClassPath));
-            }
-            
-            optionsList.addAll(userOptions);
-            
-            //compile
-            result = jc.getTask(null, sjfm, diagListener, optionsList, null, compilationUnits1).call();
-            sjfm.close();
-            if (tempDir != null)
-                tempDir.delete();
-        }
-        catch(IOException e)
-        {
-            e.printStackTrace(System.out);
-            return false;
-        }
-
-        return result;
     }
 
     /**
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2014  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2014,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,74 +21,46 @@
  */
 package bluej.compiler;
 
-import threadchecker.OnThread;
-import threadchecker.Tag;
 import bluej.Config;
-import bluej.utility.Queue;
 
 /**
- * The compiler thread. BlueJ uses exactly one thread for compilation. Jobs are
- * queued, and this thread processes tham one by one. If there is no job, this
- * thread just sleeps.
+ * A compiler thread. BlueJ uses a small number of these threads for compilation.
+ * Each takes jobs from the JobQueue, and processes them one by one, using its
+ * own compiler. If there is no job, the thread just sleeps.
  * 
  * @author Michael Cahill
  * @author Michael Kolling
  */
 class CompilerThread extends Thread
 {
-    private Queue jobs;
-    private boolean busy = true;
+    private final JobQueue queue;
+    private final Compiler compiler;
 
     /**
-     * Create a new compiler thread that holds its own job queue.
+     * Create a new compiler thread that takes jobs from the given queue.
      */
-    public CompilerThread()
+    public CompilerThread(JobQueue queue, Compiler compiler)
     {
         super(Config.getString("compiler.thread.title"));
-        jobs = new Queue();
+        this.queue = queue;
+        this.compiler = compiler;
     }
 
     /**
      * Start running this thread. The compiler thread will run infinitely in a
      * loop. It will compile jobs as long as there are any jobs pending, and
-     * then wait for new jobs to be scheduled. New jobs are scheduled using the
-     * addJob method.
+     * then wait for new jobs to be scheduled.
      */
     public void run()
     {
-        Job job;
         while (true) {
-            synchronized (this) {
-                while ((job = (Job) jobs.dequeue()) == null) {
-                    busy = false;
-                    notifyAll();
-                    try {
-                        wait();
-                    }
-                    catch (InterruptedException e) {}
-                }
+            Job job = queue.takeJob();
+            try {
+                job.compile(compiler);
+            }
+            finally {
+                queue.jobFinished(job, compiler.takeTimings());
             }
-
-            job.compile();
         }
     }
-
-    /**
-     * Add a new job to this thread's job queue. The job will be processed by
-     * this thread some tim ein the near future. This method returns
-     * immediately.
-     */
-    @OnThread(Tag.Any)
-    public synchronized void addJob(Job job)
-    {
-        jobs.enqueue(job);
-        busy = true;
-        notifyAll();
-    }
-
-    @OnThread(Tag.Any)
-    public boolean isBusy()
-    {
-        return busy;
-    }
-}
\ No newline at end of file
+}
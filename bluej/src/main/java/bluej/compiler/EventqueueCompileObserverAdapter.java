@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2012,2014,2016  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2012,2014,2016,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -98,4 +98,10 @@ final public class EventqueueCompileObserverAdapter implements CompileObserver
     {
         runOnEventQueue(() -> link.endCompile(sources, successful, type, compilationSequence));
     }
+
+    @Override
+    public synchronized void compileCancelled(CompileInputFile[] sources, CompileType type)
+    {
+        runOnEventQueue(() -> link.compileCancelled(sources, type));
+    }
 }
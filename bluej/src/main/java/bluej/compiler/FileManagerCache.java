@@ -0,0 +1,270 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A cache of compiler file managers, one per project (up to a limit). Creating a new file
+ * manager for each compilation means that every jar on the class path (JUnit, JavaFX,
+ * libraries in +libs, etc) is opened and indexed again each time; a cached file manager
+ * keeps the jars open, with their indexes, between compilations.
+ * 
+ * <p>A cached file manager is only re-used if the configuration (class path, character set
+ * and options) is the same as when it was created, and none of the jars on the class path
+ * have changed since; otherwise it is closed and replaced.
+ * 
+ * <p>File managers are acquired and released on compiler threads; the file manager for a
+ * project is only used by one compilation at a time. If another compilation for the same
+ * project needs a file manager while the cached one is in use, it is given a new file
+ * manager which is closed when it is released. Discarding the file manager for a
+ * project (when the project is closed) can happen on any thread.
+ * 
+ * <p>The class output location of a file manager is set to the project directory while it
+ * is not in use; a compilation which changes it (to a temporary directory, say) has it
+ * reset when the file manager is released.
+ */
+@OnThread(Tag.Any)
+class FileManagerCache
+{
+    /** The maximum number of projects for which to keep a file manager */
+    private static final int MAX_ENTRIES = 4;
+
+    private final Map<File, Entry> entries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true);
+
+    /**
+     * Get a file manager for the given configuration, creating one if a suitable one
+     * is not cached. The file manager must be passed to release() once the compilation
+     * is finished.
+     * 
+     * @param projectDir  The project directory, which is used as the source path
+     */
+    synchronized Entry acquire(JavaCompiler jc, File projectDir, List<File> classPath, File[] bootClassPath,
+            Charset charset, List<String> options) throws IOException
+    {
+        Configuration config = new Configuration(classPath, bootClassPath, charset, options);
+        Entry entry = entries.get(projectDir);
+        if (entry != null && entry.configuration.equals(config)) {
+            if (entry.inUse) {
+                // Another compilation is using the cached file manager, which is still
+                // good; this one gets a file manager of its own:
+                return createEntry(jc, projectDir, classPath, bootClassPath, charset, config, false);
+            }
+            entry.inUse = true;
+            entry.reused = true;
+            return entry;
+        }
+        if (entry != null) {
+            // Configuration changed (or a library was modified); start again:
+            entries.remove(projectDir);
+            discard(entry);
+        }
+
+        entry = createEntry(jc, projectDir, classPath, bootClassPath, charset, config, true);
+        entries.put(projectDir, entry);
+
+        // Keep to the limit, closing the least recently used file managers:
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            Entry old = it.next();
+            if (!old.inUse) {
+                it.remove();
+                discard(old);
+            }
+        }
+        return entry;
+    }
+
+    private static Entry createEntry(JavaCompiler jc, File projectDir, List<File> classPath, File[] bootClassPath,
+            Charset charset, Configuration config, boolean cached) throws IOException
+    {
+        StandardJavaFileManager sjfm = jc.getStandardFileManager(null, null, charset);
+        // In BlueJ, the destination directory and the source path are
+        // always the same
+        sjfm.setLocation(StandardLocation.SOURCE_PATH, Arrays.asList(projectDir));
+        sjfm.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(projectDir));
+        sjfm.setLocation(StandardLocation.CLASS_PATH, new ArrayList<File>(classPath));
+        if (bootClassPath != null && bootClassPath.length != 0) {
+            sjfm.setLocation(StandardLocation.PLATFORM_CLASS_PATH, Arrays.asList(bootClassPath));
+        }
+        Entry entry = new Entry(sjfm, projectDir, config);
+        entry.inUse = true;
+        // A file manager which isn't cached is closed as soon as it is released:
+        entry.discarded = !cached;
+        return entry;
+    }
+
+    /**
+     * Release a file manager obtained from acquire(), so that it can be re-used by a later
+     * compilation (or closed, if it has been discarded in the meantime, or was never cached).
+     */
+    synchronized void release(Entry entry)
+    {
+        entry.inUse = false;
+        if (entry.discarded) {
+            close(entry);
+        }
+        else {
+            try {
+                entry.fileManager.flush();
+                // The compilation may have sent its output elsewhere (to a temporary
+                // directory which is now deleted, for example):
+                entry.fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(entry.projectDir));
+            }
+            catch (IOException ioe) {
+                Debug.reportError("Error resetting compiler file manager", ioe);
+                entries.remove(entry.projectDir, entry);
+                discard(entry);
+            }
+        }
+    }
+
+    /**
+     * Close the file manager for the given project (if any). If it is in use, it will
+     * be closed once the compilation is finished.
+     */
+    synchronized void discard(File projectDir)
+    {
+        Entry entry = entries.remove(projectDir);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    private void discard(Entry entry)
+    {
+        entry.discarded = true;
+        if (!entry.inUse) {
+            close(entry);
+        }
+    }
+
+    private static void close(Entry entry)
+    {
+        try {
+            entry.fileManager.close();
+        }
+        catch (IOException ioe) {
+            Debug.reportError("Error closing compiler file manager", ioe);
+        }
+    }
+
+    /**
+     * A cached file manager.
+     */
+    @OnThread(Tag.Any)
+    static class Entry
+    {
+        private final StandardJavaFileManager fileManager;
+        private final File projectDir;
+        private final Configuration configuration;
+        private boolean inUse;
+        private boolean discarded;
+        private boolean reused;
+
+        private Entry(StandardJavaFileManager fileManager, File projectDir, Configuration configuration)
+        {
+            this.fileManager = fileManager;
+            this.projectDir = projectDir;
+            this.configuration = configuration;
+        }
+
+        StandardJavaFileManager getFileManager()
+        {
+            return fileManager;
+        }
+
+        /**
+         * Whether the file manager had been used by a previous compilation.
+         */
+        boolean isReused()
+        {
+            return reused;
+        }
+    }
+
+    /**
+     * The configuration of a file manager, including the size and modification time of
+     * each file on the class path (so that a changed jar is re-read).
+     */
+    @OnThread(Tag.Any)
+    private static class Configuration
+    {
+        private final List<File> classPath;
+        private final List<File> bootClassPath;
+        private final Charset charset;
+        private final List<String> options;
+        private final long[] stamps;
+
+        private Configuration(List<File> classPath, File[] bootClassPath, Charset charset, List<String> options)
+        {
+            this.classPath = new ArrayList<>(classPath);
+            this.bootClassPath = bootClassPath == null ? List.of() : Arrays.asList(bootClassPath.clone());
+            this.charset = charset;
+            this.options = new ArrayList<>(options);
+            this.stamps = new long[this.classPath.size() * 2];
+            for (int i = 0; i < this.classPath.size(); i++) {
+                File f = this.classPath.get(i);
+                // Directories are read afresh by each compilation anyway:
+                if (f.isFile()) {
+                    stamps[i * 2] = f.length();
+                    stamps[i * 2 + 1] = f.lastModified();
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Configuration)) {
+                return false;
+            }
+            Configuration other = (Configuration) o;
+            return classPath.equals(other.classPath) && bootClassPath.equals(other.bootClassPath)
+                    && Objects.equals(charset, other.charset) && options.equals(other.options)
+                    && Arrays.equals(stamps, other.stamps);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return classPath.hashCode();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2016,2020,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2016,2020,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,8 +23,12 @@ package bluej.compiler;
 
 import java.io.File;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import bluej.Config;
@@ -32,16 +36,16 @@ import bluej.classmgr.BPClassLoader;
 
 /**
  * A compiler "job". A list of filenames to compile + parameters.
- * Jobs are held in a queue by the CompilerThread, which compiles them
+ * Jobs are held in a queue by the JobQueue, and compiled by a CompilerThread
  * by running the job's "compile" method.
+ * 
+ * <p>A job which only checks for errors (one whose type does not keep the
+ * generated classes) may be cancelled, before or while it is being compiled,
+ * once its results are no longer wanted.
  *
  * @author  Michael Cahill
  */
-record Job(CompileInputFile[] sources, Compiler compiler, CompileObserver observer, BPClassLoader bpClassLoader, File destDir,
-           boolean internal, // true for compiling shell files,
-                             // or user files if we want to suppress
-                             // "unchecked" warnings, false otherwise
-           List<String> userCompileOptions, Charset fileCharset, CompileType type, CompileReason reason)
+final class Job
 {
     /**
      * Generator for unique ascending compilation identifiers.  It doesn't matter if it's shared between
@@ -50,11 +54,56 @@ record Job(CompileInputFile[] sources, Compiler compiler, CompileObserver observ
      */
     private static final AtomicInteger nextCompilationSequence = new AtomicInteger(1);
 
+    private final CompileInputFile[] sources;
+    private final CompileObserver observer;
+    private final BPClassLoader bpClassLoader;
+    private final File destDir;
+    private final boolean internal; // true for compiling shell files,
+                                    // or user files if we want to suppress
+                                    // "unchecked" warnings, false otherwise
+    private final List<String> userCompileOptions;
+    private final Charset fileCharset;
+    private final CompileType type;
+    private final CompileReason reason;
+    private final Map<File, String> unsavedSources; // content of sources which have not been saved
+    private final Map<String, byte[]> classOutput; // receives the classes, if they are kept in memory
+    private final long queuedTime = System.currentTimeMillis();
+
+    // The sources which have been modified since the job was queued (only tracked
+    // if the job can be cancelled).  Accessed only while synchronized on the JobQueue.
+    private final Set<File> modifiedSources = new HashSet<>();
+    private volatile boolean cancelled = false;
+
+    Job(CompileInputFile[] sources, CompileObserver observer, BPClassLoader bpClassLoader, File destDir,
+            boolean internal, List<String> userCompileOptions, Charset fileCharset, CompileType type,
+            CompileReason reason, Map<File, String> unsavedSources, Map<String, byte[]> classOutput)
+    {
+        this.sources = sources;
+        this.observer = observer;
+        this.bpClassLoader = bpClassLoader;
+        this.destDir = destDir;
+        this.internal = internal;
+        this.userCompileOptions = userCompileOptions;
+        this.fileCharset = fileCharset;
+        this.type = type;
+        this.reason = reason;
+        this.unsavedSources = unsavedSources;
+        this.classOutput = classOutput;
+    }
+
     /**
-     * Compile this job
+     * Compile this job, using the given compiler.
      */
-    public void compile()
+    public void compile(Compiler compiler)
     {
+        if (cancelled) {
+            // Never started; just let the observer know it's not going to happen:
+            if (observer != null) {
+                observer.compileCancelled(sources, type);
+            }
+            return;
+        }
+
         int compilationSequence = nextCompilationSequence.getAndIncrement();
 
         try {
@@ -70,16 +119,30 @@ record Job(CompileInputFile[] sources, Compiler compiler, CompileObserver observ
 
             compiler.setBootClassPath(null);
 
-            File[] actualSourceFiles = new File[sources.length];
-            for (int i = 0; i < sources.length; i++)
-            {
-                actualSourceFiles[i] = sources[i].getJavaCompileInputFile();
-            }
+            File[] actualSourceFiles = getJavaSourceFiles();
 
-            boolean successful = compiler.compile(actualSourceFiles, observer, internal, userCompileOptions, fileCharset, type);
+            boolean successful;
+            if (classOutput != null) {
+                successful = compiler.compileToMemory(actualSourceFiles, unsavedSources, classOutput, observer,
+                        internal, userCompileOptions, fileCharset, type);
+            }
+            else if (type.keepClasses()) {
+                successful = compiler.compile(actualSourceFiles, observer, internal, userCompileOptions, fileCharset, type);
+            }
+            else {
+                // The classes would be thrown away, so there is no need to generate them:
+                compiler.setCancellationCheck(() -> cancelled);
+                successful = compiler.analyse(actualSourceFiles, unsavedSources, observer, internal, userCompileOptions, fileCharset, type);
+                compiler.setCancellationCheck(null);
+            }
 
-            if(observer != null) {
-                observer.endCompile(sources, successful, type, compilationSequence);
+            if (observer != null) {
+                if (cancelled) {
+                    observer.compileCancelled(sources, type);
+                }
+                else {
+                    observer.endCompile(sources, successful, type, compilationSequence);
+                }
             }
         } catch(Exception e) {
             System.err.println(Config.getString("compileException") + ": " + e);
@@ -89,4 +152,77 @@ record Job(CompileInputFile[] sources, Compiler compiler, CompileObserver observ
             }
         }
     }
+
+    /**
+     * Get the project (or other) directory into which classes are compiled. Jobs with
+     * the same destination are compiled one at a time, in the order they were queued.
+     */
+    File getDestDir()
+    {
+        return destDir;
+    }
+
+    CompileType getType()
+    {
+        return type;
+    }
+
+    /**
+     * Get the time at which this job was queued (as per System.currentTimeMillis()).
+     */
+    long getQueuedTime()
+    {
+        return queuedTime;
+    }
+
+    /**
+     * Check whether this job can be cancelled: only jobs which are just checking for
+     * errors can be.
+     */
+    boolean isCancellable()
+    {
+        return !type.keepClasses();
+    }
+
+    void cancel()
+    {
+        cancelled = true;
+    }
+
+    boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * Record that a source file has been modified. Returns true if all the sources in the
+     * job have now been modified since the job was queued, in which case the results of
+     * the job would be of no use.
+     */
+    boolean sourceModified(File javaSourceFile)
+    {
+        if (Arrays.asList(getJavaSourceFiles()).contains(javaSourceFile)) {
+            modifiedSources.add(javaSourceFile);
+        }
+        return modifiedSources.size() == sources.length;
+    }
+
+    /**
+     * Check whether this job compiles all of the (Java) source files of the given job.
+     */
+    boolean includesAllSourcesOf(Job other)
+    {
+        return Objects.equals(destDir, other.destDir)
+                && Arrays.asList(getJavaSourceFiles()).containsAll(Arrays.asList(other.getJavaSourceFiles()));
+    }
+
+    private File[] getJavaSourceFiles()
+    {
+        File[] actualSourceFiles = new File[sources.length];
+        for (int i = 0; i < sources.length; i++)
+        {
+            actualSourceFiles[i] = sources[i].getJavaCompileInputFile();
+        }
+        return actualSourceFiles;
+    }
 }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2012,2013,2016  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2012,2013,2016,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,7 +24,14 @@ package bluej.compiler;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.sun.source.util.TaskEvent;
 
 import bluej.Config;
 import bluej.classmgr.BPClassLoader;
@@ -34,6 +41,14 @@ import bluej.utility.Utility;
 /**
  * Reasonably generic interface between the BlueJ IDE and the Java compiler.
  * 
+ * <p>Compile jobs are queued, and run by a small pool of compiler threads. Jobs which
+ * compile into the same directory (i.e. for the same project) are run one at a time, in
+ * the order they were queued; jobs for different projects may run at the same time.
+ * 
+ * <p>Jobs which only check for errors are cancelled if they are superseded before they
+ * are complete: that is, if a job is queued which compiles all the same sources, or if all
+ * of their sources are modified (see sourceModified()).
+ * 
  * @author Michael Cahill
  */
 public class JobQueue
@@ -50,23 +65,51 @@ public class JobQueue
 
     // ---- instance ----
 
-    private CompilerThread thread = null;
-    private Compiler compiler = null;
+    /** The number of compiler threads. Compilation uses a lot of memory, so we keep this low. */
+    private static final int THREAD_COUNT = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    private final List<Compiler> compilers = new ArrayList<>();
+    /** Jobs waiting to be run, in the order they were queued */
+    private final LinkedList<Job> pending = new LinkedList<>();
+    /** Jobs being run */
+    private final List<Job> running = new ArrayList<>();
+
+    // Metrics:
+    private long jobsStarted = 0;
+    private long jobsCancelled = 0;
+    private long totalWaitMillis = 0;
+    private long maxWaitMillis = 0;
+    private long parseMillis = 0;
+    private long analyzeMillis = 0;
+    private long generateMillis = 0;
 
     /**
      * Construct the JobQueue. This is private; use getJobQueue() to get the job queue instance.
      */
     private JobQueue()
     {
-        compiler = new CompilerAPICompiler();
-        thread = new CompilerThread();
+        this(THREAD_COUNT);
+    }
 
+    /**
+     * Construct a JobQueue with the given number of compiler threads.  With none, jobs are
+     * only taken from the queue by calling takeJob().
+     * 
+     * Package-visible for testing.
+     */
+    JobQueue(int threadCount)
+    {
         // Lower priority to improve GUI response time during compilation
         int priority = Thread.currentThread().getPriority() - 1;
         priority = Math.max(priority, Thread.MIN_PRIORITY);
-        thread.setPriority(priority);
 
-        thread.start();
+        for (int i = 0; i < threadCount; i++) {
+            Compiler compiler = new CompilerAPICompiler();
+            compilers.add(compiler);
+            CompilerThread thread = new CompilerThread(this, compiler);
+            thread.setPriority(priority);
+            thread.start();
+        }
     }
 
     /**
@@ -81,27 +124,184 @@ public class JobQueue
      */
     public void addJob(CompileInputFile[] sources, CompileObserver observer, BPClassLoader bpClassLoader, File destDir,
             boolean suppressUnchecked, Charset fileCharset, CompileReason reason, CompileType type)
+    {
+        addJob(sources, observer, bpClassLoader, destDir, suppressUnchecked, fileCharset, reason, type, Collections.emptyMap());
+    }
+
+    /**
+     * Adds a job to the compile queue, with the content of some sources supplied directly
+     * rather than read from disk. The supplied content is only used if the compile
+     * type does not keep the generated classes (see CompileType.keepClasses()); in that
+     * case the sources are only checked for errors, and no class files are generated.
+     * 
+     * @param unsavedSources  Content to use in place of that of the given (Java) source files
+     */
+    public void addJob(CompileInputFile[] sources, CompileObserver observer, BPClassLoader bpClassLoader, File destDir,
+            boolean suppressUnchecked, Charset fileCharset, CompileReason reason, CompileType type,
+            Map<File, String> unsavedSources)
+    {
+        addJob(sources, observer, bpClassLoader, destDir, suppressUnchecked, fileCharset, reason, type,
+                unsavedSources, null);
+    }
+
+    /**
+     * Adds a job to the compile queue, which compiles the sources (whose content may be
+     * supplied directly) to classes held in memory. Nothing is written to the destination
+     * directory; the generated classes are put into the given map (binary class name to
+     * class file bytes) before the observer is notified that the compilation has ended.
+     * 
+     * @param sourceContents  Content to use in place of that of the given (Java) source files
+     * @param classOutput     The map to receive the compiled classes, or null to compile
+     *                        as normal
+     */
+    public void addJob(CompileInputFile[] sources, CompileObserver observer, BPClassLoader bpClassLoader, File destDir,
+            boolean suppressUnchecked, Charset fileCharset, CompileReason reason, CompileType type,
+            Map<File, String> sourceContents, Map<String, byte[]> classOutput)
     {
         List<String> options = new ArrayList<String>();
         String optionString = Config.getPropString(Compiler.COMPILER_OPTIONS, "");
         options.addAll(Utility.dequoteCommandLine(optionString));
         
-        thread.addJob(new Job(sources, compiler, observer, bpClassLoader,
-                destDir, suppressUnchecked, options, fileCharset, type, reason));
+        Job job = new Job(sources, observer, bpClassLoader,
+                destDir, suppressUnchecked, options, fileCharset, type, reason, sourceContents, classOutput);
+
+        synchronized (this) {
+            // A queued error check is superseded by a new job compiling the same sources:
+            for (Job p : pending) {
+                if (p.isCancellable() && !p.isCancelled() && job.includesAllSourcesOf(p)) {
+                    p.cancel();
+                    jobsCancelled++;
+                }
+            }
+            pending.add(job);
+            notifyAll();
+        }
     }
 
     /**
-     * Wait until the compiler job queue is empty, then return.
+     * Notify the queue that a source file has been modified. Any job which is only
+     * checking for errors, all of whose sources have been modified since the job was
+     * queued, is cancelled (since its results would be out of date).
+     * 
+     * @param javaSourceFile  The Java source file (as compiled) which was modified
      */
-    public void waitForEmptyQueue()
+    public synchronized void sourceModified(File javaSourceFile)
     {
-        synchronized (thread) {
-            while (thread.isBusy()) {
-                try {
-                    thread.wait();
+        for (Job job : pending) {
+            cancelIfModified(job, javaSourceFile);
+        }
+        for (Job job : running) {
+            cancelIfModified(job, javaSourceFile);
+        }
+    }
+
+    private void cancelIfModified(Job job, File javaSourceFile)
+    {
+        if (job.isCancellable() && !job.isCancelled() && job.sourceModified(javaSourceFile)) {
+            job.cancel();
+            jobsCancelled++;
+        }
+    }
+
+    /**
+     * Wait for a job which can be run, and take it from the queue. Called by compiler threads.
+     * The job must be passed to jobFinished() once it is done.
+     */
+    synchronized Job takeJob()
+    {
+        while (true) {
+            for (Iterator<Job> it = pending.iterator(); it.hasNext(); ) {
+                Job job = it.next();
+                // Cancelled jobs are just discarded (the observer is notified), so can go at any time:
+                if (job.isCancelled() || running.stream().noneMatch(r -> Objects.equals(r.getDestDir(), job.getDestDir()))) {
+                    it.remove();
+                    running.add(job);
+                    if (!job.isCancelled()) {
+                        long waited = System.currentTimeMillis() - job.getQueuedTime();
+                        jobsStarted++;
+                        totalWaitMillis += waited;
+                        maxWaitMillis = Math.max(maxWaitMillis, waited);
+                        Debug.message("Compile job (" + job.getType() + ") started after waiting " + waited
+                                + "ms; " + pending.size() + " job(s) still queued");
+                    }
+                    return job;
                 }
-                catch (InterruptedException ex) {}
             }
+            try {
+                wait();
+            }
+            catch (InterruptedException ex) {}
         }
     }
+
+    /**
+     * Notify the queue that a job taken by takeJob() has finished.
+     * 
+     * @param timings  The time taken by each phase of the compilation, or null if not known
+     */
+    synchronized void jobFinished(Job job, CompileTimings timings)
+    {
+        if (timings != null) {
+            parseMillis += timings.getPhaseMillis(TaskEvent.Kind.PARSE);
+            analyzeMillis += timings.getPhaseMillis(TaskEvent.Kind.ENTER) + timings.getPhaseMillis(TaskEvent.Kind.ANALYZE);
+            generateMillis += timings.getPhaseMillis(TaskEvent.Kind.GENERATE);
+        }
+        running.remove(job);
+        notifyAll();
+    }
+
+    /**
+     * Notify the compiler that a project has been closed, so that any resources it holds
+     * for compiling that project (such as open library jars) can be released.
+     */
+    public void projectClosed(File projectDir)
+    {
+        for (Compiler compiler : compilers) {
+            compiler.projectClosed(projectDir);
+        }
+    }
+
+    /**
+     * Get the current metrics for the queue.
+     */
+    public synchronized Metrics getMetrics()
+    {
+        return new Metrics(pending.size(), running.size(), jobsStarted, jobsCancelled,
+                jobsStarted == 0 ? 0 : totalWaitMillis / jobsStarted, maxWaitMillis,
+                parseMillis, analyzeMillis, generateMillis);
+    }
+
+    /**
+     * Wait until the compiler job queue is empty, then return.
+     */
+    public synchronized void waitForEmptyQueue()
+    {
+        while (!pending.isEmpty() || !running.isEmpty()) {
+            try {
+                wait();
+            }
+            catch (InterruptedException ex) {}
+        }
+    }
+
+    /**
+     * Metrics for the job queue.
+     * 
+     * @param queueDepth         The number of jobs waiting to run
+     * @param runningJobs        The number of jobs running
+     * @param jobsStarted        The number of jobs which have been run (not including cancelled jobs
+     *                           which had not started)
+     * @param jobsCancelled      The number of jobs which have been cancelled
+     * @param averageWaitMillis  The average time jobs have waited in the queue before running
+     * @param maxWaitMillis      The longest time a job has waited in the queue before running
+     * @param parseMillis        The total time the compiler has spent parsing
+     * @param analyzeMillis      The total time the compiler has spent entering and attributing
+     *                           (analysing) classes
+     * @param generateMillis     The total time the compiler has spent generating classes
+     */
+    public record Metrics(int queueDepth, int runningJobs, long jobsStarted, long jobsCancelled,
+                          long averageWaitMillis, long maxWaitMillis,
+                          long parseMillis, long analyzeMillis, long generateMillis)
+    {
+    }
 }
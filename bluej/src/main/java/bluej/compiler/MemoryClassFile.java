@@ -0,0 +1,63 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * A class file generated by the compiler, which is kept in memory rather than being
+ * written to disk. Once the compiler has written the class, its bytes are put into
+ * the given map, under the binary name of the class.
+ */
+class MemoryClassFile extends SimpleJavaFileObject
+{
+    private final String className;
+    private final Map<String, byte[]> classOutput;
+
+    /**
+     * @param className    The binary name of the class
+     * @param classOutput  The map to put the class bytes into
+     */
+    MemoryClassFile(String className, Map<String, byte[]> classOutput)
+    {
+        super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        this.className = className;
+        this.classOutput = classOutput;
+    }
+
+    @Override
+    public OutputStream openOutputStream()
+    {
+        return new ByteArrayOutputStream() {
+            @Override
+            public void close()
+            {
+                classOutput.put(className, toByteArray());
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.File;
+
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * A Java source file whose content is held in memory (for instance, because it has
+ * been modified in an editor but not yet saved), for passing to the compiler. The
+ * compiler sees it as having the same path as the file on disk, so that diagnostics
+ * refer to that file.
+ */
+class MemorySourceFile extends SimpleJavaFileObject
+{
+    private final File file;
+    private final String content;
+
+    /**
+     * @param file     The source file on disk
+     * @param content  The content to use in place of the content of the file
+     */
+    MemorySourceFile(File file, String content)
+    {
+        super(file.toURI(), Kind.SOURCE);
+        this.file = file;
+        this.content = content;
+    }
+
+    @Override
+    public String getName()
+    {
+        // The default is the URI path, which is not a valid file path on Windows:
+        return file.getPath();
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors)
+    {
+        return content;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -167,6 +167,19 @@ public abstract class Debugger
      */
     public abstract void removeObject(String scopeId, String instanceName);
 
+    /**
+     * Compute a hash of the state (the field values, or array elements) of each of the
+     * given objects, in a single request to the debug VM. If the hash of an object is
+     * unchanged, so (almost certainly) is its state. Object-valued fields are hashed by
+     * identity, so the hash does not change if only the state of a referenced object
+     * changes.
+     * 
+     * @return  The hashes, in the same order as the objects; 0 if the hash of an object
+     *          could not be computed. Returns null if the debug VM is not available.
+     */
+    @OnThread(Tag.NOTVMEventHandler)
+    public abstract long[] getStateHashes(List<DebuggerObject> objects);
+
     /**
      * Return the debugger objects that exist in the
      * debugger.
@@ -233,6 +246,20 @@ public abstract class Debugger
     public abstract DebuggerResult runClassMain(String className)
         throws ClassNotFoundException;
 
+    /**
+     * Run a shell class which was compiled in memory. The given classes (the shell
+     * class and any inner classes) are defined in the remote VM, in the same package
+     * and class loader as the given anchor class, and the shell class is then run as
+     * by runClassMain().
+     * 
+     * @param className   The name of the shell class
+     * @param classes     The classes, as a map from binary name to class file bytes
+     * @param anchorClassName  The name of a class in the package of the shell class
+     */
+    @OnThread(Tag.NOTVMEventHandler)
+    public abstract DebuggerResult runShellClass(String className, Map<String, byte[]> classes,
+            String anchorClassName);
+
     /**
      * Instantiate a class using the default constructor for that class.
      * @param className  The name of the class to instantiate
@@ -252,6 +279,27 @@ public abstract class Debugger
     @OnThread(Tag.NOTVMEventHandler)
     public abstract DebuggerResult instantiateClass(String className, String [] paramTypes,
             DebuggerObject [] args);
+
+    /**
+     * Call a method (or constructor) directly, without compiling a shell class. Each
+     * argument is given either as an object, or as a literal value in string form; the
+     * latter is only allowed for parameters of primitive, boxed primitive or String type.
+     * 
+     * @param className   The name of the class which declares the method (or constructor)
+     * @param methodName  The name of the method, or null to call a constructor
+     * @param paramTypes  The formal parameter types (class names, as given by Class.getName())
+     * @param target      The object to call the method on, or null for a static method
+     *                    or constructor
+     * @param objectArgs  The object arguments; null for arguments given as literal values
+     * @param literalArgs The literal arguments; null for arguments given as objects. An
+     *                    argument which is null in both arrays is passed as null.
+     * @return   The result of the call. For a method call, the result object wraps the
+     *           return value in the same way as the result of a shell class; for a constructor
+     *           call, the result object is the new object.
+     */
+    @OnThread(Tag.NOTVMEventHandler)
+    public abstract DebuggerResult invokeMethod(String className, String methodName, String [] paramTypes,
+            DebuggerObject target, DebuggerObject [] objectArgs, String [] literalArgs);
     
     /**
      * Get a class from the virtual machine, using the current classloader.
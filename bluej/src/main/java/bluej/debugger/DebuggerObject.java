@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2013,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2013,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,6 +22,7 @@
 package bluej.debugger;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 
 import bluej.debugger.gentype.GenTypeClass;
@@ -128,6 +129,39 @@ public abstract class DebuggerObject
      */
     public abstract String getElementValueString(int index);
 
+    /**
+     * Return string representations (as per getElementValueString()) of a range of
+     * array elements. The values may be retrieved from the debug VM in a single request,
+     * so this is preferable to asking for each element in turn.
+     * 
+     * @param index   The index of the first element
+     * @param length  The number of elements
+     */
+    public List<String> getElementValueStrings(int index, int length)
+    {
+        List<String> values = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            values.add(getElementValueString(index + i));
+        }
+        return values;
+    }
+
+    /**
+     * Return string representations (as per DebuggerField.getValueString()) of the values
+     * of some fields of this object. The values may be retrieved from the debug VM in a
+     * single request, so this is preferable to asking each field for its value in turn.
+     * 
+     * @param fields  Fields of this object (as returned by getFields())
+     */
+    public List<String> getFieldValueStrings(List<DebuggerField> fields)
+    {
+        List<String> values = new ArrayList<>(fields.size());
+        for (DebuggerField field : fields) {
+            values.add(field.getValueString());
+        }
+        return values;
+    }
+
     /**
      * Return the JDI object. This exposes the JDI to Inspectors.
      * If JDI is not being used, it should return null.
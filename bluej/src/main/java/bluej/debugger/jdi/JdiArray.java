@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2000-2009,2010,2011,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 2000-2009,2010,2011,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,6 +21,9 @@
  */
 package bluej.debugger.jdi;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import bluej.debugger.DebuggerObject;
 import bluej.debugger.gentype.GenTypeArray;
 import bluej.debugger.gentype.GenTypeArrayClass;
@@ -184,6 +187,20 @@ public class JdiArray extends JdiObject
         return JdiUtils.getJdiUtils().getValueString(val);
     }
 
+    @Override
+    public List<String> getElementValueStrings(int index, int length)
+    {
+        List<String> strings = new ArrayList<>(length);
+        if (length > 0) {
+            // Fetch all the values in one request:
+            JdiUtils jdiUtils = JdiUtils.getJdiUtils();
+            for (Value val : ((ArrayReference) obj).getValues(index, length)) {
+                strings.add(jdiUtils.getValueString(val));
+            }
+        }
+        return strings;
+    }
+
     /*
      * Return the object in object field 'slot'.
      *
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2014,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2014,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -45,6 +45,7 @@ import bluej.classmgr.BPClassLoader;
 import bluej.debugmgr.Invoker;
 import bluej.utility.Debug;
 import bluej.utility.JavaNames;
+import bluej.utility.Utility;
 
 /**
  * A class implementing the execution and debugging primitives needed by BlueJ.
@@ -416,6 +417,17 @@ public class JdiDebugger extends Debugger
         return true;
     }
 
+    @Override
+    @OnThread(Tag.NOTVMEventHandler)
+    public long[] getStateHashes(List<DebuggerObject> objects)
+    {
+        VMReference vmr = getVMNoWait();
+        if (vmr == null) {
+            return null;
+        }
+        return vmr.getStateHashes(Utility.mapList(objects, DebuggerObject::getObjectReference));
+    }
+
     /**
      * Remove an object from a package scope (when removed from object bench).
      */
@@ -715,6 +727,21 @@ public class JdiDebugger extends Debugger
         }
     }
 
+    @Override
+    @OnThread(Tag.NOTVMEventHandler)
+    public DebuggerResult runShellClass(String className, Map<String, byte[]> classes, String anchorClassName)
+    {
+        VMReference vmr = getVM();
+        synchronized (serverThreadLock) {
+            if (vmr != null) {
+                return vmr.runShellClass(className, classes, anchorClassName);
+            }
+            else {
+                return new DebuggerResult(Debugger.TERMINATED_BY_BLUEJ);
+            }
+        }
+    }
+
     @Override
     public CompletableFuture<FXPlatformSupplier<DebuggerResult>> launchFXApp(String className)
     {
@@ -796,6 +823,33 @@ public class JdiDebugger extends Debugger
         }
     }
     
+    @Override
+    @OnThread(Tag.NOTVMEventHandler)
+    public DebuggerResult invokeMethod(String className, String methodName, String[] paramTypes,
+            DebuggerObject target, DebuggerObject[] objectArgs, String[] literalArgs)
+    {
+        VMReference vmr = getVM();
+        if (vmr != null) {
+            Object [] args = new Object[paramTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                if (objectArgs[i] != null) {
+                    args[i] = ((JdiObject) objectArgs[i]).getObjectReference();
+                }
+                else {
+                    args[i] = literalArgs[i];
+                }
+            }
+            ObjectReference targetRef = target == null ? null : ((JdiObject) target).getObjectReference();
+            
+            synchronized (serverThreadLock) {
+                return vmr.invokeMethod(className, methodName, paramTypes, targetRef, args);
+            }
+        }
+        else {
+            return new DebuggerResult(Debugger.TERMINATED_BY_BLUEJ);
+        }
+    }
+    
     /*
      * @see bluej.debugger.Debugger#getClass(java.lang.String, boolean)
      */
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2011,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 2011,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -121,6 +121,24 @@ public class JdiField extends DebuggerField
         return null;
     }
 
+    /**
+     * Get the JDI field.
+     */
+    @OnThread(Tag.Any)
+    Field getJdiField()
+    {
+        return field;
+    }
+
+    /**
+     * Get the object whose field this is (null for a static field of a class).
+     */
+    @OnThread(Tag.Any)
+    JdiObject getObject()
+    {
+        return object;
+    }
+
     @Override
     public DebuggerClass getDeclaringClass()
     {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,6 +23,7 @@ package bluej.debugger.jdi;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import bluej.debugger.DebuggerClass;
@@ -36,6 +37,7 @@ import com.sun.jdi.ArrayReference;
 import com.sun.jdi.Field;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
@@ -276,6 +278,33 @@ public class JdiObject extends DebuggerObject
         return rlist;
     }
 
+    @Override
+    @OnThread(Tag.Any)
+    @SuppressWarnings("threadchecker")
+    public List<String> getFieldValueStrings(List<DebuggerField> fields)
+    {
+        // Fetch the values of all of our own fields in one request:
+        List<Field> ownFields = new ArrayList<>(fields.size());
+        for (DebuggerField field : fields) {
+            if (field instanceof JdiField && ((JdiField) field).getObject() == this) {
+                ownFields.add(((JdiField) field).getJdiField());
+            }
+        }
+        Map<Field, Value> values = ownFields.isEmpty() ? Map.of() : obj.getValues(ownFields);
+        
+        JdiUtils jdiUtils = JdiUtils.getJdiUtils();
+        List<String> strings = new ArrayList<>(fields.size());
+        for (DebuggerField field : fields) {
+            if (field instanceof JdiField && ((JdiField) field).getObject() == this) {
+                strings.add(jdiUtils.getValueString(values.get(((JdiField) field).getJdiField())));
+            }
+            else {
+                strings.add(field.getValueString());
+            }
+        }
+        return strings;
+    }
+
     @OnThread(Tag.Any)
     private static boolean checkIgnoreField(Field f)
     {
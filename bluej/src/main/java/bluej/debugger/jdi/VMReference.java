@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -34,6 +34,7 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -74,6 +75,7 @@ import com.sun.jdi.IntegerValue;
 import com.sun.jdi.InvalidTypeException;
 import com.sun.jdi.InvocationException;
 import com.sun.jdi.Location;
+import com.sun.jdi.LongValue;
 import com.sun.jdi.Method;
 import com.sun.jdi.ObjectCollectedException;
 import com.sun.jdi.ObjectReference;
@@ -878,6 +880,22 @@ public class VMReference
      */
     @OnThread(Tag.NOTVMEventHandler)
     public DebuggerResult runShellClass(String className)
+    {
+        return runShellClass(className, null, null);
+    }
+
+    /**
+     * Run a shell class whose class files were compiled in memory. The classes are sent
+     * to the remote VM and defined there, in the package of the given anchor class, before
+     * the shell class is run (as for runShellClass(String)).
+     * 
+     * @param className  The name of the shell class
+     * @param classes    The shell class and its inner classes (binary name to class file
+     *                   bytes), or null if the shell class can be loaded from the class path
+     * @param anchorClassName  A (compiled) class in the package of the shell class
+     */
+    @OnThread(Tag.NOTVMEventHandler)
+    public DebuggerResult runShellClass(String className, Map<String, byte[]> classes, String anchorClassName)
     {
         // Calls to this method are protected by serverThreadLock in JdiDebugger
         
@@ -888,6 +906,17 @@ public class VMReference
 
             serverThreadStartWait();
             
+            if (classes != null) {
+                // See invokeConstructor(...) regarding suspension
+                machine.suspend();
+                try {
+                    storeShellClasses(classes, anchorClassName);
+                }
+                finally {
+                    machine.resume();
+                }
+            }
+            
             // Store the class and method to call
             setStaticFieldObject(serverClass, ExecServer.CLASS_TO_RUN_NAME, className);
             setStaticFieldValue(serverClass, ExecServer.EXEC_ACTION_NAME, machine.mirrorOf(ExecServer.EXEC_SHELL));
@@ -1742,57 +1771,12 @@ public class VMReference
         boolean needsMachineResume = false;
         
         try {
-            int length = paramTypes.length;
-            if (args.length != length) {
-                throw new IllegalArgumentException();
-            }
-
-            // Store the class, parameter types and arguments
-
-            ArrayType objectArray = (ArrayType) loadClass("[Ljava.lang.Object;");
-            ArrayType stringArray = (ArrayType) loadClass("[Ljava.lang.String;");
-
             // avoid problems with ObjectCollectedExceptions, see:
             // http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=4257193
             // We suspend the machine which seems to help prevent GC from occurring.
             machine.suspend();
             needsMachineResume = true;
-            ArrayReference argsArray = objectArray.newInstance(length);
-            ArrayReference typesArray = stringArray.newInstance(length);
-            
-            // Even with a suspended virtual machine, these arrays have been known to be garbage collected.
-            // Force them to remain uncollected:
-            while (true) {
-                try {
-                    argsArray.disableCollection();
-                    break;
-                }
-                catch (ObjectCollectedException oce) {
-                    argsArray = objectArray.newInstance(length);
-                }
-            }
-            
-            while (true) {
-                try {
-                    typesArray.disableCollection();
-                    break;
-                }
-                catch (ObjectCollectedException oce) {
-                    typesArray = stringArray.newInstance(length);
-                }
-            }
-            
-            // Fill the arrays with the correct values
-            for (int i = 0; i < length; i++) {
-                StringReference s = machine.mirrorOf(paramTypes[i]);
-                typesArray.setValue(i, s);
-                argsArray.setValue(i, args[i]);
-            }
-            
-            setStaticFieldValue(serverClass, ExecServer.PARAMETER_TYPES_NAME, typesArray);
-            setStaticFieldValue(serverClass, ExecServer.ARGUMENTS_NAME, argsArray);
-            typesArray.enableCollection();
-            argsArray.enableCollection();
+            storeParameters(paramTypes, args);
 
             setStaticFieldObject(serverClass, ExecServer.CLASS_TO_RUN_NAME, className);
             setStaticFieldValue(serverClass, ExecServer.EXEC_ACTION_NAME, machine.mirrorOf(ExecServer.INSTANTIATE_CLASS_ARGS));
@@ -1827,6 +1811,202 @@ public class VMReference
         return null;
     }
     
+    /**
+     * Call a method or constructor directly (via reflection on the remote VM), rather
+     * than by running a shell class. The arguments are either object references, or
+     * literal values given as strings; literal values for parameters of primitive type
+     * (or boxed primitive type) are converted to the parameter type on the remote VM.
+     * 
+     * @param className   The name of the class declaring the method, or to construct
+     * @param methodName  The name of the method, or null to call a constructor
+     * @param paramTypes  The parameter types (class names, or primitive type names)
+     * @param target      The object to call an instance method on (null otherwise)
+     * @param args        The argument values; each is either an ObjectReference, a String
+     *                    holding a literal value, or null
+     * 
+     * @return  The result of the call. For a method call, the result object is wrapped
+     *          in the same way as for a shell class (see bluej.runtime.Shell#makeObj);
+     *          for a constructor call, the result is the new object.
+     */
+    @OnThread(Tag.NOTVMEventHandler)
+    public DebuggerResult invokeMethod(String className, String methodName, String [] paramTypes,
+            ObjectReference target, Object [] args)
+    {
+        // Calls to this method are protected by serverThreadLock in JdiDebugger
+        
+        boolean needsMachineResume = false;
+        try {
+            exitStatus = Debugger.NORMAL_EXIT;
+            serverThreadStartWait();
+            
+            // See invokeConstructor(...) regarding suspension
+            machine.suspend();
+            needsMachineResume = true;
+            Value [] argValues = new Value[args.length];
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] instanceof String) {
+                    argValues[i] = machine.mirrorOf((String) args[i]);
+                }
+                else {
+                    argValues[i] = (ObjectReference) args[i];
+                }
+            }
+            storeParameters(paramTypes, argValues);
+            
+            setStaticFieldValue(serverClass, ExecServer.TARGET_OBJECT_NAME, target);
+            setStaticFieldObject(serverClass, ExecServer.CLASS_TO_RUN_NAME, className);
+            setStaticFieldObject(serverClass, ExecServer.METHOD_TO_RUN_NAME, methodName);
+            setStaticFieldValue(serverClass, ExecServer.EXEC_ACTION_NAME, machine.mirrorOf(ExecServer.INVOKE_METHOD));
+            machine.resume();
+            needsMachineResume = false;
+            
+            // Resume the thread, wait for it to finish and the new thread to start
+            serverThreadStarted = false;
+            resumeServerThread();
+            serverThreadStartWait();
+            
+            // Get return value and check for exceptions
+            ObjectReference rval = getStaticFieldObject(serverClass, ExecServer.METHOD_RETURN_NAME);
+            if (rval == null) {
+                ObjectReference exception = getStaticFieldObject(serverClass, ExecServer.EXCEPTION_NAME);
+                if (exception != null) {
+                    exceptionEvent(new InvocationException(exception));
+                    return new DebuggerResult(lastException);
+                }
+            }
+            return new DebuggerResult(JdiObject.getDebuggerObject(rval));
+        }
+        catch (VMDisconnectedException e) {
+            exitStatus = getDebuggerExitStatus();
+            return new DebuggerResult(exitStatus);
+        }
+        catch (Exception e) {
+            // remote invocation failed
+            Debug.reportError("direct method invocation failed: " + e);
+            e.printStackTrace();
+            exitStatus = Debugger.EXCEPTION;
+            lastException = new ExceptionDescription("Internal BlueJ error: unexpected exception in remote VM\n" + e);
+        }
+        finally {
+            if (needsMachineResume) {
+                machine.resume();
+            }
+        }
+        
+        return new DebuggerResult(lastException);
+    }
+    
+    /**
+     * Store parameter types and argument values in the ExecServer class, ready for a call
+     * (see ExecServer#PARAMETER_TYPES_NAME and ExecServer#ARGUMENTS_NAME). The machine
+     * should be suspended.
+     */
+    private void storeParameters(String [] paramTypes, Value [] args)
+        throws ClassNotFoundException, ClassNotLoadedException, InvalidTypeException
+    {
+        int length = paramTypes.length;
+        if (args.length != length) {
+            throw new IllegalArgumentException();
+        }
+
+        ArrayType objectArray = (ArrayType) loadClass("[Ljava.lang.Object;");
+        ArrayType stringArray = (ArrayType) loadClass("[Ljava.lang.String;");
+
+        ArrayReference argsArray = objectArray.newInstance(length);
+        ArrayReference typesArray = stringArray.newInstance(length);
+        
+        // Even with a suspended virtual machine, these arrays have been known to be garbage collected.
+        // Force them to remain uncollected:
+        while (true) {
+            try {
+                argsArray.disableCollection();
+                break;
+            }
+            catch (ObjectCollectedException oce) {
+                argsArray = objectArray.newInstance(length);
+            }
+        }
+        
+        while (true) {
+            try {
+                typesArray.disableCollection();
+                break;
+            }
+            catch (ObjectCollectedException oce) {
+                typesArray = stringArray.newInstance(length);
+            }
+        }
+        
+        // Fill the arrays with the correct values
+        for (int i = 0; i < length; i++) {
+            StringReference s = machine.mirrorOf(paramTypes[i]);
+            typesArray.setValue(i, s);
+            argsArray.setValue(i, args[i]);
+        }
+        
+        setStaticFieldValue(serverClass, ExecServer.PARAMETER_TYPES_NAME, typesArray);
+        setStaticFieldValue(serverClass, ExecServer.ARGUMENTS_NAME, argsArray);
+        typesArray.enableCollection();
+        argsArray.enableCollection();
+    }
+    
+    /**
+     * Store the class files of a shell class in the remote VM (as an array of byte
+     * arrays), ready for them to be defined when the shell class is run.
+     */
+    private void storeShellClasses(Map<String, byte[]> classes, String anchorClassName)
+        throws ClassNotFoundException, ClassNotLoadedException, InvalidTypeException
+    {
+        ArrayType objectArray = (ArrayType) loadClass("[Ljava.lang.Object;");
+        ArrayType byteArray = (ArrayType) loadClass("[B");
+        
+        // A class must be defined before any class which extends it; the shell class
+        // itself has the shortest name, and classes nested in others have longer names:
+        List<String> names = new ArrayList<>(classes.keySet());
+        names.sort(Comparator.comparingInt(String::length));
+        
+        ArrayReference classesArray = newUncollectedArray(objectArray, names.size());
+        List<ArrayReference> byteArrays = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            byte[] bytes = classes.get(names.get(i));
+            ArrayReference bytesArray = newUncollectedArray(byteArray, bytes.length);
+            byteArrays.add(bytesArray);
+            List<Value> values = new ArrayList<>(bytes.length);
+            for (byte b : bytes) {
+                values.add(machine.mirrorOf(b));
+            }
+            bytesArray.setValues(values);
+            classesArray.setValue(i, bytesArray);
+        }
+        
+        setStaticFieldValue(serverClass, ExecServer.SHELL_CLASSES_NAME, classesArray);
+        setStaticFieldObject(serverClass, ExecServer.SHELL_ANCHOR_NAME, anchorClassName);
+        classesArray.enableCollection();
+        for (ArrayReference bytesArray : byteArrays) {
+            bytesArray.enableCollection();
+        }
+    }
+    
+    /**
+     * Create an array in the remote VM, which will not be garbage collected until
+     * collection is re-enabled (by calling enableCollection() on it).
+     */
+    private static ArrayReference newUncollectedArray(ArrayType type, int length)
+    {
+        // Even with a suspended virtual machine, new arrays have been known to be garbage
+        // collected (see storeParameters(...)):
+        ArrayReference array = type.newInstance(length);
+        while (true) {
+            try {
+                array.disableCollection();
+                return array;
+            }
+            catch (ObjectCollectedException oce) {
+                array = type.newInstance(length);
+            }
+        }
+    }
+    
     // Calls to this method are serialized via serverThreadLock in JdiDebugger
     public Value invokeTestSetup(String cl)
             throws InvocationException
@@ -1942,6 +2122,64 @@ public class VMReference
         catch (VMMismatchException vmmme) {}
     }
     
+    /**
+     * Compute a hash of the state (the field values) of each of the given objects, in the
+     * debug VM (see ExecServer.STATE_HASHES). The hashes are computed by the worker thread
+     * in a single request, however many objects there are.
+     * 
+     * @param objects  The objects to hash
+     * @return  The hashes, in the same order as the objects (a hash is 0 if it could not
+     *          be computed), or null if the hashes could not be computed at all
+     */
+    @OnThread(Tag.NOTVMEventHandler)
+    long[] getStateHashes(List<ObjectReference> objects)
+    {
+        try {
+            ArrayType objectArray = (ArrayType) loadClass("[Ljava.lang.Object;");
+            ArrayReference objectsArray = newUncollectedArray(objectArray, objects.size());
+            try {
+                objectsArray.setValues(objects);
+                
+                List<Value> hashValues;
+                synchronized(workerThread) {
+                    workerThreadReadyWait();
+                    workerThreadReserved = true;
+                    try {
+                        setStaticFieldValue(serverClass, ExecServer.WORKER_ACTION_NAME, machine.mirrorOf(ExecServer.STATE_HASHES));
+                        setStaticFieldValue(serverClass, ExecServer.OBJECT_NAME, objectsArray);
+                        
+                        workerThreadReady = false;
+                        workerThread.resume();
+                        
+                        workerThreadFinishWait();
+                        ArrayReference hashesArray = (ArrayReference) getStaticFieldObject(serverClass, ExecServer.WORKER_RETURN_NAME);
+                        hashValues = hashesArray.getValues();
+                    }
+                    finally {
+                        workerThreadReserved = false;
+                        workerThread.notify();
+                    }
+                }
+                
+                long[] hashes = new long[hashValues.size()];
+                for (int i = 0; i < hashes.length; i++) {
+                    hashes[i] = ((LongValue) hashValues.get(i)).value();
+                }
+                return hashes;
+            }
+            finally {
+                objectsArray.enableCollection();
+            }
+        }
+        catch (ClassNotFoundException | ClassNotLoadedException | InvalidTypeException e) {
+            Debug.reportError("Could not compute object state hashes", e);
+        }
+        catch (VMDisconnectedException vmde) {}
+        catch (VMMismatchException vmmme) {}
+        catch (ObjectCollectedException oce) {}
+        return null;
+    }
+    
     /**
      * Remove an object from the object map on the debug vm.
      * @param instanceName   the name of the object to remove
@@ -0,0 +1,333 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugmgr;
+
+import java.lang.reflect.Modifier;
+import java.util.regex.Pattern;
+
+import bluej.debugger.Debugger;
+import bluej.debugger.DebuggerObject;
+import bluej.debugger.DebuggerResult;
+import bluej.debugger.gentype.JavaType;
+import bluej.debugmgr.objectbench.ObjectWrapper;
+import bluej.utility.JavaNames;
+import bluej.views.CallableView;
+import bluej.views.MethodView;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * An interactive method call or construction which can be performed directly, by
+ * reflection on the debug VM, rather than by compiling and running a shell class.
+ * This is possible when each argument is either a simple literal or an object from
+ * the object bench, and the callable is neither generic nor varargs.
+ * 
+ * <p>We only take this path where the shell class would compile (and behave)
+ * identically; anything else is left to the shell class, which also reports any
+ * errors in the arguments.
+ */
+@OnThread(Tag.Any)
+final class DirectInvocation
+{
+    /** Returned by parseLiteral() for an argument which is not a suitable literal */
+    static final Object NOT_LITERAL = new Object();
+
+    private static final Pattern INT_LITERAL = Pattern.compile("-?(0|[1-9][0-9]*)");
+    private static final Pattern LONG_LITERAL = Pattern.compile("-?(0|[1-9][0-9]*)[lL]");
+    private static final Pattern FLOATING_LITERAL =
+            Pattern.compile("-?([0-9]+\\.[0-9]*|\\.[0-9]+|[0-9]+)([eE][+-]?[0-9]+)?[fFdD]?");
+    private static final Pattern NON_ZERO_DIGIT = Pattern.compile("[1-9]");
+
+    private final String className;
+    private final String methodName;
+    private final String[] paramTypes;
+    private final DebuggerObject[] objectArgs;
+    private final String[] literalArgs;
+
+    private DirectInvocation(String className, String methodName, String[] paramTypes,
+            DebuggerObject[] objectArgs, String[] literalArgs)
+    {
+        this.className = className;
+        this.methodName = methodName;
+        this.paramTypes = paramTypes;
+        this.objectArgs = objectArgs;
+        this.literalArgs = literalArgs;
+    }
+
+    /**
+     * Check whether a call can be performed directly, and if so, prepare it.
+     * 
+     * @param member     The method or constructor to call
+     * @param pkgName    The name of the package from which the call is made
+     * @param args       The arguments, as entered by the user (may be null if there are none)
+     * @param argTypes   The parameter types, with type parameters mapped to actual types
+     *                   (may be null if there are no arguments)
+     * @param benchVars  The objects on the object bench
+     * @return  The prepared invocation, or null if the call must be made via a shell class.
+     */
+    @OnThread(Tag.FXPlatform)
+    static DirectInvocation prepare(CallableView member, String pkgName, String[] args,
+            JavaType[] argTypes, ValueCollection benchVars)
+    {
+        if (member.isGeneric() || member.isVarArgs()) {
+            return null;
+        }
+
+        Class<?> cl = member.getDeclaringView().getViewClass();
+        if (cl == null || cl.getModule().isNamed() || cl.isLocalClass() || cl.isAnonymousClass()
+                || (cl.isMemberClass() && !Modifier.isStatic(cl.getModifiers()))
+                || (member.isConstructor() && Modifier.isAbstract(cl.getModifiers()))) {
+            return null;
+        }
+        // The class (and any class it is nested in), and the member, must be accessible
+        // to a shell class in the package:
+        for (Class<?> c = cl; c != null; c = c.getDeclaringClass()) {
+            if (!isAccessible(c.getModifiers(), c, pkgName)) {
+                return null;
+            }
+        }
+        if (!isAccessible(member.getModifiers(), cl, pkgName)) {
+            return null;
+        }
+
+        Class<?>[] params = member.getParameters();
+        int numArgs = args == null ? 0 : args.length;
+        if (params.length != numArgs) {
+            return null;
+        }
+
+        String[] paramTypes = new String[numArgs];
+        DebuggerObject[] objectArgs = new DebuggerObject[numArgs];
+        String[] literalArgs = new String[numArgs];
+        for (int i = 0; i < numArgs; i++) {
+            paramTypes[i] = params[i].getName();
+            String arg = args[i].strip();
+            NamedValue benchVar = JavaNames.isIdentifier(arg) ? benchVars.getNamedValue(arg) : null;
+            if (benchVar != null) {
+                if (!(benchVar instanceof ObjectWrapper) || !benchVar.isInitialized() || argTypes == null
+                        || !argTypes[i].isAssignableFrom(benchVar.getGenType())) {
+                    return null;
+                }
+                objectArgs[i] = ((ObjectWrapper) benchVar).getObject();
+            }
+            else {
+                Object value = parseLiteral(arg, params[i]);
+                if (value == NOT_LITERAL) {
+                    return null;
+                }
+                literalArgs[i] = value == null ? null : value.toString();
+            }
+        }
+
+        String methodName = member instanceof MethodView ? ((MethodView) member).getName() : null;
+        return new DirectInvocation(cl.getName(), methodName, paramTypes, objectArgs, literalArgs);
+    }
+
+    /**
+     * Perform the call. This may take an arbitrary amount of time, since it runs user code.
+     * 
+     * @param debugger  The debugger for the VM on which to make the call
+     * @param target    The object to call an instance method on (null otherwise)
+     * @return   The result, as for Debugger#invokeMethod
+     */
+    @OnThread(Tag.Worker)
+    DebuggerResult invoke(Debugger debugger, DebuggerObject target)
+    {
+        return debugger.invokeMethod(className, methodName, paramTypes, target, objectArgs, literalArgs);
+    }
+
+    /**
+     * Check whether a class or member with the given modifiers would be accessible from
+     * a (non-subclass) class in the given package.
+     */
+    private static boolean isAccessible(int modifiers, Class<?> cl, String pkgName)
+    {
+        return Modifier.isPublic(modifiers)
+                || (!Modifier.isPrivate(modifiers) && cl.getPackageName().equals(pkgName));
+    }
+
+    /**
+     * Parse an argument as a literal value to be assigned to a parameter of the given
+     * type. The literal must be one that is always valid Java, and which the parameter
+     * can be assigned without anything more than widening (or constant narrowing, as in
+     * an assignment) and boxing.
+     * 
+     * @return  The value converted to the parameter type (boxed if primitive), null for
+     *          the null literal, or NOT_LITERAL if the argument is not a suitable literal.
+     */
+    static Object parseLiteral(String arg, Class<?> type)
+    {
+        if (arg.equals("null")) {
+            return type.isPrimitive() ? NOT_LITERAL : null;
+        }
+        else if (arg.equals("true") || arg.equals("false")) {
+            return (type == boolean.class || type == Boolean.class) ? Boolean.valueOf(arg) : NOT_LITERAL;
+        }
+        else if (arg.startsWith("\"")) {
+            String s = unescape(arg, '"');
+            return (s != null && type.isAssignableFrom(String.class)) ? s : NOT_LITERAL;
+        }
+        else if (arg.startsWith("'")) {
+            String s = unescape(arg, '\'');
+            if (s == null || s.length() != 1) {
+                return NOT_LITERAL;
+            }
+            char c = s.charAt(0);
+            if (type == char.class || type == Character.class) {
+                return c;
+            }
+            return convertWidening(c, type);
+        }
+
+        try {
+            if (INT_LITERAL.matcher(arg).matches()) {
+                long value = Long.parseLong(arg);
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    return NOT_LITERAL;
+                }
+                // A constant int may be narrowed (and then boxed) if the value fits:
+                if ((type == byte.class || type == Byte.class) && value == (byte) value) {
+                    return (byte) value;
+                }
+                else if ((type == short.class || type == Short.class) && value == (short) value) {
+                    return (short) value;
+                }
+                else if ((type == char.class || type == Character.class) && value == (char) value) {
+                    return (char) value;
+                }
+                else if (type == Integer.class) {
+                    return (int) value;
+                }
+                return convertWidening((int) value, type);
+            }
+            else if (LONG_LITERAL.matcher(arg).matches()) {
+                long value = Long.parseLong(arg.substring(0, arg.length() - 1));
+                if (type == long.class || type == Long.class) {
+                    return value;
+                }
+                else if (type == float.class) {
+                    return (float) value;
+                }
+                else if (type == double.class) {
+                    return (double) value;
+                }
+            }
+            else if (FLOATING_LITERAL.matcher(arg).matches()) {
+                char last = arg.charAt(arg.length() - 1);
+                if (!Character.isLetter(last) && arg.indexOf('.') == -1 && arg.indexOf('e') == -1
+                        && arg.indexOf('E') == -1) {
+                    // An integer literal with a leading zero (i.e. octal)
+                    return NOT_LITERAL;
+                }
+                // Literals which are out of range (too large, or rounding to zero)
+                // are compile errors, so are left to the compiler:
+                boolean nonZero = NON_ZERO_DIGIT.matcher(arg).find();
+                if (last == 'f' || last == 'F') {
+                    float value = Float.parseFloat(arg);
+                    if (Float.isInfinite(value) || (value == 0 && nonZero)) {
+                        return NOT_LITERAL;
+                    }
+                    if (type == float.class || type == Float.class) {
+                        return value;
+                    }
+                    else if (type == double.class) {
+                        return (double) value;
+                    }
+                }
+                else {
+                    double value = Double.parseDouble(arg);
+                    if (Double.isInfinite(value) || (value == 0 && nonZero)) {
+                        return NOT_LITERAL;
+                    }
+                    if (type == double.class || type == Double.class) {
+                        return value;
+                    }
+                }
+            }
+        }
+        catch (NumberFormatException nfe) {
+            // Out of range
+        }
+        return NOT_LITERAL;
+    }
+
+    /**
+     * Convert an int (or char) value to a parameter of type int, long, float or double.
+     */
+    private static Object convertWidening(int value, Class<?> type)
+    {
+        if (type == int.class) {
+            return value;
+        }
+        else if (type == long.class) {
+            return (long) value;
+        }
+        else if (type == float.class) {
+            return (float) value;
+        }
+        else if (type == double.class) {
+            return (double) value;
+        }
+        return NOT_LITERAL;
+    }
+
+    /**
+     * Get the value of a string or character literal, which must be enclosed in the given
+     * quote character. Returns null if the literal is not valid, or uses escapes other than
+     * the simple ones (octal and unicode escapes are left to the compiler).
+     */
+    private static String unescape(String literal, char quote)
+    {
+        if (literal.length() < 2 || literal.charAt(literal.length() - 1) != quote) {
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char c = literal.charAt(i);
+            if (c == quote || c == '\n' || c == '\r') {
+                return null;
+            }
+            else if (c == '\\') {
+                i++;
+                if (i == literal.length() - 1) {
+                    return null;
+                }
+                switch (literal.charAt(i)) {
+                    case 'b': value.append('\b'); break;
+                    case 't': value.append('\t'); break;
+                    case 'n': value.append('\n'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'r': value.append('\r'); break;
+                    case 's': value.append(' '); break;
+                    case '"': value.append('"'); break;
+                    case '\'': value.append('\''); break;
+                    case '\\': value.append('\\'); break;
+                    default: return null;
+                }
+            }
+            else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2014,2015,2016,2018,2019,2020,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2014,2015,2016,2018,2019,2020,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -43,6 +43,7 @@ import bluej.pkgmgr.Package;
 import bluej.pkgmgr.PackageListener;
 import bluej.pkgmgr.PkgMgrFrame;
 import bluej.pkgmgr.Project;
+import bluej.pkgmgr.target.ClassTarget;
 import bluej.runtime.Shell;
 import bluej.testmgr.record.ConstructionInvokerRecord;
 import bluej.testmgr.record.ExpressionInvokerRecord;
@@ -70,6 +71,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -136,6 +138,19 @@ public class Invoker
     /** Whether we've already seen an error from the compiler */
     private boolean gotError;
 
+    /** The object on which an instance method is being called (null otherwise) */
+    private DebuggerObject targetObject;
+    /** When the current invocation was started (for timing) */
+    private long invocationStartTime;
+    /** Whether the current invocation is being made directly (without a shell class) */
+    private boolean invokingDirectly;
+    /** The source of the shell class, if it is to be compiled in memory rather than written to a file */
+    private String shellSource;
+    /** A (compiled) class in the package, which the in-memory shell classes are defined alongside */
+    private String anchorClassName;
+    /** The in-memory shell classes (binary name to class file bytes), once compiled */
+    private Map<String, byte[]> shellClasses;
+
     /**
      * Construct an invoker, specifying most attributes manually.
      */
@@ -171,15 +186,7 @@ public class Invoker
                 return typeName;
             }
         };
-        compiler = new InvokerCompiler() {
-            public void compile(File[] files, CompileObserver observer)
-            {
-                Project project = pkg.getProject();
-                List<CompileInputFile> wrapped = Utility.mapList(Arrays.asList(files), f -> new CompileInputFile(f, f));
-                JobQueue.getJobQueue().addJob(wrapped.toArray(new CompileInputFile[0]), observer, project.getClassLoader(),
-                        project.getProjectDir(), true, project.getProjectCharset(), CompileReason.INVOKE, CompileType.INTERNAL_COMPILE);
-            }
-        };
+        compiler = makeCompiler(pkg);
         this.shellName = getShellName();
         this.sourceCharset = pkg.getProject().getProjectCharset();
         this.typeMap = null;
@@ -262,6 +269,7 @@ public class Invoker
         
         this.watcher = watcher;
         this.shellName = getShellName();
+        this.targetObject = debuggerObject;
         codepad = false;
 
         constructing = false;
@@ -286,16 +294,32 @@ public class Invoker
         this.objectBench = pmf.getObjectBench();
         this.debugger = pkg.getProject().getDebugger();
         this.nameTransform = new CleverQualifyTypeNameTransform(pkg);
-        compiler = new InvokerCompiler() {
+        compiler = makeCompiler(pkg);
+        this.sourceCharset = pmf.getProject().getProjectCharset();
+    }
+    
+    /**
+     * Make a compiler for shell classes, which queues them for compilation in the
+     * given package's project.
+     */
+    private static InvokerCompiler makeCompiler(Package pkg)
+    {
+        return new InvokerCompiler() {
             public void compile(File[] files, CompileObserver observer)
+            {
+                compileToMemory(files, Collections.emptyMap(), null, observer);
+            }
+
+            public void compileToMemory(File[] files, Map<File, String> sourceContents,
+                    Map<String, byte[]> classOutput, CompileObserver observer)
             {
                 Project project = pkg.getProject();
                 List<CompileInputFile> wrapped = Utility.mapList(Arrays.asList(files), f -> new CompileInputFile(f, f));
                 JobQueue.getJobQueue().addJob(wrapped.toArray(new CompileInputFile[0]), observer, project.getClassLoader(),
-                        project.getProjectDir(), true, project.getProjectCharset(), CompileReason.INVOKE, CompileType.INTERNAL_COMPILE);
+                        project.getProjectDir(), true, project.getProjectCharset(), CompileReason.INVOKE, CompileType.INTERNAL_COMPILE,
+                        sourceContents, classOutput);
             }
         };
-        this.sourceCharset = pmf.getProject().getProjectCharset();
     }
     
     /**
@@ -428,16 +452,21 @@ public class Invoker
             }
         }
 
-        doInvocation(args, argTypeStrings, typeParams);
+        doInvocation(args, argTypeStrings, argTypes, typeParams);
     }
 
     /**
      * Workhorse doInvocation method which takes a string array for the
      * argument types instead of a GenType array. This constructs the code strings,
      * writes the invocation file, compiles it and eventually executes it.
+     * 
+     * <p>If the arguments are all simple literals or objects from the object bench, the
+     * call is made directly (see DirectInvocation) instead, skipping the compilation.
      */
-    private void doInvocation(String[] args, String[] argTypes, String[] typeParams)
+    private void doInvocation(String[] args, String[] argTypes, JavaType[] argGenTypes, String[] typeParams)
     {
+        invocationStartTime = System.currentTimeMillis();
+        invokingDirectly = false;
         int numArgs = (args == null ? 0 : args.length);
         final String className = member.getClassName();
 
@@ -511,6 +540,12 @@ public class Invoker
             }
         }
 
+        DirectInvocation directInvocation = null;
+        if (!Config.isGreenfoot() && !isGenericMethod && (typeParams == null || typeParams.length == 0)
+                && (constructing || member.isStatic() || targetObject != null)) {
+            directInvocation = DirectInvocation.prepare(member, pkgName, args, argGenTypes, objectBenchVars);
+        }
+
         if (constructing && member.getParameterCount() == 0 && (typeParams == null || typeParams.length == 0)) {
             // Special case for construction of a class using the default constructor.
             // We can do this without writing and compiling a shell file.
@@ -537,6 +572,28 @@ public class Invoker
                 }
             }.start();
         }
+        else if (directInvocation != null) {
+            // All the arguments are simple, so we can call the method or constructor
+            // without writing and compiling a shell file:
+            commandString = command + actualArgString;
+            invokingDirectly = true;
+            watcher.beginCompile(); // there is no compile step, really
+            watcher.beginExecution(ir);
+            
+            // As above, we must run the invocation in a separate thread:
+            final DirectInvocation invocation = directInvocation;
+            final DebuggerObject target = (constructing || member.isStatic()) ? null : targetObject;
+            new Thread("Invocation result") {
+                @OnThread(Tag.Worker)
+                public void run() {
+                    Platform.runLater(Invoker.this::closeCallDialog);
+                    
+                    DebuggerResult result = invocation.invoke(debugger, target);
+
+                    Platform.runLater(() -> handleResult(result, false));
+                }
+            }.start();
+        }
         else {
             if (isVoid)
                 argString += ';';
@@ -655,7 +712,9 @@ public class Invoker
     /**
      * Write a source file for a class (the 'shell file') to do the interactive
      * invocation. Returns the written file, or null if the file cannot be written
-     * (an error dialog will be shown in this case).
+     * (an error dialog will be shown in this case). If the package has a compiled
+     * class, the file is not actually written: its source is kept, to be compiled
+     * in memory (see compileInvocationFile()).
      * 
      * <p>A shell file has, very roughly, the following form:
      * 
@@ -818,44 +877,43 @@ public class Invoker
         }
         String scopeSave = buffer.toString();
 
+        StringBuilder source = new StringBuilder();
+        source.append(packageLine).append(Config.nl);
+        if (imports != null) {
+            source.append(imports).append(Config.nl);
+        }
+        source.append("public class ").append(shellName).append(" extends bluej.runtime.Shell {").append(Config.nl);
+        source.append("public static ").append(isVoid ? "void" : "java.lang.Object");
+        source.append(" run() throws Throwable {").append(Config.nl);
+        source.append(vardecl).append(Config.nl);
+        source.append(invocation);
+        source.append(scopeSave);
+        if (! isVoid) {
+            source.append("}"); // end finally block
+            if (constype != null) {
+                source.append("} };"); // end block, anonymous inner object
+            }
+        }
+        source.append(Config.nl);
+        source.append("}}"); // end method, class
+        source.append(Config.nl);
+
         File shellFile = new File(pkgPath, shellName + ".java");
+        shellSource = null;
+        shellClasses = null;
+        anchorClassName = findAnchorClass();
+        if (anchorClassName != null) {
+            // The shell class can be compiled in memory and defined in the same package
+            // as the anchor class, so there is no need to write the file:
+            shellSource = source.toString();
+            return shellFile;
+        }
+        
         BufferedWriter shell = null;
         try {
             FileOutputStream fos = new FileOutputStream(shellFile);
             shell = new BufferedWriter(new OutputStreamWriter(fos, sourceCharset));
-
-            shell.write(packageLine);
-            shell.newLine();
-            if (imports != null) {
-                shell.write(imports);
-                shell.newLine();
-            }
-            shell.write("public class ");
-            shell.write(shellName);
-            shell.write(" extends bluej.runtime.Shell {");
-            shell.newLine();
-            shell.write("public static ");
-            if (isVoid) {
-                shell.write("void");
-            }
-            else {
-                shell.write("java.lang.Object");
-            }
-            shell.write(" run() throws Throwable {");
-            shell.newLine();
-            shell.write(vardecl);
-            shell.newLine();
-            shell.write(invocation);
-            shell.write(scopeSave);
-            if (! isVoid) {
-                shell.write("}"); // end finally block
-                if (constype != null) {
-                    shell.write("} };"); // end block, anonymous inner object
-                }
-            }
-            shell.newLine();
-            shell.write("}}"); // end method, class
-            shell.newLine();
+            shell.write(source.toString());
             shell.close();
         }
         catch (IOException e) {
@@ -872,6 +930,25 @@ public class Invoker
         return shellFile;
     }
     
+    /**
+     * Find a compiled class in the package, alongside which an in-memory shell class
+     * can be defined in the user VM (giving it access to package-private members).
+     * Returns null if there is none, in which case the shell file must be written to
+     * the package directory, so that it can be loaded from there.
+     */
+    private String findAnchorClass()
+    {
+        if (pkg == null) {
+            return null;
+        }
+        for (ClassTarget ct : pkg.getClassTargets()) {
+            if (ct.isCompiled()) {
+                return ct.getQualifiedName();
+            }
+        }
+        return null;
+    }
+    
     /**
      * Write out shell code to retrieve the values of variables or bench objects.
      * 
@@ -1045,7 +1122,14 @@ public class Invoker
     private void compileInvocationFile(File shellFile)
     {
         File[] files = {shellFile};
-        compiler.compile(files, new EventqueueCompileObserverAdapter(this));
+        if (shellSource != null) {
+            shellClasses = new HashMap<>();
+            compiler.compileToMemory(files, Collections.singletonMap(shellFile, shellSource), shellClasses,
+                    new EventqueueCompileObserverAdapter(this));
+        }
+        else {
+            compiler.compile(files, new EventqueueCompileObserverAdapter(this));
+        }
     }
 
     // -- CompileObserver interface --
@@ -1116,6 +1200,14 @@ public class Invoker
         }
     }
 
+    @Override
+    @OnThread(Tag.FXPlatform)
+    public void compileCancelled(CompileInputFile[] sources, CompileType type)
+    {
+        // Shell classes are kept once compiled, and jobs which keep their classes are
+        // never cancelled.
+    }
+
     /**
      * Clean up after an invocation or attempted invocation.
      * @param successful  Whether the invocation compilation was successful
@@ -1152,6 +1244,11 @@ public class Invoker
      */
     private void deleteShellFiles()
     {
+        if (shellSource != null) {
+            // Compiled in memory; there are no files
+            return;
+        }
+        
         File srcFile = new File(pkgPath, shellName + ".java");
         srcFile.delete();
 
@@ -1181,11 +1278,19 @@ public class Invoker
     private void startClass()
     {
         final String shellClassName = JavaNames.combineNames(pkgName, shellName);
+        final Map<String, byte[]> classes = shellClasses;
+        final String anchor = anchorClassName;
         
         new Thread("Shell class runner") {
             public void run() {
                 try {
-                    DebuggerResult result = debugger.runClassMain(shellClassName);
+                    DebuggerResult result;
+                    if (classes != null) {
+                        result = debugger.runShellClass(shellClassName, classes, anchor);
+                    }
+                    else {
+                        result = debugger.runClassMain(shellClassName);
+                    }
                     
                     Platform.runLater(new Runnable() {
                         public void run() {
@@ -1216,6 +1321,11 @@ public class Invoker
     @OnThread(Tag.FXPlatform)
     public void handleResult(DebuggerResult result, boolean unwrap)
     {
+        if (invocationStartTime != 0) {
+            Debug.message("Interactive call " + commandString + " took "
+                    + (System.currentTimeMillis() - invocationStartTime) + "ms"
+                    + (invokingDirectly ? " (called directly)" : " (via shell class)"));
+        }
         try {
             // first, check whether we had an unexpected exit
             int status = result.getExitStatus();
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,6 +22,7 @@
 package bluej.debugmgr;
 
 import java.io.File;
+import java.util.Map;
 
 import bluej.compiler.CompileObserver;
 
@@ -33,4 +34,12 @@ import bluej.compiler.CompileObserver;
 public interface InvokerCompiler
 {
     void compile(File [] files, CompileObserver observer);
+
+    /**
+     * Compile some source files, whose content is supplied (the files need not exist),
+     * to classes held in memory. The classes are put in the given map (binary name to
+     * class file bytes) before the observer is told that the compilation has ended.
+     */
+    void compileToMemory(File [] files, Map<File, String> sourceContents, Map<String, byte[]> classOutput,
+            CompileObserver observer);
 }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2013,2016,2017,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2013,2016,2017,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -64,6 +64,8 @@ public class FieldList extends ScrollPane
     private final ContentPane content = new ContentPane();
     // The latest data:
     private final List<FieldInfo> curData = new ArrayList<>();
+    // The value label of each row of the latest data:
+    private final List<Label> valueLabels = new ArrayList<>();
     // The currently selected row index:
     private final IntegerProperty selectedRow = new SimpleIntegerProperty(-1);
     // A placeholder shown where are no fields:
@@ -102,22 +104,39 @@ public class FieldList extends ScrollPane
 
     /**
      * Sets the new fields and values.  If this is identical, the update is skipped.
+     * If only some of the values have changed, only the labels for those values are
+     * updated.
+     * 
+     * @return true if anything has changed
      */
-    public void setData(List<FieldInfo> listData)
+    public boolean setData(List<FieldInfo> listData)
     {
         if (listData.equals(curData))
-            return;
+            return false;
+        
+        if (hasSameDescriptions(listData))
+        {
+            // Only values have changed; update just those rows:
+            for (int i = 0; i < listData.size(); i++)
+            {
+                if (!listData.get(i).equals(curData.get(i)))
+                {
+                    setValueLabel(valueLabels.get(i), listData.get(i).getValue());
+                }
+            }
+            curData.clear();
+            curData.addAll(listData);
+            return true;
+        }
         
         List<Node> children = new ArrayList<>();
+        valueLabels.clear();
         for (int i = 0; i < listData.size(); i++)
         {
             FieldInfo field = listData.get(i);
-            Label valueLabel = new Label(field.getValue());
-            if (OBJECT_REFERENCE.equals(valueLabel.getText()))
-            {
-                valueLabel.setGraphic(new ImageView(objectrefIcon));
-                valueLabel.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
-            }
+            Label valueLabel = new Label();
+            setValueLabel(valueLabel, field.getValue());
+            valueLabels.add(valueLabel);
             Pane wrapper = new BorderPane(valueLabel);
             JavaFXUtil.addStyleClass(wrapper, "inspector-field-value-wrapper");
             JavaFXUtil.addStyleClass(valueLabel, "inspector-field-value-label");
@@ -141,6 +160,41 @@ public class FieldList extends ScrollPane
         select(-1);
         select(sel);
         requestLayout();
+        return true;
+    }
+
+    /**
+     * Check whether the given data has the same rows (field descriptions) as the
+     * current data.
+     */
+    private boolean hasSameDescriptions(List<FieldInfo> listData)
+    {
+        if (listData.size() != curData.size())
+            return false;
+        for (int i = 0; i < listData.size(); i++)
+        {
+            if (!listData.get(i).getDescription().equals(curData.get(i).getDescription()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Show a value in a value label; object references are shown as an icon.
+     */
+    private static void setValueLabel(Label valueLabel, String value)
+    {
+        valueLabel.setText(value);
+        if (OBJECT_REFERENCE.equals(value))
+        {
+            valueLabel.setGraphic(new ImageView(objectrefIcon));
+            valueLabel.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        }
+        else
+        {
+            valueLabel.setGraphic(null);
+            valueLabel.setContentDisplay(ContentDisplay.LEFT);
+        }
     }
     
     /**
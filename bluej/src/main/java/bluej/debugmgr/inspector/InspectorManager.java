@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2016  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2016,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -119,4 +119,9 @@ public interface InspectorManager
      * 
      */
     public boolean inTestMode();
+
+    /**
+     * Get the updater which keeps auto-updating inspectors up to date.
+     */
+    public InspectorUpdater getInspectorUpdater();
 }
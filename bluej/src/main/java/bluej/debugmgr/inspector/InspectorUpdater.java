@@ -0,0 +1,220 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugmgr.inspector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bluej.debugger.Debugger;
+import bluej.debugger.DebuggerObject;
+import bluej.utility.Utility;
+import bluej.utility.javafx.FXPlatformRunnable;
+import bluej.utility.javafx.JavaFXUtil;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Keeps the auto-updating inspectors of a project (see Inspector.shouldAutoUpdate())
+ * up to date while they are showing.
+ * 
+ * <p>Rather than having each inspector re-read all of its fields periodically, the
+ * updater asks the debug VM for a hash of the state of each inspected object, for all
+ * the inspectors in a single request, and then updates only those inspectors whose
+ * object has changed. Inspectors which do not show the state of a single object (such
+ * as class inspectors) are updated every time. The request to the debug VM is made on
+ * a background thread, since the VM may be slow to respond.
+ * 
+ * <p>The interval between checks adapts to what is happening: it lengthens while nothing
+ * changes, and while the debug VM is slow to respond (because it is busy), and returns
+ * to the minimum as soon as something changes.
+ */
+@OnThread(Tag.FXPlatform)
+public class InspectorUpdater
+{
+    private static final long MIN_INTERVAL_MILLIS = 1000;
+    private static final long MAX_INTERVAL_MILLIS = 4000;
+    // The interval is at least this many times the time taken by the last check, so
+    // that a busy debug VM doesn't spend much of its time being checked:
+    private static final int CHECK_TIME_FACTOR = 20;
+    // ...but the interval is never more than this:
+    private static final long MAX_BUSY_INTERVAL_MILLIS = 15000;
+    // An inspector is re-read at least this often, even if the hash of its object is
+    // unchanged, since the hash does not cover every element of a large array:
+    private static final long FULL_REFRESH_MILLIS = 10000;
+    
+    private final Debugger debugger;
+    private final List<Inspector> inspectors = new ArrayList<>();
+    // The last known state hash of the object of each inspector (if it has one):
+    private final Map<Inspector, Long> lastHashes = new HashMap<>();
+    // The time at which each inspector was last re-read:
+    private final Map<Inspector, Long> lastRefreshTimes = new HashMap<>();
+    private long intervalMillis = MIN_INTERVAL_MILLIS;
+    // Cancels the next scheduled check, or null if none is scheduled:
+    private FXPlatformRunnable cancelNextCheck;
+    // Whether the state hashes are being fetched (in which case the next check will
+    // be scheduled once they have been):
+    private boolean checkInProgress;
+    
+    public InspectorUpdater(Debugger debugger)
+    {
+        this.debugger = debugger;
+    }
+    
+    /**
+     * Start keeping an inspector up to date.
+     */
+    public void add(Inspector inspector)
+    {
+        if (! inspectors.contains(inspector)) {
+            inspectors.add(inspector);
+        }
+        intervalMillis = MIN_INTERVAL_MILLIS;
+        if (cancelNextCheck == null && ! checkInProgress) {
+            scheduleCheck();
+        }
+    }
+    
+    /**
+     * Stop keeping an inspector up to date (when it is hidden).
+     */
+    public void remove(Inspector inspector)
+    {
+        inspectors.remove(inspector);
+        lastHashes.remove(inspector);
+        lastRefreshTimes.remove(inspector);
+        if (inspectors.isEmpty() && cancelNextCheck != null) {
+            cancelNextCheck.run();
+            cancelNextCheck = null;
+        }
+    }
+    
+    private void scheduleCheck()
+    {
+        cancelNextCheck = JavaFXUtil.runAfter(Duration.millis(intervalMillis), () -> {
+            cancelNextCheck = null;
+            check();
+        });
+    }
+    
+    /**
+     * Start a check of the inspectors. The state hashes are fetched from the debug VM on a
+     * background thread, and then the inspectors are updated, and the next check scheduled,
+     * on the FX thread.
+     */
+    private void check()
+    {
+        long startTime = System.currentTimeMillis();
+        
+        // Updating an inspector can cause inspectors to be removed, so work on a copy:
+        List<Inspector> toCheck = new ArrayList<>(inspectors);
+        List<DebuggerObject> objects = new ArrayList<>();
+        for (Inspector inspector : toCheck) {
+            DebuggerObject obj = inspector.getAutoUpdateObject();
+            if (obj != null) {
+                objects.add(obj);
+            }
+        }
+        
+        if (objects.isEmpty()) {
+            update(toCheck, null, startTime);
+            return;
+        }
+        
+        checkInProgress = true;
+        Utility.runBackground(() -> {
+            long[] hashes = debugger.getStateHashes(objects);
+            Platform.runLater(() -> {
+                checkInProgress = false;
+                update(toCheck, hashes, startTime);
+            });
+        });
+    }
+    
+    /**
+     * Update those inspectors whose objects have changed (or which haven't been updated
+     * for a while), adjust the interval and schedule the next check.
+     * 
+     * @param toCheck    The inspectors which were checked
+     * @param hashes     The state hashes of the objects of those inspectors which have one,
+     *                   in order, or null if they could not be fetched
+     * @param startTime  The time at which the check started
+     */
+    private void update(List<Inspector> toCheck, long[] hashes, long startTime)
+    {
+        boolean changed = false;
+        int objectIndex = 0;
+        for (Inspector inspector : toCheck) {
+            if (! inspectors.contains(inspector)) {
+                // Removed since the check started (or while updating another inspector)
+                if (inspector.getAutoUpdateObject() != null) {
+                    objectIndex++;
+                }
+                continue;
+            }
+            if (inspector.getAutoUpdateObject() != null) {
+                long hash = (hashes != null) ? hashes[objectIndex] : 0;
+                objectIndex++;
+                if (hash != 0) {
+                    Long lastHash = lastHashes.put(inspector, hash);
+                    Long lastRefresh = lastRefreshTimes.get(inspector);
+                    if (lastHash != null && lastHash == hash && lastRefresh != null
+                            && startTime - lastRefresh < FULL_REFRESH_MILLIS) {
+                        // Unchanged; no need to re-read the fields
+                        continue;
+                    }
+                }
+            }
+            lastRefreshTimes.put(inspector, startTime);
+            changed |= inspector.refresh();
+        }
+        
+        long checkMillis = System.currentTimeMillis() - startTime;
+        intervalMillis = nextInterval(intervalMillis, changed, checkMillis);
+        if (! inspectors.isEmpty() && cancelNextCheck == null) {
+            scheduleCheck();
+        }
+    }
+    
+    /**
+     * Work out the interval until the next check.
+     * 
+     * @param lastInterval  The interval before the last check
+     * @param changed       Whether any inspector changed in the last check
+     * @param checkMillis   The time the last check took
+     */
+    @OnThread(Tag.Any)
+    static long nextInterval(long lastInterval, boolean changed, long checkMillis)
+    {
+        long interval;
+        if (changed) {
+            interval = MIN_INTERVAL_MILLIS;
+        }
+        else {
+            interval = Math.min(MAX_INTERVAL_MILLIS, lastInterval * 3 / 2);
+        }
+        return Math.max(interval, Math.min(MAX_BUSY_INTERVAL_MILLIS, checkMillis * CHECK_TIME_FACTOR));
+    }
+}
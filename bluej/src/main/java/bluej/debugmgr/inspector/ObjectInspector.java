@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2013,2014,2016,2017,2018,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2013,2014,2016,2017,2018,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -234,6 +234,12 @@ public class ObjectInspector extends Inspector
         return Config.isGreenfoot();
     }
 
+    @Override
+    protected DebuggerObject getAutoUpdateObject()
+    {
+        return obj;
+    }
+
     /**
      * True if this inspector is used to display a method call result.
      */
@@ -247,15 +253,19 @@ public class ObjectInspector extends Inspector
             return compressArrayList(obj);
         }
         else {
-            List<DebuggerField> fields = obj.getFields();
-            List<FieldInfo> fieldInfos = new ArrayList<FieldInfo>(fields.size());
-            for (DebuggerField field : fields) {
+            List<DebuggerField> fields = new ArrayList<DebuggerField>();
+            for (DebuggerField field : obj.getFields()) {
                 if (! Modifier.isStatic(field.getModifiers())) {
-                    String desc = Inspector.fieldToString(field);
-                    String value = field.getValueString();
-                    fieldInfos.add(new FieldInfo(desc, value));
+                    fields.add(field);
                 }
             }
+            // Fetch all the values at once, rather than field by field:
+            List<String> values = obj.getFieldValueStrings(fields);
+            List<FieldInfo> fieldInfos = new ArrayList<FieldInfo>(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                String desc = Inspector.fieldToString(fields.get(i));
+                fieldInfos.add(new FieldInfo(desc, values.get(i)));
+            }
             return fieldInfos;
         }
     }
@@ -502,6 +512,9 @@ public class ObjectInspector extends Inspector
      * When an element from the [...] section is queried, we had it inside the list
      * (depending on the index, we can have more than [...] eventually.
      * 
+     * Only the values of the displayed elements are retrieved from the debug VM,
+     * and the start and tail sections are each retrieved in a single request.
+     * 
      * @param arrayObject
      *            the full field list for an array
      * @return the compressed array
@@ -526,10 +539,11 @@ public class ObjectInspector extends Inspector
             // the destination list
             List<FieldInfo> newArray = new ArrayList<FieldInfo>(2 + VISIBLE_ARRAY_START + VISIBLE_ARRAY_TAIL);
             newArray.add(0, new FieldInfo("int length", "" + arrayTotalLength));
+            List<String> startValues = arrayObject.getElementValueStrings(0, VISIBLE_ARRAY_START + 1);
             for (int i = 0; i <= VISIBLE_ARRAY_START; i++)
             {
                 // first 40 elements are displayed as per normal
-                newArray.add(new FieldInfo("[" + i + "]", arrayObject.getElementValueString(i)));
+                newArray.add(new FieldInfo("[" + i + "]", startValues.get(i)));
                 indexToSlotList.add(i);
                 //set the list position index for the request slot
                 if(i == extraArraySlotIndex)
@@ -563,11 +577,13 @@ public class ObjectInspector extends Inspector
             }
 
             // tail part
+            List<String> tailValues = arrayObject.getElementValueStrings(arrayTotalLength - VISIBLE_ARRAY_TAIL,
+                    VISIBLE_ARRAY_TAIL);
             for (int i = VISIBLE_ARRAY_TAIL; i > 0; i--)
             {
                 // last 5 elements are displayed
                 int elNum = arrayTotalLength - i;
-                newArray.add(new FieldInfo("[" + elNum + "]", arrayObject.getElementValueString(elNum)));
+                newArray.add(new FieldInfo("[" + elNum + "]", tailValues.get(VISIBLE_ARRAY_TAIL - i)));
                 indexToSlotList.add(arrayTotalLength - i);
                 //set the list position index for the request slot
                 if((arrayTotalLength-i) == extraArraySlotIndex)
@@ -578,11 +594,12 @@ public class ObjectInspector extends Inspector
             return newArray;
         }
         else {
-            List<FieldInfo> fullArrayFieldList = new ArrayList<FieldInfo>(arrayObject.getElementCount() + 1);
-            fullArrayFieldList.add(0, new FieldInfo("int length", "" + arrayObject.getElementCount()));
+            List<FieldInfo> fullArrayFieldList = new ArrayList<FieldInfo>(arrayTotalLength + 1);
+            fullArrayFieldList.add(0, new FieldInfo("int length", "" + arrayTotalLength));
             
-            for (int i = 0; i < arrayObject.getElementCount(); i++) {
-                fullArrayFieldList.add(new FieldInfo("[" + i + "]", arrayObject.getElementValueString(i)));
+            List<String> values = arrayObject.getElementValueStrings(0, arrayTotalLength);
+            for (int i = 0; i < arrayTotalLength; i++) {
+                fullArrayFieldList.add(new FieldInfo("[" + i + "]", values.get(i)));
                 indexToSlotList.add(i);
             }
             return fullArrayFieldList;
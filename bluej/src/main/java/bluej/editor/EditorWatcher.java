@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2012,2013,2014,2016,2017,2018,2020,2021,2022,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2012,2013,2014,2016,2017,2018,2020,2021,2022,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.List;
 
 import bluej.collect.DiagnosticWithShown;
+import bluej.collect.SourceEditTracker;
 import bluej.collect.StrideEditReason;
 import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
@@ -99,10 +100,10 @@ public interface EditorWatcher
 
     /**
      * Records an edit to the Java code.  Will only be called for Java classes, not for Stride classes.
-     * @param javaSource The current Java source
+     * @param edits The tracker for the editor's document, which gives the current Java source and the changes to it
      * @param includeOneLineEdits Whether to record if the edit (diff) only affects one line
      */
-    void recordJavaEdit(String javaSource, boolean includeOneLineEdits);
+    void recordJavaEdit(SourceEditTracker edits, boolean includeOneLineEdits);
 
     /**
      * Records an edit to the Stride code.  Will only be called for Stride classes, not for Java classes.
@@ -0,0 +1,209 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.fixes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import bluej.utility.Utility;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A prebuilt index of the choices in a suggestion list, so that matching what the
+ * user has typed does not need to re-examine every choice's text on each keystroke.
+ * 
+ * <p>The lower-cased choices are kept in sorted order, so that all the choices starting
+ * with a given prefix form one range found by binary search.  The start of each word
+ * within each choice (see {@link #getWordStarts(int)}) is found once, up front, for
+ * matching against similar words.
+ */
+@OnThread(Tag.Any)
+final class SuggestionIndex
+{
+    private final String[] choices;
+    private final String[] lowerChoices;
+    /** Indexes into choices, sorted by lower-cased choice */
+    private final int[] sorted;
+    private final int[][] wordStarts;
+    
+    public SuggestionIndex(List<String> choices)
+    {
+        int n = choices.size();
+        this.choices = choices.toArray(new String[n]);
+        this.lowerChoices = new String[n];
+        this.wordStarts = new int[n][];
+        for (int i = 0; i < n; i++)
+        {
+            lowerChoices[i] = this.choices[i].toLowerCase();
+            wordStarts[i] = splitIdentLower(this.choices[i]);
+        }
+        this.sorted = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparing(i -> lowerChoices[i]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Get the indexes of all the choices which start with the given prefix, ignoring case.
+     * The prefix must already be lower case.
+     */
+    public List<Integer> withPrefix(String lowerPrefix)
+    {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (lowerChoices[sorted[mid]].compareTo(lowerPrefix) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        
+        List<Integer> r = new ArrayList<>();
+        for (int i = lo; i < sorted.length && lowerChoices[sorted[i]].startsWith(lowerPrefix); i++)
+        {
+            r.add(sorted[i]);
+        }
+        r.sort(null);
+        return r;
+    }
+    
+    /**
+     * The offsets within the given choice at which each of its words start. A new word
+     * begins on a change of case, or after an underscore or a dot.
+     */
+    public int[] getWordStarts(int choice)
+    {
+        return wordStarts[choice];
+    }
+    
+    /**
+     * Gets the edit distance between the given prefix and the part of the given choice
+     * at the given offset, as long as that distance is no more than maxDistance.  If the
+     * distance is greater than maxDistance, some value greater than maxDistance is returned,
+     * though not necessarily the true distance.
+     * 
+     * @param lowerPrefix The prefix the user has typed, in lower case.
+     */
+    public int distanceTo(String lowerPrefix, int choice, int offset, int maxDistance)
+    {
+        String lower = lowerChoices[choice];
+        // We can only use the lower-cased choice if lower-casing kept every character in place:
+        if (lower.length() == choices[choice].length())
+        {
+            if (lower.startsWith(lowerPrefix, offset))
+                return 0;
+            if (maxDistance == 0)
+                return 1;
+            // The edit distance cannot be less than the number of characters in one string
+            // which are not in the other.  We compare against parts at most one character
+            // longer or shorter, so if this count is more than one over the limit, none can match:
+            if (characterDifference(lowerPrefix, lower, offset) > maxDistance + 1)
+                return maxDistance + 1;
+        }
+        
+        return distanceTo(lowerPrefix, choices[choice], offset);
+    }
+    
+    /**
+     * Count the characters in one of prefix, or the same-length part of candidate at offset,
+     * which are not in the other (taking the maximum of the two counts).
+     */
+    private static int characterDifference(String prefix, String candidate, int offset)
+    {
+        int end = Math.min(candidate.length(), offset + prefix.length());
+        // Characters are bucketed, which can only make the count smaller:
+        int[] counts = new int[64];
+        for (int i = 0; i < prefix.length(); i++)
+            counts[prefix.charAt(i) & 63]++;
+        for (int i = offset; i < end; i++)
+            counts[candidate.charAt(i) & 63]--;
+        int extra = 0, missing = 0;
+        for (int count : counts)
+        {
+            if (count > 0)
+                extra += count;
+            else
+                missing -= count;
+        }
+        return Math.max(extra, missing);
+    }
+    
+    private static int distanceTo(String prefix, String candidate, int offset)
+    {
+        // We check, given a prefix (e.g. "abc"), whether the substring of the same length (e.g. 3)
+        // at the given point in the candidate is a closen enough match by edit distance
+        // An exact match is edit distance 0
+        String partialLower = candidate.substring(offset, Math.min(candidate.length(), offset + prefix.length())).toLowerCase();
+        
+        // We also check for the strings one longer and one shorter, as they might have better edit distance:
+        String partialLowerShort = candidate.substring(offset, Math.min(candidate.length(), offset + Math.max(1, prefix.length() - 1))).toLowerCase();
+        String partialLowerLong = candidate.substring(offset, Math.min(candidate.length(), offset + 1 + prefix.length())).toLowerCase();
+        
+        return Math.min(
+                Utility.editDistance(partialLower, prefix),
+                Math.min(Utility.editDistance(partialLowerShort, prefix), Utility.editDistance(partialLowerLong, prefix))
+               );
+    }
+    
+    private static boolean hasCase(char c)
+    {
+        // It has case if one of these methods returns differently to the other:
+        return Character.isUpperCase(c) != Character.isLowerCase(c);
+    }
+
+    private static int[] splitIdentLower(String text)
+    {
+        int startCurWord = 0;
+        int[] r = new int[4];
+        int count = 0;
+        // We split on a change of case, or an underscore, or a dot (e.g. in Greenfoot.isKeyDown)
+        for (int i = 1 /* start at 2nd char */; i < text.length(); i++)
+        {
+            if ((hasCase(text.charAt(i)) && hasCase(text.charAt(i - 1))) && 
+               (Character.isUpperCase(text.charAt(i)) == Character.isLowerCase(text.charAt(i - 1))
+             || Character.isLowerCase(text.charAt(i)) == Character.isUpperCase(text.charAt(i - 1)))
+               && (startCurWord == 0 || i - startCurWord > 1))
+            {
+                // Case change:
+                if (count == r.length)
+                    r = Arrays.copyOf(r, count * 2);
+                r[count++] = startCurWord;
+                startCurWord = i;
+            }
+            else if ((text.charAt(i) == '_' || text.charAt(i) == '.') && startCurWord < i - 1)
+            {
+                if (count == r.length)
+                    r = Arrays.copyOf(r, count * 2);
+                r[count++] = startCurWord;
+                startCurWord = i + 1; 
+            }
+        }
+        if (count == r.length)
+            r = Arrays.copyOf(r, count + 1);
+        r[count++] = startCurWord;
+        return Arrays.copyOf(r, count);
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2018,2019,2020,2021,2024 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2018,2019,2020,2021,2024,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -155,6 +155,10 @@ public class SuggestionList
      * List of choices available for the user.  Each entry represents a different item.
      */
     private final List<SuggestionDetails> choices;
+    /**
+     * Index of the choices' text, for matching against what the user has typed.
+     */
+    private final SuggestionIndex index;
     /**
      * This array contains two entries per choice.  There is one complete set from
      * 0 to choices.size() - 1 which are the direct suggestions, and a second
@@ -258,6 +262,21 @@ public class SuggestionList
             }
         }
 
+        /**
+         * The greatest distance at which a suggestion can be close (see {@link #close()}) when
+         * the user has typed the given length, or -1 if only exact prefixes are close.
+         */
+        public static int maxCloseDistance(int length)
+        {
+            if (length >= 10)
+                return 2;
+            if (length >= 3)
+                return 1;
+            if (length >= 2)
+                return 0;
+            return -1;
+        }
+
         public boolean close()
         {
             if (distance == 0 && suggestionOffset == 0)
@@ -445,6 +464,7 @@ public class SuggestionList
 
         this.suggestionListId = nextSuggListId.getAndIncrement();
         this.choices = FXCollections.observableArrayList(choices);
+        this.index = new SuggestionIndex(Utility.mapList(choices, c -> c.choice));
         this.shownState.set(startShown);
         this.listener = listener;
         this.highlightListener = highlightListener;
@@ -841,34 +861,47 @@ public class SuggestionList
         lastPrefix = prefix;
         lastAllowSimilar = allowSimilar;
         eligible.clear();
-        for (int i = 0; i < choices.size(); i++)
+        String lowerPrefix = prefix.toLowerCase();
+        for (int i : index.withPrefix(lowerPrefix))
         {
-            String sugg = choices.get(i).choice;
-            if (choices.get(i).shown.compareTo(shown) > 0)
-            {
-                // Cannot put in eligible because it is rare and we are only showing common
-            }
-            else if (sugg.toLowerCase().startsWith(prefix.toLowerCase()))
+            // Rare choices are only eligible when we are showing rare:
+            if (choices.get(i).shown.compareTo(shown) <= 0)
             {
                 eligible.put(i, new EligibleDetail(0, 0, prefix.length()));
             }
-            else if (sugg.toLowerCase().startsWith("this." + prefix.toLowerCase()))
+        }
+        for (int i : index.withPrefix("this." + lowerPrefix))
+        {
+            // If there is a completion like "this.foodList" (which appears because the field is shadowed by a local variable named foodList)
+            // then we show it as directly relevant if the user types "foo".
+            if (choices.get(i).shown.compareTo(shown) <= 0 && !eligible.containsKey(i))
             {
-                // If there is a completion like "this.foodList" (which appears because the field is shadowed by a local variable named foodList)
-                // then we show it as directly relevant if the user types "foo".
                 eligible.put(i, new EligibleDetail("this.".length(), 0, prefix.length()));
             }
-            else if (allowSimilar)
+        }
+        
+        int maxDistance = EligibleDetail.maxCloseDistance(prefix.length());
+        if (allowSimilar && maxDistance >= 0)
+        {
+            for (int i = 0; i < choices.size(); i++)
             {
-                // Look if this text starts a word in the identifier:
-                List<Integer> wordStarts = splitIdentLower(sugg);
-                Optional<EligibleDetail> me = wordStarts.stream().map(j -> new EligibleDetail(j, distanceTo(prefix, sugg, j), prefix.length()))
-                    .filter(EligibleDetail::close)
-                    .sorted() // Will put smallest distance first
-                    .findFirst();
-                if (me.isPresent())
+                if (choices.get(i).shown.compareTo(shown) > 0 || eligible.containsKey(i))
+                {
+                    continue;
+                }
+                // Look if this text starts a word in the identifier, picking the closest match:
+                EligibleDetail best = null;
+                for (int j : index.getWordStarts(i))
+                {
+                    EligibleDetail detail = new EligibleDetail(j, index.distanceTo(lowerPrefix, i, j, maxDistance), prefix.length());
+                    if (detail.close() && (best == null || detail.compareTo(best) < 0))
+                    {
+                        best = detail;
+                    }
+                }
+                if (best != null)
                 {
-                    eligible.put(i + doubleSuggestions.size() / 2, me.get());
+                    eligible.put(i + doubleSuggestions.size() / 2, best);
                 }
             }
         }
@@ -881,56 +914,6 @@ public class SuggestionList
         }
     }
     
-    private static int distanceTo(String prefix, String candidate, int offset)
-    {
-        // We check, given a prefix (e.g. "abc"), whether the substring of the same length (e.g. 3)
-        // at the given point in the candidate is a closen enough match by edit distance
-        // An exact match is edit distance 0
-        prefix = prefix.toLowerCase();
-        String partialLower = candidate.substring(offset, Math.min(candidate.length(), offset + prefix.length())).toLowerCase();
-        
-        // We also check for the strings one longer and one shorter, as they might have better edit distance:
-        String partialLowerShort = candidate.substring(offset, Math.min(candidate.length(), offset + Math.max(1, prefix.length() - 1))).toLowerCase();
-        String partialLowerLong = candidate.substring(offset, Math.min(candidate.length(), offset + 1 + prefix.length())).toLowerCase();
-        
-        return Math.min(
-                Utility.editDistance(partialLower, prefix),
-                Math.min(Utility.editDistance(partialLowerShort, prefix), Utility.editDistance(partialLowerLong, prefix))
-               );
-    }
-    
-    private static boolean hasCase(char c)
-    {
-        // It has case if one of these methods returns differently to the other:
-        return Character.isUpperCase(c) != Character.isLowerCase(c);
-    }
-
-    private static List<Integer> splitIdentLower(String text)
-    {
-        int startCurWord = 0;
-        List<Integer> r = new ArrayList<>();
-        // We split on a change of case, or an underscore, or a dot (e.g. in Greenfoot.isKeyDown)
-        for (int i = 1 /* start at 2nd char */; i < text.length(); i++)
-        {
-            if ((hasCase(text.charAt(i)) && hasCase(text.charAt(i - 1))) && 
-               (Character.isUpperCase(text.charAt(i)) == Character.isLowerCase(text.charAt(i - 1))
-             || Character.isLowerCase(text.charAt(i)) == Character.isUpperCase(text.charAt(i - 1)))
-               && (startCurWord == 0 || i - startCurWord > 1))
-            {
-                // Case change:
-                r.add(startCurWord);
-                startCurWord = i;
-            }
-            else if ((text.charAt(i) == '_' || text.charAt(i) == '.') && startCurWord < i - 1)
-            {
-                r.add(startCurWord);
-                startCurWord = i + 1; 
-            }
-        }
-        r.add(startCurWord);
-        return r;
-    }
-
     /**
      * Updates the available options in the dropdown, restricting it to those
      * that are currently marked as eligible.  Thus this function only has a useful effect
@@ -0,0 +1,111 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.flow.Document.Bias;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * A log of the recent edits to a document, used to update tracked positions lazily.  Rather
+ * than updating every tracked position on every edit, each position records how many edits
+ * it has seen, and applies the rest when it is next asked for its position.
+ * 
+ * <p>To stop the log growing forever, once it is full all the positions are brought up to
+ * date and the log is emptied.
+ */
+@OnThread(Tag.FXPlatform)
+class EditLog
+{
+    private static final int MAX_SIZE = 256;
+    
+    // The edits in the log: a replacement of the given range with text of the given length.
+    private final int[] starts = new int[MAX_SIZE];
+    private final int[] ends = new int[MAX_SIZE];
+    private final int[] insertedLengths = new int[MAX_SIZE];
+    private int size;
+    // The number of edits before the first one in the log:
+    private long base;
+
+    /**
+     * We need to know all the positions so we can update them all when the log is emptied.  But
+     * we don't want to retain them and cause a memory leak.  Rather than having a deregistration
+     * system, we just keep weak references and thus let them fall out of memory once the caller
+     * of track no longer keeps track of them.
+     */
+    private final ArrayList<WeakReference<TrackedPosition>> trackedPositions = new ArrayList<>();
+    
+    /**
+     * Make a new position in the given document, which will be updated from this log.
+     */
+    public TrackedPosition track(Document document, int position, Bias bias)
+    {
+        TrackedPosition trackedPosition = new TrackedPosition(document, position, bias, this, base + size);
+        trackedPositions.add(new WeakReference<>(trackedPosition));
+        return trackedPosition;
+    }
+
+    /**
+     * Record an edit: the replacement of the given range with text of the given length.
+     */
+    public void add(int startCharIncl, int endCharExcl, int insertedLength)
+    {
+        if (size == MAX_SIZE)
+        {
+            for (Iterator<WeakReference<TrackedPosition>> iterator = trackedPositions.iterator(); iterator.hasNext(); )
+            {
+                TrackedPosition trackedPosition = iterator.next().get();
+                if (trackedPosition == null)
+                {
+                    iterator.remove();
+                }
+                else
+                {
+                    bringUpToDate(trackedPosition);
+                }
+            }
+            base += size;
+            size = 0;
+        }
+        starts[size] = startCharIncl;
+        ends[size] = endCharExcl;
+        insertedLengths[size] = insertedLength;
+        size += 1;
+    }
+
+    /**
+     * Apply to the given position any edits which it has not yet seen.
+     */
+    public void bringUpToDate(TrackedPosition trackedPosition)
+    {
+        for (long edit = trackedPosition.editsApplied; edit < base + size; edit++)
+        {
+            int i = (int)(edit - base);
+            trackedPosition.updateTrackedPosition(starts[i], ends[i], insertedLengths[i]);
+        }
+        trackedPosition.editsApplied = base + size;
+    }
+}
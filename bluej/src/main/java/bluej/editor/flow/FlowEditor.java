@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2021,2022,2023,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2022,2023,2024,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,6 +24,7 @@ package bluej.editor.flow;
 import bluej.BlueJEvent;
 import bluej.BlueJEventListener;
 import bluej.Config;
+import bluej.collect.SourceEditTracker;
 import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
 import bluej.compiler.Diagnostic;
@@ -168,6 +169,8 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
 
     private final FlowEditorPane flowEditorPane;
     private final HoleDocument document;
+    // Tracks the changes to the document, for data collection:
+    private final SourceEditTracker editTracker;
     private final JavaSyntaxView javaSyntaxView;
     private final FetchTabbedEditor fetchTabbedEditor;
     private final FlowFXTab fxTab;
@@ -426,6 +429,9 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         this.flowEditorPane = new FlowEditorPane("", this);
         this.document = flowEditorPane.getDocument();
         this.document.addListener(false, this);
+        // Must see each change before we record it as an edit:
+        this.editTracker = new SourceEditTracker(document);
+        this.document.addListener(true, editTracker);
         this.javaSyntaxView = new JavaSyntaxView(document, flowEditorPane, this, parentResolver, syntaxHighlighting);
         this.flowEditorPane.setErrorQuery(errorManager);
         this.undoManager = new UndoManager(document);
@@ -1622,7 +1628,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     {
         if (watcher != null)
         {
-            watcher.recordJavaEdit(document.getFullContent(), includeOneLineEdits);
+            watcher.recordJavaEdit(editTracker, includeOneLineEdits);
         }
     }
 
@@ -2780,7 +2786,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
      */
     private boolean checkCodeIsOnImportStatement(String code)
     {
-        JavaLexer l = new JavaLexer(new StringReader(code));
+        JavaLexer l = new JavaLexer(code);
         boolean isInImportStatement = false;
         for (LocatableToken t = l.nextToken(); t.getType() != JavaTokenTypes.EOF && t.getType() != JavaTokenTypes.LITERAL_class
             && t.getType() != JavaTokenTypes.LITERAL_interface && t.getType() != JavaTokenTypes.LITERAL_enum; t = l.nextToken())
@@ -2829,7 +2835,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         List<String> userCodeImportsList = new ArrayList<>();
         boolean parsingUserCodeImport = false;
         StringBuilder userCodeImportSB = new StringBuilder();
-        JavaLexer l = new JavaLexer(new StringReader(this.getText(new SourceLocation(1, 1), getLineColumnFromOffset(getTextLength()))));
+        JavaLexer l = new JavaLexer(this.getText(new SourceLocation(1, 1), getLineColumnFromOffset(getTextLength())));
         for (LocatableToken t = l.nextToken(); t.getType() != JavaTokenTypes.EOF && t.getType() != JavaTokenTypes.LITERAL_class 
             && t.getType() != JavaTokenTypes.LITERAL_interface && t.getType() != JavaTokenTypes.LITERAL_enum; t = l.nextToken())
         {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2021,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2022,2024,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -215,7 +215,7 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
             case TEXT:
                 return getDocument().getFullContent();
             case CARET_OFFSET:
-                return caret.position;
+                return caret.getPosition();
             case SELECTION_START:
                 return getSelectionStart();
             case SELECTION_END:
@@ -232,7 +232,7 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
                 Point2D screenPoint = (Point2D)objects[0];
                 return getCaretPositionForLocalPoint(screenToLocal(screenPoint)).map(p -> p.getPosition()).orElse(0);
             case HELP:
-                String err = listener.getErrorAtPosition(caret.position);
+                String err = listener.getErrorAtPosition(caret.getPosition());
                 if (err != null)
                     return "Error: " + err;
                 else
@@ -815,12 +815,12 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
 
     public int getSelectionEnd()
     {
-        return Math.max(caret.position, anchor.position);
+        return Math.max(caret.getPosition(), anchor.getPosition());
     }
 
     public int getSelectionStart()
     {
-        return Math.min(caret.position, anchor.position);
+        return Math.min(caret.getPosition(), anchor.getPosition());
     }
     
     public String getSelectedText()
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2021,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2022,2024,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -56,7 +56,6 @@ import javafx.scene.control.IndexRange;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.StringReader;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -697,7 +696,7 @@ public class FlowErrorManager implements ErrorQuery
                         //and we keep the position information of the beginning of the type declaration.
                         //** If the error starts at "." then we need to get information related to the end of the pretoken right
                         String codeAfterError = editor.getText(startErrorPosSourceLocation, editor.getLineColumnFromOffset(editor.getTextLength()));
-                        JavaLexer l = new JavaLexer(new StringReader((codeAfterError.startsWith(".")) ? (codeBeforeError + ".") : codeBeforeError));
+                        JavaLexer l = new JavaLexer((codeAfterError.startsWith(".")) ? (codeBeforeError + ".") : codeBeforeError);
                         List<String> fullTypePreTokens = new ArrayList<>();
                         boolean feedPreTokens = false;
                         LocatableToken lastToken = null;
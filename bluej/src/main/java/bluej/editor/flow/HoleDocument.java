@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2022,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,17 +26,17 @@ import threadchecker.OnThread;
 import threadchecker.Tag;
 
 import java.io.Reader;
-import java.lang.ref.WeakReference;
 import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 
 public class HoleDocument implements Document
 {
-    // How much extra should we grow the array by when needed?
+    // How much extra should we grow the array by when needed?  (At least; we grow by a quarter
+    // of the current size if that is larger, so that repeated large pastes don't copy the
+    // whole content each time.)
     private static final int GROWTH_MARGIN = 256;
     // Array which always contains, in order:
     //  content, up to holeStart (exclusive) -- may be empty if holeStart == 0
@@ -46,15 +46,10 @@ public class HoleDocument implements Document
     private int holeStart; // Index of first character in the hole.
     private int holeEnd; // Index of first character in array after the hole
     
-    private final ArrayList<LineInformation> lineInformation = new ArrayList<>();
-
-    /**
-     * We need to know all the positions so we can update them all.  But we don't want
-     * to retain them and cause a memory leak.  Rather than having a deregistration system,
-     * we just keep weak references and thus let them fall out of memory once the caller
-     * of trackPosition no longer keeps track of them.
-     */
-    private final ArrayList<WeakReference<TrackedPosition>> trackedPositions = new ArrayList<>();
+    // The lengths and attributes of the lines:
+    private final LineIndex lineIndex = new LineIndex();
+    // The edits since tracked positions were last brought up to date:
+    private final EditLog editLog = new EditLog();
     private final List<DocumentListener> listeners = new ArrayList<>();
 
     public HoleDocument()
@@ -62,35 +57,43 @@ public class HoleDocument implements Document
         content = new char[128];
         holeStart = 0;
         holeEnd = content.length;
-        lineInformation.add(new LineInformation(null));
     }
 
     @Override
     public void replaceText(int startCharIncl, int endCharExcl, String text)
     {
-        // Get rid of any new line positions that were in removed region:
-        int linesRemoved = 0;
-        int indexToInsertNewNewlines = 1;
-        for (Iterator<LineInformation> iterator = lineInformation.iterator(); iterator.hasNext(); )
+        // Work out the new line lengths.  The lines which contain the start and end of the replaced
+        // range are joined (along with any lines in between) and then split at the inserted newlines:
+        int firstLine = lineIndex.getLineFromPosition(startCharIncl);
+        int lastLine = lineIndex.getLineFromPosition(endCharExcl);
+        int linesRemoved = lastLine - firstLine;
+        int lengthBefore = startCharIncl - lineIndex.getLineStart(firstLine);
+        int lengthAfter = lineIndex.getLineStart(lastLine) + lineIndex.getLineLength(lastLine) - endCharExcl;
+        int[] addedLineLengths = new int[16];
+        int linesAdded = 0;
+        int lineStartInText = 0;
+        for (int i = text.indexOf('\n'); i != -1; i = text.indexOf('\n', i + 1))
         {
-            LineInformation lineInformation = iterator.next();
-            if (lineInformation.lineStart == null)
-            {
-                // Unremovable first line -- skip
-                continue;
-            }
-            
-            TrackedPosition lineStartPosition = lineInformation.lineStart;
-            if (lineStartPosition.position <= startCharIncl)
-            {
-                indexToInsertNewNewlines++;
-            }
-            else if (lineStartPosition.position > startCharIncl && lineStartPosition.position <= endCharExcl)
+            if (linesAdded == addedLineLengths.length)
             {
-                linesRemoved += 1;
-                iterator.remove();
+                addedLineLengths = Arrays.copyOf(addedLineLengths, linesAdded * 2);
             }
-            
+            addedLineLengths[linesAdded++] = i - lineStartInText;
+            lineStartInText = i + 1;
+        }
+        int lengthOfLastInsertedLine = text.length() - lineStartInText;
+        if (linesAdded == 0)
+        {
+            lineIndex.replaceLinesAfter(firstLine, lengthBefore + lengthOfLastInsertedLine + lengthAfter, linesRemoved, addedLineLengths, 0);
+        }
+        else
+        {
+            // The first part of the text goes on the end of the first line, and the last part
+            // (after the last newline) begins the last added line:
+            int firstLineLength = lengthBefore + addedLineLengths[0];
+            System.arraycopy(addedLineLengths, 1, addedLineLengths, 0, linesAdded - 1);
+            addedLineLengths[linesAdded - 1] = lengthOfLastInsertedLine + lengthAfter;
+            lineIndex.replaceLinesAfter(firstLine, firstLineLength, linesRemoved, addedLineLengths, linesAdded);
         }
         
         // Start by moving the hole to the modification location:
@@ -123,7 +126,7 @@ public class HoleDocument implements Document
         if (holeEnd - holeStart < additionAmount)
         {
             // Hole not big enough, need to enlarge:
-            int extraLength = additionAmount + GROWTH_MARGIN;
+            int extraLength = additionAmount + Math.max(GROWTH_MARGIN, content.length / 4);
             char[] newContent = new char[content.length + extraLength];
             System.arraycopy(content, 0, newContent, 0, holeStart);
             System.arraycopy(content, holeEnd, newContent, holeEnd + extraLength, content.length - holeEnd);
@@ -135,31 +138,8 @@ public class HoleDocument implements Document
         System.arraycopy(text.toCharArray(), 0, content, holeStart, text.length());
         holeStart += text.length();
 
-        for (Iterator<WeakReference<TrackedPosition>> iterator = trackedPositions.iterator(); iterator.hasNext(); )
-        {
-            WeakReference<TrackedPosition> trackedPositionRef = iterator.next();
-            TrackedPosition trackedPosition = trackedPositionRef.get();
-            if (trackedPosition == null)
-            {
-                iterator.remove();
-            }
-            else
-            {
-                trackedPosition.updateTrackedPosition(startCharIncl, endCharExcl, text.length());
-            }
-        }
-        
-        int linesAdded = 0;
-        // Now add new positions for the added newlines:
-        for (int i = 0; i < text.length(); i++)
-        {
-            if (text.charAt(i) == '\n')
-            {
-                lineInformation.add(indexToInsertNewNewlines, new LineInformation(trackPosition(i + 1 + startCharIncl, Bias.BACK)));
-                indexToInsertNewNewlines += 1;
-                linesAdded += 1;
-            }
-        }
+        // Tracked positions are updated lazily, when they are next used:
+        editLog.add(startCharIncl, endCharExcl, text.length());
 
         // Take a copy in case one of the listeners removes themselves
         // (would lead to a concurrent modification exception if we iterated over the original list):
@@ -185,45 +165,7 @@ public class HoleDocument implements Document
     @Override
     public int getLineFromPosition(int position)
     {
-        int index = Collections.binarySearch(getLineStartPositions(), position);
-        if (index >= 0)
-        {
-            // Line begins there exactly:
-            return index;
-        }
-        else
-        {
-            return -2-index;
-        }
-    }
-
-    /**
-     * A read-only list of the current line start positions in the document.
-     */
-    private List<Integer> getLineStartPositions()
-    {
-        // No need to copy when we are read-only, just make a dummy list object: 
-        return new AbstractList<Integer>() {
-
-            @Override
-            public int size()
-            {
-                return lineInformation.size();
-            }
-
-            @Override
-            public Integer get(int index)
-            {
-                if (index == 0)
-                {
-                    return 0;
-                }
-                else
-                {
-                    return lineInformation.get(index).lineStart.position;
-                }
-            }
-        };
+        return lineIndex.getLineFromPosition(position);
     }
 
     @Override
@@ -237,36 +179,31 @@ public class HoleDocument implements Document
         }
         else
         {
-            return position - lineInformation.get(lineStartIndex).lineStart.position;
+            return position - lineIndex.getLineStart(lineStartIndex);
         }
     }
 
     @Override
     public TrackedPosition trackPosition(int position, Bias bias)
     {
-        TrackedPosition trackedPosition = new TrackedPosition(this, position, bias);
-        trackedPositions.add(new WeakReference<>(trackedPosition));
-        return trackedPosition;
+        return editLog.track(this, position, bias);
     }
     
     public List<CharSequence> getLines()
     {
-        List<Integer> lineStarts = getLineStartPositions();
-        
         return new AbstractList<CharSequence>()
         {
             @Override
-            public CharSequence get(int lineIndex)
+            public CharSequence get(int line)
             {
-                int startChar = lineStarts.get(lineIndex);
-                int endChar = lineIndex + 1 >= lineStarts.size() ? getLength() : (lineStarts.get(lineIndex + 1) - 1);
-                return subSequence(startChar, endChar);
+                int startChar = lineIndex.getLineStart(line);
+                return subSequence(startChar, startChar + lineIndex.getLineLength(line));
             }
 
             @Override
             public int size()
             {
-                return lineStarts.size();
+                return lineIndex.getLineCount();
             }
         };
     }
@@ -340,26 +277,19 @@ public class HoleDocument implements Document
     @Override
     public int getLineStart(int lineNumber)
     {
-        return getLineStartPositions().get(lineNumber);
+        return lineIndex.getLineStart(lineNumber);
     }
 
     @Override
     public int getLineEnd(int lineNumber)
     {
-        if (lineNumber + 1 < lineInformation.size())
-        {
-            return getLineStartPositions().get(lineNumber + 1) - 1;
-        }
-        else
-        {
-            return getLength();
-        }
+        return lineIndex.getLineStart(lineNumber) + lineIndex.getLineLength(lineNumber);
     }
 
     @Override
     public int getLineCount()
     {
-        return lineInformation.size();
+        return lineIndex.getLineCount();
     }
 
     @Override
@@ -381,9 +311,10 @@ public class HoleDocument implements Document
 
     public boolean hasLineAttribute(int lineIndex, Object attributeKey)
     {
-        if (lineIndex >= 0 && lineIndex < lineInformation.size())
+        if (lineIndex >= 0 && lineIndex < this.lineIndex.getLineCount())
         {
-            return lineInformation.get(lineIndex).lineAttributes.containsKey(attributeKey);
+            HashMap<Object, Object> attributes = this.lineIndex.getAttributes(lineIndex);
+            return attributes != null && attributes.containsKey(attributeKey);
         }
         else
         {
@@ -393,18 +324,15 @@ public class HoleDocument implements Document
     
     public void addLineAttribute(int lineIndex, Object key, Object value)
     {
-        if (lineIndex >= 0 && lineIndex < lineInformation.size())
+        if (lineIndex >= 0 && lineIndex < this.lineIndex.getLineCount())
         {
-            lineInformation.get(lineIndex).lineAttributes.put(key, value);
+            this.lineIndex.getOrCreateAttributes(lineIndex).put(key, value);
         }
     }
     
     public void removeLineAttributeThroughout(Object key)
     {
-        for (LineInformation information : lineInformation)
-        {
-            information.lineAttributes.remove(key);
-        }
+        lineIndex.removeAttributeThroughout(key);
     }
 
     @Override
@@ -418,32 +346,9 @@ public class HoleDocument implements Document
      */
     public String getLongestLine()
     {
-        List<Integer> lineStarts = getLineStartPositions();
-        int longestIndex = 0;
-        int longestLength = 0;
-        for (int line = 0; line + 1 < lineStarts.size(); line++)
-        {
-            int length = lineStarts.get(line + 1) - lineStarts.get(line);
-            if (length > longestLength)
-            {
-                longestLength = length;
-                longestIndex = line;
-            }
-        }
-        return getLines().get(longestIndex).toString();
+        return getLines().get(lineIndex.getLongestLine()).toString();
     }
 
-    private static class LineInformation
-    {
-        private final TrackedPosition lineStart;
-        private final HashMap<Object, Object> lineAttributes = new HashMap<>();
-
-        public LineInformation(TrackedPosition lineStart)
-        {
-            this.lineStart = lineStart;
-        }
-    }
-    
     // Adapted from StringReader
     @OnThread(value = Tag.FXPlatform, ignoreParent = true)
     private class HoleReader extends Reader
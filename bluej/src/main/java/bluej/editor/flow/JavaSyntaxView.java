@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2014,2015,2016,2017,2018,2019,2020,2021,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2014,2015,2016,2017,2018,2019,2020,2021,2022,2024,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -58,7 +58,6 @@ import javafx.util.Duration;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.Reader;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -2183,19 +2182,15 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
             @Override
             public ReparseableDocument.Element getElement(int index)
             {
-                int[] lineStarts = new int[document.getLineCount()];
-                for (int i = 0; i < lineStarts.length; i++)
-                {
-                    lineStarts[i] = document.getLineStart(i);
-                }
-                
-                if (index >= lineStarts.length)
+                // Only look up the line starts we need; this is called frequently during parsing
+                // and fetching every line start would make it linear in the document size:
+                int lineCount = document.getLineCount();
+                if (index >= lineCount)
                     return null;
 
-                boolean lastPara = index == lineStarts.length - 1;
-                int paraLength;
-                paraLength = lastPara ? (document.getLength() - lineStarts[index]) : lineStarts[index + 1] - lineStarts[index];
-                int pos = lineStarts[index];
+                boolean lastPara = index == lineCount - 1;
+                int pos = document.getLineStart(index);
+                int paraLength = lastPara ? (document.getLength() - pos) : document.getLineStart(index + 1) - pos;
                 return new ReparseableDocument.Element()
                 {
                     @Override
@@ -2257,9 +2252,9 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     }
 
     @Override
-    public Reader makeReader(int startPos, int endPos)
+    public CharSequence getContent(int startPos, int endPos)
     {
-        return document.makeReader(startPos, endPos);
+        return document.getContent(startPos, endPos);
     }
 
     @Override
@@ -0,0 +1,375 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * An index of the lines in a document, used by HoleDocument.  For each line it holds the
+ * length of the line (not including the newline at the end) and the line's attributes.
+ * 
+ * <p>The lines are held in a balanced tree (a treap, keyed implicitly by line index), with
+ * each node holding the total length and the maximum line length of its subtree.  So finding
+ * the start of a line, finding the line at a position, and replacing a run of lines all take
+ * O(log n) time (plus the number of lines inserted), rather than requiring a pass over all
+ * the lines.
+ * 
+ * <p>There is always at least one line.  Every line but the last is followed by a newline.
+ */
+@OnThread(Tag.FXPlatform)
+class LineIndex
+{
+    private Node root = new Node(0, 0);
+    // State for the pseudo-random node priorities:
+    private int seed = 0x2545F491;
+    
+    private static class Node
+    {
+        private int length;
+        private final int priority;
+        private Node left;
+        private Node right;
+        // Null until an attribute is added:
+        private HashMap<Object, Object> attributes;
+        
+        // Subtree values:
+        private int count;
+        private int totalLength;
+        private int maxLength;
+        
+        private Node(int length, int priority)
+        {
+            this.length = length;
+            this.priority = priority;
+            update();
+        }
+        
+        private void update()
+        {
+            count = 1;
+            totalLength = length;
+            maxLength = length;
+            if (left != null)
+            {
+                count += left.count;
+                totalLength += left.totalLength;
+                maxLength = Math.max(maxLength, left.maxLength);
+            }
+            if (right != null)
+            {
+                count += right.count;
+                totalLength += right.totalLength;
+                maxLength = Math.max(maxLength, right.maxLength);
+            }
+        }
+    }
+    
+    private static int count(Node node)
+    {
+        return node == null ? 0 : node.count;
+    }
+    
+    // The number of characters in the subtree, including a newline after each line:
+    private static int charCount(Node node)
+    {
+        return node == null ? 0 : node.totalLength + node.count;
+    }
+    
+    private int nextPriority()
+    {
+        // xorshift:
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+    
+    /**
+     * The number of lines.
+     */
+    public int getLineCount()
+    {
+        return root.count;
+    }
+    
+    /**
+     * Get the length of the given line, not including the newline at the end.
+     */
+    public int getLineLength(int line)
+    {
+        return getNode(line).length;
+    }
+    
+    /**
+     * Get the position of the start of the given line.
+     */
+    public int getLineStart(int line)
+    {
+        checkLine(line);
+        int start = 0;
+        Node node = root;
+        while (true)
+        {
+            int leftCount = count(node.left);
+            if (line < leftCount)
+            {
+                node = node.left;
+            }
+            else
+            {
+                start += charCount(node.left);
+                if (line == leftCount)
+                    return start;
+                start += node.length + 1;
+                line -= leftCount + 1;
+                node = node.right;
+            }
+        }
+    }
+    
+    /**
+     * Get the index of the line containing the given position.  A position at the start of a
+     * line counts as being in that line.  Positions before the start of the document give -1,
+     * and positions beyond the end give the last line.
+     */
+    public int getLineFromPosition(int position)
+    {
+        if (position < 0)
+            return -1;
+        int line = 0;
+        Node node = root;
+        while (node != null)
+        {
+            int leftChars = charCount(node.left);
+            if (position < leftChars)
+            {
+                node = node.left;
+            }
+            else if (position <= leftChars + node.length)
+            {
+                return line + count(node.left);
+            }
+            else
+            {
+                position -= leftChars + node.length + 1;
+                line += count(node.left) + 1;
+                node = node.right;
+            }
+        }
+        // Beyond the end:
+        return root.count - 1;
+    }
+    
+    /**
+     * Get the index of the longest line (the first, if several are equally long).
+     */
+    public int getLongestLine()
+    {
+        int line = 0;
+        Node node = root;
+        while (true)
+        {
+            if (node.left != null && node.left.maxLength == node.maxLength)
+            {
+                node = node.left;
+            }
+            else if (node.length == node.maxLength)
+            {
+                return line + count(node.left);
+            }
+            else
+            {
+                line += count(node.left) + 1;
+                node = node.right;
+            }
+        }
+    }
+    
+    /**
+     * Replace the lines after the given line: the given number of lines are removed, and then
+     * new lines with the given lengths are inserted.  The given line itself (and its
+     * attributes) is kept, but its length is set to the given length.
+     */
+    public void replaceLinesAfter(int line, int newLength, int linesToRemove, int[] insertedLengths, int insertedCount)
+    {
+        checkLine(line);
+        if (linesToRemove < 0 || line + linesToRemove >= root.count)
+            throw new IndexOutOfBoundsException("Cannot remove " + linesToRemove + " lines after line " + line + " of " + root.count);
+        
+        Node[] beforeAndRest = split(root, line);
+        Node[] lineAndRest = split(beforeAndRest[1], 1);
+        Node[] removedAndAfter = split(lineAndRest[1], linesToRemove);
+        Node kept = lineAndRest[0];
+        kept.length = newLength;
+        kept.update();
+        root = merge(merge(beforeAndRest[0], kept), merge(build(insertedLengths, insertedCount), removedAndAfter[1]));
+    }
+    
+    /**
+     * Get the attributes of the given line, or null if it has none.
+     */
+    public HashMap<Object, Object> getAttributes(int line)
+    {
+        return getNode(line).attributes;
+    }
+    
+    /**
+     * Get the attributes of the given line, creating them if it has none.
+     */
+    public HashMap<Object, Object> getOrCreateAttributes(int line)
+    {
+        Node node = getNode(line);
+        if (node.attributes == null)
+            node.attributes = new HashMap<>();
+        return node.attributes;
+    }
+    
+    /**
+     * Remove the given attribute from all lines.
+     */
+    public void removeAttributeThroughout(Object key)
+    {
+        ArrayDeque<Node> toVisit = new ArrayDeque<>();
+        toVisit.add(root);
+        while (!toVisit.isEmpty())
+        {
+            Node node = toVisit.poll();
+            if (node.attributes != null)
+                node.attributes.remove(key);
+            if (node.left != null)
+                toVisit.add(node.left);
+            if (node.right != null)
+                toVisit.add(node.right);
+        }
+    }
+    
+    private void checkLine(int line)
+    {
+        if (line < 0 || line >= root.count)
+            throw new IndexOutOfBoundsException("Line " + line + " of " + root.count);
+    }
+    
+    private Node getNode(int line)
+    {
+        checkLine(line);
+        Node node = root;
+        while (true)
+        {
+            int leftCount = count(node.left);
+            if (line < leftCount)
+            {
+                node = node.left;
+            }
+            else if (line == leftCount)
+            {
+                return node;
+            }
+            else
+            {
+                line -= leftCount + 1;
+                node = node.right;
+            }
+        }
+    }
+    
+    /**
+     * Split the tree into the first n lines, and the rest.
+     */
+    private static Node[] split(Node node, int n)
+    {
+        if (node == null)
+            return new Node[2];
+        if (n <= count(node.left))
+        {
+            Node[] parts = split(node.left, n);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+            return parts;
+        }
+        else
+        {
+            Node[] parts = split(node.right, n - count(node.left) - 1);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+    }
+    
+    /**
+     * Join two trees, with all the lines of the first coming before the second.
+     */
+    private static Node merge(Node first, Node second)
+    {
+        if (first == null)
+            return second;
+        if (second == null)
+            return first;
+        if (first.priority > second.priority)
+        {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        else
+        {
+            second.left = merge(first, second.left);
+            second.update();
+            return second;
+        }
+    }
+    
+    /**
+     * Build a tree of new lines with the given lengths, in linear time.
+     */
+    private Node build(int[] lengths, int count)
+    {
+        // Standard construction of a Cartesian tree: the stack holds the right spine of the tree so far.
+        ArrayDeque<Node> spine = new ArrayDeque<>();
+        for (int i = 0; i < count; i++)
+        {
+            Node node = new Node(lengths[i], nextPriority());
+            Node last = null;
+            while (!spine.isEmpty() && spine.peek().priority < node.priority)
+            {
+                last = spine.pop();
+                last.update();
+            }
+            node.left = last;
+            if (!spine.isEmpty())
+                spine.peek().right = node;
+            spine.push(node);
+        }
+        Node top = null;
+        while (!spine.isEmpty())
+        {
+            top = spine.pop();
+            top.update();
+        }
+        return top;
+    }
+}
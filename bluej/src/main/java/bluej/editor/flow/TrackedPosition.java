@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2021,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -35,17 +35,37 @@ import threadchecker.Tag;
 @OnThread(Tag.FXPlatform)
 public class TrackedPosition implements EditorPosition
 {
-    // package-visible for access by document classes:
-    int position;
-    final Bias bias;
+    private int position;
+    private final Bias bias;
     private final Document document;
+    // The log of edits to apply to the position before it is next used, or null
+    // if the document updates the position directly:
+    private final EditLog editLog;
+    // The number of edits from the log which have been applied to the position:
+    long editsApplied;
     
     // Package-visible constructor
     public TrackedPosition(Document document, int initialPosition, Bias bias)
+    {
+        this(document, initialPosition, bias, null, 0);
+    }
+
+    TrackedPosition(Document document, int initialPosition, Bias bias, EditLog editLog, long editsApplied)
     {
         this.document = document;
         this.position = initialPosition;
         this.bias = bias;
+        this.editLog = editLog;
+        this.editsApplied = editsApplied;
+    }
+    
+    // Apply any pending edits from the log:
+    private void bringUpToDate()
+    {
+        if (editLog != null)
+        {
+            editLog.bringUpToDate(this);
+        }
     }
 
     void updateTrackedPosition(int removedStartCharIncl, int removedEndCharExcl, int insertedLength)
@@ -66,23 +86,27 @@ public class TrackedPosition implements EditorPosition
     @Override
     public int getLine()
     {
+        bringUpToDate();
         return document.getLineFromPosition(position);
     }
 
     @Override
     public int getColumn()
     {
+        bringUpToDate();
         return document.getColumnFromPosition(position);
     }
 
     @Override
     public int getPosition()
     {
+        bringUpToDate();
         return position;
     }
 
     public void moveBy(int amount)
     {
+        bringUpToDate();
         if (amount <= 0)
         {
             position = Math.max(0, position + amount);
@@ -95,7 +119,7 @@ public class TrackedPosition implements EditorPosition
 
     public void moveTo(int target)
     {
-        moveBy(target - position);
+        moveBy(target - getPosition());
     }
     
     public void moveToLineColumn(int line, int column)
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2024 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2024,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -58,7 +58,6 @@ import bluej.stride.framedjava.elements.CodeElement.LocalParamInfo;
 import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.stride.framedjava.elements.NormalMethodElement;
 import bluej.stride.framedjava.elements.TopLevelCodeElement;
-import bluej.stride.framedjava.errors.DirectSlotError;
 import bluej.stride.framedjava.errors.SyntaxCodeError;
 import bluej.stride.framedjava.frames.DebugInfo;
 import bluej.stride.framedjava.frames.LocalCompletion;
@@ -83,10 +82,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -167,6 +166,9 @@ public class FrameEditor implements Editor
      * errors to be associated with the most recent compile which triggered them.
      */
     private int mostRecentCompileIdentifier = -1;
+    /** Runs the late error checks after each compile */
+    @OnThread(Tag.FXPlatform)
+    private final LateErrorChecker lateErrorChecker = new LateErrorChecker();
 
     @OnThread(Tag.Any)
     public synchronized List<Integer> getBreakpoints()
@@ -364,15 +366,16 @@ public class FrameEditor implements Editor
             if (source == null)
                 return new SaveResult(Utility.serialiseCodeToString(lastSource.toXML()), null); // classFrame not initialised yet
 
-            // Save Frame source:
+            // Save Frame source.  We serialise once, and write out the same string that we keep:
+            String xmlSource = Utility.serialiseCodeToString(source.toXML());
             try (FileOutputStream os = new FileOutputStream(frameFilename))
             {
-                Utility.serialiseCodeTo(source.toXML(), os);
+                os.write(xmlSource.getBytes(StandardCharsets.UTF_8));
             }
 
             lastSavedJava = saveJava(panel.getSource(), true);
             changedSinceLastSave = false;
-            lastSavedSource = Utility.serialiseCodeToString(source.toXML());
+            lastSavedSource = xmlSource;
         
             setSaved();
             panel.saved();
@@ -429,7 +432,7 @@ public class FrameEditor implements Editor
         // to make sure all the source positions have been recorded.
         javaSource.set(js);
 
-        return new SaveJavaResult(js, javaString, source.toXML().buildLocationMap());
+        return new SaveJavaResult(js, javaString, source.getLocationMap());
     }
 
     /**
@@ -1190,38 +1193,18 @@ public class FrameEditor implements Editor
     @OnThread(Tag.FXPlatform)
     private void findLateErrors(int compilationIdentifier)
     {
-        panel.removeOldErrors();
         TopLevelCodeElement el = panel.getSource();
         if (el == null)
+        {
+            panel.removeOldErrors();
             return;
-        Stream<CodeElement> allElements = Stream.concat(Stream.of((CodeElement)el), el.streamContained());
-        LocationMap rootPathMap = el.toXML().buildLocationMap();
-        // We must start these futures going on the FX thread
-        List<Future<List<DirectSlotError>>> futures = allElements.flatMap(e -> e.findDirectLateErrors(panel, rootPathMap)).collect(Collectors.toList());
-        // Then wait for them on another thread
-        new Thread("Slot error finder") {
-            @Override
-            @OnThread(Tag.Worker)
-            public void run()
-            {
-                ArrayList<DirectSlotError> allLates = new ArrayList<>();
-                try
-                {
-                    // Wait for all futures:
-                    for (Future<List<DirectSlotError>> f : futures)
-                        allLates.addAll(f.get());
-                }
-                catch (ExecutionException | InterruptedException e)
-                {
-                    Debug.reportError(e);
-                }
-                Platform.runLater(() -> {
-                    panel.updateErrorOverviewBar(false);
-                    List<DiagnosticWithShown> diagnostics = Utility.mapList(allLates, e -> e.toDiagnostic(javaFilename.getName(), frameFilename));
-                    watcher.recordLateErrors(diagnostics, compilationIdentifier);
-                });
-            }
-        }.start();
+        }
+        FrameEditorTab checkedPanel = panel;
+        lateErrorChecker.start(checkedPanel, el, compilationIdentifier, allLates -> {
+            checkedPanel.updateErrorOverviewBar(false);
+            List<DiagnosticWithShown> diagnostics = Utility.mapList(allLates, e -> e.toDiagnostic(javaFilename.getName(), frameFilename));
+            watcher.recordLateErrors(diagnostics, compilationIdentifier);
+        });
     }
         
     @Override
@@ -1229,6 +1212,8 @@ public class FrameEditor implements Editor
     {
         foundLateErrorsForMostRecentCompile = false;
         mostRecentCompileIdentifier = compilationSequence;
+        // Any late errors still being found are for the previous compilation:
+        lateErrorChecker.cancel();
         if (panel != null)
             panel.flagErrorsAsOld();
         else
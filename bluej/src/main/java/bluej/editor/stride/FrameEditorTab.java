@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -1699,8 +1699,10 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
     
     private void regenerateCode()
     {
+        // Only the frames that have changed since last time (and those enclosing them)
+        // generate new code; the rest of the tree reuses its existing elements:
         if (getTopLevelFrame() != null)
-            getTopLevelFrame().regenerateCode();
+            getTopLevelFrame().regenerateCodeIfChanged();
     }
 
     // Flag existing errors as old, generally happens just prior to compilation
@@ -1793,7 +1795,10 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
     public void modifiedFrame(Frame f, boolean force)
     {
         if (f != null)
+        {
             f.trackBlank(); // Do this even if loading
+            f.markCodeChanged();
+        }
 
 
         // If we are loading, we'll thread hop
@@ -1915,6 +1920,7 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
             final ClassElement classElement = state.getClassElement(projectResolver,
                     editor.getPackage().getQualifiedName());
             getTopLevelFrame().restoreCast(classElement);
+            getTopLevelFrame().markAllCodeChanged();
             getTopLevelFrame().regenerateCode();
             Node n = state.recallFocus(getTopLevelFrame());
             if (n != null)
@@ -2943,7 +2949,7 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
      */
     private LocationMap getLocationMap()
     {
-        return getTopLevelFrame().getCode().toXML().buildLocationMap();
+        return getTopLevelFrame().getCode().getLocationMap();
     }
 
     /**
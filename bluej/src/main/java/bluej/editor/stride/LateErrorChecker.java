@@ -0,0 +1,349 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.stride;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import bluej.stride.framedjava.ast.ExpressionSlotFragment;
+import bluej.stride.framedjava.ast.SlotFragment;
+import bluej.stride.framedjava.ast.StringSlotFragment;
+import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
+import bluej.stride.framedjava.elements.TopLevelCodeElement;
+import bluej.stride.framedjava.errors.CodeError;
+import bluej.stride.framedjava.errors.DirectSlotError;
+import bluej.utility.Debug;
+import bluej.utility.javafx.FXPlatformConsumer;
+import bluej.utility.javafx.JavaFXUtil;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Runs the late error checks on the slots of a Stride class after it has been compiled
+ * (see SlotFragment.findLateErrors), such as looking for undeclared variables and unknown
+ * types.
+ * 
+ * <p>The checks must start on the FX thread, as they look at the slots and the analysis
+ * document.  The checks from all editors go into one shared queue, which starts them in
+ * short batches, so that the window stays responsive.  Nothing waits on a thread for the
+ * checks to finish: each check's result is collected as it completes.
+ * 
+ * <p>Each editor has one LateErrorChecker, which only has one run of checks going at a time.
+ * Starting a run (or a new compilation) cancels the previous run: its checks which have not
+ * yet started are dropped, and the errors from those which were in progress are discarded.
+ * 
+ * <p>Slots which were checked in the last complete run are not checked again if they are the
+ * same slot fragment (which is only reused if the frame is unchanged, see
+ * CodeFrame.regenerateCodeIfChanged), have the same compile error, and the declarations
+ * in the class (their names, types and positions) are all the same.  Their previous errors
+ * are kept instead.
+ */
+@OnThread(Tag.FXPlatform)
+final class LateErrorChecker
+{
+    /** The longest time to spend starting checks in one go on the FX thread */
+    private static final long BATCH_MILLIS = 25;
+    /** Checks which take at least this long to complete are reported individually */
+    private static final long SLOW_CHECK_MILLIS = 200;
+    /** Runs which take at least this long to complete are reported */
+    private static final long SLOW_RUN_MILLIS = 1000;
+
+    /** The checks waiting to start, from all editors */
+    private static final ArrayDeque<Check> queue = new ArrayDeque<>();
+    private static boolean batchScheduled = false;
+
+    /** The results for each slot from the last run which completed */
+    private IdentityHashMap<SlotFragment, Result> previousResults = new IdentityHashMap<>();
+    /** The declarations at the time of the last completed run (see getDeclarations) */
+    private String previousDeclarations;
+    /** The current run, if it has not yet completed */
+    private Run currentRun;
+
+    /**
+     * Cancels the current run of checks, if any.  Called when a new compilation starts,
+     * as the results of the current run are then out of date.
+     */
+    void cancel()
+    {
+        if (currentRun != null)
+        {
+            Run run = currentRun;
+            currentRun = null;
+            run.cancelled = true;
+            queue.removeIf(c -> c.run == run);
+            // The kept results are still valid for next time:
+            previousResults = run.kept;
+            previousDeclarations = run.declarations;
+        }
+    }
+
+    /**
+     * Starts a run of checks on all the slots in the given code (cancelling any run which is
+     * in progress).  Before the checks start, old errors are removed from the editor, except
+     * those on slots which do not need to be checked again.
+     * 
+     * @param panel                  The editor containing the code
+     * @param code                   The code to check
+     * @param compilationIdentifier  The compilation which preceded the checks (for reporting)
+     * @param whenDone               Called with all the late errors (those found and those
+     *                               kept) once every check has completed.  Not called if the
+     *                               run is cancelled.
+     */
+    void start(FrameEditorTab panel, TopLevelCodeElement code, int compilationIdentifier, FXPlatformConsumer<List<DirectSlotError>> whenDone)
+    {
+        cancel();
+        LocationMap rootPathMap = code.getLocationMap();
+        String declarations = getDeclarations(code, rootPathMap);
+        if (!declarations.equals(previousDeclarations))
+            previousResults.clear();
+
+        Run run = new Run(this, panel, rootPathMap, declarations, compilationIdentifier, whenDone);
+        List<Check> checks = new ArrayList<>();
+        Stream.concat(Stream.of((CodeElement)code), code.streamContained()).forEach(element ->
+            element.getDirectSlotFragmentsToCheck().forEach(fragment -> {
+                Result previous = previousResults.get(fragment);
+                if (previous != null && Objects.equals(previous.compileError, fragment.getErrorMessage()))
+                {
+                    for (DirectSlotError error : previous.errors)
+                    {
+                        // Keep the error through removeOldErrors, below:
+                        error.unflagAsOld();
+                        error.recordPath(rootPathMap.locationFor(fragment));
+                    }
+                    run.kept.put(fragment, previous);
+                }
+                else
+                {
+                    checks.add(new Check(run, element, fragment));
+                }
+            })
+        );
+        previousResults = new IdentityHashMap<>();
+        
+        panel.removeOldErrors();
+        currentRun = run;
+        run.remaining = checks.size();
+        if (checks.isEmpty())
+        {
+            run.finish();
+        }
+        else
+        {
+            queue.addAll(checks);
+            scheduleBatch();
+        }
+    }
+
+    /**
+     * Gets a description of the declarations in the code: the content and location of all
+     * the slots which are not expressions (names, types, imports, etc).  If this is the same
+     * for two versions of the code, each expression has the same variables and types
+     * in scope.
+     */
+    private static String getDeclarations(TopLevelCodeElement code, LocationMap rootPathMap)
+    {
+        StringBuilder declarations = new StringBuilder();
+        Stream.concat(Stream.of((CodeElement)code), code.streamContained()).forEach(element ->
+            element.getDirectSlotFragmentsToCheck().forEach(fragment -> {
+                if (fragment instanceof StringSlotFragment && !(fragment instanceof ExpressionSlotFragment))
+                {
+                    declarations.append(rootPathMap.locationFor(fragment)).append('=')
+                        .append(((StringSlotFragment)fragment).getContent()).append('\n');
+                }
+            })
+        );
+        return declarations.toString();
+    }
+
+    private static void scheduleBatch()
+    {
+        if (!batchScheduled)
+        {
+            batchScheduled = true;
+            JavaFXUtil.runAfterCurrent(LateErrorChecker::startBatch);
+        }
+    }
+
+    /**
+     * Starts queued checks, until they run out or the time for this batch is up.
+     */
+    private static void startBatch()
+    {
+        batchScheduled = false;
+        long batchEnd = System.currentTimeMillis() + BATCH_MILLIS;
+        Check check;
+        while ((check = queue.poll()) != null)
+        {
+            check.start();
+            if (System.currentTimeMillis() >= batchEnd)
+            {
+                if (!queue.isEmpty())
+                    scheduleBatch();
+                break;
+            }
+        }
+    }
+
+    /**
+     * The errors found by checking a slot.
+     */
+    private static class Result
+    {
+        /** The compile error on the slot at the time (see JavaFragment.getErrorMessage) */
+        private final String compileError;
+        private final List<DirectSlotError> errors;
+
+        private Result(String compileError, List<DirectSlotError> errors)
+        {
+            this.compileError = compileError;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * A run of checks on all the slots of a class.
+     */
+    @OnThread(Tag.FXPlatform)
+    private static class Run
+    {
+        private final LateErrorChecker owner;
+        private final FrameEditorTab panel;
+        private final LocationMap rootPathMap;
+        private final String declarations;
+        private final int compilationIdentifier;
+        private final FXPlatformConsumer<List<DirectSlotError>> whenDone;
+        private final long startTime = System.currentTimeMillis();
+        /** The results kept from the previous run, for slots which are not checked again */
+        private final IdentityHashMap<SlotFragment, Result> kept = new IdentityHashMap<>();
+        /** The results of the checks which have completed so far */
+        private final IdentityHashMap<SlotFragment, Result> results = new IdentityHashMap<>();
+        private int remaining;
+        private boolean cancelled = false;
+        private long slowestMillis = 0;
+        private SlotFragment slowest;
+
+        private Run(LateErrorChecker owner, FrameEditorTab panel, LocationMap rootPathMap, String declarations, int compilationIdentifier, FXPlatformConsumer<List<DirectSlotError>> whenDone)
+        {
+            this.owner = owner;
+            this.panel = panel;
+            this.rootPathMap = rootPathMap;
+            this.declarations = declarations;
+            this.compilationIdentifier = compilationIdentifier;
+            this.whenDone = whenDone;
+        }
+
+        /**
+         * Records the errors from a check which has completed.
+         */
+        private void completed(Check check, List<DirectSlotError> errors, long millis)
+        {
+            if (cancelled)
+            {
+                // Out of date.  The errors will have been added to the slot already, so make
+                // sure they get removed, now if the next run has already cleared old errors:
+                errors.forEach(CodeError::flagAsOld);
+                if (owner.currentRun != null)
+                    panel.removeOldErrors();
+                return;
+            }
+            results.put(check.fragment, new Result(check.compileError, errors));
+            if (millis >= SLOW_CHECK_MILLIS)
+            {
+                Debug.message("Stride late error check took " + millis + "ms for slot at "
+                        + rootPathMap.locationFor(check.fragment));
+            }
+            if (millis > slowestMillis || slowest == null)
+            {
+                slowestMillis = millis;
+                slowest = check.fragment;
+            }
+            remaining -= 1;
+            if (remaining == 0)
+                finish();
+        }
+
+        private void finish()
+        {
+            int checked = results.size();
+            results.putAll(kept);
+            owner.currentRun = null;
+            owner.previousResults = results;
+            owner.previousDeclarations = declarations;
+
+            long totalMillis = System.currentTimeMillis() - startTime;
+            if (totalMillis >= SLOW_RUN_MILLIS)
+            {
+                Debug.message("Stride late error checks for compilation " + compilationIdentifier + " took " + totalMillis
+                        + "ms: checked " + checked + " slots, kept results for " + kept.size()
+                        + (slowest == null ? "" : "; slowest " + slowestMillis + "ms at " + rootPathMap.locationFor(slowest)));
+            }
+
+            List<DirectSlotError> allErrors = new ArrayList<>();
+            results.values().forEach(r -> allErrors.addAll(r.errors));
+            whenDone.accept(allErrors);
+        }
+    }
+
+    /**
+     * A check of one slot, as part of a run.
+     */
+    @OnThread(Tag.FXPlatform)
+    private static class Check
+    {
+        private final Run run;
+        private final CodeElement element;
+        private final SlotFragment fragment;
+        private String compileError;
+
+        private Check(Run run, CodeElement element, SlotFragment fragment)
+        {
+            this.run = run;
+            this.element = element;
+            this.fragment = fragment;
+        }
+
+        private void start()
+        {
+            long startTime = System.currentTimeMillis();
+            compileError = fragment.getErrorMessage();
+            CompletableFuture<List<DirectSlotError>> future = fragment.findLateErrors(run.panel, element, run.rootPathMap);
+            if (future == null)
+            {
+                run.completed(this, Collections.emptyList(), 0);
+                return;
+            }
+            // The check may complete on another thread:
+            future.whenComplete((errors, exception) -> JavaFXUtil.runNowOrLater(() -> {
+                if (exception != null)
+                    Debug.reportError(exception);
+                run.completed(this, errors == null ? Collections.emptyList() : errors, System.currentTimeMillis() - startTime);
+            }));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.extmgr;
+
+import bluej.Config;
+import bluej.extensions2.event.ClassEvent;
+import bluej.extensions2.event.ExtensionEvent;
+import bluej.utility.Debug;
+import bluej.utility.javafx.FXPlatformConsumer;
+import bluej.utility.javafx.JavaFXUtil;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers events to a single extension, and keeps track of how long the
+ * extension takes to handle them.
+ *
+ * <p>Events are always delivered on the FX thread, as the extensions API
+ * (and the extensions using it) expect. By default each event is delivered
+ * straight away, so that whatever raised it waits for the extension. If the
+ * "bluej.extensions.eventDispatch" property (or the per-extension
+ * "bluej.extensions.eventDispatch.&lt;class name&gt;") is set to "async", events
+ * are instead put on a queue belonging to this extension and delivered in order
+ * later, one per FX pulse, so that BlueJ finishes its own work (and keeps
+ * responding to the user) between the events of a slow extension. Queued class
+ * state changes which are superseded by a later state change of the same class
+ * are dropped.
+ *
+ * <p>An extension which takes longer than "bluej.extensions.eventBudget"
+ * milliseconds to handle an event is flagged as slow.
+ */
+final class ExtensionEventDispatcher
+{
+    private static final String DISPATCH_PROPERTY = "bluej.extensions.eventDispatch";
+    private static final String BUDGET_PROPERTY = "bluej.extensions.eventBudget";
+    private static final int DEFAULT_BUDGET_MILLIS = 200;
+
+    private final String extensionName;
+    private final FXPlatformConsumer<ExtensionEvent> handler;
+    private final boolean async;
+    private final long budgetNanos;
+
+    // Events waiting to be delivered (async mode only)
+    private final LinkedList<ExtensionEvent> queue = new LinkedList<>();
+    // Whether delivery of the next queued event has been scheduled
+    private boolean scheduled = false;
+
+    private long eventsHandled;
+    private long eventsCoalesced;
+    private long eventsOverBudget;
+    private long totalNanos;
+    private long maxNanos;
+    private boolean slow = false;
+
+    /**
+     * Construct a dispatcher for the named extension.
+     *
+     * @param extensionName  the extension's class name, used to look up per-extension settings
+     * @param handler        the (error-wrapped) call which actually delivers an event
+     */
+    ExtensionEventDispatcher(String extensionName, FXPlatformConsumer<ExtensionEvent> handler)
+    {
+        this.extensionName = extensionName;
+        this.handler = handler;
+
+        String mode = Config.getPropString(DISPATCH_PROPERTY + "." + extensionName,
+                Config.getPropString(DISPATCH_PROPERTY, "sync"));
+        async = mode.trim().equalsIgnoreCase("async");
+
+        int budgetMillis = DEFAULT_BUDGET_MILLIS;
+        try {
+            budgetMillis = Integer.parseInt(Config.getPropString(BUDGET_PROPERTY, "" + DEFAULT_BUDGET_MILLIS).trim());
+        }
+        catch (NumberFormatException nfe) {
+            Debug.reportError("Invalid value for " + BUDGET_PROPERTY + ", using " + DEFAULT_BUDGET_MILLIS);
+        }
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Deliver an event to the extension: immediately in synchronous mode, or via
+     * the extension's queue in asynchronous mode.
+     */
+    void dispatch(ExtensionEvent event)
+    {
+        if (!async) {
+            deliver(event);
+            return;
+        }
+
+        dropSuperseded(event);
+        queue.addLast(event);
+        if (!scheduled) {
+            scheduled = true;
+            JavaFXUtil.runAfterCurrent(this::deliverNext);
+        }
+    }
+
+    /**
+     * If the given event is a class state change, remove from the queue an earlier
+     * state change of the same class which has not yet been delivered, as long as
+     * nothing else has been queued for that class since.
+     */
+    private void dropSuperseded(ExtensionEvent event)
+    {
+        if (!(event instanceof ClassEvent classEvent)
+                || classEvent.getEventType() != ClassEvent.EventType.STATE_CHANGED) {
+            return;
+        }
+
+        ListIterator<ExtensionEvent> it = queue.listIterator(queue.size());
+        while (it.hasPrevious()) {
+            if (it.previous() instanceof ClassEvent queued && queued.getBClass() == classEvent.getBClass()) {
+                if (queued.getEventType() == ClassEvent.EventType.STATE_CHANGED) {
+                    it.remove();
+                    eventsCoalesced += 1;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver the first queued event, and schedule delivery of the one after it (if any).
+     */
+    private void deliverNext()
+    {
+        ExtensionEvent event = queue.pollFirst();
+        if (event != null) {
+            deliver(event);
+        }
+        if (queue.isEmpty()) {
+            scheduled = false;
+        }
+        else {
+            JavaFXUtil.runAfterCurrent(this::deliverNext);
+        }
+    }
+
+    /**
+     * Deliver a single event, timing how long the extension takes with it.
+     */
+    private void deliver(ExtensionEvent event)
+    {
+        long start = System.nanoTime();
+        handler.accept(event);
+        long taken = System.nanoTime() - start;
+
+        eventsHandled += 1;
+        totalNanos += taken;
+        maxNanos = Math.max(maxNanos, taken);
+
+        if (taken > budgetNanos) {
+            eventsOverBudget += 1;
+            if (!slow) {
+                slow = true;
+                Debug.message("Extension " + extensionName + " took " + TimeUnit.NANOSECONDS.toMillis(taken)
+                        + "ms to handle " + event.getClass().getSimpleName() + " (budget "
+                        + TimeUnit.NANOSECONDS.toMillis(budgetNanos) + "ms)"
+                        + (async ? "" : "; consider setting " + DISPATCH_PROPERTY + "." + extensionName + "=async"));
+            }
+        }
+    }
+
+    /**
+     * Check whether the extension has taken longer than the budget to handle any event.
+     */
+    boolean isSlow()
+    {
+        return slow;
+    }
+
+    /**
+     * Get a one-line summary of the extension's event handling times.
+     */
+    String getStatistics()
+    {
+        long meanMicros = eventsHandled == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / eventsHandled);
+        return (async ? "async" : "sync") + ", " + eventsHandled + " events handled, "
+                + eventsCoalesced + " coalesced, " + eventsOverBudget + " over budget, mean "
+                + meanMicros + "us, max " + TimeUnit.NANOSECONDS.toMillis(maxNanos) + "ms";
+    }
+}
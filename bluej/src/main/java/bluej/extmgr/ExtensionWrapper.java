@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2013,2014,2016,2018,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2013,2014,2016,2018,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -75,6 +75,9 @@ public class ExtensionWrapper
     private String  extensionStatusString;
     private Project project;
 
+    // Delivers events to the extension; set when the extension is loaded
+    private ExtensionEventDispatcher eventDispatcher;
+
     /**
      * Construct a new ExtensionWrapper for the given jar file.
      * 
@@ -214,6 +217,7 @@ public class ExtensionWrapper
         }
 
         // Ok, time to really start everything... This MUST be here.... after all is initialised
+        eventDispatcher = new ExtensionEventDispatcher(getExtensionClassName(), this::deliverEvent);
         safeStartup(extensionBluej);
         extensionStatusString = Config.getString("extmgr.status.loaded");
     }
@@ -264,6 +268,10 @@ public class ExtensionWrapper
     {
         safeTerminate();
 
+        if (eventDispatcher != null) {
+            Debug.message("Extension " + getExtensionClassName() + " events: " + eventDispatcher.getStatistics());
+        }
+
         // Needed to signal to the revalidate (below) that this instance is no longer here.            
         extensionInstance = null;
 
@@ -281,6 +289,9 @@ public class ExtensionWrapper
      */
     public String getExtensionStatus()
     {
+        if (isValid() && eventDispatcher != null && eventDispatcher.isSlow()) {
+            return extensionStatusString + ", " + Config.getString("extmgr.status.slow");
+        }
         return extensionStatusString;
     }
 
@@ -407,6 +418,8 @@ public class ExtensionWrapper
 
     /**
      * Informs any registered listeners that an event has occurred.
+     * Depending on the dispatch mode, the listeners may be called later;
+     * see {@link ExtensionEventDispatcher}.
      */
     public void safeEventOccurred(ExtensionEvent event)
     {
@@ -414,6 +427,19 @@ public class ExtensionWrapper
             return;
         }
 
+        eventDispatcher.dispatch(event);
+    }
+
+    /**
+     * Calls the registered listeners for an event. The extension may have
+     * been terminated since the event was queued.
+     */
+    private void deliverEvent(ExtensionEvent event)
+    {
+        if (!isValid()) {
+            return;
+        }
+
         try {
             ExtensionBridge.delegateEvent(extensionBluej,event);
         }
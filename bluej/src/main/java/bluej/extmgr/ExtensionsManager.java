@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2013,2016,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2013,2016,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -380,10 +380,14 @@ public class ExtensionsManager
      */
     public void delegateEvent(ExtensionEvent event)
     {
-        synchronized(extensions) {            
-            for (ExtensionWrapper wrapper : extensions) {
-                wrapper.safeEventOccurred(event);
-            }
+        // Take a copy so that the lock is not held while extensions handle the event
+        List<ExtensionWrapper> wrappers;
+        synchronized(extensions) {
+            wrappers = new ArrayList<>(extensions);
+        }
+
+        for (ExtensionWrapper wrapper : wrappers) {
+            wrapper.safeEventOccurred(event);
         }
     }
 
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2016  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2016,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -70,6 +70,7 @@ public class GitShareCommand extends GitCommand
         } catch (GitAPIException | IOException ex) {
             return new TeamworkCommandError(ex.getMessage(), ex.getLocalizedMessage());
         }
+        GitStatusCache.repositoryChanged(getRepository().getProjectPath());
         return new TeamworkCommandResult();
     }
 
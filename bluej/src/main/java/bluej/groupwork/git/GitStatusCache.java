@@ -0,0 +1,480 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import bluej.utility.Debug;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static bluej.groupwork.git.GitUtilities.findForkPoint;
+import static bluej.groupwork.git.GitUtilities.getDiffs;
+
+/**
+ * A cache of the status of a project's Git working tree, so that each status request
+ * (from the status window or the commit/push dialog) does not need a full scan of the
+ * working tree, nor a diff of the history.
+ *
+ * <p>The local status is computed in full once, and after that only the paths which a
+ * WatchService (or an editor save) reports as changed are re-examined.  Any change within
+ * the .git directory (a commit, a checkout, a merge...) causes a full recomputation.  The
+ * diffs between HEAD, the remote branch and their fork point are kept until either ref
+ * moves.  If the project cannot be watched, every request recomputes the local status.
+ *
+ * <p>Changes are recorded without taking any lock that is held while the status is being
+ * computed, since they are reported on the FX thread (when a file is saved).
+ */
+@OnThread(Tag.Any)
+public class GitStatusCache
+{
+    // Above this many changed paths, recompute everything rather than path by path:
+    private static final int MAX_INCREMENTAL_PATHS = 64;
+    // As a safeguard against missed events, the full status is recomputed after this long:
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final Map<File, GitStatusCache> caches = new HashMap<>();
+
+    /**
+     * The local status of the working tree, in the same terms as jgit's {@link org.eclipse.jgit.api.Status}.
+     */
+    public static class LocalStatus
+    {
+        private final Set<String> missing = new HashSet<>();
+        private final Set<String> removed = new HashSet<>();
+        private final Set<String> uncommittedChanges = new HashSet<>();
+        private final Set<String> untracked = new HashSet<>();
+        private final Set<String> untrackedFolders = new HashSet<>();
+        private final Map<String, IndexDiff.StageState> conflicting = new HashMap<>();
+
+        private LocalStatus() { }
+
+        private LocalStatus(LocalStatus other)
+        {
+            missing.addAll(other.missing);
+            removed.addAll(other.removed);
+            uncommittedChanges.addAll(other.uncommittedChanges);
+            untracked.addAll(other.untracked);
+            untrackedFolders.addAll(other.untrackedFolders);
+            conflicting.putAll(other.conflicting);
+        }
+
+        public Set<String> getMissing() { return Collections.unmodifiableSet(missing); }
+        public Set<String> getRemoved() { return Collections.unmodifiableSet(removed); }
+        public Set<String> getUncommittedChanges() { return Collections.unmodifiableSet(uncommittedChanges); }
+        public Set<String> getUntracked() { return Collections.unmodifiableSet(untracked); }
+        public Set<String> getUntrackedFolders() { return Collections.unmodifiableSet(untrackedFolders); }
+        public Set<String> getConflicting() { return Collections.unmodifiableSet(conflicting.keySet()); }
+        public Map<String, IndexDiff.StageState> getConflictingStageState() { return Collections.unmodifiableMap(conflicting); }
+
+        /**
+         * Add everything from a jgit status result.
+         */
+        private void addAll(org.eclipse.jgit.api.Status s)
+        {
+            missing.addAll(s.getMissing());
+            removed.addAll(s.getRemoved());
+            uncommittedChanges.addAll(s.getUncommittedChanges());
+            untracked.addAll(s.getUntracked());
+            untrackedFolders.addAll(s.getUntrackedFolders());
+            conflicting.putAll(s.getConflictingStageState());
+        }
+
+        /**
+         * Remove everything recorded for the given path or anything beneath it.
+         */
+        private void removeUnder(String path)
+        {
+            String prefix = path + "/";
+            for (Set<String> set : List.of(missing, removed, uncommittedChanges, untracked, untrackedFolders, conflicting.keySet()))
+            {
+                set.removeIf(p -> p.equals(path) || p.startsWith(prefix));
+            }
+        }
+
+        private boolean isInUntrackedFolder(String path)
+        {
+            return untrackedFolders.stream().anyMatch(f -> path.equals(f) || path.startsWith(f + "/"));
+        }
+    }
+
+    /**
+     * The diffs of HEAD and the remote branch against their fork point.
+     */
+    public static class RemoteDiffs
+    {
+        private final ObjectId headId;
+        private final ObjectId remoteId;
+        private final List<DiffEntry> localDiffs;
+        private final List<DiffEntry> remoteDiffs;
+
+        private RemoteDiffs(ObjectId headId, ObjectId remoteId, List<DiffEntry> localDiffs, List<DiffEntry> remoteDiffs)
+        {
+            this.headId = headId;
+            this.remoteId = remoteId;
+            this.localDiffs = Collections.unmodifiableList(localDiffs);
+            this.remoteDiffs = Collections.unmodifiableList(remoteDiffs);
+        }
+
+        public List<DiffEntry> getLocalDiffs() { return localDiffs; }
+        public List<DiffEntry> getRemoteDiffs() { return remoteDiffs; }
+    }
+
+    private final File projectPath;
+    private final Path gitDir;
+    private volatile WatchService watchService;
+
+    // Changes since the local status was last computed:
+    private volatile boolean fullRefreshNeeded = true;
+    private final Set<String> changedPaths = ConcurrentHashMap.newKeySet();
+
+    // Guarded by localStatusLock, which is held while the status is computed:
+    private final Object localStatusLock = new Object();
+    private LocalStatus localStatus;
+    private long localStatusTime;
+    private long lastRefreshMillis;
+
+    // Guarded by this:
+    private RemoteDiffs remoteDiffs;
+
+    private GitStatusCache(File projectPath)
+    {
+        this.projectPath = projectPath;
+        this.gitDir = projectPath.toPath().resolve(".git");
+        startWatching();
+    }
+
+    /**
+     * Get the status cache for the given project, creating it if necessary.
+     */
+    static GitStatusCache forProject(File projectPath)
+    {
+        synchronized (caches)
+        {
+            return caches.computeIfAbsent(projectPath.getAbsoluteFile(), GitStatusCache::new);
+        }
+    }
+
+    /**
+     * Notify any cache which covers the given file that it has been written (e.g. saved from
+     * an editor).  Saves are also seen by the WatchService, but not necessarily promptly.
+     */
+    public static void fileSaved(File file)
+    {
+        File absolute = file.getAbsoluteFile();
+        List<GitStatusCache> all;
+        synchronized (caches)
+        {
+            all = List.copyOf(caches.values());
+        }
+        for (GitStatusCache cache : all)
+        {
+            Path projectDir = cache.projectPath.toPath();
+            if (absolute.toPath().startsWith(projectDir))
+            {
+                cache.pathChanged(absolute.toPath());
+            }
+        }
+    }
+
+    /**
+     * Notify that the repository itself (the index, HEAD or other refs) has been changed
+     * by BlueJ, so that the next status request recomputes everything.
+     */
+    static void repositoryChanged(File projectPath)
+    {
+        GitStatusCache cache;
+        synchronized (caches)
+        {
+            cache = caches.get(projectPath.getAbsoluteFile());
+        }
+        if (cache != null)
+        {
+            cache.invalidate();
+        }
+    }
+
+    /**
+     * Discard the cache for a project which has been closed.
+     */
+    public static void projectClosed(File projectPath)
+    {
+        GitStatusCache cache;
+        synchronized (caches)
+        {
+            cache = caches.remove(projectPath.getAbsoluteFile());
+        }
+        if (cache != null)
+        {
+            cache.stopWatching();
+        }
+    }
+
+    /**
+     * Get the local status of the working tree, recomputing only what has changed since
+     * the last request.
+     */
+    @OnThread(Tag.Worker)
+    public LocalStatus getLocalStatus(Git repo) throws GitAPIException
+    {
+        synchronized (localStatusLock)
+        {
+            long start = System.nanoTime();
+            // Take the changes first, so that changes during the computation are seen next time:
+            boolean full = fullRefreshNeeded;
+            fullRefreshNeeded = false;
+            Set<String> paths = new HashSet<>();
+            for (Iterator<String> it = changedPaths.iterator(); it.hasNext(); )
+            {
+                paths.add(it.next());
+                it.remove();
+            }
+
+            full = full || localStatus == null || watchService == null
+                    || System.currentTimeMillis() - localStatusTime > MAX_AGE_MILLIS
+                    || paths.size() > MAX_INCREMENTAL_PATHS
+                    || paths.stream().anyMatch(p -> localStatus.isInUntrackedFolder(p)
+                            || new File(projectPath, p).isDirectory());
+
+            if (full)
+            {
+                LocalStatus status = new LocalStatus();
+                status.addAll(repo.status().call());
+                localStatus = status;
+                localStatusTime = System.currentTimeMillis();
+            }
+            else if (!paths.isEmpty())
+            {
+                StatusCommand command = repo.status();
+                LocalStatus status = new LocalStatus(localStatus);
+                for (String path : paths)
+                {
+                    command.addPath(path);
+                    status.removeUnder(path);
+                }
+                status.addAll(command.call());
+                localStatus = status;
+            }
+
+            lastRefreshMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (lastRefreshMillis >= 1000)
+            {
+                Debug.message("Git status for " + projectPath + " took " + lastRefreshMillis + "ms" + (full ? " (full)" : ""));
+            }
+            return localStatus;
+        }
+    }
+
+    /**
+     * Get the time taken (in milliseconds) by the last call to getLocalStatus().
+     */
+    public long getLastRefreshMillis()
+    {
+        synchronized (localStatusLock)
+        {
+            return lastRefreshMillis;
+        }
+    }
+
+    /**
+     * Get the diffs of HEAD and the given remote branch against their fork point.  These
+     * are only recomputed if either ref has moved since the last request.
+     */
+    @OnThread(Tag.Worker)
+    public synchronized RemoteDiffs getRemoteDiffs(Git repo, String remoteBranch) throws IOException
+    {
+        ObjectId headId = repo.getRepository().resolve("HEAD");
+        ObjectId remoteId = repo.getRepository().resolve(remoteBranch);
+        if (remoteDiffs == null || !Objects.equals(remoteDiffs.headId, headId)
+                || !Objects.equals(remoteDiffs.remoteId, remoteId))
+        {
+            RevCommit forkPoint = findForkPoint(repo.getRepository(), remoteBranch, "HEAD");
+            //find diffs between <default branch>/head and the forkpoint.
+            List<DiffEntry> localDiffs = getDiffs(repo, "HEAD", forkPoint);
+            //check for differences between forkpoint and remote repo head.
+            List<DiffEntry> remoteDiffsList = getDiffs(repo, remoteBranch, forkPoint);
+            remoteDiffs = new RemoteDiffs(headId, remoteId, localDiffs, remoteDiffsList);
+        }
+        return remoteDiffs;
+    }
+
+    private void invalidate()
+    {
+        fullRefreshNeeded = true;
+    }
+
+    private void pathChanged(Path path)
+    {
+        // A change to the ignore rules can change the status of any number of files:
+        if (path.startsWith(gitDir) || path.getFileName().toString().equals(Constants.DOT_GIT_IGNORE))
+        {
+            fullRefreshNeeded = true;
+        }
+        else
+        {
+            changedPaths.add(GitUtilities.getRelativeFileName(projectPath.toPath(), path.toFile()));
+        }
+    }
+
+    private void startWatching()
+    {
+        try
+        {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(watchService, projectPath.toPath());
+        }
+        catch (IOException | UnsupportedOperationException e)
+        {
+            Debug.message("Cannot watch " + projectPath + " for Git status changes: " + e);
+            stopWatching();
+            return;
+        }
+
+        Thread watcher = new Thread("Git status watcher")
+        {
+            @Override
+            @OnThread(value = Tag.Worker, ignoreParent = true)
+            public void run()
+            {
+                processEvents();
+            }
+        };
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Register the given directory and all directories beneath it, except that within
+     * .git only the top level, the refs and the info directory (for the exclude file)
+     * are watched.
+     */
+    private void registerTree(WatchService service, Path root) throws IOException
+    {
+        Files.walkFileTree(root, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                if (dir.startsWith(gitDir) && !dir.equals(gitDir) && !dir.startsWith(gitDir.resolve("refs"))
+                        && !dir.equals(gitDir.resolve("info")))
+                {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @OnThread(Tag.Worker)
+    private void processEvents()
+    {
+        WatchService service = watchService;
+        if (service == null)
+        {
+            return;
+        }
+        try
+        {
+            while (true)
+            {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents())
+                {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                    {
+                        invalidate();
+                        continue;
+                    }
+                    Path path = dir.resolve((Path) event.context());
+                    pathChanged(path);
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path))
+                    {
+                        try
+                        {
+                            registerTree(service, path);
+                        }
+                        catch (IOException e)
+                        {
+                            // Can't watch it, so we can't trust incremental updates:
+                            invalidate();
+                        }
+                    }
+                }
+                key.reset();
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            // Stopped watching
+        }
+    }
+
+    private void stopWatching()
+    {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null)
+        {
+            try
+            {
+                service.close();
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Error closing Git status watcher", e);
+            }
+        }
+    }
+}
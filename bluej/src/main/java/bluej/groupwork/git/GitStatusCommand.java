@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2015,2016,2017,2018,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2015,2016,2017,2018,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,9 +26,7 @@ import bluej.groupwork.TeamStatusInfo;
 import bluej.groupwork.TeamStatusInfo.Status;
 import bluej.groupwork.TeamworkCommandError;
 import bluej.groupwork.TeamworkCommandResult;
-import static bluej.groupwork.git.GitUtilities.findForkPoint;
 import static bluej.groupwork.git.GitUtilities.getBehindCount;
-import static bluej.groupwork.git.GitUtilities.getDiffs;
 import static bluej.groupwork.git.GitUtilities.getFileNameFromDiff;
 import static bluej.groupwork.git.GitUtilities.isAheadOnly;
 import bluej.utility.Debug;
@@ -36,16 +34,17 @@ import bluej.utility.Debug;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.errors.NoWorkTreeException;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.lib.IndexDiff;
 
 import threadchecker.OnThread;
@@ -80,8 +79,9 @@ public class GitStatusCommand extends GitCommand
 
         try (Git repo = Git.open(this.getRepository().getProjectPath()))
         {
-            //check local status
-            org.eclipse.jgit.api.Status s = repo.status().call();
+            //check local status (only the files changed since the last check are re-examined)
+            GitStatusCache cache = GitStatusCache.forProject(gitPath);
+            GitStatusCache.LocalStatus s = cache.getLocalStatus(repo);
 
             // A file which has had changes merged as a result of a pull will be in a "unmerged"
             // state, and will appear in "uncommitted changes" as well as "conflicting" (with
@@ -175,12 +175,10 @@ public class GitStatusCommand extends GitCommand
             }
 
             String defaultBranchName = repo.getRepository().getBranch();
-            RevCommit forkPoint = findForkPoint(repo.getRepository(), "origin/"+defaultBranchName, "HEAD");
-            
-            //find diffs between <default branch>/head and the forkpoint.
-            listOfDiffsLocal = getDiffs(repo, "HEAD", forkPoint);
-            //check for differences between forkpoint and remote repo head.
-            listOfDiffsRemote = getDiffs(repo, "origin/"+defaultBranchName, forkPoint);
+            // The diffs against the fork point are only recomputed if HEAD or the remote branch has moved:
+            GitStatusCache.RemoteDiffs diffs = cache.getRemoteDiffs(repo, "origin/"+defaultBranchName);
+            listOfDiffsLocal = diffs.getLocalDiffs();
+            listOfDiffsRemote = diffs.getRemoteDiffs();
             updateRemoteStatus(gitPath, listOfDiffsLocal, listOfDiffsRemote, returnInfo);
             
             if (returnInfo.isEmpty()){
@@ -189,7 +187,9 @@ public class GitStatusCommand extends GitCommand
 
             if (listener != null) {
                 // Git does not show any add up-to-date file. We need to add them manually to returnInfo.
-                addUpToDateFiles(returnInfo, gitPath);
+                Set<String> knownPaths = new HashSet<>();
+                returnInfo.forEach(entry -> knownPaths.add(entry.getFile().getPath()));
+                addUpToDateFiles(returnInfo, knownPaths, gitPath);
                 
                 while (!returnInfo.isEmpty()) {
                     TeamStatusInfo teamInfo = returnInfo.removeFirst();
@@ -212,9 +212,10 @@ public class GitStatusCommand extends GitCommand
      * "unchanged" status entry.
      * 
      * @param returnInfo  list of file status
+     * @param knownPaths  the paths of the files which already have an entry in returnInfo
      * @param path        path to search
      */
-    private void addUpToDateFiles(LinkedList<TeamStatusInfo> returnInfo, File path)
+    private void addUpToDateFiles(LinkedList<TeamStatusInfo> returnInfo, Set<String> knownPaths, File path)
     {
         if(!path.isDirectory())
             return;
@@ -222,11 +223,10 @@ public class GitStatusCommand extends GitCommand
         for (File item : path.listFiles()) {
             if (filter.accept(item)) {
                 if (item.isDirectory()) {
-                    addUpToDateFiles(returnInfo, item);
+                    addUpToDateFiles(returnInfo, knownPaths, item);
                 }
                 else {
-                    TeamStatusInfo itemStatus = getTeamStatusInfo(returnInfo, item);
-                    if (itemStatus == null) {
+                    if (!knownPaths.contains(item.getPath())) {
                         //file does not exist in the list, therefore it is up-to-date.
                         returnInfo.add(new TeamStatusInfo(item, "", null,
                                 Status.UP_TO_DATE, Status.UP_TO_DATE));
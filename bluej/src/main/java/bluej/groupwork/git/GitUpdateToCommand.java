@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2016,2017,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2016,2017,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -198,6 +198,7 @@ public class GitUpdateToCommand extends GitCommand implements UpdateResults
         {
             return new TeamworkCommandError(ex.getMessage(), ex.getLocalizedMessage());
         }
+        GitStatusCache.repositoryChanged(getRepository().getProjectPath());
         return new TeamworkCommandResult();
     }
 
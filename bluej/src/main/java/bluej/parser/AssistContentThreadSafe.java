@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program.
- Copyright (C) 2014,2015,2016,2017,2019,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2019,2020,2026 Michael Kölling and John Rosenberg
 
  This program is free software; you can redistribute it and/or
  modify it under the terms of the GNU General Public License
@@ -152,7 +152,7 @@ public final class AssistContentThreadSafe
 
     public List<String> getSuperTypes()
     {
-        return Collections.unmodifiableList(superTypes);
+        return superTypes == null ? Collections.emptyList() : Collections.unmodifiableList(superTypes);
     }
     
     public Kind getTypeKind()
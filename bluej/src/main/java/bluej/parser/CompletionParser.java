@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2014,2022  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2010,2011,2012,2014,2022,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -88,6 +88,19 @@ public class CompletionParser extends TextParser
         super(resolver, reader, defaultEnt, false, line, col, pos);
         suggestionEntity = defaultEnt;
     }
+
+    /**
+     * Construct an expression parser, used for suggesting code completions, which
+     * reads the expression source directly from a character sequence. The sequence
+     * should end at the point where suggestions are to be made, and begin at the
+     * specified line and column of the document.
+     */
+    public CompletionParser(EntityResolver resolver, CharSequence source,
+            JavaEntity defaultEnt, int line, int col, int pos)
+    {
+        super(resolver, source, defaultEnt, false, line, col, pos);
+        suggestionEntity = defaultEnt;
+    }
     
     @Override
     protected void error(String msg, int beginLine, int beginCol, int endLine, int endCol)
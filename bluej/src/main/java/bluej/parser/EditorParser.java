@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2010,2011,2012,2013,2014,2016,2017,2019,2021,2022,2023,2024  Michael Kolling and John Rosenberg 
+ Copyright (C) 2010,2011,2012,2013,2014,2016,2017,2019,2021,2022,2023,2024,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -110,7 +110,23 @@ public class EditorParser extends JavaParser
     protected EditorParser(Reader r, EntityResolver resolver)
     {
         super(r);
-        nodeStructureListener = new NodeStructureListener()
+        nodeStructureListener = emptyNodeStructureListener();
+        pcuNode = new ParsedCUNode(resolver);
+    }
+
+    /**
+     * Constructor for use by subclasses (InfoReader), reading directly from the given source.
+     */
+    protected EditorParser(CharSequence source, EntityResolver resolver)
+    {
+        super(source);
+        nodeStructureListener = emptyNodeStructureListener();
+        pcuNode = new ParsedCUNode(resolver);
+    }
+
+    private static NodeStructureListener emptyNodeStructureListener()
+    {
+        return new NodeStructureListener()
         {
             @Override
             public void nodeAdded(NodeAndPosition<ParsedNode> node)
@@ -127,12 +143,15 @@ public class EditorParser extends JavaParser
             {
             }
         };
-        pcuNode = new ParsedCUNode(resolver);
     }
     
-    public EditorParser(ReparseableDocument document, Reader r, int line, int col, int pos, Stack<JavaParentNode> scopeStack, NodeStructureListener nodeStructureListener)
+    /**
+     * Construct a parser for incremental parsing of part of a document; the source is the
+     * part of the document to be parsed, beginning at the given line, column and position.
+     */
+    public EditorParser(ReparseableDocument document, CharSequence source, int line, int col, int pos, Stack<JavaParentNode> scopeStack, NodeStructureListener nodeStructureListener)
     {
-        super(r, line, col, pos);
+        super(source, line, col, pos);
         this.document = document;
         this.scopeStack = scopeStack;
         this.nodeStructureListener = nodeStructureListener;
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2013,2014,2016,2023  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2011,2013,2014,2016,2023,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,13 +21,12 @@
  */
 package bluej.parser;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -45,6 +44,7 @@ import bluej.parser.entity.EntityResolver;
 import bluej.parser.entity.JavaEntity;
 import bluej.parser.entity.PackageResolver;
 import bluej.parser.entity.PositionedResolver;
+import bluej.parser.entity.ResolutionCache;
 import bluej.parser.entity.TypeEntity;
 import bluej.parser.entity.UnresolvedArray;
 import bluej.parser.entity.UnresolvedEntity;
@@ -74,6 +74,9 @@ import bluej.utility.JavaNames;
  */
 public class InfoParser extends EditorParser
 {
+    /** Lookups made against our own class loader, which never changes */
+    private static final ResolutionCache systemResolutionCache = new ResolutionCache();
+
     protected String targetPkg;
     protected ClassInfo info;
     private int classLevel = 0; // number of nested classes
@@ -141,12 +144,21 @@ public class InfoParser extends EditorParser
         super(r, resolver);
     }
 
+    /**
+     * Construct an InfoParser which reads Java source directly from the given character
+     * sequence, and resolves reference via the given resolver.
+     */
+    public InfoParser(CharSequence source, EntityResolver resolver)
+    {
+        super(source, resolver);
+    }
+
     /**
      * Attempt to parse the specified source file. Returns null if the file could not be parsed.
      */
     public static ClassInfo parse(File f) throws FileNotFoundException
     {
-        return parse(f, new ClassLoaderResolver(InfoParser.class.getClassLoader()));
+        return parse(f, new ClassLoaderResolver(InfoParser.class.getClassLoader(), systemResolutionCache));
     }
     
     /**
@@ -155,13 +167,7 @@ public class InfoParser extends EditorParser
      */
     public static ClassInfo parse(File f, EntityResolver resolver) throws FileNotFoundException
     {
-        FileInputStream fis = new FileInputStream(f);
-        ClassInfo info = parse(new BufferedReader(new InputStreamReader(fis)), resolver, null);
-        try {
-            fis.close();
-        }
-        catch (IOException ioe) {}
-        return info;
+        return parse(readSource(f, Charset.defaultCharset()), resolver, null);
     }
     
     /**
@@ -171,17 +177,48 @@ public class InfoParser extends EditorParser
     @OnThread(Tag.FXPlatform)
     public static ClassInfo parseWithPkg(File f, Package pkg) throws FileNotFoundException
     {
-        FileInputStream fis = new FileInputStream(f);
-        EntityResolver resolver = new PackageResolver(pkg.getProject().getEntityResolver(),
-                pkg.getQualifiedName());
-        Reader reader = new InputStreamReader(fis, pkg.getProject().getProjectCharset());
-        reader = new BufferedReader(reader);
-        ClassInfo info = parse(reader, resolver, pkg.getQualifiedName());
+        return parseWithPkg(readSource(f, pkg.getProject().getProjectCharset()), pkg);
+    }
+
+    /**
+     * Read the whole of a source file, so that it can be lexed directly rather than through
+     * a Reader.
+     */
+    @OnThread(Tag.Any)
+    private static String readSource(File f, Charset charset) throws FileNotFoundException
+    {
         try {
-            fis.close();
+            return new String(Files.readAllBytes(f.toPath()), charset);
+        }
+        catch (IOException ioe) {
+            FileNotFoundException fnfe = new FileNotFoundException(f.getPath());
+            fnfe.initCause(ioe);
+            throw fnfe;
         }
-        catch (IOException ioe) {}
-        return info;
+    }
+
+    /**
+     * Attempt to parse the source read from the given reader, and resolve references via
+     * the specified package (and its project). Returns null if the source could not be parsed.
+     */
+    @OnThread(Tag.FXPlatform)
+    public static ClassInfo parseWithPkg(Reader reader, Package pkg)
+    {
+        EntityResolver resolver = new PackageResolver(pkg.getProject().getEntityResolver(),
+                pkg.getQualifiedName());
+        return parse(reader, resolver, pkg.getQualifiedName());
+    }
+
+    /**
+     * Attempt to parse the given source, and resolve references via the specified
+     * package (and its project). Returns null if the source could not be parsed.
+     */
+    @OnThread(Tag.FXPlatform)
+    public static ClassInfo parseWithPkg(CharSequence source, Package pkg)
+    {
+        EntityResolver resolver = new PackageResolver(pkg.getProject().getEntityResolver(),
+                pkg.getQualifiedName());
+        return parse(source, resolver, pkg.getQualifiedName());
     }
 
     /**
@@ -192,8 +229,23 @@ public class InfoParser extends EditorParser
     @OnThread(Tag.FXPlatform)
     public static ClassInfo parse(Reader r, EntityResolver resolver, String targetPkg)
     {
-        InfoParser infoParser = null;
-        infoParser = new InfoParser(r, resolver);
+        return parse(new InfoParser(r, resolver), targetPkg);
+    }
+
+    /**
+     * Attempt to parse the given source, and resolve references via the specified
+     * resolver. The source should be assumed to reside in the specified package.
+     * Returns null if the source could not be parsed.
+     */
+    @OnThread(Tag.FXPlatform)
+    public static ClassInfo parse(CharSequence source, EntityResolver resolver, String targetPkg)
+    {
+        return parse(new InfoParser(source, resolver), targetPkg);
+    }
+
+    @OnThread(Tag.FXPlatform)
+    private static ClassInfo parse(InfoParser infoParser, String targetPkg)
+    {
         infoParser.targetPkg = targetPkg;
         infoParser.parseCU();
 
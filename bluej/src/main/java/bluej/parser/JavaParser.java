@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2021,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2021,2022,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -70,6 +70,15 @@ public class JavaParser extends JavaParserCallbacks
     {
         return new JavaLexer(r, line, col, pos);
     }
+
+    /**
+     * Get a lexer which reads directly from the given character sequence. The sequence
+     * must not be modified while the lexer is in use.
+     */
+    public static TokenStream getLexer(CharSequence source, boolean handleComments, boolean handleMultilineStrings)
+    {
+        return new JavaLexer(source, handleComments, handleMultilineStrings);
+    }
     
     public JavaParser(Reader r)
     {
@@ -88,6 +97,31 @@ public class JavaParser extends JavaParserCallbacks
         TokenStream lexer = getLexer(r, line, col, pos);
         tokenStream = new JavaTokenFilter(lexer, this);
     }
+
+    /**
+     * Construct a parser which reads directly from the given source (which must not be
+     * modified while the parser is in use).
+     */
+    public JavaParser(CharSequence source)
+    {
+        this(source, 1, 1, 0);
+    }
+
+    public JavaParser(CharSequence source, boolean handleComments)
+    {
+        TokenStream lexer = getLexer(source, handleComments, true);
+        tokenStream = new JavaTokenFilter(lexer, this);
+    }
+
+    /**
+     * Construct a parser which reads directly from the given source, which begins at
+     * the given line, column and position within the document.
+     */
+    public JavaParser(CharSequence source, int line, int col, int pos)
+    {
+        TokenStream lexer = new JavaLexer(source, line, col, pos);
+        tokenStream = new JavaTokenFilter(lexer, this);
+    }
     
     public final JavaTokenFilter getTokenStream()
     {
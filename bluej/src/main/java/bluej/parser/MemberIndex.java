@@ -0,0 +1,151 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import bluej.debugger.gentype.FieldReflective;
+import bluej.debugger.gentype.GenTypeClass;
+import bluej.debugger.gentype.MethodReflective;
+import bluej.debugger.gentype.Reflective;
+import bluej.pkgmgr.JavadocResolver;
+import bluej.utility.JavaReflective;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * The members of a single type (declared methods and fields, supertypes and outer class),
+ * as needed for code completion.
+ * 
+ * <p>Building this for a class loaded via reflection means examining every member's
+ * generic signature, and the resulting method reflectives are where Javadoc is stored once
+ * it has been found. So for classes (see {@link JavaReflective}) the index is built once
+ * and kept for as long as the class itself is loaded; other reflectives describe source
+ * which may be edited at any time, and get a fresh index on each request.
+ * 
+ * <p>As with the reflectives it is built from, an index must only be built and used
+ * on the FX thread.
+ */
+@OnThread(Tag.FXPlatform)
+final class MemberIndex
+{
+    private static final ClassValue<MemberIndex> classIndexes = new ClassValue<>()
+    {
+        @Override
+        protected MemberIndex computeValue(Class<?> c)
+        {
+            return new MemberIndex(new JavaReflective(c));
+        }
+    };
+    
+    private final Reflective reflective;
+    private final Map<String,Set<MethodReflective>> methods;
+    private final Map<String,FieldReflective> fields;
+    private final List<GenTypeClass> superTypes;
+    private final Reflective outerClass;
+    
+    /** The Javadoc resolvers which have already been asked about all our methods */
+    private final Set<JavadocResolver> javadocResolvedBy = Collections.newSetFromMap(new WeakHashMap<>());
+    
+    private MemberIndex(Reflective reflective)
+    {
+        this.reflective = reflective;
+        this.methods = Collections.unmodifiableMap(reflective.getDeclaredMethods());
+        this.fields = Collections.unmodifiableMap(reflective.getDeclaredFields());
+        this.superTypes = Collections.unmodifiableList(reflective.getSuperTypes());
+        this.outerClass = reflective.getOuterClass();
+    }
+    
+    /**
+     * Get the member index for the given type.
+     */
+    public static MemberIndex of(Reflective reflective)
+    {
+        if (reflective instanceof JavaReflective javaReflective)
+        {
+            return classIndexes.get(javaReflective.getUnderlyingClass());
+        }
+        return new MemberIndex(reflective);
+    }
+    
+    public Reflective getReflective()
+    {
+        return reflective;
+    }
+    
+    /**
+     * The declared methods, mapped from name to all the overloads with that name.
+     */
+    public Map<String,Set<MethodReflective>> getMethods()
+    {
+        return methods;
+    }
+    
+    public Map<String,FieldReflective> getFields()
+    {
+        return fields;
+    }
+    
+    public List<GenTypeClass> getSuperTypes()
+    {
+        return superTypes;
+    }
+    
+    public Reflective getOuterClass()
+    {
+        return outerClass;
+    }
+    
+    /**
+     * Look up Javadoc for all the declared methods in one go, unless the given resolver
+     * has already done so for this index.  Methods which have no Javadoc are not
+     * looked up again.
+     */
+    public void resolveJavadoc(JavadocResolver javadocResolver)
+    {
+        if (!javadocResolvedBy.add(javadocResolver))
+        {
+            return;
+        }
+        
+        List<MethodReflective> unresolved = new ArrayList<>();
+        for (Set<MethodReflective> overloads : methods.values())
+        {
+            for (MethodReflective method : overloads)
+            {
+                if (method.getJavaDoc() == null)
+                {
+                    unresolved.add(method);
+                }
+            }
+        }
+        if (!unresolved.isEmpty())
+        {
+            javadocResolver.getJavadoc(reflective, unresolved);
+        }
+    }
+}
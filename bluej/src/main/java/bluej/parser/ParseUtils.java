@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2013,2014,2015,2017,2018,2019,2020,2021,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2013,2014,2015,2017,2018,2019,2020,2021,2022,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -244,8 +244,14 @@ public class ParseUtils
                 // we've already done this type...
                 continue;
             }
-            Map<String, Set<MethodReflective>> methods = exprType.getReflective().getDeclaredMethods();
+            MemberIndex members = MemberIndex.of(exprType.getReflective());
+            Map<String, Set<MethodReflective>> methods = members.getMethods();
             Map<String, GenTypeParameter> typeArgs = exprType.getMap();
+            if (!methods.isEmpty())
+            {
+                // Scan all methods for Javadoc in one go first (saves a lot of time):
+                members.resolveJavadoc(javadocResolver);
+            }
 
             for (String name : methods.keySet())
             {
@@ -255,11 +261,11 @@ public class ParseUtils
                     origExprType,
                     suggests.getAccessType().getReflective(),
                     method.getModifiers(), suggests.isStatic()));
-                completions.addAll(discoverElements(exprType, javadocResolver, contentSigs,
+                completions.addAll(discoverElements(javadocResolver, contentSigs,
                     typeArgs, mset, consumer));
             }
 
-            Map<String, FieldReflective> fields = exprType.getReflective().getDeclaredFields();
+            Map<String, FieldReflective> fields = members.getFields();
             for (String name : fields.keySet())
             {
                 FieldReflective field = fields.get(name);
@@ -288,7 +294,7 @@ public class ParseUtils
                 }
             }
 
-            for (GenTypeClass stype : exprType.getReflective().getSuperTypes())
+            for (GenTypeClass stype : members.getSuperTypes())
             {
                 if (typeArgs != null)
                 {
@@ -300,9 +306,7 @@ public class ParseUtils
                 }
             }
 
-            // Sort the completions by name
-            Collections.sort(completions, (o1, o2) -> o1.getName().compareTo(o2.getName()));
-            Reflective outer = exprType.getReflective().getOuterClass();
+            Reflective outer = members.getOuterClass();
             if (outer != null)
             {
                 typeQueue.add(new GenTypeClass(outer));
@@ -310,6 +314,9 @@ public class ParseUtils
 
         }
 
+        // Sort the completions by name
+        completions.sort(Comparator.comparing(AssistContent::getName));
+
         if (surroundingMethod != null && suggests.isPlain())
         {
             // Find and add the local variables:
@@ -374,7 +381,6 @@ public class ParseUtils
      * representing any methods that were added (methods which were not added because they were already
      * present are not returned).
      *
-     * @param gclass          The declaring class for the methods.
      * @param javadocResolver The Javadoc resolver used to look up Javadoc for the method.
      * @param contentSigs     The set of existing method signatures.  The newly-found method will be
      *                        added if and only if it is not already in the set.
@@ -387,23 +393,14 @@ public class ParseUtils
      * If the method was already in the set, null will be returned.
      */
     @OnThread(Tag.FXPlatform)
-    private static Collection<AssistContent> discoverElements(GenTypeClass gclass,
-                                                              JavadocResolver javadocResolver, Set<String> contentSigs,
+    private static Collection<AssistContent> discoverElements(JavadocResolver javadocResolver, Set<String> contentSigs,
                                                               Map<String, GenTypeParameter> typeArgs,
                                                               Collection<MethodReflective> methods, AssistContentConsumer consumer)
     {
-        boolean resolveJavadoc = false;
         Set<MethodCompletion> completions = new HashSet<>();
         for (MethodReflective method : methods)
         {
             completions.add(new MethodCompletion(method, typeArgs, javadocResolver));
-            resolveJavadoc |= (method.getJavaDoc() == null);
-        }
-
-        // Scan all methods for Javadoc in one go first (saves a lot of time):
-        if (resolveJavadoc)
-        {
-            javadocResolver.getJavadoc(gclass.getReflective(), methods);
         }
 
         List<AssistContent> allNewMethods = new ArrayList<>();
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2013  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2013,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,6 +21,9 @@
  */
 package bluej.parser;
 
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
 /**
  * A line/column location in a source file.
  *
@@ -28,6 +31,7 @@ package bluej.parser;
  *
  * @author  Andrew Patterson
  */
+@OnThread(Tag.Any)
 public class SourceLocation
 {
     private int line;
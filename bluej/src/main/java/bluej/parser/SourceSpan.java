@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2013  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2013,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,11 +21,15 @@
  */
 package bluej.parser;
 
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
 /**
  * A span between two line/column locations.
  *
  * @author  Andrew Patterson
  */
+@OnThread(Tag.Any)
 public class SourceSpan
 {
     private SourceLocation start;
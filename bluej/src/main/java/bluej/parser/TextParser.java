@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2019,2020,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2019,2020,2022,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,7 +22,6 @@
 package bluej.parser;
 
 import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -161,16 +160,40 @@ public class TextParser extends JavaParser
     }
     
     /**
-     * Construct a text parser for parsing an expression which is represented in a String.
+     * Construct a text parser for parsing an expression which is represented in a String
+     * (or other character sequence, which must not be modified while the parser is in use).
      * 
      * @param resolver   Resolver to resolve symbols
      * @param s           A string containing the expression
      * @param accessType   The containing type
      * @param staticAccess Whether the expression occurs in a static context
      */
-    public TextParser(EntityResolver resolver, String s, JavaEntity accessType, boolean staticAccess)
+    public TextParser(EntityResolver resolver, CharSequence s, JavaEntity accessType, boolean staticAccess)
     {
-        this(resolver, new StringReader(s), accessType, staticAccess);
+        super(s);
+        this.resolver = resolver;
+        this.accessType = accessType;
+        this.staticAccess = staticAccess;
+    }
+
+    /**
+     * Construct a text parser for parsing an expression held in a character sequence,
+     * where the expression is located at a particular line and column in the source.
+     * 
+     * @param resolver   Resolver to resolve symbols
+     * @param s           The expression source
+     * @param accessType   The containing type
+     * @param staticAccess Whether the expression occurs in a static context
+     * @param line        The line in the source where the expression occurs
+     * @param col         The column in the source where the expression occurs
+     */
+    public TextParser(EntityResolver resolver, CharSequence s, JavaEntity accessType, boolean staticAccess,
+            int line, int col, int pos)
+    {
+        super(s, line, col, pos);
+        this.resolver = resolver;
+        this.accessType = accessType;
+        this.staticAccess = staticAccess;
     }
     
     /**
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2010  Michael Kolling and John Rosenberg 
+ Copyright (C) 2010,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -31,22 +31,38 @@ import bluej.debugger.gentype.Reflective;
 public class ClassLoaderResolver implements EntityResolver
 {
     private ClassLoader classLoader;
+    private ResolutionCache cache;
     
     public ClassLoaderResolver(ClassLoader classLoader)
+    {
+        this(classLoader, new ResolutionCache());
+    }
+    
+    /**
+     * Construct a resolver which records lookups in the given cache. The cache may be
+     * shared between resolvers using the same class loader.
+     */
+    public ClassLoaderResolver(ClassLoader classLoader, ResolutionCache cache)
     {
         this.classLoader = classLoader;
+        this.cache = cache;
     }
     
     public TypeEntity resolveQualifiedClass(String name)
+    {
+        // Try as a fully-qualified name 
+        Class<?> cl = cache.loadClass(name, this::loadClass);
+        return cl != null ? new TypeEntity(cl) : null;
+    }
+    
+    private Class<?> loadClass(String name)
     {
         try {
-            // Try as a fully-qualified name 
-            Class<?> cl = classLoader.loadClass(name);
-            return new TypeEntity(cl);
+            return classLoader.loadClass(name);
+        }
+        catch (Exception e) {
+            return null;
         }
-        catch (Exception e) {}
-        
-        return null;
     }
     
     public PackageOrClass resolvePackageOrClass(String name, Reflective querySource)
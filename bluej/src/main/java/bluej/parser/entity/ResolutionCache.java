@@ -0,0 +1,218 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser.entity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A cache of class lookups by fully-qualified name, shared by the entity resolvers
+ * of a project. Parsing and code completion probe the same names over and over
+ * (every identifier in an expression may be tried as a class in java.lang, and then as
+ * a package), and most of those probes fail, so failed lookups are cached as well as
+ * successful ones.
+ * 
+ * <p>Entries are grouped by package so that a compile can invalidate just the packages
+ * it affects. Classes are held only until the class loader which defined them is
+ * discarded (see {@link #invalidateLoadedBy(ClassLoader)}); a change to the classpath
+ * should {@link #clear()} the whole cache.
+ * 
+ * <p>Only class lookups are cached. The types, packages and value entities which the
+ * resolvers return are built from these lookups, and are cheap to build; the packages
+ * and value entities which are resolved within source (against fields, local variables
+ * and the project's own, possibly edited, classes) depend on the source, and so are not
+ * shared through this cache.
+ */
+@OnThread(Tag.Any)
+public class ResolutionCache
+{
+    /** The number of entries we will hold before starting again from empty. */
+    private static final int MAX_ENTRIES = 50000;
+    
+    /** Marker stored for a name which could not be resolved. */
+    private static final Object MISS = new Object();
+    
+    /** Package name to (base name to Class or MISS) */
+    private final Map<String,Map<String,Object>> packages = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    /** Incremented whenever cached results are invalidated */
+    private final AtomicLong generation = new AtomicLong();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    /**
+     * Look up a class by its fully-qualified name, using the given loader function
+     * (which should return null if the class cannot be found) if there is no cached result.
+     */
+    public Class<?> loadClass(String name, Function<String,Class<?>> loader)
+    {
+        int lastDot = name.lastIndexOf('.');
+        String pkgName = lastDot != -1 ? name.substring(0, lastDot) : "";
+        String baseName = name.substring(lastDot + 1);
+        
+        Map<String,Object> bucket = packages.get(pkgName);
+        Object cached = bucket != null ? bucket.get(baseName) : null;
+        if (cached != null) {
+            hits.increment();
+            if (cached == MISS) {
+                negativeHits.increment();
+                return null;
+            }
+            return (Class<?>) cached;
+        }
+        
+        misses.increment();
+        long startGeneration = generation.get();
+        Class<?> cl = loader.apply(name);
+        Object result = cl != null ? cl : MISS;
+        if (size.incrementAndGet() > MAX_ENTRIES) {
+            // Start again from empty.  Nothing has changed, so this doesn't count as
+            // an invalidation (and doesn't change the generation):
+            packages.clear();
+            size.set(1);
+        }
+        bucket = packages.computeIfAbsent(pkgName, p -> new ConcurrentHashMap<>());
+        if (bucket.putIfAbsent(baseName, result) != null) {
+            // Another thread got there first:
+            size.decrementAndGet();
+        }
+        else if (generation.get() != startGeneration && bucket.remove(baseName, result)) {
+            // The cache was invalidated while we were loading, so our result may
+            // already be out of date; don't keep it:
+            size.decrementAndGet();
+        }
+        return cl;
+    }
+    
+    /**
+     * Discard all cached results (found or not) for classes in the given package.
+     * This should be called when the package has been compiled.
+     */
+    public void invalidatePackage(String pkgName)
+    {
+        generation.incrementAndGet();
+        Map<String,Object> bucket = packages.remove(pkgName);
+        if (bucket != null) {
+            size.addAndGet(-bucket.size());
+        }
+    }
+    
+    /**
+     * Discard all cached classes which were defined by the given class loader. Failed
+     * lookups are kept, since they are tied to the classpath rather than the loader.
+     */
+    public void invalidateLoadedBy(ClassLoader classLoader)
+    {
+        generation.incrementAndGet();
+        for (Map<String,Object> bucket : packages.values()) {
+            bucket.values().removeIf(v -> v != MISS && ((Class<?>) v).getClassLoader() == classLoader);
+        }
+        recount();
+    }
+    
+    /**
+     * Discard all cached results.
+     */
+    public void clear()
+    {
+        generation.incrementAndGet();
+        packages.clear();
+        size.set(0);
+    }
+    
+    private void recount()
+    {
+        int total = 0;
+        for (Map<String,Object> bucket : packages.values()) {
+            total += bucket.size();
+        }
+        size.set(total);
+    }
+    
+    /**
+     * Get a number which changes whenever cached results are invalidated, that is, whenever
+     * the classes in the project (or the classpath) may have changed.  This allows other
+     * information derived from the project's classes to be cached until that happens.
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+    
+    /**
+     * Get the number of lookups which were answered from the cache.
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+    
+    /**
+     * Get the number of lookups which were answered from the cache with a cached failure.
+     */
+    public long getNegativeHits()
+    {
+        return negativeHits.sum();
+    }
+    
+    /**
+     * Get the number of lookups which had to go to the loader.
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+    
+    /**
+     * Get the proportion (0 to 1) of lookups which were answered from the cache.
+     */
+    public double getHitRate()
+    {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+    
+    /**
+     * Get the number of results currently cached.
+     */
+    public int size()
+    {
+        return size.get();
+    }
+    
+    @Override
+    public String toString()
+    {
+        return String.format("%d lookups, %.1f%% hits (%d of them failed lookups), %d entries cached",
+                getHits() + getMisses(), getHitRate() * 100.0, getNegativeHits(), size());
+    }
+}
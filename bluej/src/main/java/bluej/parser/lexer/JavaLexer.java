@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2009,2010,2011,2012,2014,2016,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 2009,2010,2011,2012,2014,2016,2022,2024,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,13 +24,10 @@ package bluej.parser.lexer;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.OptionalInt;
-import java.util.TreeMap;
-import java.util.stream.IntStream;
 
-import bluej.parser.EscapedUnicodeReader;
 import bluej.parser.TokenStream;
 
 
@@ -41,13 +38,24 @@ import bluej.parser.TokenStream;
  */
 public final class JavaLexer implements TokenStream
 {
-    private StringBuffer textBuffer = new StringBuffer(); // text of current token
-    private EscapedUnicodeReader reader;
+    private final StringBuilder textBuffer = new StringBuilder(); // text of current token
+    private final LexerInput input;
     private int rChar; 
-    // Only used in one frequently-called method, but stored as field to avoid recreating object each call:
-    private final TreeMap<Integer, LineColPos> minusPositions = new TreeMap<>();
-    private LineColPos begin;
-    private LineColPos end;
+    // Only used in one frequently-called method, but stored as fields to avoid recreating objects each call.
+    // For each minus seen, the offset in textBuffer and the source location of the minus:
+    private int minusCount = 0;
+    private int[] minusOffsets = new int[4];
+    private int[] minusLines = new int[4];
+    private int[] minusColumns = new int[4];
+    private int[] minusPositions = new int[4];
+    // The location of the start of the next token, and of the end of the characters consumed so far.
+    // These are kept as plain ints, rather than LineColPos, so that we don't allocate for every character:
+    private int beginLine;
+    private int beginColumn;
+    private int beginPosition;
+    private int endLine;
+    private int endColumn;
+    private int endPosition;
     private boolean generateWhitespaceTokens = false;
     private boolean handleComments = true; // When false, doesn't recognise /*..*/ or //..\n as comments (for frames)
     private boolean handleMultilineStrings = true; // When false, treats """ as a single token rather than trying to match start/end
@@ -115,6 +123,34 @@ public final class JavaLexer implements TokenStream
         keywords.put("yield", JavaTokenTypes.LITERAL_yield);
     }
 
+    // The keywords, indexed by first letter, so that words can be checked without creating a String:
+    private static final String[][] keywordsByLetter = new String[26][];
+    private static final int[][] keywordTypesByLetter = new int[26][];
+    private static final int minKeywordLength;
+    private static final int maxKeywordLength;
+
+    static {
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (int letter = 0; letter < 26; letter++) {
+            keywordsByLetter[letter] = new String[0];
+            keywordTypesByLetter[letter] = new int[0];
+        }
+        for (Map.Entry<String, Integer> keyword : keywords.entrySet()) {
+            String word = keyword.getKey();
+            int letter = word.charAt(0) - 'a';
+            int n = keywordsByLetter[letter].length;
+            keywordsByLetter[letter] = Arrays.copyOf(keywordsByLetter[letter], n + 1);
+            keywordsByLetter[letter][n] = word;
+            keywordTypesByLetter[letter] = Arrays.copyOf(keywordTypesByLetter[letter], n + 1);
+            keywordTypesByLetter[letter][n] = keyword.getValue();
+            min = Math.min(min, word.length());
+            max = Math.max(max, word.length());
+        }
+        minKeywordLength = min;
+        maxKeywordLength = max;
+    }
+
     /**
      * Construct a lexer which readers from the given Reader.
      */
@@ -140,16 +176,46 @@ public final class JavaLexer implements TokenStream
      */
     public JavaLexer(Reader in, int line, int col, int position)
     {
-        reader = new EscapedUnicodeReader(in);
-        LineColPos lineColPos = new LineColPos(line, col, position);
-        reader.setLineColPos(lineColPos);
-        end = begin = lineColPos;
-        try {
-            rChar = reader.read();
-        }
-        catch (IOException ioe) {
-            rChar = -1;
-        }
+        this(new LexerInput.ReaderInput(in, line, col, position), line, col, position);
+    }
+
+    /**
+     * Construct a lexer which reads directly from the given character sequence
+     * (which must not be modified while the lexer is in use).  This avoids the
+     * overhead of going through a Reader.
+     */
+    public JavaLexer(CharSequence source)
+    {
+        this(source, 1, 1, 0);
+    }
+
+    /**
+     * Construct a lexer which reads directly from the given character sequence.
+     */
+    public JavaLexer(CharSequence source, boolean handleComments, boolean handleMultilineStrings)
+    {
+        this(source, 1, 1, 0);
+        this.handleComments = handleComments;
+        this.handleMultilineStrings = handleMultilineStrings;
+    }
+
+    /**
+     * Construct a lexer which reads directly from the given character sequence, assuming
+     * that the sequence begins at the given line, column and position within the source
+     * document.
+     */
+    public JavaLexer(CharSequence source, int line, int col, int position)
+    {
+        this(new LexerInput.CharSequenceInput(source, line, col, position), line, col, position);
+    }
+
+    private JavaLexer(LexerInput input, int line, int col, int position)
+    {
+        this.input = input;
+        beginLine = endLine = line;
+        beginColumn = endColumn = col;
+        beginPosition = endPosition = position;
+        rChar = input.read();
     }
     
     /**
@@ -161,55 +227,56 @@ public final class JavaLexer implements TokenStream
         
         if (generateWhitespaceTokens && Character.isWhitespace((char)rChar))
         {
-            StringBuilder whitespaceBuffer = new StringBuilder();
             while (Character.isWhitespace((char)rChar))
             {
-                whitespaceBuffer.append((char)rChar);                
+                textBuffer.append((char)rChar);                
                 readNextChar();
             }
-            return makeToken(JavaTokenTypes.WHITESPACE, whitespaceBuffer.toString());
+            return makeToken(JavaTokenTypes.WHITESPACE);
         }
         else
         {        
             while (Character.isWhitespace((char)rChar)) {
-                begin = reader.getLineColPos();
+                beginLine = input.getLine();
+                beginColumn = input.getColumn();
+                beginPosition = input.getPosition();
                 readNextChar();
             }
         }
 
         if (rChar == -1) {
             // EOF
-            return makeToken(JavaTokenTypes.EOF, null); 
+            return makeToken(JavaTokenTypes.EOF); 
         }
         
         char nextChar = (char) rChar;
         if (Character.isJavaIdentifierStart(nextChar)) {
-            return createWordToken(nextChar); 
+            populateTextBuffer(nextChar);
+            return makeToken(getWordType()); 
         }
         if (Character.isDigit(nextChar)) {
-            return makeToken(readDigitToken(nextChar, false), textBuffer.toString());
+            return makeToken(readDigitToken(nextChar, false));
         }
-        return makeToken(getSymbolType(nextChar), textBuffer.toString());
+        return makeToken(getSymbolType(nextChar));
     }
     
     /**
-     * Make a token of the given type, with the given text. The token
-     * begins where the previous token ended, and ends at the current
+     * Make a token of the given type, with the text in the text buffer (no text for EOF).
+     * The token begins where the previous token ended, and ends at the current
      * position (as found in endLine and endColumn).
      */
-    private LocatableToken makeToken(int type, String txt)
+    private LocatableToken makeToken(int type)
     {           
-        LocatableToken tok = new LocatableToken(type, txt, begin, end);
-        begin = end;
+        String text = type == JavaTokenTypes.EOF ? null : textBuffer.toString();
+        LocatableToken tok = new LocatableToken(type, text,
+                new LineColPos(beginLine, beginColumn, beginPosition),
+                new LineColPos(endLine, endColumn, endPosition));
+        beginLine = endLine;
+        beginColumn = endColumn;
+        beginPosition = endPosition;
         return tok;
     }
 
-    private LocatableToken createWordToken(char nextChar)
-    {
-        populateTextBuffer(nextChar);
-        return makeToken(getWordType(), textBuffer.toString());
-    }
-
     /**
      * Populates the textBuffer field with the next complete ident or keyword.
      */
@@ -223,7 +290,7 @@ public final class JavaLexer implements TokenStream
         
         char thisChar=ch;
         boolean eof = false;
-        minusPositions.clear();
+        minusCount = 0;
         do {  
             textBuffer.append(thisChar);
             int rval = readNextChar();
@@ -235,7 +302,7 @@ public final class JavaLexer implements TokenStream
             if (rval == '-')
             {
                 // Record when we see a minus for faster processing below:
-                minusPositions.put(textBuffer.length(), end);
+                recordMinus();
             }
             thisChar=(char)rval;
         } while (Character.isJavaIdentifierPart(thisChar) || thisChar == '-');
@@ -244,26 +311,48 @@ public final class JavaLexer implements TokenStream
         // So e.g. if we consumed "non-sealed-pipe" we'd pick out the second minus as the first
         // one that is after a known keyword ("non-sealed").
         // For "non-closed-file" it would be the first minus because there is no known keyword.
-        OptionalInt keywordEnd = 
-            // We look at all positions where there is a minus, but we also look at the end of 
-            // the String (in case it's exactly a hyphenated keyword like "non-sealed" with no further minuses)
-            IntStream.concat(minusPositions.keySet().stream().mapToInt(Integer::intValue).sorted(), IntStream.of(textBuffer.length()))
-                .filter(index -> keywords.containsKey(textBuffer.substring(0, index))).findFirst();
+        // This is only relevant if we have seen a minus at all, which is rare:
+        if (minusCount == 0)
+        {
+            return;
+        }
         
-        if (!minusPositions.isEmpty() && keywordEnd.orElse(-1) < textBuffer.length())
+        // We look at all positions where there is a minus, but we also look at the end of 
+        // the String (in case it's exactly a hyphenated keyword like "non-sealed" with no further minuses)
+        int keywordEnd = -1;
+        for (int i = 0; i <= minusCount && keywordEnd == -1; i++)
         {
-            // We have found a minus but there either is not a keyword (keywordEnd will be empty)
+            int index = i < minusCount ? minusOffsets[i] : textBuffer.length();
+            if (keywordType(index) != -1)
+            {
+                keywordEnd = index;
+            }
+        }
+        
+        if (keywordEnd < textBuffer.length())
+        {
+            // We have found a minus but there either is not a keyword (keywordEnd will be -1)
             // or there are further minuses after the content (keywordEnd will be present,
             // but less than the full length of the string).
-            int minusToPushBackFrom = keywordEnd.orElse(minusPositions.firstKey().intValue());
-            end = minusPositions.get(minusToPushBackFrom);
+            int minusIndex = 0;
+            if (keywordEnd != -1)
+            {
+                while (minusOffsets[minusIndex] != keywordEnd)
+                {
+                    minusIndex++;
+                }
+            }
+            int minusToPushBackFrom = minusOffsets[minusIndex];
+            endLine = minusLines[minusIndex];
+            endColumn = minusColumns[minusIndex];
+            endPosition = minusPositions[minusIndex];
             try
             {
                 // If we found EOF then thisChar is already handled and we shouldn't push it back
                 // on to the buffer:
                 if (!eof)
                     textBuffer.append(thisChar);
-                reader.pushBack(textBuffer.substring(minusToPushBackFrom), end);
+                input.pushBack(textBuffer.substring(minusToPushBackFrom), endLine, endColumn, endPosition);
                 // Prime the rChar variable which always holds the next pending character:
                 readNextChar();
             }
@@ -275,6 +364,26 @@ public final class JavaLexer implements TokenStream
         }
     }
 
+    /**
+     * Record the location of a minus which is about to be appended to the text buffer.
+     */
+    private void recordMinus()
+    {
+        if (minusCount == minusOffsets.length)
+        {
+            int newLength = minusCount * 2;
+            minusOffsets = Arrays.copyOf(minusOffsets, newLength);
+            minusLines = Arrays.copyOf(minusLines, newLength);
+            minusColumns = Arrays.copyOf(minusColumns, newLength);
+            minusPositions = Arrays.copyOf(minusPositions, newLength);
+        }
+        minusOffsets[minusCount] = textBuffer.length();
+        minusLines[minusCount] = endLine;
+        minusColumns[minusCount] = endColumn;
+        minusPositions[minusCount] = endPosition;
+        minusCount++;
+    }
+
     /**
      * Reads in a character or string literal as a single token.
      * @param newlineAllowed Whether a newline is allowed inside the literal (it is allowed in Java's new text blocks feature)
@@ -975,24 +1084,53 @@ public final class JavaLexer implements TokenStream
 
     private int readNextChar()
     {
-        end = reader.getLineColPos();
-        try{
-            rChar = reader.read();
-        } catch(IOException e) {
-            rChar = -1;
-        }
-
+        endLine = input.getLine();
+        endColumn = input.getColumn();
+        endPosition = input.getPosition();
+        rChar = input.read();
         return rChar;
     }
 
     private int getWordType()
     {
-        String text=textBuffer.toString();
-        Integer i = keywords.get(text);
-        if (i == null) {
+        int type = keywordType(textBuffer.length());
+        if (type == -1) {
             return JavaTokenTypes.IDENT;
         }
-        return i;
+        return type;
+    }
+
+    /**
+     * Check whether the first <i>length</i> characters of the text buffer are a keyword,
+     * without creating a String.  Returns the keyword's token type, or -1 if it is not a keyword.
+     */
+    private int keywordType(int length)
+    {
+        if (length < minKeywordLength || length > maxKeywordLength) {
+            return -1;
+        }
+        int letter = textBuffer.charAt(0) - 'a';
+        if (letter < 0 || letter >= 26) {
+            return -1;
+        }
+        String[] candidates = keywordsByLetter[letter];
+        for (int i = 0; i < candidates.length; i++) {
+            String candidate = candidates[i];
+            if (candidate.length() == length && regionMatches(candidate, length)) {
+                return keywordTypesByLetter[letter][i];
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(String candidate, int length)
+    {
+        for (int i = 1; i < length; i++) {
+            if (candidate.charAt(i) != textBuffer.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void setGenerateWhitespaceTokens(boolean generateWhitespaceTokens)
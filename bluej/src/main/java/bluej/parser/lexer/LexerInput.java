@@ -0,0 +1,219 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import bluej.parser.EscapedUnicodeReader;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * The source of characters for a JavaLexer.  Unicode escapes (backslash-'u'-XXXX) are
+ * replaced by the characters they represent, and the line, column and position in the
+ * original source (after the last character read) are tracked.
+ */
+@OnThread(Tag.Any)
+abstract class LexerInput
+{
+    /**
+     * Read the next character, or return -1 at the end of the input.
+     */
+    abstract int read();
+
+    abstract int getLine();
+
+    abstract int getColumn();
+
+    abstract int getPosition();
+
+    /**
+     * Push the given content (which must have been the last content read) back on to
+     * the input, and set the current location to the given location.
+     */
+    abstract void pushBack(String content, int line, int column, int position) throws IOException;
+
+    /**
+     * Input from a Reader, via an EscapedUnicodeReader.
+     */
+    @OnThread(Tag.Any)
+    static final class ReaderInput extends LexerInput
+    {
+        private final EscapedUnicodeReader reader;
+
+        ReaderInput(Reader in, int line, int column, int position)
+        {
+            reader = new EscapedUnicodeReader(in);
+            reader.setLineColPos(new LineColPos(line, column, position));
+        }
+
+        @Override
+        int read()
+        {
+            try {
+                return reader.read();
+            }
+            catch (IOException ioe) {
+                return -1;
+            }
+        }
+
+        @Override
+        int getLine()
+        {
+            return reader.getLineColPos().line();
+        }
+
+        @Override
+        int getColumn()
+        {
+            return reader.getLineColPos().column();
+        }
+
+        @Override
+        int getPosition()
+        {
+            return reader.getLineColPos().position();
+        }
+
+        @Override
+        void pushBack(String content, int line, int column, int position) throws IOException
+        {
+            reader.pushBack(content, new LineColPos(line, column, position));
+        }
+    }
+
+    /**
+     * Input directly from a CharSequence (such as a document's content), without any
+     * intermediate buffering or per-character allocation.  Unicode escapes are processed
+     * exactly as by EscapedUnicodeReader, but characters which cannot begin an escape
+     * take a fast path.
+     */
+    @OnThread(Tag.Any)
+    static final class CharSequenceInput extends LexerInput
+    {
+        private final CharSequence source;
+        private final int length;
+        /** The position (in the overall document) of the first character of the source */
+        private final int basePosition;
+        private int index = 0;
+        private int line;
+        private int column;
+        /**
+         * Set when the next character must be returned as-is, even if it is a backslash
+         * followed by 'u'.  This is the case after a backslash which did not start an
+         * escape (so "\\u0041" is not an escape), and after an invalid escape.
+         */
+        private boolean literalNext = false;
+
+        CharSequenceInput(CharSequence source, int line, int column, int position)
+        {
+            this.source = source;
+            this.length = source.length();
+            this.basePosition = position;
+            this.line = line;
+            this.column = column;
+        }
+
+        @Override
+        int read()
+        {
+            if (index >= length) {
+                return -1;
+            }
+            char c = source.charAt(index++);
+            if (c == '\\' && !literalNext) {
+                if (index < length && source.charAt(index) == 'u') {
+                    column += 2;
+                    index++;
+                    return readEscapedUnicodeSequence();
+                }
+                literalNext = true;
+                column++;
+                return c;
+            }
+            literalNext = false;
+            if (c == '\n') {
+                line++;
+                column = 1;
+            }
+            else {
+                column++;
+            }
+            return c;
+        }
+
+        /**
+         * Read the rest of an escape sequence, after the backslash and first 'u'.
+         */
+        private int readEscapedUnicodeSequence()
+        {
+            // Any number of 'u' characters may appear in sequence as part of a unicode escape.
+            while (index < length && source.charAt(index) == 'u') {
+                index++;
+                column++;
+            }
+            int val = 0;
+            for (int i = 0; i < 4; i++) {
+                int digitVal = index < length ? Character.digit(source.charAt(index), 16) : -1;
+                if (digitVal == -1) {
+                    // Invalid escape; the offending character is returned as-is next time
+                    literalNext = true;
+                    return 0xFFFF;
+                }
+                index++;
+                column++;
+                val = val * 0x10 + digitVal;
+            }
+            return val;
+        }
+
+        @Override
+        int getLine()
+        {
+            return line;
+        }
+
+        @Override
+        int getColumn()
+        {
+            return column;
+        }
+
+        @Override
+        int getPosition()
+        {
+            return basePosition + index;
+        }
+
+        @Override
+        void pushBack(String content, int line, int column, int position)
+        {
+            // We can just go back in the source and read it again:
+            index = position - basePosition;
+            this.line = line;
+            this.column = column;
+            literalNext = false;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2012,2019,2022  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2011,2012,2019,2022,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,7 +21,6 @@
  */
 package bluej.parser.nodes;
 
-import java.io.Reader;
 
 import bluej.parser.nodes.ReparseableDocument.Element;
 import bluej.parser.Token;
@@ -146,11 +145,11 @@ public class CommentNode extends ParsedNode
     protected int reparseNode(ReparseableDocument document, int nodePos, int offset, int maxParse,
             NodeStructureListener listener)
     {
-        // Make a reader and parser
+        // Make a lexer
         int pline = document.getDefaultRootElement().getElementIndex(nodePos) + 1;
         int pcol = nodePos - document.getDefaultRootElement().getElement(pline - 1).getStartOffset() + 1;
-        Reader r = document.makeReader(nodePos, nodePos + getSize());
-        JavaLexer lexer = new JavaLexer(r, pline, pcol, nodePos);
+        CharSequence source = document.getContent(nodePos, nodePos + getSize());
+        JavaLexer lexer = new JavaLexer(source, pline, pcol, nodePos);
 
         LocatableToken commentToken = lexer.nextToken();
         if (commentToken.getType() != JavaTokenTypes.SL_COMMENT &&
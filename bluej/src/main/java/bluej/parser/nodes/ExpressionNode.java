@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2012,2014,2019,2022  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2010,2012,2014,2019,2022,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,8 +21,6 @@
  */
 package bluej.parser.nodes;
 
-import java.io.Reader;
-
 import bluej.debugger.gentype.GenTypeClass;
 import bluej.debugger.gentype.GenTypeSolid;
 import bluej.parser.nodes.ReparseableDocument.Element;
@@ -83,12 +81,12 @@ public class ExpressionNode extends JavaParentNode
     public static ExpressionTypeInfo suggestAsExpression(int pos, int nodePos, EntityResolver resolver,
             JavaEntity defaultType, ReparseableDocument document)
     {
-        Reader r = document.makeReader(nodePos, pos);
+        CharSequence source = document.getContent(nodePos, pos);
         Element map = document.getDefaultRootElement();
         int line = map.getElementIndex(nodePos) + 1;
         int col = nodePos - map.getElement(line - 1).getStartOffset() + 1;
         
-        CompletionParser parser = new CompletionParser(resolver, r, defaultType, line, col, nodePos);
+        CompletionParser parser = new CompletionParser(resolver, source, defaultType, line, col, nodePos);
         parser.parseExpression();
         
         GenTypeSolid stype = parser.getSuggestionType();
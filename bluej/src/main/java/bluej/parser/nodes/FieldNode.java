@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2019,2020,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2019,2020,2022,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -176,7 +176,7 @@ public class FieldNode extends JavaParentNode implements VariableDeclaration
                 }
                 
                 TextParser tp = new TextParser(this,
-                        document.makeReader(initExpr.getPosition(), initExpr.getEnd()),
+                        document.getContent(initExpr.getPosition(), initExpr.getEnd()),
                         getContainingType(),
                         false /* static access */);
                 tp.parseExpression();
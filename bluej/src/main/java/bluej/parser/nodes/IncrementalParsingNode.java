@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2012,2013,2014,2019  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2011,2012,2013,2014,2019,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,15 +22,13 @@
 package bluej.parser.nodes;
 
 import bluej.parser.EditorParser;
-import bluej.parser.EscapedUnicodeReader;
+import bluej.parser.lexer.JavaLexer;
 import bluej.parser.lexer.JavaTokenTypes;
 import bluej.parser.lexer.LocatableToken;
 import bluej.parser.nodes.NodeTree.NodeAndPosition;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.IOException;
-import java.io.Reader;
 import java.util.LinkedList;
 import java.util.Stack;
 
@@ -178,11 +176,11 @@ public abstract class IncrementalParsingNode extends JavaParentNode
         // Find the next child node, which we may bump into when we are parsing.
         NodeAndPosition<ParsedNode> nextChild = childQueue.peek();
         
-        // Make a reader and parser
+        // Make a parser
         int pline = document.getDefaultRootElement().getElementIndex(offset) + 1;
         int pcol = offset - document.getDefaultRootElement().getElement(pline - 1).getStartOffset() + 1;
-        Reader r = document.makeReader(offset, parseEnd);
-        EditorParser parser = new EditorParser(document, r, pline, pcol, offset, buildScopeStack(), listener);
+        CharSequence source = document.getContent(offset, parseEnd);
+        EditorParser parser = new EditorParser(document, source, pline, pcol, offset, buildScopeStack(), listener);
                 
         LocatableToken laToken = parser.getTokenStream().LA(1);
         int ttype = laToken.getType();
@@ -255,8 +253,8 @@ public abstract class IncrementalParsingNode extends JavaParentNode
                     offset = nap.getPosition() + nap.getNode().getSize();
                     pline = document.getDefaultRootElement().getElementIndex(offset) + 1;
                     pcol = offset - document.getDefaultRootElement().getElement(pline - 1).getStartOffset() + 1;
-                    r = document.makeReader(offset, parseEnd);
-                    parser = new EditorParser(document, r, pline, pcol, offset, buildScopeStack(), listener);
+                    source = document.getContent(offset, parseEnd);
+                    parser = new EditorParser(document, source, pline, pcol, offset, buildScopeStack(), listener);
                     laToken = parser.getTokenStream().LA(1);
                     tokpos = lineColToPos(document, laToken.getLine(), laToken.getColumn());
                 }
@@ -665,27 +663,23 @@ public abstract class IncrementalParsingNode extends JavaParentNode
             return ALL_OK;
         }
         
-        Reader r = document.makeReader(offset, nodePos + getSize());
-        EscapedUnicodeReader eur = new EscapedUnicodeReader(r);
-        try {
-            if (eur.read() == '/' && eur.read() == '/') {
-                eur.close();
-                // It's a single-line comment
-                int c = document.makeReader(end, end + 1).read();
-                if (c != '\n') {
-                    // The comment should extend to the end of the line, but it doesn't.
-                    ParsedNode parentNode = getParentNode();
-                    if (parentNode != null && parentNode.growChild(document,
-                            new NodeAndPosition<ParsedNode>(this, nodePos, getSize()), listener)) {
-                        // Successfully grew... now do some more parsing
-                        int pr = reparseNode(document, nodePos, offset, getSize(), listener);
-                        return pr == ALL_OK ? NODE_GREW : pr;
-                    }
-                    return REMOVE_NODE;
+        // Lex the comment directly from the document, so that escaped unicode is handled:
+        JavaLexer lexer = new JavaLexer(document.getContent(offset, nodePos + getSize()));
+        if (lexer.nextToken().getType() == JavaTokenTypes.SL_COMMENT) {
+            // It's a single-line comment
+            char c = document.getContent(end, end + 1).charAt(0);
+            if (c != '\n') {
+                // The comment should extend to the end of the line, but it doesn't.
+                ParsedNode parentNode = getParentNode();
+                if (parentNode != null && parentNode.growChild(document,
+                        new NodeAndPosition<ParsedNode>(this, nodePos, getSize()), listener)) {
+                    // Successfully grew... now do some more parsing
+                    int pr = reparseNode(document, nodePos, offset, getSize(), listener);
+                    return pr == ALL_OK ? NODE_GREW : pr;
                 }
+                return REMOVE_NODE;
             }
         }
-        catch (IOException ioe) {}
         return ALL_OK;
     }
     
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2012,2014,2016,2017,2019,2021,2022,2023,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2012,2014,2016,2017,2019,2021,2022,2023,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,7 +21,6 @@
  */
 package bluej.parser.nodes;
 
-import java.io.Reader;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -355,9 +354,9 @@ public abstract class JavaParentNode extends ParentParsedNode
         Element lineEl = map.getElement(line - 1);
         startpos = Math.max(startpos, lineEl.getStartOffset());
         int col = startpos - map.getElement(line - 1).getStartOffset() + 1;
-        Reader r = document.makeReader(startpos, pos);
+        CharSequence source = document.getContent(startpos, pos);
         
-        JavaLexer lexer = new JavaLexer(r, line, col, startpos);
+        JavaLexer lexer = new JavaLexer(source, line, col, startpos);
         JavaTokenFilter filter = new JavaTokenFilter(lexer);
         LocatableToken token = filter.nextToken();
         LocatableToken prevToken = null;
@@ -459,8 +458,8 @@ public abstract class JavaParentNode extends ParentParsedNode
     
     protected static Token tokenizeText(ReparseableDocument document, int pos, int length)
     {
-        Reader dr = document.makeReader(pos, pos+length);
-        TokenStream lexer = JavaParser.getLexer(dr, true, false);
+        CharSequence source = document.getContent(pos, pos+length);
+        TokenStream lexer = JavaParser.getLexer(source, true, false);
         TokenStream tokenStream = new JavaTokenFilter(lexer, null);
 
         Token dummyTok = new Token(0, TokenType.END);
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,8 +24,6 @@ package bluej.parser.nodes;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.Reader;
-
 public interface ReparseableDocument
 {
     /**
@@ -40,7 +38,14 @@ public interface ReparseableDocument
     
     public int getLength();
     
-    public Reader makeReader(int startPos, int endPos);
+    /**
+     * Get a portion of the document content.  The returned sequence may be a live view
+     * onto the document, and is only valid until the document is next modified.
+     * 
+     * @param startPos  The start position (inclusive)
+     * @param endPos    The end position (exclusive)
+     */
+    public CharSequence getContent(int startPos, int endPos);
 
     /**
      * Access the parsed node structure of this document.
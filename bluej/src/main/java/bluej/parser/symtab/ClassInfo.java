@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2013,2014,2016,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2013,2014,2016,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,8 +21,13 @@
  */
 package bluej.parser.symtab;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
+import bluej.parser.SourceLocation;
+import bluej.parser.SourceSpan;
 import bluej.utility.JavaUtils;
 import bluej.utility.SortedProperties;
 
@@ -529,4 +534,155 @@ public final class ClassInfo
     {
         return hadParseError;
     }
+
+    /**
+     * Write this information in a compact binary form, which can be read back
+     * by readFrom(). Used to cache the results of parsing.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        out.writeBoolean(foundPublicClass);
+        writeString(out, name);
+        writeString(out, superclass);
+        writeStrings(out, implemented);
+        writeStrings(out, used);
+        writeStrings(out, permits);
+        out.writeInt(comments.size());
+        for (SavedComment c : comments) {
+            writeString(out, c.target);
+            writeString(out, c.comment);
+            writeString(out, c.paramnames);
+        }
+        writeStrings(out, typeParameterTexts);
+        writeSelection(out, typeParametersSelection);
+        writeSelection(out, extendsReplaceSelection);
+        writeSelection(out, superReplaceSelection);
+        writeSelection(out, extendsInsertSelection);
+        writeSelection(out, implementsInsertSelection);
+        out.writeBoolean(interfaceSelections != null);
+        if (interfaceSelections != null) {
+            out.writeInt(interfaceSelections.size());
+            for (Selection sel : interfaceSelections) {
+                writeSelection(out, sel);
+            }
+        }
+        out.writeBoolean(isInterface);
+        out.writeBoolean(isAbstract);
+        out.writeBoolean(isUnitTest);
+        out.writeBoolean(isEnum);
+        out.writeBoolean(hadParseError);
+        out.writeBoolean(packageStatementExists);
+        writeSelection(out, packageStatementSelection);
+        writeSelection(out, packageNameSelection);
+        writeSelection(out, packageSemiSelection);
+        writeString(out, packageName);
+    }
+
+    /**
+     * Read information previously written by writeTo().
+     */
+    public static ClassInfo readFrom(DataInput in) throws IOException
+    {
+        ClassInfo info = new ClassInfo();
+        info.foundPublicClass = in.readBoolean();
+        info.name = readString(in);
+        info.superclass = readString(in);
+        info.implemented = readStrings(in);
+        info.used = readStrings(in);
+        info.permits = readStrings(in);
+        int numComments = in.readInt();
+        for (int i = 0; i < numComments; i++) {
+            // The comment text has already been processed, so we don't use addComment:
+            info.comments.add(info.new SavedComment(readString(in), readString(in), readString(in)));
+        }
+        info.typeParameterTexts = readStrings(in);
+        info.typeParametersSelection = readSelection(in);
+        info.extendsReplaceSelection = readSelection(in);
+        info.superReplaceSelection = readSelection(in);
+        info.extendsInsertSelection = readSelection(in);
+        info.implementsInsertSelection = readSelection(in);
+        if (in.readBoolean()) {
+            int numSelections = in.readInt();
+            info.interfaceSelections = new ArrayList<Selection>(numSelections);
+            for (int i = 0; i < numSelections; i++) {
+                info.interfaceSelections.add(readSelection(in));
+            }
+        }
+        info.isInterface = in.readBoolean();
+        info.isAbstract = in.readBoolean();
+        info.isUnitTest = in.readBoolean();
+        info.isEnum = in.readBoolean();
+        info.hadParseError = in.readBoolean();
+        info.packageStatementExists = in.readBoolean();
+        info.packageStatementSelection = readSelection(in);
+        info.packageNameSelection = readSelection(in);
+        info.packageSemiSelection = readSelection(in);
+        info.packageName = readString(in);
+        return info;
+    }
+
+    // Strings are written with a length prefix rather than via writeUTF, as
+    // comments may be longer than writeUTF allows.
+    private static void writeString(DataOutput out, String s) throws IOException
+    {
+        if (s == null) {
+            out.writeInt(-1);
+        }
+        else {
+            out.writeInt(s.length());
+            out.writeChars(s);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+        return new String(chars);
+    }
+
+    private static void writeStrings(DataOutput out, List<String> strings) throws IOException
+    {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    private static List<String> readStrings(DataInput in) throws IOException
+    {
+        int size = in.readInt();
+        List<String> strings = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeSelection(DataOutput out, Selection sel) throws IOException
+    {
+        out.writeBoolean(sel != null);
+        if (sel != null) {
+            out.writeInt(sel.getLine());
+            out.writeInt(sel.getColumn());
+            out.writeInt(sel.getEndLine());
+            out.writeInt(sel.getEndColumn());
+        }
+    }
+
+    private static Selection readSelection(DataInput in) throws IOException
+    {
+        if (! in.readBoolean()) {
+            return null;
+        }
+        SourceLocation start = new SourceLocation(in.readInt(), in.readInt());
+        SourceLocation end = new SourceLocation(in.readInt(), in.readInt());
+        return new Selection(new SourceSpan(start, end));
+    }
 }
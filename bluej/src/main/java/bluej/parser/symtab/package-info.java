@@ -1,7 +1,7 @@
 /**
  * Created by neil on 22/05/2017.
  */
-@OnThread(Tag.FXPlatform)
+@OnThread(Tag.Any)
 package bluej.parser.symtab;
 
 import threadchecker.OnThread;
@@ -0,0 +1,406 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import bluej.Config;
+import bluej.parser.symtab.ClassInfo;
+import bluej.utility.Debug;
+import bluej.utility.Utility;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * An on-disk cache of the ClassInfo obtained by parsing source files, so that
+ * re-opening a project does not need to parse every uncompiled class again.
+ *
+ * <p>Each source file has its own cache entry, stored in the user configuration
+ * directory (rather than in the project, which may be shared or under version
+ * control). An entry records the size, modification time and content hash of the
+ * source it was parsed from, and a fingerprint of the context it was parsed in:
+ * the names of the classes in the project, and the project's libraries, which
+ * determine how the type names in the source are resolved.
+ *
+ * <p>Validation is lazy: if the size and modification time match, the entry is
+ * used without reading the source at all. If only the modification time differs
+ * (for example, after a version control checkout), the source is read and hashed,
+ * which is still much cheaper than parsing it.
+ *
+ * <p>The entries of each project are kept in a directory of their own. The caches of
+ * the least recently used projects are removed once all the caches together exceed
+ * MAX_TOTAL_BYTES.
+ */
+final class ClassInfoCache
+{
+    private static final int CACHE_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".info";
+
+    /** The total size of all projects' caches, above which old caches are removed. */
+    private static final long MAX_TOTAL_BYTES = 64L * 1024 * 1024;
+
+    /** The project directories whose caches have been used in this session */
+    @OnThread(Tag.FXPlatform)
+    private static final Set<File> usedProjects = new HashSet<>();
+
+    private ClassInfoCache()
+    {
+    }
+
+    /**
+     * The size, modification time and content of a source file, read together so that
+     * the cache entry describes exactly the content that was parsed.
+     */
+    @OnThread(Tag.Any)
+    static final class SourceContent
+    {
+        final long length;
+        final long modified;
+        final byte[] content;
+        /** The content decoded as text, or null if it was not decoded */
+        final String text;
+
+        private SourceContent(long length, long modified, byte[] content, String text)
+        {
+            this.length = length;
+            this.modified = modified;
+            this.content = content;
+            this.text = text;
+        }
+
+        static SourceContent read(File sourceFile) throws IOException
+        {
+            return read(sourceFile, null);
+        }
+
+        /**
+         * Read a source file, and decode it using the given character set (if not null),
+         * so that it is ready to be parsed.
+         */
+        static SourceContent read(File sourceFile, Charset charset) throws IOException
+        {
+            long modified = sourceFile.lastModified();
+            byte[] content = Files.readAllBytes(sourceFile.toPath());
+            String text = charset == null ? null : new String(content, charset);
+            return new SourceContent(content.length, modified, content, text);
+        }
+    }
+
+    /**
+     * Identifies the cache entry for a particular source file in a particular context.
+     */
+    @OnThread(Tag.Any)
+    static final class Key
+    {
+        private final File sourceFile;
+        private final File entryFile;
+        private final String context;
+
+        private Key(File sourceFile, File entryFile, String context)
+        {
+            this.sourceFile = sourceFile;
+            this.entryFile = entryFile;
+            this.context = context;
+        }
+    }
+
+    /**
+     * Get the key for the cache entry for a source file in the given package, or null
+     * if there is nowhere to cache it.
+     */
+    @OnThread(Tag.FXPlatform)
+    static Key keyFor(File sourceFile, Package pkg)
+    {
+        return keyFor(sourceFile, pkg.getProject().getProjectDir(), getContextFingerprint(pkg));
+    }
+
+    /**
+     * Get the key for the cache entry for a source file in the given project directory,
+     * with a context fingerprint previously obtained from getContextFingerprint().
+     */
+    @OnThread(Tag.Any)
+    static Key keyFor(File sourceFile, File projectDir, String context)
+    {
+        if (!Config.isInitialised()) {
+            return null;
+        }
+        String projectKey = hash(projectDir.getAbsolutePath()).substring(0, 16);
+        String fileKey = hash(sourceFile.getAbsolutePath()).substring(0, 32);
+        File entryFile = new File(new File(Config.getUserConfigFile("parse-cache"), projectKey), fileKey + ENTRY_SUFFIX);
+        return new Key(sourceFile, entryFile, context);
+    }
+
+    /**
+     * Get the cached information for a source file, or null if there is no valid
+     * cache entry for it (or the key is null). Safe to call from any thread.
+     */
+    @OnThread(Tag.Any)
+    static ClassInfo lookup(Key key)
+    {
+        if (key == null || !key.entryFile.exists()) {
+            return null;
+        }
+
+        File sourceFile = key.sourceFile;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(key.entryFile.toPath())))) {
+            if (in.readInt() != CACHE_VERSION
+                    || !in.readUTF().equals(sourceFile.getAbsolutePath())
+                    || !in.readUTF().equals(key.context)) {
+                return null;
+            }
+            long length = in.readLong();
+            long modified = in.readLong();
+            String contentHash = in.readUTF();
+
+            if (sourceFile.length() != length) {
+                return null;
+            }
+            if (sourceFile.lastModified() != modified) {
+                // Same size but a different time; check whether the content really changed:
+                SourceContent current = SourceContent.read(sourceFile);
+                if (!hash(current.content).equals(contentHash)) {
+                    return null;
+                }
+                ClassInfo info = ClassInfo.readFrom(in);
+                // Update the entry, so that we don't need to hash the file next time:
+                store(key, current, info);
+                return info;
+            }
+            return ClassInfo.readFrom(in);
+        }
+        catch (IOException ioe) {
+            // A damaged entry just means we parse the source again:
+            Debug.message("Ignoring unreadable parse cache entry " + key.entryFile + ": " + ioe);
+            return null;
+        }
+    }
+
+    /**
+     * Store the information obtained by parsing the given source content (does nothing
+     * if the key is null). The entry is written in the background.
+     */
+    @OnThread(Tag.Any)
+    static void store(Key key, SourceContent source, ClassInfo info)
+    {
+        if (key == null) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CACHE_VERSION);
+            out.writeUTF(key.sourceFile.getAbsolutePath());
+            out.writeUTF(key.context);
+            out.writeLong(source.length);
+            out.writeLong(source.modified);
+            out.writeUTF(hash(source.content));
+            info.writeTo(out);
+        }
+        catch (IOException ioe) {
+            // Can't happen when writing to a byte array
+            Debug.reportError("Error serialising parse cache entry", ioe);
+            return;
+        }
+
+        byte[] entry = bytes.toByteArray();
+        File entryFile = key.entryFile;
+        Utility.runBackground(() -> writeEntry(entryFile, entry));
+    }
+
+    /**
+     * Write an entry file. The entry is written to a temporary file first and then moved
+     * into place, so that a reader never sees a partial entry.
+     */
+    @OnThread(Tag.Worker)
+    private static void writeEntry(File entryFile, byte[] entry)
+    {
+        File tmp = null;
+        try {
+            entryFile.getParentFile().mkdirs();
+            tmp = File.createTempFile(entryFile.getName(), ".tmp", entryFile.getParentFile());
+            Files.write(tmp.toPath(), entry);
+            try {
+                Files.move(tmp.toPath(), entryFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException ioe) {
+            // The cache is only an optimisation, so this is not serious:
+            Debug.message("Could not write parse cache entry: " + ioe);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Get a fingerprint of everything other than the source itself which affects the
+     * result of parsing: the package name, the classes in the package and in the rest
+     * of the project, and the project's character set and libraries.
+     *
+     * <p>The classes of the project are found from the project directory each time, so
+     * that the fingerprint always reflects the current set of types; callers analysing
+     * a whole package should obtain the fingerprint once and re-use it for each class.
+     */
+    @OnThread(Tag.FXPlatform)
+    static String getContextFingerprint(Package pkg)
+    {
+        Project project = pkg.getProject();
+        useProjectCache(project.getProjectDir());
+        List<String> classNames = new ArrayList<>(pkg.getAllClassnames());
+        Collections.sort(classNames);
+        List<String> typeNames = new ArrayList<>();
+        addTypeNames(project.getProjectDir(), "", typeNames);
+        Collections.sort(typeNames);
+        StringBuilder context = new StringBuilder();
+        context.append(pkg.getQualifiedName()).append('\n');
+        context.append(String.join(",", classNames)).append('\n');
+        context.append(String.join(",", typeNames)).append('\n');
+        context.append(project.getProjectCharset().name()).append('\n');
+        for (URL url : project.getClassLoader().getURLs()) {
+            context.append(url).append('\n');
+        }
+        return hash(context.toString());
+    }
+
+    /**
+     * Record that the cache of the given project is in use, and (the first time this
+     * happens in a session) remove the caches of the least recently used projects if
+     * all the caches together are too large.
+     */
+    @OnThread(Tag.FXPlatform)
+    private static void useProjectCache(File projectDir)
+    {
+        if (!Config.isInitialised() || !usedProjects.add(projectDir)) {
+            return;
+        }
+        File root = Config.getUserConfigFile("parse-cache");
+        File dir = new File(root, hash(projectDir.getAbsolutePath()).substring(0, 16));
+        dir.mkdirs();
+        // The modification time of the directory records when it was last used:
+        dir.setLastModified(System.currentTimeMillis());
+        Utility.runBackground(() -> evictStaleCaches(root, dir, MAX_TOTAL_BYTES));
+    }
+
+    /**
+     * Remove the least recently used project cache directories within the given root
+     * until the total size of those remaining is no more than maxBytes.  The cache which
+     * is in use is never removed.
+     */
+    @OnThread(Tag.Any)
+    static void evictStaleCaches(File root, File inUse, long maxBytes)
+    {
+        File[] dirs = root.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        // Most recently used first:
+        Arrays.sort(dirs, Comparator.comparingLong(File::lastModified).reversed());
+        long total = 0;
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            long size = 0;
+            if (files != null) {
+                for (File f : files) {
+                    size += f.length();
+                }
+            }
+            total += size;
+            if (total > maxBytes && !dir.equals(inUse)) {
+                total -= size;
+                if (files != null) {
+                    for (File f : files) {
+                        f.delete();
+                    }
+                }
+                if (!dir.delete()) {
+                    Debug.message("Could not remove parse cache " + dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the qualified names of the classes in the given package directory, and in its
+     * sub-packages, to a list.
+     */
+    @OnThread(Tag.Any)
+    private static void addTypeNames(File dir, String prefix, List<String> typeNames)
+    {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                if (Package.isPackage(file)) {
+                    addTypeNames(file, prefix + name + ".", typeNames);
+                }
+            }
+            else if (name.endsWith(".java") || name.endsWith(".stride")) {
+                typeNames.add(prefix + name.substring(0, name.lastIndexOf('.')));
+            }
+        }
+    }
+
+    @OnThread(Tag.Any)
+    private static String hash(String s)
+    {
+        return hash(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @OnThread(Tag.Any)
+    private static String hash(byte[] content)
+    {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        }
+        catch (NoSuchAlgorithmException e) {
+            // All Java platforms are required to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2014,2016,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2014,2016,2019,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -37,6 +37,9 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility functions to help in the process of importing directory
@@ -49,6 +52,9 @@ import java.util.List;
  */
 public class Import
 {
+    /** With at least this many source files, a progress dialog is shown while they are checked */
+    private static final int PROGRESS_DIALOG_FILES = 100;
+
     /**
      * Attempt to convert a non-bluej Path to a Bluej project.
      * 
@@ -86,25 +92,60 @@ public class Import
         List<String> mismatchPackagesOriginal = new ArrayList<String>();
         List<String> mismatchPackagesChanged = new ArrayList<String>();
 
-        Iterator<File> it = javaFiles.iterator();
+        // The files are parsed in parallel by worker threads, as there may be a great many
+        // of them. If there are, a progress dialog is shown while we wait for them, so that
+        // the user can see what is happening (and cancel).
+        ImportProgressDialog progress = javaFiles.size() >= PROGRESS_DIALOG_FILES
+                ? new ImportProgressDialog(parentWin.get(), javaFiles.size()) : null;
+        AtomicInteger parsedCount = new AtomicInteger();
+        List<Future<ClassInfo>> infos = new ArrayList<Future<ClassInfo>>();
+        for (File f : javaFiles) {
+            infos.add(SourceAnalysisQueue.getWorkers().submit(() -> {
+                try {
+                    return InfoParser.parse(f);
+                }
+                catch (FileNotFoundException fnfe) {
+                    return null;
+                }
+                finally {
+                    int parsed = parsedCount.incrementAndGet();
+                    if (progress != null) {
+                        progress.filesChecked(parsed);
+                    }
+                }
+            }));
+        }
 
-        while (it.hasNext()) {
-            File f = it.next();
+        if (progress != null && ! progress.showAndWait().orElse(false)) {
+            // Cancelled:
+            for (Future<ClassInfo> parse : infos) {
+                parse.cancel(false);
+            }
+            return false;
+        }
 
+        Iterator<File> it = javaFiles.iterator();
+        for (Future<ClassInfo> parsed : infos) {
+            File f = it.next();
+            ClassInfo info;
             try {
-                ClassInfo info = InfoParser.parse(f);
-                if (info != null && ! info.hadParseError()) {
+                info = parsed.get();
+            }
+            catch (InterruptedException | ExecutionException e) {
+                Debug.reportError("Error parsing " + f, e);
+                continue;
+            }
 
-                    String qf = JavaNames.convertFileToQualifiedName(path, f);
+            if (info != null && ! info.hadParseError()) {
 
-                    if (!JavaNames.getPrefix(qf).equals(info.getPackage())) {
-                        mismatchFiles.add(f);
-                        mismatchPackagesOriginal.add(info.getPackage());
-                        mismatchPackagesChanged.add(qf);
-                    }
+                String qf = JavaNames.convertFileToQualifiedName(path, f);
+
+                if (!JavaNames.getPrefix(qf).equals(info.getPackage())) {
+                    mismatchFiles.add(f);
+                    mismatchPackagesOriginal.add(info.getPackage());
+                    mismatchPackagesChanged.add(qf);
                 }
             }
-            catch (FileNotFoundException fnfe) {}
         }
 
         // now ask if they want to continue if we have detected mismatches
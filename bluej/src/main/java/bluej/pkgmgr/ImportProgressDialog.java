@@ -0,0 +1,98 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.util.Properties;
+
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Window;
+
+import bluej.Config;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A dialog showing the progress of checking the package lines of the source files
+ * in a directory which is being opened as a project. The result is true if the check
+ * completed, or false if it was cancelled.
+ */
+@OnThread(Tag.FXPlatform)
+class ImportProgressDialog extends Dialog<Boolean>
+{
+    private final ProgressBar progress = new ProgressBar(0.0);
+    private final Label header;
+    private final int total;
+    private boolean complete = false;
+
+    /**
+     * Create a dialog for checking the given number of files.
+     */
+    public ImportProgressDialog(Window owner, int total)
+    {
+        this.total = total;
+        initOwner(owner);
+        initModality(Modality.WINDOW_MODAL);
+        setTitle(Config.getString("pkgmgr.importprogress.title"));
+        Config.addDialogStylesheets(getDialogPane());
+        progress.setPrefWidth(300);
+        header = new Label(makeLabel(0));
+        VBox content = new VBox(10, header, progress);
+        content.setAlignment(Pos.TOP_CENTER);
+        getDialogPane().setContent(content);
+        getDialogPane().getButtonTypes().setAll(ButtonType.CANCEL);
+        setResultConverter(bt -> complete);
+    }
+
+    /**
+     * Note that the given number of files have now been checked. Once all the files
+     * have been checked, the dialog closes.
+     */
+    @OnThread(Tag.Any)
+    public void filesChecked(int done)
+    {
+        Platform.runLater(() -> {
+            header.setText(makeLabel(done));
+            progress.setProgress((double)done / (double)total);
+            if (done == total)
+            {
+                complete = true;
+                setResult(true);
+                close();
+            }
+        });
+    }
+
+    private String makeLabel(int done)
+    {
+        Properties p = new Properties();
+        p.put("cur", "" + done);
+        p.put("total", "" + total);
+        return Config.getString("pkgmgr.importprogress.files", null, p, false);
+    }
+}
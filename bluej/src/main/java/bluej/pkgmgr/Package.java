@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2023,2024 Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2023,2024,2026 Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -226,6 +226,11 @@ public final class Package
     @OnThread(Tag.Any)
     private File dir;
 
+    /** The time taken to load the targets, until they were ready to display (ms); -1 if not loaded */
+    private long targetsLoadMillis = -1;
+    /** The time taken to load the targets and analyse all their sources (ms); -1 if not complete */
+    private long sourceAnalysisMillis = -1;
+
     /* ------------------- end of field declarations ------------------- */
 
     /**
@@ -739,6 +744,8 @@ public final class Package
     {
         if(!hasPackageTargetsLoaded)
         {
+            long loadStart = System.currentTimeMillis();
+            
             // read in all the targets contained in this package
             // into this temporary map
             Map<String,Target> propTargets = new HashMap<String,Target>();
@@ -1005,7 +1012,9 @@ public final class Package
                 }
             }
 
-            // Update class roles
+            // Update class roles. Uncompiled classes need their source analysed, which
+            // is done in the background so that the package can be displayed meanwhile.
+            List<ClassTarget> toAnalyse = new ArrayList<>();
             for (Target target : targetsCopy) {
 
                 if (target instanceof ClassTarget) {
@@ -1020,14 +1029,7 @@ public final class Package
                         }
                     }
                     else {
-                        ct.analyseSource();
-                        try {
-                            if ( !ct.getSourceType().equals(SourceType.Stride))
-                                ct.enforcePackage(getQualifiedName());
-                        }
-                        catch (IOException ioe) {
-                            Debug.message("Error enforcing class package: " + ioe.getLocalizedMessage());
-                        }
+                        toAnalyse.add(ct);
                     }
                 }
             }
@@ -1048,6 +1050,16 @@ public final class Package
                 }
             }
 
+            SourceAnalysisQueue.analyse(this, toAnalyse, ct -> {
+                try {
+                    if ( !ct.getSourceType().equals(SourceType.Stride))
+                        ct.enforcePackage(getQualifiedName());
+                }
+                catch (IOException ioe) {
+                    Debug.message("Error enforcing class package: " + ioe.getLocalizedMessage());
+                }
+            }, loadStart);
+
             // update the flag
             hasPackageTargetsLoaded = true;
         }
@@ -1058,6 +1070,34 @@ public final class Package
         }
     }
 
+    /**
+     * Get the time taken by loadTargets() until the classes were ready to display,
+     * in milliseconds, or -1 if the targets have not been loaded.
+     */
+    public long getTargetsLoadMillis()
+    {
+        return targetsLoadMillis;
+    }
+
+    /**
+     * Get the time taken from the start of loadTargets() until the source of every class
+     * had been analysed, in milliseconds, or -1 if analysis is not yet complete.
+     */
+    public long getSourceAnalysisMillis()
+    {
+        return sourceAnalysisMillis;
+    }
+
+    void setTargetsLoadMillis(long millis)
+    {
+        targetsLoadMillis = millis;
+    }
+
+    void setSourceAnalysisMillis(long millis)
+    {
+        sourceAnalysisMillis = millis;
+    }
+
     /**
      * Returns the file containing information about the package.
      * For BlueJ this is package.bluej (or for older versions bluej.pkg) 
@@ -1467,6 +1507,7 @@ public final class Package
     public void compile(FXCompileObserver compObserver, CompileReason reason, CompileType type)
     {
         Set<ClassTarget> toCompile = new HashSet<ClassTarget>();
+        Map<File, String> unsavedSources = new HashMap<>();
 
         try
         {
@@ -1480,7 +1521,7 @@ public final class Package
             {
                 if (!ct.isCompiled() && !ct.isQueued())
                 {
-                    ct.ensureSaved();
+                    prepareSource(ct, type, unsavedSources);
                     toCompile.add(ct);
                     ct.setQueued(true);
                 }
@@ -1498,7 +1539,7 @@ public final class Package
                 {
                     observers.add(compObserver);
                 }
-                doCompile(toCompile, new PackageCompileObserver(observers), reason, type);
+                doCompile(toCompile, new PackageCompileObserver(observers), reason, type, unsavedSources);
             }
             else {
                 if (compObserver != null) {
@@ -1546,6 +1587,19 @@ public final class Package
                 public void endCompile(CompileInputFile[] sources, boolean succesful, CompileType type2, int compilationSequence)
                 {
                     // This will be called on the Swing thread.
+                    compilationOver();
+                }
+
+                @Override
+                @OnThread(Tag.FXPlatform)
+                public void compileCancelled(CompileInputFile[] sources, CompileType type2)
+                {
+                    compilationOver();
+                }
+
+                @OnThread(Tag.FXPlatform)
+                private void compilationOver()
+                {
                     currentlyCompiling = false;
                     if (queuedCompile) {
                         queuedCompile = false;
@@ -1672,7 +1726,7 @@ public final class Package
                 project.removeClassLoader();
                 project.newRemoteClassLoader();
 
-                doCompile(compileTargets, new PackageCompileObserver(compileObservers), CompileReason.REBUILD, CompileType.EXPLICIT_USER_COMPILE);
+                doCompile(compileTargets, new PackageCompileObserver(compileObservers), CompileReason.REBUILD, CompileType.EXPLICIT_USER_COMPILE, Collections.emptyMap());
             }
         }
         catch (IOException ioe) {
@@ -1713,11 +1767,12 @@ public final class Package
         }
 
         Set<ClassTarget> toCompile = new HashSet<ClassTarget>();
+        Map<File, String> unsavedSources = new HashMap<>();
 
         try {
             List<ClassTarget> queue = new LinkedList<ClassTarget>();
             toCompile.add(t);
-            t.ensureSaved();
+            prepareSource(t, type, unsavedSources);
             queue.add(t);
             t.setQueued(true);
 
@@ -1729,7 +1784,7 @@ public final class Package
                     if (dependency instanceof ClassTarget to)
                     {
                         if (!to.isCompiled() && ! to.isQueued() && toCompile.add(to)) {
-                            to.ensureSaved();
+                            prepareSource(to, type, unsavedSources);
                             to.setQueued(true);
                             queue.add(to);
                         }
@@ -1737,7 +1792,7 @@ public final class Package
                 }
             }
 
-            doCompile(toCompile, observer, reason, type);
+            doCompile(toCompile, observer, reason, type, unsavedSources);
         }
         catch (IOException ioe) {
             // Failed to save; abort the compile
@@ -1748,11 +1803,32 @@ public final class Package
         }
     }
 
+    /**
+     * Make sure that the source of a class is ready to compile. If the compilation is only
+     * to check for errors (the classes will not be kept), unsaved changes to Java source
+     * are passed to the compiler directly rather than being saved first; otherwise, the
+     * class is saved.
+     * 
+     * @param unsavedSources  A map to which any unsaved source is added, keyed by source file
+     */
+    private void prepareSource(ClassTarget ct, CompileType type, Map<File, String> unsavedSources) throws IOException
+    {
+        String unsaved = type.keepClasses() ? null : ct.getUnsavedJavaSource();
+        if (unsaved != null) {
+            unsavedSources.put(ct.getJavaSourceFile(), unsaved);
+        }
+        else {
+            ct.ensureSaved();
+        }
+    }
+
     /**
      * Compile every Target in 'targetList'. Every compilation goes through this method.
-     * All targets in the list should have been saved beforehand.
+     * All targets in the list should have been saved beforehand, other than those with
+     * content in unsavedSources (see prepareSource()).
      */
-    private void doCompile(Collection<ClassTarget> targetList, FXCompileObserver edtObserver, CompileReason reason, CompileType type)
+    private void doCompile(Collection<ClassTarget> targetList, FXCompileObserver edtObserver, CompileReason reason, CompileType type,
+            Map<File, String> unsavedSources)
     {
         CompileObserver observer = new EventqueueCompileObserverAdapter(new DataCollectionCompileObserverWrapper(project, edtObserver));
         if (targetList.isEmpty()) {
@@ -1762,8 +1838,13 @@ public final class Package
         List<CompileInputFile> srcFiles = Utility.mapList(targetList, ClassTarget::getCompileInputFile);
         if (srcFiles.size() > 0 && srcFiles.stream().allMatch(CompileInputFile::isValid))
         {
+            if (type.keepClasses())
+            {
+                // So that we can tell afterwards whether dependent classes need recompiling:
+                targetList.forEach(ClassTarget::recordAbiFingerprint);
+            }
             JobQueue.getJobQueue().addJob(srcFiles.toArray(new CompileInputFile[0]), observer, project.getClassLoader(), project.getProjectDir(),
-                ! PrefMgr.getFlag(PrefMgr.SHOW_UNCHECKED), project.getProjectCharset(), reason, type);
+                ! PrefMgr.getFlag(PrefMgr.SHOW_UNCHECKED), project.getProjectCharset(), reason, type, unsavedSources);
         }
     }
 
@@ -1916,6 +1997,7 @@ public final class Package
             throw new IllegalArgumentException();
 
         targets.add(t.getIdentifierName(), t);
+        getProject().getResolutionCache().invalidatePackage(getQualifiedName());
         fireChangedEvent();
     }
 
@@ -1923,6 +2005,7 @@ public final class Package
     {
         targets.remove(t.getIdentifierName());
         t.setRemoved();
+        getProject().getResolutionCache().invalidatePackage(getQualifiedName());
         fireChangedEvent();
     }
 
@@ -1939,6 +2022,7 @@ public final class Package
         }
         targets.remove(oldIdentifier);
         targets.add(newIdentifier, t);
+        getProject().getResolutionCache().invalidatePackage(getQualifiedName());
     }
 
     /**
@@ -2712,8 +2796,13 @@ public final class Package
         @Override
         public void endCompile(CompileInputFile[] sources, boolean successful, CompileType type, int compilationSequence)
         {
+            // Classes in this package may have appeared or disappeared:
+            getProject().getResolutionCache().invalidatePackage(getQualifiedName());
+
             List<ClassTarget> targetsToAnalyse = new ArrayList<>();
             List<ClassTarget> readyToCompileList = new ArrayList<>();
+            List<ClassTarget> compiledTargets = new ArrayList<>();
+            List<ClassTarget> interfaceChanged = new ArrayList<>();
             for (int i = 0; i < sources.length; i++) {
                 String filename = sources[i].getJavaCompileInputFile().getPath();
 
@@ -2729,11 +2818,24 @@ public final class Package
                 }
 
                 t.markCompiled(successful, type);
+                compiledTargets.add(t);
+                // Whether or not the compilation succeeded, the class files may have changed:
+                boolean abiChanged = type.keepClasses() && t.updateAbiFingerprint();
                 if (t.getState() == State.COMPILED)
                 {
                     targetsToAnalyse.add(t);
+                    if (abiChanged)
+                    {
+                        interfaceChanged.add(t);
+                    }
+                }
+                else if (abiChanged)
+                {
+                    // The dependent classes need compiling again, but not until this class
+                    // compiles, so just mark them:
+                    t.invalidateDependents(compiledTargets);
                 }
-                else if (!successful)
+                if (t.getState() != State.COMPILED && !successful)
                 {
                     // Note: it's important to have the !successful check above.  Without this, we can
                     // end up in this branch for empty .java files.  Empty files are a weird case because
@@ -2787,7 +2889,23 @@ public final class Package
                 }
             }
             // Compile the classes that have no direct/indirect dependencies that have compile errors
-            doCompile(readyToCompileList, this, CompileReason.USER, CompileType.EXPLICIT_USER_COMPILE);
+            doCompile(readyToCompileList, this, CompileReason.USER, CompileType.EXPLICIT_USER_COMPILE, Collections.emptyMap());
+
+            // Recompile the classes depending on any class whose interface has changed. (Classes
+            // depending only on classes whose interface is unchanged do not need recompiling.)
+            Set<ClassTarget> dependentsToCompile = new LinkedHashSet<>();
+            for (ClassTarget changed : interfaceChanged)
+            {
+                dependentsToCompile.addAll(changed.invalidateDependents(compiledTargets));
+            }
+            dependentsToCompile.removeIf(ClassTarget::isQueued);
+            if (!dependentsToCompile.isEmpty())
+            {
+                dependentsToCompile.forEach(ct -> ct.setQueued(true));
+                project.removeClassLoader();
+                project.newRemoteClassLoaderLeavingBreakpoints();
+                doCompile(dependentsToCompile, this, CompileReason.MODIFIED, type, Collections.emptyMap());
+            }
 
             for (ClassTarget classTarget : targetsToAnalyse)
             {
@@ -2810,6 +2928,30 @@ public final class Package
                 chainedObserver.endCompile(sources, successful, type, compilationSequence);
             }
         }
+
+        /**
+         * Compilation was cancelled. The affected classes are no longer being compiled,
+         * but their state is otherwise unchanged: a cancelled compilation neither succeeded
+         * nor failed. No event is sent to extensions, as none is defined for this.
+         */
+        @Override
+        public void compileCancelled(CompileInputFile[] sources, CompileType type)
+        {
+            for (CompileInputFile source : sources)
+            {
+                String fullName = getProject().convertPathToPackageName(source.getJavaCompileInputFile().getPath());
+                if (fullName != null && targets.get(JavaNames.getBase(fullName)) instanceof ClassTarget t)
+                {
+                    t.markCompileCancelled();
+                    t.setQueued(false);
+                }
+            }
+
+            for (FXCompileObserver chainedObserver : chainedObservers)
+            {
+                chainedObserver.compileCancelled(sources, type);
+            }
+        }
     }
 
     /**
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -29,6 +29,7 @@ import bluej.classmgr.ClassMgrPrefPanel;
 import bluej.collect.DataCollector;
 import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
+import bluej.compiler.JobQueue;
 import bluej.debugger.*;
 import bluej.debugmgr.ExecControls;
 import bluej.debugmgr.ExpressionInformation;
@@ -46,11 +47,13 @@ import bluej.extmgr.ExtensionsManager;
 import bluej.groupwork.Repository;
 import bluej.groupwork.TeamSettingsController;
 import bluej.groupwork.actions.TeamActionGroup;
+import bluej.groupwork.git.GitStatusCache;
 import bluej.groupwork.ui.CommitAndPushFrame;
 import bluej.groupwork.ui.StatusFrame;
 import bluej.groupwork.ui.TeamSettingsDialog;
 import bluej.groupwork.ui.UpdateFilesFrame;
 import bluej.parser.entity.EntityResolver;
+import bluej.parser.entity.ResolutionCache;
 import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.Target;
 import bluej.prefmgr.PrefMgr;
@@ -158,10 +161,15 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         object inspectors should be handled at the object wrapper level */
     @OnThread(Tag.FXPlatform)
     private Map<Object,Inspector> inspectors;
+    @OnThread(Tag.FXPlatform)
+    private InspectorUpdater inspectorUpdater;
     @OnThread(value = Tag.Any, requireSynchronized = true)
     private boolean inTestMode = false;
     private BPClassLoader currentClassLoader;
     private List<URL> libraryUrls;
+    /** Cached class lookups made while resolving names in source (see ProjectEntityResolver) */
+    @OnThread(Tag.Any)
+    private final ResolutionCache resolutionCache = new ResolutionCache();
     // the TeamSettingsController for this project
     private TeamSettingsController teamSettingsController = null;
     private CommitAndPushFrame commitCommentsFrame = null;
@@ -626,7 +634,12 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         project.getDebugger().removeDebuggerListener(project);
         project.getDebugger().close(false);
 
+        JobQueue.getJobQueue().projectClosed(project.getProjectDir());
+        GitStatusCache.projectClosed(project.getProjectDir());
         projects.remove(project.getProjectDir());
+
+        Debug.message("Resolution cache for " + project.getProjectName() + ": " + project.getResolutionCache());
+        Debug.message("Compile queue: " + JobQueue.getJobQueue().getMetrics());
     }
 
     /**
@@ -1006,6 +1019,16 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         return inspectors.get(obj);
     }
 
+    @Override
+    @OnThread(Tag.FXPlatform)
+    public InspectorUpdater getInspectorUpdater()
+    {
+        if (inspectorUpdater == null) {
+            inspectorUpdater = new InspectorUpdater(debugger);
+        }
+        return inspectorUpdater;
+    }
+
     /**
      * Remove an inspector from the list of inspectors for this project
      * @param obj the inspector.
@@ -1644,6 +1667,7 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         newRemoteClassLoader();
 
         libraryUrls = getLibrariesClasspath();
+        resolutionCache.clear();
         debugger.setUserLibraries(libraryUrls.toArray(new URL[libraryUrls.size()]));
 
         // Breakpoints will be re-initialized once the new VM has
@@ -1670,6 +1694,7 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
 
         // remove views for classes loaded by this classloader
         View.removeAll(currentClassLoader);
+        resolutionCache.invalidateLoadedBy(currentClassLoader);
 
         if (! Config.isGreenfoot()) {
             // dispose windows for local classes. Should not run user code
@@ -1891,6 +1916,17 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         return new ProjectEntityResolver(this);
     }
 
+    /**
+     * Get the cache of class lookups used when resolving symbols for this project.
+     * The cache for a package is invalidated when the package is compiled, and the
+     * whole cache when the project classpath changes.
+     */
+    @OnThread(Tag.Any)
+    public ResolutionCache getResolutionCache()
+    {
+        return resolutionCache;
+    }
+
     /**
      * Get a javadoc resolver, which can be used to retrieve comments for methods.
      */
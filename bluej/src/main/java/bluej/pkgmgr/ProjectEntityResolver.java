@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2010,2014  Michael Kolling and John Rosenberg 
+ Copyright (C) 2010,2014,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -28,6 +28,7 @@ import bluej.parser.entity.EntityResolver;
 import bluej.parser.entity.JavaEntity;
 import bluej.parser.entity.PackageEntity;
 import bluej.parser.entity.PackageOrClass;
+import bluej.parser.entity.ResolutionCache;
 import bluej.parser.entity.TypeEntity;
 import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.Target;
@@ -41,6 +42,7 @@ import bluej.pkgmgr.target.Target;
 public class ProjectEntityResolver implements EntityResolver
 {
     private Project project;
+    private ResolutionCache cache;
     
     /**
      * Construct a ProjectEntityResolver for the given project.
@@ -48,6 +50,7 @@ public class ProjectEntityResolver implements EntityResolver
     public ProjectEntityResolver(Project project)
     {
         this.project = project;
+        this.cache = project.getResolutionCache();
     }
     
     public JavaEntity getValueEntity(String name, Reflective querySource)
@@ -58,7 +61,7 @@ public class ProjectEntityResolver implements EntityResolver
     public PackageOrClass resolvePackageOrClass(String name, Reflective querySource)
     {
         // Try in java.lang
-        Class<?> cl = project.loadClass("java.lang." + name);
+        Class<?> cl = cache.loadClass("java.lang." + name, project::loadClass);
         if (cl != null) {
             return new TypeEntity(cl);
         }
@@ -85,7 +88,7 @@ public class ProjectEntityResolver implements EntityResolver
         }
 
         // Try as a class which might be external to the project 
-        Class<?> cl = project.loadClass(name);
+        Class<?> cl = cache.loadClass(name, project::loadClass);
         if (cl != null) {
             return new TypeEntity(cl);
         }
@@ -0,0 +1,224 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import bluej.parser.symtab.ClassInfo;
+import bluej.pkgmgr.target.ClassTarget;
+import bluej.utility.javafx.FXPlatformConsumer;
+import javafx.application.Platform;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Analyses the source of a set of classes (when a package is opened) without holding
+ * up the display of the package. The classes are shown straight away, marked as
+ * pending analysis; then:
+ * 
+ * <ul>
+ * <li>A pool of worker threads reads and decodes each source file and checks the
+ *     parse cache (see ClassInfoCache), in parallel.
+ * <li>The results are handed to the FX thread, which parses any sources that were not
+ *     cached and analyses the results. This is done in batches, each limited to a short
+ *     time, so that the window continues to paint and respond.
+ * </ul>
+ * 
+ * <p>Parsing cannot be done by the workers: the InfoParser resolves names as it goes
+ * (imports, for instance, are resolved while they are parsed), and resolution goes
+ * through the project's class loader and the package's targets, which may only be
+ * accessed on the FX thread. With the parse cache, only sources which have changed
+ * since they were last analysed need to be parsed at all.
+ * 
+ * <p>The time taken is recorded in the package (see Package.getTargetsLoadMillis() and
+ * Package.getSourceAnalysisMillis()).
+ */
+@OnThread(Tag.FXPlatform)
+final class SourceAnalysisQueue
+{
+    /** The longest time to spend analysing in one go on the FX thread */
+    private static final long BATCH_MILLIS = 25;
+
+    @OnThread(Tag.Any)
+    private static ExecutorService workers;
+
+    private final Package pkg;
+    private final FXPlatformConsumer<ClassTarget> afterAnalysis;
+    private final long startTime;
+    private int remaining;
+    @OnThread(Tag.Any)
+    private final ConcurrentLinkedQueue<Result> results = new ConcurrentLinkedQueue<>();
+    @OnThread(Tag.Any)
+    private final AtomicBoolean commitScheduled = new AtomicBoolean(false);
+
+    private SourceAnalysisQueue(Package pkg, int count, FXPlatformConsumer<ClassTarget> afterAnalysis, long startTime)
+    {
+        this.pkg = pkg;
+        this.remaining = count;
+        this.afterAnalysis = afterAnalysis;
+        this.startTime = startTime;
+    }
+
+    /**
+     * Analyse the source of the given classes (as per ClassTarget.analyseSource()) in the
+     * background.
+     * 
+     * @param pkg            The package containing the classes
+     * @param targets        The classes to analyse
+     * @param afterAnalysis  Called (on the FX thread) for each class once it has been analysed
+     * @param startTime      The time at which loading the package began, for reporting
+     */
+    static void analyse(Package pkg, List<ClassTarget> targets, FXPlatformConsumer<ClassTarget> afterAnalysis, long startTime)
+    {
+        long loadMillis = System.currentTimeMillis() - startTime;
+        pkg.setTargetsLoadMillis(loadMillis);
+        if (targets.isEmpty()) {
+            pkg.setSourceAnalysisMillis(loadMillis);
+            return;
+        }
+        SourceAnalysisQueue queue = new SourceAnalysisQueue(pkg, targets.size(), afterAnalysis, startTime);
+        File projectDir = pkg.getProject().getProjectDir();
+        String context = ClassInfoCache.getContextFingerprint(pkg);
+        Charset charset = pkg.getProject().getProjectCharset();
+        for (ClassTarget ct : targets) {
+            ct.setAnalysisPending(true);
+            File sourceFile = ct.getJavaSourceFile();
+            ClassInfoCache.Key key = ClassInfoCache.keyFor(sourceFile, projectDir, context);
+            getWorkers().execute(new Runnable() {
+                @Override
+                @OnThread(value = Tag.Worker, ignoreParent = true)
+                public void run()
+                {
+                    queue.read(ct, sourceFile, charset, key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the pool of worker threads used for reading and analysing sources.
+     */
+    @OnThread(Tag.Any)
+    static synchronized ExecutorService getWorkers()
+    {
+        if (workers == null) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "Source analysis");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Read a source file (or its cached analysis), and pass the result to the FX thread.
+     */
+    @OnThread(Tag.Worker)
+    private void read(ClassTarget ct, File sourceFile, Charset charset, ClassInfoCache.Key key)
+    {
+        ClassInfo cachedInfo = ClassInfoCache.lookup(key);
+        ClassInfoCache.SourceContent source = null;
+        if (cachedInfo == null) {
+            try {
+                source = ClassInfoCache.SourceContent.read(sourceFile, charset);
+            }
+            catch (IOException ioe) {
+                // Leave it to analyseSource() to deal with the missing source
+            }
+        }
+        results.add(new Result(ct, key, cachedInfo, source));
+        if (commitScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::commitBatch);
+        }
+    }
+
+    /**
+     * Analyse results that have been read, until they run out or the time for this
+     * batch is up.
+     */
+    private void commitBatch()
+    {
+        commitScheduled.set(false);
+        long batchEnd = System.currentTimeMillis() + BATCH_MILLIS;
+        Result result;
+        while ((result = results.poll()) != null) {
+            commit(result);
+            if (System.currentTimeMillis() >= batchEnd) {
+                // Let the FX thread get on with other things, and come back later:
+                if (!results.isEmpty() && commitScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(this::commitBatch);
+                }
+                break;
+            }
+        }
+    }
+
+    private void commit(Result result)
+    {
+        ClassTarget ct = result.target;
+        ct.setAnalysisPending(false);
+        remaining -= 1;
+
+        // Check that the package, and class, are still open:
+        Project project = pkg.getProject();
+        if (!project.isClosing() && project.getCachedPackage(pkg.getQualifiedName()) == pkg
+                && pkg.getTarget(ct.getIdentifierName()) == ct) {
+            ct.getSourceInfo().supplyAnalysis(pkg, result.key, result.cachedInfo, result.source);
+            ct.analyseSource();
+            afterAnalysis.accept(ct);
+        }
+
+        if (remaining == 0) {
+            long analysisMillis = System.currentTimeMillis() - startTime;
+            pkg.setSourceAnalysisMillis(analysisMillis);
+        }
+    }
+
+    /**
+     * The result of reading a source file on a worker thread.
+     */
+    @OnThread(Tag.Any)
+    private static class Result
+    {
+        private final ClassTarget target;
+        private final ClassInfoCache.Key key;
+        private final ClassInfo cachedInfo;
+        private final ClassInfoCache.SourceContent source;
+
+        private Result(ClassTarget target, ClassInfoCache.Key key, ClassInfo cachedInfo, ClassInfoCache.SourceContent source)
+        {
+            this.target = target;
+            this.key = key;
+            this.cachedInfo = cachedInfo;
+            this.source = source;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2014,2016  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2014,2016,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,7 +22,7 @@
 package bluej.pkgmgr;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import bluej.parser.InfoParser;
 import bluej.parser.symtab.ClassInfo;
@@ -49,21 +49,64 @@ public final class SourceInfo
         info = null;
     }
 
+    /**
+     * Get the information for the given source file, parsing it if necessary. Information
+     * from a previous parse of the same source is re-used if possible (see ClassInfoCache).
+     * Returns null if the source could not be read or parsed.
+     */
     public ClassInfo getInfo(File sourceFile, Package pkg)
     {
         if(info == null)
         {
-            try
+            ClassInfoCache.Key key = ClassInfoCache.keyFor(sourceFile, pkg);
+            info = ClassInfoCache.lookup(key);
+            if(info == null)
             {
-                info = InfoParser.parseWithPkg(sourceFile, pkg);
+                try
+                {
+                    parse(pkg, key, ClassInfoCache.SourceContent.read(sourceFile, pkg.getProject().getProjectCharset()));
+                }
+                catch (IOException ioe)
+                {
+                    // info remains null
+                }
             }
-            catch (FileNotFoundException fnfe)
+        }
+
+        return info;
+    }
+
+    /**
+     * Supply the results of reading (and possibly analysing) the source file in the
+     * background. If the information is not yet available, the given cached information
+     * is used, or else the given source content is parsed.
+     * 
+     * @param cachedInfo  The information from the cache, or null if there was none
+     * @param source      The source content read from the file, decoded using the project's
+     *                    character set (used if cachedInfo is null)
+     */
+    void supplyAnalysis(Package pkg, ClassInfoCache.Key key, ClassInfo cachedInfo, ClassInfoCache.SourceContent source)
+    {
+        if(info == null)
+        {
+            if (cachedInfo != null)
             {
-                // info remains null
+                info = cachedInfo;
+            }
+            else if (source != null)
+            {
+                parse(pkg, key, source);
             }
         }
+    }
 
-        return info;
+    private void parse(Package pkg, ClassInfoCache.Key key, ClassInfoCache.SourceContent source)
+    {
+        info = InfoParser.parseWithPkg(source.text, pkg);
+        if (info != null)
+        {
+            ClassInfoCache.store(key, source, info);
+        }
     }
 
     /**
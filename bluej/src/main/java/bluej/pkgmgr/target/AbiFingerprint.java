@@ -0,0 +1,405 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr.target;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Computes a fingerprint of the binary interface of a compiled class: that is, of everything
+ * in its class files which other classes may be compiled against. If a class is recompiled
+ * and its fingerprint has not changed, the classes which depend on it do not need to be
+ * recompiled.
+ * 
+ * <p>The fingerprint covers the class's modifiers, superclass, interfaces and generic
+ * signature, its permitted subclasses (for a sealed class), record components (for a
+ * record), nest host and nest members, and the modifiers of its member classes and of the
+ * class itself if it is a member class; and the name, modifiers, type, generic signature, thrown exceptions and
+ * constant value (since constants are copied into the classes which use them) of each
+ * field and method which is not private or synthetic. Package-private members are included,
+ * since they are accessible to other classes in the package. Member classes (but not local or
+ * anonymous classes) are included, from their own class files.
+ * 
+ * <p>Method bodies, private members, annotations and debugging information are not included.
+ */
+@OnThread(Tag.Any)
+final class AbiFingerprint
+{
+    private static final int CLASS_MAGIC = 0xCAFEBABE;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private AbiFingerprint()
+    {
+    }
+
+    /**
+     * Compute the fingerprint of the class with the given name, whose class files are in
+     * the given directory.
+     * 
+     * @return The fingerprint, or null if it could not be computed (for instance, because
+     *         the class file does not exist or could not be read).
+     */
+    static String compute(File dir, String baseName)
+    {
+        File classFile = new File(dir, baseName + ".class");
+        if (!classFile.isFile()) {
+            return null;
+        }
+
+        List<File> files = new ArrayList<>();
+        files.add(classFile);
+        String[] memberNames = dir.list((d, name) -> name.startsWith(baseName + "$") && name.endsWith(".class")
+                && isMemberClassFile(name.substring(baseName.length(), name.length() - ".class".length())));
+        if (memberNames != null) {
+            Arrays.sort(memberNames);
+            for (String name : memberNames) {
+                files.add(new File(dir, name));
+            }
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (File f : files) {
+                for (String line : describe(f)) {
+                    digest.update(line.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) '\n');
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        catch (IOException ioe) {
+            return null;
+        }
+        catch (NoSuchAlgorithmException e) {
+            // All Java platforms are required to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Check whether a class file name suffix (such as "$Inner" or "$1") names a member
+     * class, rather than a local or anonymous class (whose names begin with a digit).
+     */
+    private static boolean isMemberClassFile(String suffix)
+    {
+        for (String part : suffix.substring(1).split("\\$", -1)) {
+            if (part.isEmpty() || Character.isDigit(part.charAt(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describe the binary interface of a single class file, as a list of lines in
+     * a consistent order.
+     */
+    private static List<String> describe(File classFile) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(classFile)))) {
+            if (in.readInt() != CLASS_MAGIC) {
+                throw new IOException("Not a class file: " + classFile);
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+            Object[] pool = readConstantPool(in);
+
+            List<String> lines = new ArrayList<>();
+            int access = in.readUnsignedShort();
+            String name = className(pool, in.readUnsignedShort());
+            StringBuilder header = new StringBuilder("class ").append(access).append(' ').append(name);
+            int superIndex = in.readUnsignedShort();
+            header.append(" extends ").append(superIndex == 0 ? "" : className(pool, superIndex));
+            int interfaceCount = in.readUnsignedShort();
+            List<String> interfaces = new ArrayList<>();
+            for (int i = 0; i < interfaceCount; i++) {
+                interfaces.add(className(pool, in.readUnsignedShort()));
+            }
+            Collections.sort(interfaces);
+            header.append(" implements ").append(interfaces);
+
+            List<String> members = new ArrayList<>();
+            readMembers(in, pool, "field ", members);
+            readMembers(in, pool, "method ", members);
+            Collections.sort(members);
+
+            Attributes classAttributes = readAttributes(in, pool);
+            if (classAttributes.signature != null) {
+                header.append(" signature ").append(classAttributes.signature);
+            }
+
+            lines.add(header.toString());
+            if (classAttributes.permittedSubclasses != null) {
+                lines.add("permits " + classAttributes.permittedSubclasses);
+            }
+            if (classAttributes.recordComponents != null) {
+                // The order of the components matters (it is the order of the constructor's parameters):
+                lines.add("record " + classAttributes.recordComponents);
+            }
+            if (classAttributes.nestHost != null) {
+                lines.add("nest host " + classAttributes.nestHost);
+            }
+            if (classAttributes.nestMembers != null) {
+                // Local and anonymous classes are nest members too, but are not part of the interface:
+                List<String> nestMembers = new ArrayList<>(classAttributes.nestMembers);
+                nestMembers.removeIf(n -> !n.startsWith(name + "$") || !isMemberClassFile(n.substring(name.length())));
+                if (!nestMembers.isEmpty()) {
+                    lines.add("nest members " + nestMembers);
+                }
+            }
+            if (classAttributes.innerClasses != null) {
+                // Only the entries for this class and its own member classes; the others
+                // just describe nested classes (of other classes) which this class uses:
+                List<String> innerClasses = new ArrayList<>();
+                for (InnerClass inner : classAttributes.innerClasses) {
+                    if (inner.name.equals(name) || name.equals(inner.outerName)) {
+                        innerClasses.add(inner.name + " " + inner.access);
+                    }
+                }
+                Collections.sort(innerClasses);
+                if (!innerClasses.isEmpty()) {
+                    lines.add("inner classes " + innerClasses);
+                }
+            }
+            lines.addAll(members);
+            return lines;
+        }
+    }
+
+    private static void readMembers(DataInputStream in, Object[] pool, String kind, List<String> members) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            int access = in.readUnsignedShort();
+            String name = (String) pool[in.readUnsignedShort()];
+            String descriptor = (String) pool[in.readUnsignedShort()];
+            Attributes attributes = readAttributes(in, pool);
+            if (Modifier.isPrivate(access) || (access & ACC_SYNTHETIC) != 0) {
+                continue;
+            }
+            StringBuilder sb = new StringBuilder(kind).append(access).append(' ').append(name).append(' ').append(descriptor);
+            if (attributes.signature != null) {
+                sb.append(" signature ").append(attributes.signature);
+            }
+            if (attributes.exceptions != null) {
+                sb.append(" throws ").append(attributes.exceptions);
+            }
+            if (attributes.constantValue != null) {
+                sb.append(" = ").append(attributes.constantValue);
+            }
+            members.add(sb.toString());
+        }
+    }
+
+    /**
+     * Read the constant pool. Each entry in the returned array is a String for a UTF-8 entry,
+     * a boxed value for a numeric constant, an int[] of the referenced indexes for class and
+     * string constants, or null.
+     */
+    private static Object[] readConstantPool(DataInputStream in) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        Object[] pool = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    pool[i] = in.readUTF();
+                    break;
+                case 3: // Integer
+                    pool[i] = in.readInt();
+                    break;
+                case 4: // Float
+                    pool[i] = in.readFloat();
+                    break;
+                case 5: // Long
+                    pool[i] = in.readLong();
+                    i++; // takes two entries
+                    break;
+                case 6: // Double
+                    pool[i] = in.readDouble();
+                    i++; // takes two entries
+                    break;
+                case 7: // Class
+                case 8: // String
+                    pool[i] = new int[] {in.readUnsignedShort()};
+                    break;
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.readUnsignedShort();
+                    break;
+                case 15: // MethodHandle
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.readInt();
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag: " + tag);
+            }
+        }
+        return pool;
+    }
+
+    private static String className(Object[] pool, int index)
+    {
+        return (String) pool[((int[]) pool[index])[0]];
+    }
+
+    private static Attributes readAttributes(DataInputStream in, Object[] pool) throws IOException
+    {
+        Attributes attributes = new Attributes();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String name = (String) pool[in.readUnsignedShort()];
+            int length = in.readInt();
+            switch (name) {
+                case "Signature":
+                    attributes.signature = (String) pool[in.readUnsignedShort()];
+                    break;
+                case "ConstantValue":
+                    Object value = pool[in.readUnsignedShort()];
+                    // A String constant refers to a UTF-8 entry:
+                    attributes.constantValue = value instanceof int[] ? "\"" + pool[((int[]) value)[0]] + "\"" : String.valueOf(value);
+                    break;
+                case "Exceptions":
+                    int exceptionCount = in.readUnsignedShort();
+                    List<String> exceptions = new ArrayList<>();
+                    for (int j = 0; j < exceptionCount; j++) {
+                        exceptions.add(className(pool, in.readUnsignedShort()));
+                    }
+                    Collections.sort(exceptions);
+                    attributes.exceptions = exceptions;
+                    break;
+                case "PermittedSubclasses":
+                    attributes.permittedSubclasses = readClassList(in, pool);
+                    break;
+                case "NestMembers":
+                    attributes.nestMembers = readClassList(in, pool);
+                    break;
+                case "NestHost":
+                    attributes.nestHost = className(pool, in.readUnsignedShort());
+                    break;
+                case "Record":
+                    int componentCount = in.readUnsignedShort();
+                    List<String> components = new ArrayList<>();
+                    for (int j = 0; j < componentCount; j++) {
+                        String componentName = (String) pool[in.readUnsignedShort()];
+                        String descriptor = (String) pool[in.readUnsignedShort()];
+                        Attributes componentAttributes = readAttributes(in, pool);
+                        components.add(componentName + " " + descriptor
+                                + (componentAttributes.signature != null ? " signature " + componentAttributes.signature : ""));
+                    }
+                    attributes.recordComponents = components;
+                    break;
+                case "InnerClasses":
+                    int classCount = in.readUnsignedShort();
+                    List<InnerClass> innerClasses = new ArrayList<>();
+                    for (int j = 0; j < classCount; j++) {
+                        String innerName = className(pool, in.readUnsignedShort());
+                        int outerIndex = in.readUnsignedShort();
+                        in.readUnsignedShort(); // simple name
+                        int innerAccess = in.readUnsignedShort();
+                        if ((innerAccess & ACC_SYNTHETIC) == 0) {
+                            innerClasses.add(new InnerClass(innerName, outerIndex == 0 ? null : className(pool, outerIndex), innerAccess));
+                        }
+                    }
+                    attributes.innerClasses = innerClasses;
+                    break;
+                default:
+                    in.skipNBytes(length);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Read a list of class constant references (as in the PermittedSubclasses and
+     * NestMembers attributes), in sorted order.
+     */
+    private static List<String> readClassList(DataInputStream in, Object[] pool) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        List<String> classes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            classes.add(className(pool, in.readUnsignedShort()));
+        }
+        Collections.sort(classes);
+        return classes;
+    }
+
+    /**
+     * The attributes of a class or member which form part of its interface.
+     */
+    @OnThread(Tag.Any)
+    private static class Attributes
+    {
+        private String signature;
+        private String constantValue;
+        private List<String> exceptions;
+        private List<String> permittedSubclasses;
+        private List<String> nestMembers;
+        private String nestHost;
+        private List<String> recordComponents;
+        private List<InnerClass> innerClasses;
+    }
+
+    /**
+     * An entry in the InnerClasses attribute of a class.
+     */
+    @OnThread(Tag.Any)
+    private static class InnerClass
+    {
+        private final String name;
+        private final String outerName; // null for local and anonymous classes
+        private final int access;
+
+        private InnerClass(String name, String outerName, int access)
+        {
+            this.name = name;
+            this.outerName = outerName;
+            this.access = access;
+        }
+    }
+}
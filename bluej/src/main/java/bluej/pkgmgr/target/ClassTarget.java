@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -25,11 +25,13 @@ package bluej.pkgmgr.target;
 import bluej.Config;
 import bluej.collect.DataCollector;
 import bluej.collect.DiagnosticWithShown;
+import bluej.collect.SourceEditTracker;
 import bluej.collect.StrideEditReason;
 import bluej.compiler.CompileInputFile;
 import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
 import bluej.compiler.Diagnostic;
+import bluej.compiler.JobQueue;
 import bluej.debugger.*;
 import bluej.debugger.gentype.Reflective;
 import bluej.debugmgr.objectbench.InvokeListener;
@@ -43,7 +45,9 @@ import bluej.extensions2.event.ClassEvent;
 import bluej.extmgr.ExtensionMenu;
 import bluej.extmgr.ExtensionsManager;
 import bluej.extmgr.ExtensionsMenuManager;
+import bluej.groupwork.git.GitStatusCache;
 import bluej.parser.ParseFailure;
+import bluej.parser.SourceLocation;
 import bluej.parser.entity.EntityResolver;
 import bluej.parser.entity.PackageResolver;
 import bluej.parser.entity.ParsedReflective;
@@ -159,6 +163,10 @@ public class ClassTarget extends DependentTarget
     // edited
     private SourceInfo sourceInfo = new SourceInfo();
 
+    // fingerprint of the binary interface of the class files as last compiled
+    // (see AbiFingerprint), or null if not known
+    private String abiFingerprint;
+
     // caches whether the class is abstract. Only accurate when the
     // classtarget state is normal (ie. the class is compiled).
     private boolean isAbstract;
@@ -174,6 +182,10 @@ public class ClassTarget extends DependentTarget
     // Whether the current compilation is invalid due to edits since compilation began
     private boolean compilationInvalid = false;
 
+    // Whether the unsaved content of the editor has been passed to the compiler (see
+    // getUnsavedJavaSource()), and not modified since
+    private boolean compilingUnsavedSource = false;
+
     private SourceType sourceAvailable;
     // Part of keeping track of number of editors opened, for Greenfoot phone home:
     private boolean hasBeenOpened = false;
@@ -497,8 +509,10 @@ public class ClassTarget extends DependentTarget
      */
     public void markCompiling(int compilationSequence)
     {
-        // The results of compilation will be invalid if the editor contents have not been saved:
-        compilationInvalid = (editor != null) ? editor.isModified() : false; 
+        // The results of compilation will be invalid if the editor contents have not been saved
+        // (unless the unsaved contents are what is being compiled):
+        compilationInvalid = (editor != null) ? editor.isModified() && !compilingUnsavedSource : false;
+        compilingUnsavedSource = false;
         
         if (getState() == State.HAS_ERROR)
         {
@@ -552,6 +566,16 @@ public class ClassTarget extends DependentTarget
         }
     }
 
+    /**
+     * Mark this class as waiting for (or no longer waiting for) its source to be
+     * analysed. While analysis is pending, the class is shown as a placeholder,
+     * since its role and dependencies are not yet known.
+     */
+    public void setAnalysisPending(boolean pending)
+    {
+        JavaFXUtil.setPseudoclass("bj-analysing", pending, pane);
+    }
+
     @OnThread(Tag.Any)
     private static String pseudoFor(Class<? extends ClassRole> aClass)
     {
@@ -991,6 +1015,28 @@ public class ClassTarget extends DependentTarget
      * @param alreadyInvalidated The list of already invalidated targets in this call tree (will be modified)
      */
     private void invalidateInclDependents(ArrayList<ClassTarget> alreadyInvalidated)
+    {
+        invalidateSelf();
+        
+        alreadyInvalidated.add(this);
+        
+        for (DependentTarget d : dependents())
+        {
+            ClassTarget dependent = (ClassTarget) d;
+            
+            if (dependent.hasSourceCode() && !alreadyInvalidated.contains(dependent))
+            {
+                // Invalidate the dependent only if it is not already invalidated. 
+                // Will avoid going into an infinite circular loop.
+                dependent.invalidateInclDependents(alreadyInvalidated);
+            }
+        }
+    }
+
+    /**
+     * Mark this class (but not its dependents) as modified.
+     */
+    private void invalidateSelf()
     {
         // Mark any current compilation as stale:
         compilationInvalid = true;
@@ -998,26 +1044,77 @@ public class ClassTarget extends DependentTarget
         if (hasSourceCode())
         {
             setState(State.NEEDS_COMPILE);
+            // Any queued error check of this class is now out of date:
+            JobQueue.getJobQueue().sourceModified(getJavaSourceFile());
             if (editor != null)
             {
                 // Need to run later because we might be notified mid-edit event:
                 JavaFXUtil.runAfterCurrent(() -> editor.removeErrorHighlights());
             }
         }
-        
-        alreadyInvalidated.add(this);
-        
-        for (DependentTarget d : dependents())
+    }
+
+    /**
+     * Mark all classes which depend, directly or indirectly, on this class as needing
+     * to be compiled, other than those given (which have just been compiled).
+     * 
+     * @param justCompiled  Classes which should not be marked, although their dependents may be
+     * @return  The classes which were compiled, and are now marked as needing compilation
+     */
+    public List<ClassTarget> invalidateDependents(Collection<ClassTarget> justCompiled)
+    {
+        List<ClassTarget> invalidated = new ArrayList<>();
+        Set<ClassTarget> visited = new HashSet<>();
+        visited.add(this);
+        LinkedList<ClassTarget> toVisit = new LinkedList<>();
+        toVisit.add(this);
+        while (!toVisit.isEmpty())
         {
-            ClassTarget dependent = (ClassTarget) d;
-            
-            if (dependent.hasSourceCode() && !alreadyInvalidated.contains(dependent))
+            for (DependentTarget d : toVisit.removeFirst().dependents())
             {
-                // Invalidate the dependent only if it is not already invalidated. 
-                // Will avoid going into an infinite circular loop.
-                dependent.invalidateInclDependents(alreadyInvalidated);
+                ClassTarget dependent = (ClassTarget) d;
+                if (visited.add(dependent))
+                {
+                    toVisit.add(dependent);
+                    if (dependent.hasSourceCode() && !justCompiled.contains(dependent))
+                    {
+                        if (dependent.isCompiled())
+                        {
+                            invalidated.add(dependent);
+                        }
+                        dependent.invalidateSelf();
+                    }
+                }
             }
         }
+        return invalidated;
+    }
+
+    /**
+     * Record the fingerprint of the binary interface of the current class files, if it is
+     * not already known, so that it can be compared with that of the class files produced by
+     * the next compilation. Must be called before the class is compiled.
+     */
+    public void recordAbiFingerprint()
+    {
+        if (abiFingerprint == null)
+        {
+            abiFingerprint = AbiFingerprint.compute(getPackage().getPath(), getBaseName());
+        }
+    }
+
+    /**
+     * Update the fingerprint of the binary interface of the class, after it has been compiled
+     * successfully.
+     * 
+     * @return  true if the interface has changed (or may have changed), in which case classes
+     *          which depend on this class must be recompiled.
+     */
+    public boolean updateAbiFingerprint()
+    {
+        String previous = abiFingerprint;
+        abiFingerprint = AbiFingerprint.compute(getPackage().getPath(), getBaseName());
+        return previous == null || abiFingerprint == null || !previous.equals(abiFingerprint);
     }
 
     /**
@@ -1168,6 +1265,19 @@ public class ClassTarget extends DependentTarget
         // an error state now for an unsuccessful compilation.
     }
 
+    /**
+     * Mark this class as no longer being compiled, after a compilation was cancelled
+     * (see CompileObserver.compileCancelled()). The state is not changed.
+     */
+    public void markCompileCancelled()
+    {
+        if (editor != null)
+        {
+            // Nothing is kept; the editor will re-queue a compilation if it needs one:
+            editor.compileFinished(false, false);
+        }
+    }
+
     public static class SourceFileInfo
     {
         public final File file;
@@ -1386,6 +1496,26 @@ public class ClassTarget extends DependentTarget
         super.ensureSaved();
     }
 
+    /**
+     * Get the content of the editor for this class if it is a Java class with changes
+     * which have not yet been saved. Otherwise (including for Stride classes, whose Java
+     * code is generated when saving), returns null. The content is assumed to be passed
+     * to the compiler, so that the results of the compilation are valid despite the class
+     * not being saved.
+     */
+    public String getUnsavedJavaSource()
+    {
+        if (editor == null || sourceAvailable != SourceType.Java || !editor.isModified()) {
+            return null;
+        }
+        TextEditor textEditor = editor.assumeText();
+        if (textEditor == null) {
+            return null;
+        }
+        compilingUnsavedSource = true;
+        return textEditor.getText(new SourceLocation(1, 1), textEditor.getLineColumnFromOffset(textEditor.getTextLength()));
+    }
+
     // --- end of EditableTarget interface ---
 
     // --- user interface function implementation ---
@@ -1419,7 +1549,10 @@ public class ClassTarget extends DependentTarget
     @Override
     public void modificationEvent(Editor editor)
     {
-        invalidate();
+        // Classes which depend on this one are only invalidated once it has been
+        // recompiled, and only if its interface has changed (see updateAbiFingerprint()):
+        invalidateSelf();
+        compilingUnsavedSource = false;
                 
         removeBreakpoints();
         if (getPackage().getProject().getDebugger() != null)
@@ -1436,6 +1569,12 @@ public class ClassTarget extends DependentTarget
     @Override
     public void saveEvent(Editor editor)
     {
+        // The Java source is written on save for Stride classes too:
+        GitStatusCache.fileSaved(getJavaSourceFile());
+        if (getSourceType() == SourceType.Stride)
+        {
+            GitStatusCache.fileSaved(getFrameSourceFile());
+        }
         ClassInfo info = analyseSource();
         if (info != null) {
             updateTargetFile(info);
@@ -2583,9 +2722,9 @@ public class ClassTarget extends DependentTarget
     }
     
     @Override
-    public void recordJavaEdit(String latest, boolean includeOneLineEdits)
+    public void recordJavaEdit(SourceEditTracker edits, boolean includeOneLineEdits)
     {
-        DataCollector.editJava(getPackage(), getJavaSourceFile(), latest, includeOneLineEdits);
+        DataCollector.editJava(getPackage(), getJavaSourceFile(), edits, includeOneLineEdits);
     }
 
     @Override
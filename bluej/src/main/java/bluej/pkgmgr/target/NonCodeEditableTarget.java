@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2017,2020,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2017,2020,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.List;
 
 import bluej.collect.DiagnosticWithShown;
+import bluej.collect.SourceEditTracker;
 import bluej.collect.StrideEditReason;
 import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
@@ -60,7 +61,7 @@ public abstract class NonCodeEditableTarget extends EditableTarget
     public void setProperty(String key, String value) { }
 
     @Override
-    public void recordJavaEdit(String javaSource, boolean includeOneLineEdits) { }
+    public void recordJavaEdit(SourceEditTracker edits, boolean includeOneLineEdits) { }
 
     @Override
     public void recordStrideEdit(String javaSource, String strideSource, StrideEditReason reason) { }
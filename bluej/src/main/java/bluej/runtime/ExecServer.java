@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2018,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2018,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -31,10 +31,13 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -112,6 +115,10 @@ public class ExecServer
     public static String methodToRun;
     public static String [] parameterTypes;
     public static Object [] arguments;
+    public static Object targetObject;  // the receiver for INVOKE_METHOD (null for static methods)
+    public static Object [] shellClasses;  // for EXEC_SHELL, the class files (byte arrays) of a shell class
+        // compiled in memory, or null if the shell class can be loaded by the current loader
+    public static String shellAnchor;  // a class in the package in which to define shellClasses
     public static int execAction = -1;   // EXEC_SHELL, TEST_SETUP or TEST_RUN
     
     public static Object methodReturn;
@@ -124,6 +131,9 @@ public class ExecServer
     public static final String METHOD_TO_RUN_NAME = "methodToRun";
     public static final String PARAMETER_TYPES_NAME = "parameterTypes";
     public static final String ARGUMENTS_NAME = "arguments";
+    public static final String TARGET_OBJECT_NAME = "targetObject";
+    public static final String SHELL_CLASSES_NAME = "shellClasses";
+    public static final String SHELL_ANCHOR_NAME = "shellAnchor";
     public static final String EXEC_ACTION_NAME = "execAction";
     public static final String METHOD_RETURN_NAME = "methodReturn";
     public static final String EXCEPTION_NAME = "exception";
@@ -140,6 +150,8 @@ public class ExecServer
     public static final int INSTANTIATE_CLASS_ARGS = 7; // use constructor
         // with specified parameter types and arguments
     public static final int LAUNCH_FX_APP = 8;
+    public static final int INVOKE_METHOD = 9; // call a method (or constructor, if methodToRun
+        // is null) with specified parameter types and arguments, without a shell class
 
     // Parameter for worker thread actions
     public static int workerAction = EXIT_VM;
@@ -169,6 +181,12 @@ public class ExecServer
     public static final int NEW_LOADER    = 3;
     // EXIT_VM ( = 4) is also used in the worker thread
     public static final int LOAD_ALL      = 5; // load class and inner classes
+    public static final int STATE_HASHES  = 6; // hash the state of some objects (object = Object[])
+
+    // When hashing the state of an array, only this many elements from the start
+    // and from the end are hashed:
+    private static final int STATE_HASH_ARRAY_START = 64;
+    private static final int STATE_HASH_ARRAY_TAIL = 8;
 
     // the current class loader
     private static ClassLoader currentLoader;
@@ -255,6 +273,11 @@ public class ExecServer
                             System.exit(0);
                         case LOAD_ALL:
                             workerReturn = loadAllClasses(className);
+                            break;
+                        case STATE_HASHES:
+                            workerReturn = stateHashes((Object []) object);
+                            object = null;
+                            break;
                     }
                     // After any action, set the next action to exit. If connection to
                     // primary VM is lost, the secondary VM (i.e. this VM) will then exit.
@@ -863,7 +886,8 @@ public class ExecServer
                             executedClass = null;
                             
                             clearInputBuffer();
-                            Class<?> c = currentLoader.loadClass(classToRun);
+                            Class<?> c = (shellClasses != null) ? defineShellClasses()
+                                    : currentLoader.loadClass(classToRun);
                             executedClass = c;
                             // Class c = cloader.loadClass(classToRun);
                             Method m = c.getMethod("run", new Class[0]);
@@ -922,6 +946,48 @@ public class ExecServer
                             });
                             break;
                         }
+                        case INVOKE_METHOD:
+                        {
+                            // Call a method or constructor directly, via reflection. Arguments
+                            // for primitive (or boxed primitive) parameters are given as strings.
+                            clearInputBuffer();
+                            Class<?> c = currentLoader.loadClass(classToRun);
+                            Class<?> [] paramClasses = new Class[parameterTypes.length];
+                            for (int i = 0; i < parameterTypes.length; i++) {
+                                paramClasses[i] = loadParameterClass(parameterTypes[i]);
+                            }
+                            Object [] args = convertArguments(paramClasses, arguments);
+                            Object target = targetObject;
+                            targetObject = null;
+                            if (methodToRun == null) {
+                                Constructor<?> cons = c.getDeclaredConstructor(paramClasses);
+                                cons.setAccessible(true);
+                                runOnTargetThread(() -> {
+                                    try {
+                                        methodReturn = cons.newInstance(args);
+                                    }
+                                    catch (InvocationTargetException ite) {
+                                        throw trimReflectionFrames(ite.getCause());
+                                    }
+                                });
+                            }
+                            else {
+                                Method m = findMethod(c, methodToRun, paramClasses);
+                                if (m == null) {
+                                    throw new NoSuchMethodException(classToRun + "." + methodToRun);
+                                }
+                                m.setAccessible(true);
+                                runOnTargetThread(() -> {
+                                    try {
+                                        methodReturn = wrapResult(m.getReturnType(), m.invoke(target, args));
+                                    }
+                                    catch (InvocationTargetException ite) {
+                                        throw trimReflectionFrames(ite.getCause());
+                                    }
+                                });
+                            }
+                            break;
+                        }
                         case LAUNCH_FX_APP:
                             // The preloader will tell us the Application reference:
                             CompletableFuture<Application> theApp = new CompletableFuture<>();
@@ -1033,6 +1099,242 @@ public class ExecServer
         }
     }
 
+    /**
+     * Define the classes of a shell class which was compiled in memory (shellClasses), and
+     * return the shell class itself (classToRun). The classes are defined by the class loader,
+     * and in the package, of the anchor class, so that they can access the package-private
+     * members of the user's classes, and so that the shell's inner classes can be found by name.
+     */
+    private static Class<?> defineShellClasses() throws ReflectiveOperationException
+    {
+        try {
+            Class<?> anchor = Class.forName(shellAnchor, false, currentLoader);
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(anchor, MethodHandles.lookup());
+            Class<?> shellClass = null;
+            for (Object classBytes : shellClasses) {
+                Class<?> c = lookup.defineClass((byte []) classBytes);
+                if (c.getName().equals(classToRun)) {
+                    shellClass = c;
+                }
+            }
+            if (shellClass == null) {
+                throw new ClassNotFoundException(classToRun);
+            }
+            return shellClass;
+        }
+        finally {
+            shellClasses = null;
+            shellAnchor = null;
+        }
+    }
+
+    /**
+     * Compute a hash of the state of each of the given objects: of the values of its
+     * instance fields or, for an array, of its elements. This is used to find out cheaply
+     * whether an object has changed (and so needs to be re-displayed).
+     * 
+     * <p>Runs on the worker thread, so must not execute user code: field values which are
+     * objects are hashed by identity. A hash of 0 means that the state could not be read.
+     * 
+     * <p>Only the length and the elements at the start and end of a large array are hashed
+     * (see STATE_HASH_ARRAY_START), so that the time taken does not depend on its size.
+     * These include all the elements an inspector shows unless asked for others.
+     */
+    static long[] stateHashes(Object[] objects)
+    {
+        long[] hashes = new long[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            try {
+                hashes[i] = stateHash(objects[i]);
+            }
+            catch (RuntimeException | IllegalAccessException e) {
+                // The fields are inaccessible (for instance, in a JDK class)
+                hashes[i] = 0;
+            }
+        }
+        return hashes;
+    }
+
+    private static long stateHash(Object object) throws IllegalAccessException
+    {
+        long hash = 1;
+        if (object == null) {
+            return hash;
+        }
+        
+        Class<?> c = object.getClass();
+        if (c.isArray()) {
+            int length = Array.getLength(object);
+            hash = 31 * hash + length;
+            int start = Math.min(length, STATE_HASH_ARRAY_START);
+            int tail = Math.max(start, length - STATE_HASH_ARRAY_TAIL);
+            for (int i = 0; i < start; i++) {
+                hash = 31 * hash + valueHash(Array.get(object, i), c.getComponentType());
+            }
+            for (int i = tail; i < length; i++) {
+                hash = 31 * hash + valueHash(Array.get(object, i), c.getComponentType());
+            }
+            return (hash == 0) ? 1 : hash;
+        }
+        
+        for ( ; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (! Modifier.isStatic(f.getModifiers())) {
+                    f.setAccessible(true);
+                    hash = 31 * hash + valueHash(f.get(object), f.getType());
+                }
+            }
+        }
+        return (hash == 0) ? 1 : hash;
+    }
+
+    /**
+     * Hash a field or element value, without calling any user code.
+     */
+    private static int valueHash(Object value, Class<?> type)
+    {
+        if (type.isPrimitive()) {
+            // A boxed primitive, with a JDK hashCode():
+            return value.hashCode();
+        }
+        return System.identityHashCode(value);
+    }
+
+    /**
+     * Load the class for a parameter type, given its name as returned by Class.getName().
+     */
+    private static Class<?> loadParameterClass(String name) throws ClassNotFoundException
+    {
+        switch (name) {
+            case "boolean": return boolean.class;
+            case "byte": return byte.class;
+            case "char": return char.class;
+            case "short": return short.class;
+            case "int": return int.class;
+            case "long": return long.class;
+            case "float": return float.class;
+            case "double": return double.class;
+            default: return Class.forName(name, false, currentLoader);
+        }
+    }
+
+    /**
+     * Convert arguments for an INVOKE_METHOD call. Arguments for parameters of primitive
+     * type (or their wrapper types) are supplied as strings, and are converted here to
+     * the appropriate type. Other arguments are returned unchanged.
+     */
+    private static Object[] convertArguments(Class<?>[] paramClasses, Object[] args)
+    {
+        Object [] converted = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            Class<?> t = paramClasses[i];
+            if (args[i] instanceof String && t != String.class) {
+                String s = (String) args[i];
+                if (t == boolean.class || t == Boolean.class) {
+                    converted[i] = Boolean.valueOf(s);
+                    continue;
+                }
+                else if (t == char.class || t == Character.class) {
+                    converted[i] = Character.valueOf(s.charAt(0));
+                    continue;
+                }
+                else if (t == byte.class || t == Byte.class) {
+                    converted[i] = Byte.valueOf(s);
+                    continue;
+                }
+                else if (t == short.class || t == Short.class) {
+                    converted[i] = Short.valueOf(s);
+                    continue;
+                }
+                else if (t == int.class || t == Integer.class) {
+                    converted[i] = Integer.valueOf(s);
+                    continue;
+                }
+                else if (t == long.class || t == Long.class) {
+                    converted[i] = Long.valueOf(s);
+                    continue;
+                }
+                else if (t == float.class || t == Float.class) {
+                    converted[i] = Float.valueOf(s);
+                    continue;
+                }
+                else if (t == double.class || t == Double.class) {
+                    converted[i] = Double.valueOf(s);
+                    continue;
+                }
+            }
+            converted[i] = args[i];
+        }
+        return converted;
+    }
+
+    /**
+     * Wrap the result of a method called via INVOKE_METHOD in the same way that a shell
+     * class would (see Shell.makeObj()), so that the debugger can tell its declared type.
+     * Returns null for a void method.
+     */
+    private static Object wrapResult(Class<?> type, Object value)
+    {
+        if (type == void.class) {
+            return null;
+        }
+        else if (type == boolean.class) {
+            return Shell.makeObj(((Boolean) value).booleanValue());
+        }
+        else if (type == byte.class) {
+            return Shell.makeObj(((Byte) value).byteValue());
+        }
+        else if (type == char.class) {
+            return Shell.makeObj(((Character) value).charValue());
+        }
+        else if (type == short.class) {
+            return Shell.makeObj(((Short) value).shortValue());
+        }
+        else if (type == int.class) {
+            return Shell.makeObj(((Integer) value).intValue());
+        }
+        else if (type == long.class) {
+            return Shell.makeObj(((Long) value).longValue());
+        }
+        else if (type == float.class) {
+            return Shell.makeObj(((Float) value).floatValue());
+        }
+        else if (type == double.class) {
+            return Shell.makeObj(((Double) value).doubleValue());
+        }
+        else if (type == String.class) {
+            return Shell.makeObj((String) value);
+        }
+        return Shell.makeObj(value);
+    }
+
+    /**
+     * Remove the frames of the reflective call made by INVOKE_METHOD (and everything below
+     * it) from the stack trace of an exception thrown by the called method, so that only
+     * user code remains (as for a shell class; see recordException()).
+     */
+    private static Throwable trimReflectionFrames(Throwable t)
+    {
+        StackTraceElement [] stackTrace = t.getStackTrace();
+        int i;
+        for (i = stackTrace.length - 1; i >= 0; i--) {
+            String stClassName = stackTrace[i].getClassName();
+            if (stClassName.equals("java.lang.reflect.Method") || stClassName.equals("java.lang.reflect.Constructor")) {
+                break;
+            }
+        }
+        if (i < 0) {
+            return t;
+        }
+        while (i > 0 && (stackTrace[i - 1].getClassName().startsWith("jdk.internal.reflect.")
+                || stackTrace[i - 1].getClassName().startsWith("java.lang.reflect.")
+                || stackTrace[i - 1].getClassName().startsWith("java.lang.invoke."))) {
+            i--;
+        }
+        t.setStackTrace(Arrays.copyOf(stackTrace, i));
+        return t;
+    }
+
     /**
      * Record that an exception occurred, as well as printing a filtered stack trace.
      * @param t  the exception which was caught
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2020,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -78,6 +78,11 @@ public abstract class JavaFragment
         this.lineNumber = lineNumber;
         this.columnNumber = columnNumber;
         this.len = len;
+        // Fragments can be reused across compilations (if their frame has not changed), so
+        // forget any error from a previous compilation of the code:
+        this.errorMessage = null;
+        this.startErrorPos = -1;
+        this.endErrorPos = -1;
     }
 
     /**
@@ -184,7 +189,11 @@ public abstract class JavaFragment
         }
     }
 
-    protected String getErrorMessage()
+    /**
+     * Gets the message of the compile error shown on this fragment by the latest
+     * compilation (see showCompileError), or null if there was none.
+     */
+    public String getErrorMessage()
     {
         return errorMessage;
     }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,7 +21,6 @@
  */
 package bluej.stride.framedjava.ast;
 
-import java.io.StringReader;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -47,7 +46,7 @@ public class Parser
 
     public static boolean parseableAs(String s, Consumer<JavaParser> parse)
     {
-        JavaParser p = new JavaParser(new StringReader(s), false);
+        JavaParser p = new JavaParser(s, false);
         try
         {
             parse.accept(p);
@@ -87,7 +86,7 @@ public class Parser
     public static boolean parseableAsNameDef(String s)
     {
         // We don't need to parse, just lex and see if it comes out as an ident token:
-        JavaLexer lexer = new JavaLexer(new StringReader(s));
+        JavaLexer lexer = new JavaLexer(s);
         LocatableToken t = lexer.nextToken();
         LocatableToken t2 = lexer.nextToken();
         if (t.getType() == JavaTokenTypes.IDENT && t2.getType() == JavaTokenTypes.EOF)
@@ -98,7 +97,7 @@ public class Parser
 
     public static boolean parseableAsExpression(String e)
     {
-        return Parser.parseAsExpression(new JavaParser(new StringReader(e), false));
+        return Parser.parseAsExpression(new JavaParser(e, false));
     }
     
     /**
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2018,2019,2020,2021 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2018,2019,2020,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,7 +23,6 @@ package bluej.stride.framedjava.ast;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import bluej.editor.fixes.Correction;
@@ -90,7 +89,7 @@ public class TypeSlotFragment extends StructuredSlotFragment
 
     @Override
     @OnThread(Tag.FXPlatform)
-    public Future<List<DirectSlotError>> findLateErrors(InteractionManager editor, CodeElement parent,
+    public CompletableFuture<List<DirectSlotError>> findLateErrors(InteractionManager editor, CodeElement parent,
                                                         LocationMap rootPathMap)
     {
         CompletableFuture<List<DirectSlotError>> f = new CompletableFuture<>();
@@ -185,7 +184,7 @@ public class TypeSlotFragment extends StructuredSlotFragment
      * @return the Future list of errors
      */
     @OnThread(Tag.FXPlatform)
-    private Future<List<DirectSlotError>> checkForTypeErrors(
+    private CompletableFuture<List<DirectSlotError>> checkForTypeErrors(
             ArrayList<String> typesList, ArrayList<Integer> indexList, InteractionManager editor,
             LocationMap rootPathMap)
     {
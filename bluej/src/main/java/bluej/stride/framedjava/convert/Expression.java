@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2016,2017 Michael Kölling and John Rosenberg 
+ Copyright (C) 2016,2017,2026 Michael Kölling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,7 +21,6 @@
  */
 package bluej.stride.framedjava.convert;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
@@ -93,7 +92,7 @@ class Expression
     {
         // It is a bit inefficient to re-lex the string, but
         // it's easiest this way and conversion is not particularly time sensitive:
-        JavaLexer lexer = new JavaLexer(new StringReader(src));
+        JavaLexer lexer = new JavaLexer(src);
         StringBuilder r = new StringBuilder();
         while (true)
         {
@@ -179,7 +178,7 @@ class Expression
      */
     public boolean isIntegerLiteral()
     {
-        JavaLexer lexer = new JavaLexer(new StringReader(java));
+        JavaLexer lexer = new JavaLexer(java);
         if (lexer.nextToken().getType() != JavaTokenTypes.NUM_INT)
             return false;
         return lexer.nextToken().getType() == JavaTokenTypes.EOF;
@@ -191,7 +190,7 @@ class Expression
      */
     public boolean lessThanIntegerLiteral(String varName)
     {
-        JavaLexer lexer = new JavaLexer(new StringReader(java));
+        JavaLexer lexer = new JavaLexer(java);
         LocatableToken token = lexer.nextToken();
         if (token.getType() != JavaTokenTypes.IDENT || !token.getText().equals(varName))
             return false;
@@ -209,7 +208,7 @@ class Expression
      */
     public String getUpperBound()
     {
-        JavaLexer lexer = new JavaLexer(new StringReader(java));
+        JavaLexer lexer = new JavaLexer(java);
         LocatableToken token = lexer.nextToken();
         if (token.getType() != JavaTokenTypes.IDENT)
             return "";
@@ -230,7 +229,7 @@ class Expression
         // ++varName
         // varName += 1
         // varName = varName + 1
-        JavaLexer lexer = new JavaLexer(new StringReader(java));
+        JavaLexer lexer = new JavaLexer(java);
         LocatableToken token = lexer.nextToken();
         // First token, can be varName, or ++
         if (token.getType() == JavaTokenTypes.INC)
@@ -0,0 +1,281 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.framedjava.elements;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Optional;
+
+import bluej.editor.flow.HoleDocument;
+import bluej.editor.flow.JavaSyntaxView;
+import bluej.editor.flow.ScopeColorsBorderPane;
+import bluej.parser.entity.EntityResolver;
+import bluej.stride.framedjava.ast.JavaFragment;
+import bluej.stride.framedjava.ast.JavaFragment.PosInSourceDoc;
+import bluej.stride.framedjava.ast.JavaSource;
+import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
+import bluej.stride.framedjava.slots.ExpressionSlot;
+import bluej.utility.javafx.FXPlatformSupplier;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * The generated Java source for a top-level element (class or interface), along with
+ * the parsed document of that source which is used for code completion and other analysis,
+ * and the element's location map.  These are all generated on first request.
+ *
+ * When the editor regenerates its top-level element, the new element's analysis document
+ * can take over the document of the element it replaces (see {@link #replaces}), and patch
+ * the part of the source which differs, so that the parser only has to reparse around the
+ * change.  The document is moved rather than copied: once taken over, the old element
+ * no longer has a document, and will generate and parse a new one if asked for it again.
+ * So a document returned by {@link #getDocument} should only be used during the FX
+ * operation which asked for it, and not kept once the editor may have regenerated its code.
+ *
+ * The documents must only be used on the FX thread, but an analysis document may be created,
+ * replace another, and give out its location map on any thread, as elements are.
+ */
+@OnThread(Tag.FXPlatform)
+class AnalysisDocument
+{
+    @OnThread(Tag.Any)
+    private final CodeElement owner;
+    private final FXPlatformSupplier<JavaSource> generator;
+    private final EntityResolver projectResolver;
+    /**
+     * The generated Java code for the element, used for doing code completion without
+     * needing to always regenerate the document.
+     */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private DocAndPositions sourceDocument;
+    // Keep track of which slot was completing when we generated sourceDocument,
+    // as this affects the content of the document, and we may have to regenerate.
+    private ExpressionSlot<?> sourceDocumentCompleting;
+    /**
+     * A map of documents for given contents.  This guards against race hazards, so
+     * that we use the correct document for the given content, even when we are hopping
+     * across threads and potentially generating several documents in a short space
+     * of time, concurrent with looking up information in them.
+     *
+     * This cache does not have a size limit, but that shouldn't matter as it is per-element
+     * so the only potential differences in source code are down to which slot is being completed,
+     * giving a limit on the number of documents we could generate for a given source version
+     * (each element is immutable).
+     */
+    private final HashMap<String, DocAndPositions> documentCache = new HashMap<>();
+    /**
+     * The analysis document of the element which this one's element replaced in the editor
+     * (i.e. the previous version of the code), whose document we take over and patch to match
+     * our source, rather than generating and parsing a whole new document.  Cleared once taken over.
+     */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private AnalysisDocument predecessor;
+    /** The location map for the element, built on first request (see getLocationMap) */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private LocationMap locationMap;
+
+    /**
+     * @param owner The element which this is the analysis document for
+     * @param generator Generates the Java source for the element
+     * @param projectResolver The resolver used by the project which the element lives in
+     */
+    @OnThread(Tag.Any)
+    AnalysisDocument(CodeElement owner, FXPlatformSupplier<JavaSource> generator, EntityResolver projectResolver)
+    {
+        this.owner = owner;
+        this.generator = generator;
+        this.projectResolver = projectResolver;
+    }
+
+    /**
+     * Gets the Java source for the element, generating it if necessary.
+     */
+    JavaSource getJavaSource()
+    {
+        return getDAP(null).java;
+    }
+
+    /**
+     * Gets the parsed document for the element's source, with the given slot (if any) being
+     * code-completed.  Any pending reparsing of the document is finished before returning.
+     */
+    JavaSyntaxView getDocument(ExpressionSlot<?> completing)
+    {
+        JavaSyntaxView doc = getDAP(completing).getDocument(projectResolver);
+        // There is no scheduled parsing for off-screen documents so we must manually finish any reparsing:
+        doc.flushReparseQueue();
+        return doc;
+    }
+
+    /**
+     * Resolves a position relative to a fragment into a position in the given document.
+     * Returns empty if the fragment is not in the document, or if the document is
+     * no longer ours (because a newer version has taken it over).
+     */
+    Optional<Integer> resolvePos(JavaSyntaxView doc, PosInSourceDoc pos)
+    {
+        DocAndPositions docAndPositions;
+        synchronized (this)
+        {
+            docAndPositions = documentCache.get(doc.getFullText());
+        }
+        if (docAndPositions == null || docAndPositions.document != doc)
+            return Optional.empty();
+        Optional<Integer> resolvedPos = Optional.ofNullable(docAndPositions.fragmentPositions.get(pos.getFragment()));
+        return resolvedPos.map(p -> p + pos.offset);
+    }
+
+    private synchronized DocAndPositions getDAP(ExpressionSlot<?> completing)
+    {
+        if (sourceDocument == null || sourceDocumentCompleting != completing)
+        {
+            IdentityHashMap<JavaFragment, Integer> positions = new IdentityHashMap<>();
+            sourceDocumentCompleting = completing;
+            JavaSource java = generator.get();
+            String src = java.toMemoryJavaCodeString(positions, completing);
+            if (documentCache.containsKey(src))
+            {
+                // No need to generate and parse it again, just use existing one, but
+                // add in our positions in case they used different fragments:
+                sourceDocument = documentCache.get(src);
+                sourceDocument.fragmentPositions.putAll(positions);
+            }
+            else
+            {
+                sourceDocument = new DocAndPositions(src, java, positions, takePredecessorDocument());
+                documentCache.put(src, sourceDocument);
+            }
+        }
+        return sourceDocument;
+    }
+
+    /**
+     * Records that this is the analysis document for the new version of the given one's
+     * element, generated from the same frame.  The next time we need a document, we will
+     * take over the previous document (if it made one) and patch it.
+     */
+    @OnThread(Tag.Any)
+    void replaces(AnalysisDocument previous)
+    {
+        synchronized (previous)
+        {
+            // If the previous version never made a document, it can pass on its own predecessor,
+            // so that we don't build up a chain of old versions:
+            AnalysisDocument p = previous.sourceDocument != null ? previous : previous.predecessor;
+            previous.predecessor = null;
+            synchronized (this)
+            {
+                predecessor = p;
+            }
+        }
+    }
+
+    /**
+     * Takes the current document from our predecessor (if any).  The predecessor is
+     * invalidated: it forgets all its documents, and must generate a new one if it is
+     * asked for one again.
+     */
+    private synchronized DocAndPositions takePredecessorDocument()
+    {
+        AnalysisDocument previous = predecessor;
+        predecessor = null;
+        if (previous == null)
+            return null;
+        synchronized (previous)
+        {
+            DocAndPositions previousDocument = previous.sourceDocument;
+            previous.sourceDocument = null;
+            previous.sourceDocumentCompleting = null;
+            previous.documentCache.clear();
+            return previousDocument;
+        }
+    }
+
+    /**
+     * Gets the location map for the element.  The element is immutable (in structure, at least),
+     * so the map only needs building once.
+     */
+    @OnThread(Tag.Any)
+    synchronized LocationMap getLocationMap()
+    {
+        if (locationMap == null)
+            locationMap = owner.toXML().buildLocationMap();
+        return locationMap;
+    }
+
+    private static class DocAndPositions
+    {
+        public final JavaSource java;
+        public final IdentityHashMap<JavaFragment, Integer> fragmentPositions;
+        private final String src;
+        private HoleDocument holeDocument;
+        private JavaSyntaxView document;
+        // The previous version's document, which we can take over rather than making a new one:
+        private DocAndPositions previous;
+
+        public DocAndPositions(String src, JavaSource java, IdentityHashMap<JavaFragment, Integer> fragmentPositions, DocAndPositions previous)
+        {
+            this.src = src;
+            this.java = java;
+            this.fragmentPositions = fragmentPositions;
+            // As with the analysis documents, skip over versions which never made a document:
+            this.previous = previous != null && previous.document == null ? previous.previous : previous;
+            if (previous != null)
+                previous.previous = null;
+        }
+
+        @OnThread(Tag.FXPlatform)
+        public JavaSyntaxView getDocument(EntityResolver projectResolver)
+        {
+            if (document == null && previous != null && previous.document != null)
+            {
+                // Take over the previous document and replace just the part that differs,
+                // so that the parser only needs to reparse around the change:
+                this.holeDocument = previous.holeDocument;
+                this.document = previous.document;
+                String oldSrc = previous.src;
+                int prefix = 0;
+                int maxPrefix = Math.min(oldSrc.length(), src.length());
+                while (prefix < maxPrefix && oldSrc.charAt(prefix) == src.charAt(prefix))
+                    prefix += 1;
+                int suffix = 0;
+                int maxSuffix = maxPrefix - prefix;
+                while (suffix < maxSuffix && oldSrc.charAt(oldSrc.length() - 1 - suffix) == src.charAt(src.length() - 1 - suffix))
+                    suffix += 1;
+                if (prefix != oldSrc.length() - suffix || prefix != src.length() - suffix)
+                    holeDocument.replaceText(prefix, oldSrc.length() - suffix, src.substring(prefix, src.length() - suffix));
+                previous.holeDocument = null;
+                previous.document = null;
+            }
+            previous = null;
+            if (document == null)
+            {
+                holeDocument = new HoleDocument();
+                this.document = new JavaSyntaxView(holeDocument, null, new ScopeColorsBorderPane(), projectResolver, new ReadOnlyBooleanWrapper(false));
+                holeDocument.replaceText(0, 0, src);
+                this.document.enableParser(true);
+            }
+            return document;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2018,2019,2020,2021 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2018,2019,2020,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -27,9 +27,7 @@ import bluej.debugger.gentype.GenTypeClass;
 import bluej.debugger.gentype.JavaType;
 import bluej.debugger.gentype.MethodReflective;
 import bluej.debugger.gentype.Reflective;
-import bluej.editor.flow.HoleDocument;
 import bluej.editor.flow.JavaSyntaxView;
-import bluej.editor.flow.ScopeColorsBorderPane;
 import bluej.parser.AssistContent.CompletionKind;
 import bluej.parser.AssistContent.ParamInfo;
 import bluej.parser.ExpressionTypeInfo;
@@ -47,6 +45,7 @@ import bluej.stride.framedjava.ast.NameDefSlotFragment;
 import bluej.stride.framedjava.ast.Parser;
 import bluej.stride.framedjava.ast.SlotFragment;
 import bluej.stride.framedjava.ast.TypeSlotFragment;
+import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.stride.framedjava.errors.CodeError;
 import bluej.stride.framedjava.errors.ErrorShower;
 import bluej.stride.framedjava.errors.SyntaxCodeError;
@@ -57,7 +56,6 @@ import bluej.parser.AssistContentThreadSafe;
 import bluej.stride.generic.Frame.ShowReason;
 import bluej.stride.generic.InteractionManager;
 import bluej.utility.Utility;
-import javafx.beans.property.ReadOnlyBooleanWrapper;
 import nu.xom.Attribute;
 import nu.xom.Element;
 import threadchecker.OnThread;
@@ -66,8 +64,6 @@ import threadchecker.Tag;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -109,26 +105,8 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
     private final FrameFragment openingCurly;
     private final FrameFragment closingCurly;
     private JavaFragment classKeyword;
-    /**
-     * The generated Java code for this class, used for doing code completion without
-     * needing to always regenerate the document.
-     */
-    private DocAndPositions sourceDocument;
-    // Keep track of which slot was completing when we generated sourceDocument,
-    // as this affects the content of the document, and we may have to regenerate.
-    private ExpressionSlot<?> sourceDocumentCompleting;
-    /**
-     * A map of documents for given contents.  This guards against race hazards, so
-     * that we use the correct document for the given content, even when we are hopping
-     * across threads and potentially generating several documents in a short space
-     * of time, concurrent with looking up information in them.
-     *
-     * This cache does not have a size limit, but that shouldn't matter as it is per-instance
-     * so the only potential differences in source code are down to which slot is being completed,
-     * giving a limit on the number of documents we could generate for a given source version
-     * (each ClassElement is immutable).
-     */
-    private final HashMap<String, DocAndPositions> documentCache = new HashMap<>();
+    /** The generated source, analysis document and location map for this element */
+    private final AnalysisDocument analysis;
 
     /**
      * Creates a class element from the given frame (when generating code elements for
@@ -166,6 +144,7 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
             this.documentation = new JavadocUnit("");
         }
         this.projectResolver = projectResolver;
+        this.analysis = new AnalysisDocument(this, this::generateJavaSource, projectResolver);
     }
 
     /**
@@ -198,6 +177,7 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
        
         enable = Boolean.valueOf(el.getAttributeValue("enable"));
         this.projectResolver = projectResolver;
+        this.analysis = new AnalysisDocument(this, this::generateJavaSource, projectResolver);
         this.openingCurly = new FrameFragment(null, this, "{");
         this.closingCurly = new FrameFragment(null, this, "}");
     }
@@ -217,7 +197,7 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
     @OnThread(Tag.FXPlatform)
     public JavaSource toJavaSource()
     {
-        return getDAP(null).java;
+        return analysis.getJavaSource();
     }
 
     @OnThread(Tag.FXPlatform)
@@ -409,9 +389,7 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
     @OnThread(Tag.FXPlatform)
     private Optional<Integer> resolvePos(JavaSyntaxView doc, PosInSourceDoc pos)
     {
-        DocAndPositions docAndPositions = documentCache.get(doc.getFullText());
-        Optional<Integer> resolvedPos = Optional.ofNullable(docAndPositions.fragmentPositions.get(pos.getFragment()));
-        return resolvedPos.map(p -> p + pos.offset);
+        return analysis.resolvePos(doc, pos);
     }
 
     @Override
@@ -442,35 +420,17 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
     @OnThread(Tag.FXPlatform)
     private JavaSyntaxView getSourceDocument(ExpressionSlot completing)
     {
-        JavaSyntaxView doc = getDAP(completing).getDocument(projectResolver);
-        // There is no scheduled parsing for off-screen documents so we must manually finish any reparsing:
-        doc.flushReparseQueue();
-        return doc;
+        return analysis.getDocument(completing);
     }
     
-    @OnThread(Tag.FXPlatform)
-    private synchronized DocAndPositions getDAP(ExpressionSlot completing)
+    /**
+     * Records that this element is the new version of the given element, generated from the
+     * same frame, so that our analysis document can take over and patch the previous one.
+     */
+    @OnThread(Tag.Any)
+    public void replaces(ClassElement previous)
     {
-        if (sourceDocument == null || sourceDocumentCompleting != completing)
-        {
-            IdentityHashMap<JavaFragment, Integer> positions = new IdentityHashMap<>();
-            sourceDocumentCompleting = completing;
-            JavaSource java = generateJavaSource();
-            String src = java.toMemoryJavaCodeString(positions, completing);
-            if (documentCache.containsKey(src))
-            {
-                // No need to generate and parse it again, just use existing one, but
-                // add in our positions in case they used different fragments:
-                sourceDocument = documentCache.get(src);
-                sourceDocument.fragmentPositions.putAll(positions);
-            }
-            else
-            {
-                sourceDocument = new DocAndPositions(src, java, positions);
-                documentCache.put(src, sourceDocument);
-            }
-        }
-        return sourceDocument;
+        analysis.replaces(previous.analysis);
     }
 
     @Override
@@ -623,38 +583,17 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
             .collect(Collectors.toList());
     }
 
-    private static class DocAndPositions
+    @Override
+    @OnThread(Tag.FXPlatform)
+    public Stream<SyntaxCodeError> findEarlyErrors()
     {
-        public final JavaSource java;
-        public final IdentityHashMap<JavaFragment, Integer> fragmentPositions;
-        private String src;
-        private JavaSyntaxView document;
-
-        public DocAndPositions(String src, JavaSource java, IdentityHashMap<JavaFragment, Integer> fragmentPositions)
-        {
-            this.src = src;
-            this.java = java;
-            this.fragmentPositions = fragmentPositions;
-        }
-        
-        @OnThread(Tag.FXPlatform)
-        public JavaSyntaxView getDocument(EntityResolver projectResolver)
-        {
-            if (document == null)
-            {
-                HoleDocument doc = new HoleDocument();
-                this.document = new JavaSyntaxView(doc, null, new ScopeColorsBorderPane(), projectResolver, new ReadOnlyBooleanWrapper(false));
-                doc.replaceText(0, 0, src);
-                this.document.enableParser(true);
-            }
-            return document;
-        }
+        return findEarlyErrors(getLocationMap());
     }
 
     @Override
-    @OnThread(Tag.FXPlatform)
-    public Stream<SyntaxCodeError> findEarlyErrors()
+    @OnThread(Tag.Any)
+    public LocationMap getLocationMap()
     {
-        return findEarlyErrors(toXML().buildLocationMap());
+        return analysis.getLocationMap();
     }
 }
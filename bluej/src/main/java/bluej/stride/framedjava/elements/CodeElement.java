@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -25,13 +25,11 @@ package bluej.stride.framedjava.elements;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
-import bluej.stride.framedjava.errors.DirectSlotError;
 import bluej.stride.generic.InteractionManager;
 import nu.xom.Attribute;
 import nu.xom.Element;
@@ -80,12 +78,16 @@ public abstract class CodeElement
         return toJavaSource().getAllFragments().flatMap(fragment -> fragment.findEarlyErrors().peek(e -> e.recordPath(rootPathMap.locationFor(fragment))));
     }
 
+    /**
+     * Gets the slots directly within this element which should be checked for late errors
+     * (see SlotFragment.findLateErrors): none, if the element is disabled.
+     */
     @OnThread(Tag.FXPlatform)
-    public final Stream<Future<List<DirectSlotError>>> findDirectLateErrors(InteractionManager editor, LocationMap rootPathMap)
+    public final Stream<SlotFragment> getDirectSlotFragmentsToCheck()
     {
         if (!isEnable())
             return Stream.empty();
-        return getDirectSlotFragments().map(g -> g.findLateErrors(editor, this, rootPathMap)).filter(x -> x != null);
+        return getDirectSlotFragments();
     }
     
     protected abstract Stream<SlotFragment> getDirectSlotFragments();
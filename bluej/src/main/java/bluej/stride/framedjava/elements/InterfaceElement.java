@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program.
- Copyright (C) 2014,2015,2016,2019,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2019,2020,2026 Michael Kölling and John Rosenberg
 
  This program is free software; you can redistribute it and/or
  modify it under the terms of the GNU General Public License
@@ -22,9 +22,6 @@
 package bluej.stride.framedjava.elements;
 
 import bluej.debugger.gentype.ConstructorReflective;
-import bluej.editor.flow.HoleDocument;
-import bluej.editor.flow.JavaSyntaxView;
-import bluej.editor.flow.ScopeColorsBorderPane;
 import bluej.parser.ExpressionTypeInfo;
 import bluej.parser.entity.EntityResolver;
 import bluej.parser.nodes.ReparseableDocument;
@@ -36,6 +33,7 @@ import bluej.stride.framedjava.ast.JavadocUnit;
 import bluej.stride.framedjava.ast.NameDefSlotFragment;
 import bluej.stride.framedjava.ast.SlotFragment;
 import bluej.stride.framedjava.ast.TypeSlotFragment;
+import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.stride.framedjava.errors.SyntaxCodeError;
 import bluej.stride.framedjava.frames.InterfaceFrame;
 import bluej.stride.framedjava.frames.TopLevelFrame;
@@ -45,7 +43,6 @@ import bluej.stride.generic.Frame.ShowReason;
 import bluej.stride.generic.InteractionManager;
 import bluej.utility.Utility;
 import javafx.application.Platform;
-import javafx.beans.property.ReadOnlyBooleanWrapper;
 import nu.xom.Element;
 import threadchecker.OnThread;
 import threadchecker.Tag;
@@ -53,8 +50,6 @@ import threadchecker.Tag;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -78,26 +73,8 @@ public class InterfaceElement extends DocumentContainerCodeElement implements To
     private final FrameFragment openingCurly = new FrameFragment(this.frame, this, "{");
     private final FrameFragment closingCurly = new FrameFragment(this.frame, this, "}");
     private JavaFragment interfaceKeyword;
-    /**
-     * The generated Java code for this interface, used for doing code completion without
-     * needing to always regenerate the document.
-     */
-    private DocAndPositions sourceDocument;
-    // Keep track of which slot was active when we generated the document,
-    // as if affects results:
-    private ExpressionSlot<?> sourceDocumentCompleting;
-    /**
-     * A map of documents for given contents.  This guards against race hazards, so
-     * that we use the correct document for the given content, even when we are hopping
-     * across threads and potentially generating several documents in a short space
-     * of time, concurrent with looking up information in them.
-     *
-     * This cache does not have a size limit, but that shouldn't matter as it is per-instance
-     * so the only potential differences in source code are down to which slot is being completed,
-     * giving a limit on the number of documents we could generate for a given source version
-     * (each InterfaceElement is immutable).
-     */
-    private final HashMap<String, DocAndPositions> documentCache = new HashMap<>();
+    /** The generated source, analysis document and location map for this element */
+    private final AnalysisDocument analysis;
     public InterfaceElement(InterfaceFrame frame, EntityResolver projectResolver, NameDefSlotFragment interfaceName,
                 List<TypeSlotFragment> extendsTypes, List<CodeElement> fields, List<CodeElement> methods,
                 JavadocUnit documentation, String packageName, List<ImportElement> imports, boolean enabled)
@@ -119,11 +96,13 @@ public class InterfaceElement extends DocumentContainerCodeElement implements To
 
         this.enable = enabled;
         this.projectResolver = projectResolver;
+        this.analysis = new AnalysisDocument(this, this::generateJavaSource, projectResolver);
     }
 
     public InterfaceElement(Element el, EntityResolver projectResolver, String packageName)
     {
         this.projectResolver = projectResolver;
+        this.analysis = new AnalysisDocument(this, this::generateJavaSource, projectResolver);
         interfaceName = new NameDefSlotFragment(el.getAttributeValue("name"));
         Element javadocEL = el.getFirstChildElement("javadoc");
         if (javadocEL != null)
@@ -199,7 +178,7 @@ public class InterfaceElement extends DocumentContainerCodeElement implements To
     @OnThread(Tag.FXPlatform)
     public JavaSource toJavaSource()
     {
-        return getDAP(null).java;
+        return analysis.getJavaSource();
     }
 
     @OnThread(Tag.FXPlatform)
@@ -322,35 +301,17 @@ public class InterfaceElement extends DocumentContainerCodeElement implements To
     @OnThread(Tag.FXPlatform)
     private ReparseableDocument getSourceDocument(ExpressionSlot completing)
     {
-        JavaSyntaxView doc = getDAP(completing).getDocument(projectResolver);
-        // There is no scheduled parsing for off-screen documents so we must manually finish any reparsing:
-        doc.flushReparseQueue();
-        return doc;
+        return analysis.getDocument(completing);
     }
 
-    @OnThread(Tag.FXPlatform)
-    private synchronized DocAndPositions getDAP(ExpressionSlot completing)
+    /**
+     * Records that this element is the new version of the given element, generated from the
+     * same frame, so that our analysis document can take over and patch the previous one.
+     */
+    @OnThread(Tag.Any)
+    public void replaces(InterfaceElement previous)
     {
-        if (sourceDocument == null || sourceDocumentCompleting != completing)
-        {
-            IdentityHashMap<JavaFragment, Integer> positions = new IdentityHashMap<>();
-            sourceDocumentCompleting = completing;
-            JavaSource java = generateJavaSource();
-            String src = java.toMemoryJavaCodeString(positions, completing);
-            if (documentCache.containsKey(src))
-            {
-                // No need to generate and parse it again, just use existing one, but
-                // add in our positions in case they used different fragments:
-                sourceDocument = documentCache.get(src);
-                sourceDocument.fragmentPositions.putAll(positions);
-            }
-            else
-            {
-                sourceDocument = new DocAndPositions(src, java, positions);
-                documentCache.put(src, sourceDocument);
-            }
-        }
-        return sourceDocument;
+        analysis.replaces(previous.analysis);
     }
     
     @Override
@@ -386,37 +347,16 @@ public class InterfaceElement extends DocumentContainerCodeElement implements To
         return Collections.emptyList();
     }
 
-    private static class DocAndPositions
+    @Override
+    public Stream<SyntaxCodeError> findEarlyErrors()
     {
-        public final JavaSource java;
-        public final IdentityHashMap<JavaFragment, Integer> fragmentPositions;
-        private String src;
-        private JavaSyntaxView document;
-
-        public DocAndPositions(String src, JavaSource java, IdentityHashMap<JavaFragment, Integer> fragmentPositions)
-        {
-            this.src = src;
-            this.java = java;
-            this.fragmentPositions = fragmentPositions;
-        }
-
-        @OnThread(Tag.FXPlatform)
-        public JavaSyntaxView getDocument(EntityResolver projectResolver)
-        {
-            if (document == null)
-            {
-                HoleDocument doc = new HoleDocument();
-                this.document = new JavaSyntaxView(doc, null, new ScopeColorsBorderPane(), projectResolver, new ReadOnlyBooleanWrapper(false));
-                doc.replaceText(0, 0, src);
-                this.document.enableParser(true);
-            }
-            return document;
-        }
+        return findEarlyErrors(getLocationMap());
     }
 
     @Override
-    public Stream<SyntaxCodeError> findEarlyErrors()
+    @OnThread(Tag.Any)
+    public LocationMap getLocationMap()
     {
-        return findEarlyErrors(toXML().buildLocationMap());
+        return analysis.getLocationMap();
     }
 }
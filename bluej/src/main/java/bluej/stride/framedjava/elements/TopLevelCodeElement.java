@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2019,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2019,2020,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -41,6 +41,7 @@ import bluej.parser.entity.EntityResolver;
 import bluej.stride.framedjava.ast.JavaFragment.PosInSourceDoc;
 import bluej.stride.framedjava.ast.JavaSource;
 import bluej.stride.framedjava.ast.Loader;
+import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.stride.framedjava.errors.SyntaxCodeError;
 import bluej.stride.framedjava.frames.TopLevelFrame;
 import bluej.stride.framedjava.slots.ExpressionSlot;
@@ -131,6 +132,14 @@ public interface TopLevelCodeElement
     @OnThread(Tag.FXPlatform)
     public Stream<SyntaxCodeError> findEarlyErrors();
 
+    /**
+     * Gets the map from fragments to their location in the XML for this code.  The map is
+     * built on first request, and then kept: the element is not modified after creation, so
+     * the map remains valid until the element is replaced by a newly generated one.
+     */
+    @OnThread(Tag.Any)
+    public LocationMap getLocationMap();
+
     @OnThread(Tag.FXPlatform)
     public JavaSource toJavaSource();
 
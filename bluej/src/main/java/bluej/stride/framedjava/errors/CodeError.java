@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2018,2019,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2018,2019,2020,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -114,6 +114,15 @@ public abstract class CodeError
         flaggedAsOld = true;
     }
 
+    /**
+     * Undoes flagAsOld, for an error which is still current (e.g. a late error for a slot
+     * which has not changed since the error was found), so that removeOldErrors keeps it.
+     */
+    public void unflagAsOld()
+    {
+        flaggedAsOld = false;
+    }
+
     /**
      * Check if the error has been flagged as old (i.e. from a compilation which
      * is no longer the latest compilation).
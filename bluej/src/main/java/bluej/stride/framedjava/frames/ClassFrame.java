@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2023 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2023,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -228,10 +228,13 @@ public class ClassFrame extends TopLevelDocumentMultiCanvasFrame<ClassElement>
         List<CodeElement> constructors = getMembers(constructorsCanvas);
         List<CodeElement> methods = getMembers(methodsCanvas);
         List<ImportElement> imports = Utility.mapList(getMembers(importCanvas), e -> (ImportElement)e);
+        ClassElement previous = element;
         element = new ClassElement(this, projectResolver, abstractModifier.get(), paramName.getSlotElement(),
                     showingExtends.get() && !extendsSlot.getText().equals("") ? extendsSlot.getSlotElement() : null,
                     implementsSlot.getTypes(), fields, constructors, methods, new JavadocUnit(getDocumentation()),
                     packageNameLabel == null ? null : packageNameLabel.getText(), imports, frameEnabledProperty.get());
+        if (previous != null)
+            element.replaces(previous);
     }
 
     @Override
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015 Michael Kölling and John Rosenberg 
+ Copyright (C) 2014,2015,2026 Michael Kölling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,6 +22,7 @@
 package bluej.stride.framedjava.frames;
 
 import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.generic.Frame;
 
 public interface CodeFrame<T extends CodeElement>
 {   
@@ -29,6 +30,28 @@ public interface CodeFrame<T extends CodeElement>
      * Regenerates the AST.  The next return of getCode() may well be different afterwards.
      */
     void regenerateCode();
+
+    /**
+     * Regenerates the AST, unless nothing in this frame (or the frames within it) has
+     * changed since the last regeneration, in which case the existing code is kept.
+     * Containers should use this on their children, so that an edit to one frame only
+     * regenerates that frame and the frames enclosing it.
+     */
+    default void regenerateCodeIfChanged()
+    {
+        if (this instanceof Frame)
+        {
+            Frame frame = (Frame)this;
+            if (frame.isCodeUpToDate() && getCode() != null)
+                return;
+            regenerateCode();
+            frame.setCodeUpToDate();
+        }
+        else
+        {
+            regenerateCode();
+        }
+    }
     
     /**
      * Gets the latest code.  Should not change unless regenerateCode is called.
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2021,2022 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2021,2022,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -159,6 +159,8 @@ public class VarFrame extends SingleLineFrame implements CodeFrame<VarElement>,
             if (!showing) {
                 slotValue.cleanup();
             }
+            // Whether we generate the value can depend on whether it is showing:
+            markCodeChanged();
         });
 
         FXRunnable runAddValSlot = () -> {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2021,2022 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2021,2022,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -237,7 +237,7 @@ public class WhileFrame extends SingleCanvasFrame
     {
         List<CodeElement> contents = new ArrayList<CodeElement>();
         canvas.getBlocksSubtype(CodeFrame.class).forEach(f -> {
-            f.regenerateCode();
+            f.regenerateCodeIfChanged();
             contents.add(f.getCode());
         });
         return contents;
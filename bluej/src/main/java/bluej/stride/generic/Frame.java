@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -261,6 +261,14 @@ public abstract class Frame implements CursorFinder, FocusParent<FrameContentIte
      */
     private boolean alwaysBeenBlank = true;
 
+    /**
+     * Whether the code element from the last call to regenerateCode (if this is a CodeFrame)
+     * still reflects the frame's content.  Cleared by markCodeChanged() on this frame and all
+     * its ancestors whenever the frame is modified, so that regeneration can skip unchanged
+     * subtrees and reuse their existing elements.
+     */
+    private boolean codeUpToDate = false;
+
     protected Map<String, BooleanProperty> modifiers = new HashMap<>();
     /**
      * Creates a new frame.
@@ -580,6 +588,11 @@ public abstract class Frame implements CursorFinder, FocusParent<FrameContentIte
     {
         FrameCanvas oldCanvas = this.parentCanvas;
         this.parentCanvas = parentCanvas;
+        // The code of some frames depends on where they are (e.g. fields vs local variables),
+        // and the enclosing frames' code changes whenever a child is added or removed:
+        markAllCodeChanged();
+        if (oldCanvas != null && oldCanvas.getParent() != null && oldCanvas.getParent().getFrame() != null)
+            oldCanvas.getParent().getFrame().markCodeChanged();
         // We update all frames in the old and new canvas
         // Only way to make var frames update and hide/show caption correctly
         if (oldCanvas != null)
@@ -1400,6 +1413,54 @@ public abstract class Frame implements CursorFinder, FocusParent<FrameContentIte
         alwaysBeenBlank = alwaysBeenBlank && isAlmostBlank();
     }
 
+    /**
+     * Notes that the content of this frame has changed, so that its code (and that of all
+     * the frames enclosing it) must be regenerated next time, rather than reused.
+     */
+    public void markCodeChanged()
+    {
+        for (Frame f = this; f != null; f = f.getEnclosingFrame())
+        {
+            f.codeUpToDate = false;
+        }
+    }
+
+    /**
+     * Like markCodeChanged, but also marks every frame contained within this one as changed.
+     */
+    public void markAllCodeChanged()
+    {
+        markCodeChanged();
+        getAllFrames().forEach(f -> f.codeUpToDate = false);
+    }
+
+    /**
+     * Whether the code last generated by this frame is still up-to-date.  See CodeFrame.regenerateCodeIfChanged
+     */
+    public boolean isCodeUpToDate()
+    {
+        return codeUpToDate;
+    }
+
+    /**
+     * Records that the code for this frame has just been regenerated.  See CodeFrame.regenerateCodeIfChanged
+     */
+    public void setCodeUpToDate()
+    {
+        codeUpToDate = true;
+    }
+
+    /**
+     * Gets the frame enclosing this one, or null if there is none (e.g. top-level frames,
+     * or frames which have not been inserted anywhere yet).
+     */
+    private Frame getEnclosingFrame()
+    {
+        if (parentCanvas == null || parentCanvas.getParent() == null)
+            return null;
+        return parentCanvas.getParent().getFrame();
+    }
+
     /**
      * Called when escape has been pressed within the frame.
      * @param srcRow The row in which escape was pressed
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2015,2016,2020,2021 Michael Kölling and John Rosenberg
+ Copyright (C) 2015,2016,2020,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -198,13 +198,13 @@ public abstract class SandwichCanvasesFrame extends MultiCanvasFrame
     {
         List<CodeElement> firstCanvasContents = new ArrayList<>();
         firstCanvas.getBlocksSubtype(CodeFrame.class).forEach(f -> {
-            f.regenerateCode();
+            f.regenerateCodeIfChanged();
             firstCanvasContents.add(f.getCode());
         });
 
         List<List<CodeElement>> intermediateCanvasesContents = Utility.mapList(intermediateCanvases, canvas ->
             Utility.mapList(canvas.getBlocksSubtype(CodeFrame.class), f -> {
-                f.regenerateCode();
+                f.regenerateCodeIfChanged();
                 return f.getCode();
             })
         );
@@ -213,7 +213,7 @@ public abstract class SandwichCanvasesFrame extends MultiCanvasFrame
         if (tailCanvas != null) {
             tailCanvasContents = new ArrayList<>();
             for (CodeFrame<?> f : tailCanvas.getBlocksSubtype(CodeFrame.class)) {
-                f.regenerateCode();
+                f.regenerateCodeIfChanged();
                 tailCanvasContents.add(f.getCode());
             }
         }
@@ -0,0 +1,268 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.terminal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import bluej.utility.javafx.FXPlatformRunnable;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A buffer between the threads which read output (standard output and standard error)
+ * from the debug VM and the thread which displays it (the FX thread).
+ * 
+ * <p>Output is added without locking, and all the output which is pending when the
+ * display thread gets round to it is delivered in one go, so that a program producing
+ * output quickly causes one append per stream per display pulse rather than one per
+ * chunk read. Both streams share the buffer, so output is delivered in the order
+ * in which it was written, whichever stream it was written to. The amount of pending output is bounded; once it is reached, the writer
+ * either waits for the display to catch up (limiting the program's output to the speed
+ * at which it can be displayed) or, if so configured, the output is dropped (and a
+ * note of how much was dropped is delivered instead).
+ */
+@OnThread(Tag.Any)
+final class OutputBuffer
+{
+    /** What to do with output written when the buffer is full */
+    enum OverflowPolicy { BLOCK, DROP }
+    
+    /**
+     * Receives the output from the buffer.
+     */
+    interface Sink
+    {
+        /**
+         * Display some output.  Consecutive output to the same stream is combined.
+         * 
+         * @param isError  Whether the output was written to standard error (rather than standard output)
+         */
+        @OnThread(Tag.FXPlatform)
+        void output(boolean isError, String text);
+
+        /**
+         * Note that some output was dropped because the buffer was full.
+         */
+        @OnThread(Tag.FXPlatform)
+        void dropped(long chars);
+    }
+    
+    /**
+     * The throughput of the buffer over some period.
+     * 
+     * @param lines  The number of lines delivered
+     * @param droppedChars  The number of characters dropped (rather than delivered)
+     * @param millis  The time between the first output being written and the last being delivered
+     */
+    @OnThread(Tag.Any)
+    record Throughput(long lines, long droppedChars, long millis)
+    {
+        long linesPerSecond()
+        {
+            return (millis == 0) ? lines : lines * 1000 / millis;
+        }
+    }
+    
+    private final long capacity;
+    private final OverflowPolicy policy;
+    private final Consumer<FXPlatformRunnable> deliveryScheduler;
+    private final Sink sink;
+    
+    /** Some output, and the stream it was written to */
+    @OnThread(Tag.Any)
+    private record Chunk(boolean isError, String text) { }
+    
+    private final ConcurrentLinkedQueue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+    // The number of characters written but not yet delivered:
+    private final AtomicLong pendingChars = new AtomicLong();
+    // Whether a delivery has been scheduled (and not yet started):
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    // The number of characters dropped since the last delivery:
+    private final AtomicLong droppedChars = new AtomicLong();
+    // A writer waiting for space in the buffer, if any:
+    private volatile Thread waitingWriter;
+    
+    // Statistics, since last taken:
+    private final AtomicLong linesDelivered = new AtomicLong();
+    private final AtomicLong totalDropped = new AtomicLong();
+    private final AtomicLong firstWriteTime = new AtomicLong();
+    private volatile long lastDeliveryTime;
+    
+    /**
+     * @param capacity  The maximum number of characters pending delivery
+     * @param policy    What to do with output written while the buffer is full
+     * @param deliveryScheduler  Runs a delivery on the FX thread (e.g. JavaFXUtil::runPlatformLater)
+     * @param sink      Receives the output, on the FX thread
+     */
+    OutputBuffer(long capacity, OverflowPolicy policy, Consumer<FXPlatformRunnable> deliveryScheduler, Sink sink)
+    {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.deliveryScheduler = deliveryScheduler;
+        this.sink = sink;
+    }
+    
+    /**
+     * Add some output, to be delivered to the sink. If the buffer is full this may wait
+     * until there is space, or drop the output, depending on the overflow policy.
+     * 
+     * @param isError  Whether the output was written to standard error (rather than standard output)
+     */
+    void write(boolean isError, String s)
+    {
+        if (s.isEmpty()) {
+            return;
+        }
+        firstWriteTime.compareAndSet(0, System.currentTimeMillis());
+        
+        if (pendingChars.get() + s.length() > capacity && pendingChars.get() > 0) {
+            if (policy == OverflowPolicy.DROP) {
+                droppedChars.addAndGet(s.length());
+                scheduleDelivery();
+                return;
+            }
+            waitForSpace(s.length());
+        }
+        
+        pendingChars.addAndGet(s.length());
+        chunks.add(new Chunk(isError, s));
+        scheduleDelivery();
+    }
+    
+    /**
+     * Wait until the pending output plus the given amount fits in the buffer (or the
+     * buffer is empty, if the amount alone is more than will fit).
+     */
+    private void waitForSpace(int length)
+    {
+        waitingWriter = Thread.currentThread();
+        try {
+            while (pendingChars.get() + length > capacity && pendingChars.get() > 0) {
+                scheduleDelivery();
+                // Woken by deliver(); the timeout is a safeguard against a missed wake-up:
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(50));
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        finally {
+            waitingWriter = null;
+        }
+    }
+    
+    private void scheduleDelivery()
+    {
+        if (deliveryScheduled.compareAndSet(false, true)) {
+            deliveryScheduler.accept(this::deliver);
+        }
+    }
+    
+    /**
+     * Deliver all pending output to the sink, combining consecutive output to the same stream.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void deliver()
+    {
+        // Clear the flag before taking the output, so that any output added after
+        // we have finished taking it will schedule another delivery:
+        deliveryScheduled.set(false);
+        
+        List<Chunk> output = new ArrayList<>();
+        long dropped = droppedChars.getAndSet(0);
+        long taken = 0;
+        long lines = 0;
+        StringBuilder run = new StringBuilder();
+        boolean runIsError = false;
+        Chunk chunk;
+        while ((chunk = chunks.poll()) != null) {
+            if (run.length() > 0 && chunk.isError() != runIsError) {
+                output.add(new Chunk(runIsError, run.toString()));
+                run.setLength(0);
+            }
+            runIsError = chunk.isError();
+            run.append(chunk.text());
+            taken += chunk.text().length();
+            lines += countLines(chunk.text());
+        }
+        if (run.length() > 0) {
+            output.add(new Chunk(runIsError, run.toString()));
+        }
+        pendingChars.addAndGet(-taken);
+        Thread writer = waitingWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+        
+        if (!output.isEmpty()) {
+            linesDelivered.addAndGet(lines);
+            lastDeliveryTime = System.currentTimeMillis();
+            for (Chunk c : output) {
+                sink.output(c.isError(), c.text());
+            }
+        }
+        if (dropped > 0) {
+            totalDropped.addAndGet(dropped);
+            sink.dropped(dropped);
+        }
+    }
+    
+    private static long countLines(CharSequence s)
+    {
+        long lines = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+    
+    /**
+     * Check whether there is output which has been written but not yet delivered.
+     */
+    boolean hasPendingOutput()
+    {
+        return pendingChars.get() > 0 || droppedChars.get() > 0;
+    }
+    
+    /**
+     * Get the throughput since this was last called (or since the buffer was created),
+     * and start measuring again.
+     */
+    Throughput takeThroughput()
+    {
+        long start = firstWriteTime.getAndSet(0);
+        long lines = linesDelivered.getAndSet(0);
+        long dropped = totalDropped.getAndSet(0);
+        long millis = (start == 0) ? 0 : Math.max(0, lastDeliveryTime - start);
+        return new Throughput(lines, dropped, millis);
+    }
+}
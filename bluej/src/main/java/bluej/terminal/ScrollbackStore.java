@@ -0,0 +1,514 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.terminal;
+
+import bluej.editor.base.TextLine.StyledSegment;
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * The lines of content in a terminal text pane.
+ * 
+ * <p>Lines are held in fixed-size chunks.  The most recently used chunks are kept in memory;
+ * once there are too many, the least recently used are written out ("spilled") to
+ * memory-mapped temporary files, and read back in when they are next needed.  So a program
+ * which prints millions of lines does not use up the heap, while the lines which are being
+ * displayed (usually the most recent) stay in memory.
+ * 
+ * <p>The length of every line is always kept in memory, so that line lengths, character
+ * positions and the longest line can be found without reading a spilled chunk.  Style classes
+ * are stored once in a table shared by all chunks, and custom style data (e.g. stack trace
+ * locations, which are rare) is kept in memory alongside each chunk rather than being written out.
+ * 
+ * <p>There is always at least one line.
+ */
+@OnThread(Tag.FXPlatform)
+class ScrollbackStore
+{
+    // The number of lines in each chunk.  All chunks but the last are full:
+    private static final int CHUNK_LINES = 1024;
+    // The maximum number of chunks to keep in memory:
+    private static final int MAX_RESIDENT_CHUNKS = 32;
+    // The size of each spill file; a chunk larger than this gets a file of its own:
+    private static final int SPILL_FILE_BYTES = 16 * 1024 * 1024;
+    
+    private final ArrayList<Chunk> chunks = new ArrayList<>();
+    // The number of lines at the start of the first chunk which have been removed:
+    private int removedLines;
+    // The chunks in memory, least recently used first:
+    private final LinkedHashSet<Chunk> resident = new LinkedHashSet<>();
+    
+    // The character position of the start of each chunk (ignoring removed lines), or null
+    // if it needs recalculating:
+    private long[] chunkStartPositions;
+    // The (internal) index of the longest line, or -1 if it needs recalculating:
+    private int longestLine = -1;
+    
+    // Style classes, indexed for spilling:
+    private final ArrayList<List<String>> styles = new ArrayList<>();
+    private final HashMap<List<String>, Integer> styleIndexes = new HashMap<>();
+    
+    // The spill file currently being written to, if any:
+    private SpillFile currentSpillFile;
+    // Set if spilling has failed, in which case we keep everything in memory:
+    private boolean spillFailed;
+    
+    ScrollbackStore()
+    {
+        clear();
+    }
+    
+    /**
+     * Remove all content, leaving a single empty line.
+     */
+    public void clear()
+    {
+        for (Chunk chunk : chunks)
+        {
+            chunk.releaseSpill();
+        }
+        chunks.clear();
+        resident.clear();
+        removedLines = 0;
+        if (currentSpillFile != null)
+        {
+            currentSpillFile.delete();
+            currentSpillFile = null;
+        }
+        chunkStartPositions = null;
+        longestLine = -1;
+        add(new ContentLine(new ArrayList<>()));
+    }
+    
+    /**
+     * The number of lines.
+     */
+    public int size()
+    {
+        return (chunks.size() - 1) * CHUNK_LINES + chunks.get(chunks.size() - 1).lineCount - removedLines;
+    }
+    
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+    
+    /**
+     * Get the given line, reading it back in if it has been spilled.
+     */
+    public ContentLine get(int line)
+    {
+        int index = checkIndex(line);
+        return loadChunk(index / CHUNK_LINES).lines.get(index % CHUNK_LINES);
+    }
+    
+    /**
+     * Get the text of the given line.
+     */
+    public String getText(int line)
+    {
+        return get(line).getText();
+    }
+    
+    /**
+     * Get the length of the given line (without reading it back in if it has been spilled).
+     */
+    public int getLineLength(int line)
+    {
+        int index = checkIndex(line);
+        return chunks.get(index / CHUNK_LINES).lineLengths[index % CHUNK_LINES];
+    }
+    
+    /**
+     * Replace the given line.  The text should be unchanged (i.e. only the styles differ).
+     */
+    public void set(int line, ContentLine contentLine)
+    {
+        int index = checkIndex(line);
+        Chunk chunk = loadChunk(index / CHUNK_LINES);
+        chunk.lines.set(index % CHUNK_LINES, contentLine);
+        // The spilled copy (if any) is now out of date:
+        chunk.releaseSpill();
+    }
+    
+    /**
+     * Add a new line at the end.
+     */
+    public void add(ContentLine contentLine)
+    {
+        Chunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (last == null || last.lineCount == CHUNK_LINES)
+        {
+            last = new Chunk();
+            chunks.add(last);
+            chunkStartPositions = null;
+        }
+        last = loadChunk(chunks.size() - 1);
+        last.lines.add(contentLine);
+        last.lineLengths[last.lineCount] = contentLine.getText().length();
+        last.lineCount += 1;
+        last.releaseSpill();
+        lastLineChanged();
+    }
+    
+    /**
+     * Append a segment to the end of the last line.
+     */
+    public void appendToLastLine(StyledSegment segment)
+    {
+        Chunk last = loadChunk(chunks.size() - 1);
+        ContentLine line = last.lines.get(last.lineCount - 1);
+        line.append(segment);
+        last.lineLengths[last.lineCount - 1] = line.getText().length();
+        last.releaseSpill();
+        lastLineChanged();
+    }
+    
+    /**
+     * Remove the given number of lines from the start.  There must be more lines than this.
+     */
+    public void removeFirst(int count)
+    {
+        if (count <= 0)
+            return;
+        if (count >= size())
+            throw new IndexOutOfBoundsException("Cannot remove " + count + " of " + size() + " lines");
+        removedLines += count;
+        while (removedLines >= CHUNK_LINES)
+        {
+            Chunk removed = chunks.remove(0);
+            removed.releaseSpill();
+            resident.remove(removed);
+            removedLines -= CHUNK_LINES;
+        }
+        chunkStartPositions = null;
+        longestLine = -1;
+    }
+    
+    /**
+     * Get the position of the start of the given line, as the total length of all the lines
+     * before it (not counting newlines).
+     */
+    public int getLineStartPosition(int line)
+    {
+        int index = checkIndex(line);
+        if (chunkStartPositions == null)
+        {
+            chunkStartPositions = new long[chunks.size()];
+            long position = 0;
+            for (int i = 0; i < chunks.size(); i++)
+            {
+                chunkStartPositions[i] = position;
+                position += chunks.get(i).totalLength(i == 0 ? removedLines : 0);
+            }
+        }
+        int chunkIndex = index / CHUNK_LINES;
+        Chunk chunk = chunks.get(chunkIndex);
+        long position = chunkStartPositions[chunkIndex];
+        for (int i = (chunkIndex == 0 ? removedLines : 0); i < index % CHUNK_LINES; i++)
+        {
+            position += chunk.lineLengths[i];
+        }
+        return (int)position;
+    }
+    
+    /**
+     * Get the text of the longest line.
+     */
+    public String getLongestLine()
+    {
+        if (longestLine < 0)
+        {
+            int longestLength = -1;
+            for (int i = 0; i < chunks.size(); i++)
+            {
+                Chunk chunk = chunks.get(i);
+                for (int j = (i == 0 ? removedLines : 0); j < chunk.lineCount; j++)
+                {
+                    if (chunk.lineLengths[j] > longestLength)
+                    {
+                        longestLength = chunk.lineLengths[j];
+                        longestLine = i * CHUNK_LINES + j;
+                    }
+                }
+            }
+        }
+        return getText(longestLine - removedLines);
+    }
+    
+    // Update the longest line after the last line has been added or made longer
+    private void lastLineChanged()
+    {
+        Chunk last = chunks.get(chunks.size() - 1);
+        int lastIndex = (chunks.size() - 1) * CHUNK_LINES + last.lineCount - 1;
+        if (longestLine >= 0 && last.lineLengths[last.lineCount - 1] > internalLineLength(longestLine))
+        {
+            longestLine = lastIndex;
+        }
+    }
+    
+    private int internalLineLength(int index)
+    {
+        return chunks.get(index / CHUNK_LINES).lineLengths[index % CHUNK_LINES];
+    }
+    
+    // Check the line index and convert to an index into the chunks
+    private int checkIndex(int line)
+    {
+        if (line < 0 || line >= size())
+            throw new IndexOutOfBoundsException("Line " + line + " of " + size());
+        return line + removedLines;
+    }
+    
+    /**
+     * Get the chunk with the given index, making sure it is in memory (and spilling others if
+     * necessary to make room).
+     */
+    private Chunk loadChunk(int chunkIndex)
+    {
+        Chunk chunk = chunks.get(chunkIndex);
+        // Move to most recently used:
+        resident.remove(chunk);
+        resident.add(chunk);
+        if (chunk.lines == null)
+        {
+            chunk.lines = chunk.readLines();
+        }
+        
+        if (resident.size() > MAX_RESIDENT_CHUNKS && !spillFailed)
+        {
+            Chunk last = chunks.get(chunks.size() - 1);
+            for (Iterator<Chunk> iterator = resident.iterator(); iterator.hasNext() && resident.size() > MAX_RESIDENT_CHUNKS; )
+            {
+                Chunk lru = iterator.next();
+                // Always keep the one we are loading, and the last chunk (which is being added to):
+                if (lru == chunk || lru == last)
+                    continue;
+                if (lru.spillFile == null && !spill(lru))
+                    break;
+                lru.lines = null;
+                iterator.remove();
+            }
+        }
+        return chunk;
+    }
+    
+    /**
+     * Write the given chunk's lines out to a spill file.  Returns false if this was not possible.
+     */
+    private boolean spill(Chunk chunk)
+    {
+        int size = 0;
+        List<Object> customData = new ArrayList<>();
+        for (ContentLine line : chunk.lines)
+        {
+            size += 4;
+            for (StyledSegment segment : line)
+            {
+                size += 12 + 2 * segment.getText().length();
+            }
+        }
+        
+        try
+        {
+            if (currentSpillFile == null || currentSpillFile.remaining() < size)
+            {
+                if (currentSpillFile != null && currentSpillFile.liveChunks == 0)
+                {
+                    currentSpillFile.delete();
+                }
+                currentSpillFile = new SpillFile(Math.max(size, SPILL_FILE_BYTES));
+            }
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Could not create terminal spill file; keeping all terminal output in memory", e);
+            spillFailed = true;
+            return false;
+        }
+        
+        ByteBuffer buffer = currentSpillFile.buffer.duplicate();
+        int offset = currentSpillFile.used;
+        buffer.position(offset);
+        for (ContentLine line : chunk.lines)
+        {
+            int countPosition = buffer.position();
+            buffer.putInt(0);
+            int segmentCount = 0;
+            for (StyledSegment segment : line)
+            {
+                String text = segment.getText();
+                if (text.isEmpty())
+                    continue;
+                buffer.putInt(styleIndexes.computeIfAbsent(segment.getStyleClasses(), s -> {
+                    styles.add(s);
+                    return styles.size() - 1;
+                }));
+                if (segment.getCustomData() == null)
+                {
+                    buffer.putInt(-1);
+                }
+                else
+                {
+                    buffer.putInt(customData.size());
+                    customData.add(segment.getCustomData());
+                }
+                buffer.putInt(text.length());
+                for (int i = 0; i < text.length(); i++)
+                {
+                    buffer.putChar(text.charAt(i));
+                }
+                segmentCount += 1;
+            }
+            buffer.putInt(countPosition, segmentCount);
+        }
+        currentSpillFile.used = buffer.position();
+        currentSpillFile.liveChunks += 1;
+        chunk.spillFile = currentSpillFile;
+        chunk.spillOffset = offset;
+        chunk.spillCustomData = customData.isEmpty() ? Collections.emptyList() : customData;
+        return true;
+    }
+    
+    /**
+     * A chunk of lines.
+     */
+    private class Chunk
+    {
+        // The length of each line, always in memory:
+        private final int[] lineLengths = new int[CHUNK_LINES];
+        private int lineCount;
+        // The lines, or null if not in memory (in which case they are in the spill file):
+        private ArrayList<ContentLine> lines = new ArrayList<>();
+        
+        // The location of the spilled copy of the lines, if any.  If the lines are in memory
+        // as well, the two are the same (any change to the lines discards the spilled copy):
+        private SpillFile spillFile;
+        private int spillOffset;
+        // The custom data of the spilled segments, which is not written out:
+        private List<Object> spillCustomData;
+        
+        private long totalLength(int fromLine)
+        {
+            long total = 0;
+            for (int i = fromLine; i < lineCount; i++)
+            {
+                total += lineLengths[i];
+            }
+            return total;
+        }
+        
+        /**
+         * Discard the spilled copy of the lines, if any.
+         */
+        private void releaseSpill()
+        {
+            if (spillFile != null)
+            {
+                spillFile.liveChunks -= 1;
+                if (spillFile.liveChunks == 0 && spillFile != currentSpillFile)
+                {
+                    spillFile.delete();
+                }
+                spillFile = null;
+                spillCustomData = null;
+            }
+        }
+        
+        /**
+         * Read the lines back in from the spill file.
+         */
+        private ArrayList<ContentLine> readLines()
+        {
+            ByteBuffer buffer = spillFile.buffer.duplicate();
+            buffer.position(spillOffset);
+            ArrayList<ContentLine> result = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++)
+            {
+                int segmentCount = buffer.getInt();
+                List<StyledSegment> segments = new ArrayList<>(segmentCount);
+                for (int j = 0; j < segmentCount; j++)
+                {
+                    List<String> style = styles.get(buffer.getInt());
+                    int customDataIndex = buffer.getInt();
+                    char[] text = new char[buffer.getInt()];
+                    buffer.asCharBuffer().get(text);
+                    buffer.position(buffer.position() + 2 * text.length);
+                    segments.add(new StyledSegment(style, new String(text),
+                            customDataIndex < 0 ? null : spillCustomData.get(customDataIndex)));
+                }
+                result.add(new ContentLine(segments));
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * A temporary file, mapped into memory, to which chunks are spilled.
+     */
+    private static class SpillFile
+    {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        // The number of bytes written so far:
+        private int used;
+        // The number of chunks whose spilled copy is in this file:
+        private int liveChunks;
+        
+        private SpillFile(int size) throws IOException
+        {
+            file = File.createTempFile("bluej-terminal", ".tmp");
+            file.deleteOnExit();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+            {
+                // The mapping remains valid after the file is closed:
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+        
+        private int remaining()
+        {
+            return buffer.capacity() - used;
+        }
+        
+        private void delete()
+        {
+            // This may fail on some platforms while the file is still mapped, in which
+            // case it will be deleted on exit:
+            file.delete();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2013,2014,2015,2016,2017,2018,2019,2021,2022,2023,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2013,2014,2015,2016,2017,2018,2019,2021,2022,2023,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -84,11 +84,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -113,6 +108,8 @@ public final class Terminal
     private static final List<String> STDERR_NORMAL = Collections.singletonList("terminal-error");
     private static final List<String> STDERR_LINKED_STACK_TRACE = Collections.singletonList("terminal-stack-link");
     private static final List<String> STDERR_FOREIGN_STACK_TRACE = Collections.singletonList("terminal-stack-foreign");
+    // Only report output throughput for sections with at least this many lines:
+    private static final int REPORT_THROUGHPUT_LINES = 10000;
 
     private static final String WINDOWTITLE = Config.getApplicationName() + ": " + Config.getString("terminal.title");
 
@@ -143,8 +140,10 @@ public final class Terminal
     private final BooleanProperty showingProperty = new SimpleBooleanProperty(false);
 
     @OnThread(Tag.Any) private final Reader in = new TerminalReader();
+    // Output written to both out and err, waiting to be displayed:
+    @OnThread(Tag.Any) private final OutputBuffer output = makeOutputBuffer();
     @OnThread(Tag.Any) private final TerminalWriter out = new TerminalWriter(false);
-    @OnThread(Tag.Any) private final Writer err = new TerminalWriter(true);
+    @OnThread(Tag.Any) private final TerminalWriter err = new TerminalWriter(true);
 
     private Stage window;
 
@@ -400,7 +399,7 @@ public final class Terminal
         }
         else if (job.showPrintDialog(window))
         {
-            List<List<TextLine.StyledSegment>> lines = text.getStyledLines();
+            List<List<TextLine.StyledSegment>> lines = text.copyStyledLines();
                         
             BorderPane root = new BorderPane();
             Scene scene = new Scene(root);
@@ -748,13 +747,73 @@ public final class Terminal
     @OnThread(Tag.FXPlatform)
     private void endSectionWhenNoPendingWrites()
     {
-        if (out.pendingWrites.get() > 0)
+        if (output.hasPendingOutput())
         {
             JavaFXUtil.runAfterCurrent(() -> endSectionWhenNoPendingWrites());
         }
         else
         {
             text.endSection();
+            reportThroughput();
+        }
+    }
+
+    /**
+     * Make the buffer through which output written by the program is passed to the FX thread
+     * to be displayed.  The buffer is bounded, so that terminal output is limited to the speed
+     * at which it can be displayed (or dropped, if bluej.terminal.dropExcessOutput is set),
+     * and the UI will still respond to user input even if the output is really gushing.
+     */
+    @OnThread(Tag.Any)
+    private OutputBuffer makeOutputBuffer()
+    {
+        OutputBuffer.OverflowPolicy policy = Config.getPropBoolean("bluej.terminal.dropExcessOutput", false)
+                ? OutputBuffer.OverflowPolicy.DROP : OutputBuffer.OverflowPolicy.BLOCK;
+        return new OutputBuffer(Config.getPropInteger("bluej.terminal.outputBufferSize", 1 << 20),
+                policy, r -> Platform.runLater(r::run), new OutputBuffer.Sink()
+        {
+            @Override
+            @OnThread(Tag.FXPlatform)
+            public void output(boolean isError, String s)
+            {
+                try
+                {
+                    if (isError)
+                    {
+                        writeToPane(PaneType.STDERR, s, STDERR_NORMAL);
+                    }
+                    else
+                        writeToPane(PaneType.STDOUT, s, STDOUT_OUTPUT);
+                }
+                catch (Throwable t)
+                {
+                    Debug.reportError(t);
+                }
+            }
+
+            @Override
+            @OnThread(Tag.FXPlatform)
+            public void dropped(long chars)
+            {
+                writeToPane(PaneType.STDOUT, "\n" + Config.getString("terminal.outputDropped").replace("$", Long.toString(chars)) + "\n",
+                        STDOUT_OUTPUT);
+            }
+        });
+    }
+
+    /**
+     * Log the output throughput since the last report, if there was enough output
+     * for it to be of interest.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void reportThroughput()
+    {
+        OutputBuffer.Throughput throughput = output.takeThroughput();
+        if (throughput.lines() >= REPORT_THROUGHPUT_LINES || throughput.droppedChars() > 0)
+        {
+            Debug.message("Terminal output: " + throughput.lines()
+                    + " lines in " + throughput.millis() + "ms (" + throughput.linesPerSecond()
+                    + " lines/s), " + throughput.droppedChars() + " characters dropped");
         }
     }
 
@@ -915,14 +974,15 @@ public final class Terminal
      * A writer which writes to the terminal. It can be flagged for error output.
      * The idea is that error output could be presented differently from standard
      * output.
+     * 
+     * <p>Output is passed to the FX thread via the terminal's OutputBuffer, so that
+     * output which arrives quickly is displayed in one go rather than chunk by chunk.
+     * Output and error share the buffer so that they are displayed in the order written.
      */
     @OnThread(Tag.Any)
     private class TerminalWriter extends Writer
     {
-        private boolean isErrorOut;
-        // The number of pending writes (content that has been received on the
-        // IO thread, but not yet displayed in the terminal via the FX thread)
-        private AtomicInteger pendingWrites = new AtomicInteger(0);
+        private final boolean isErrorOut;
         
         TerminalWriter(boolean isError)
         {
@@ -932,41 +992,7 @@ public final class Terminal
 
         public void write(final char[] cbuf, final int off, final int len)
         {
-            try {
-                pendingWrites.incrementAndGet();
-                // We use a wait so that terminal output is limited to
-                // the processing speed of the event queue. This means the UI
-                // will still respond to user input even if the output is really
-                // gushing.
-                CompletableFuture<Boolean> written = new CompletableFuture<>();
-                Platform.runLater(() -> {
-                    try
-                    {
-                        String s = new String(cbuf, off, len);
-                        if (isErrorOut)
-                        {
-                            writeToPane(PaneType.STDERR, s, STDERR_NORMAL);
-                        }
-                        else
-                            writeToPane(PaneType.STDOUT, s, STDOUT_OUTPUT);
-                    }
-                    catch (Throwable t)
-                    {
-                        Debug.reportError(t);
-                    }
-                    finally
-                    {
-                        written.complete(true);
-                        pendingWrites.decrementAndGet();
-                    }
-                });
-                // Timeout in case something goes wrong with the printing:
-                written.get(2000, TimeUnit.MILLISECONDS);
-            }
-            catch (InterruptedException | ExecutionException | TimeoutException ie)
-            {
-                Debug.reportError(ie);
-            }
+            output.write(isErrorOut, new String(cbuf, off, len));
         }
 
         public void flush() { }
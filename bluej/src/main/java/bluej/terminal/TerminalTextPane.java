@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2021,2022,2023,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 2021,2022,2023,2024,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -55,15 +55,13 @@ import org.fxmisc.wellbehaved.event.InputMap;
 import org.fxmisc.wellbehaved.event.Nodes;
 
 import javax.tools.Tool;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * A non-editable text pane that is used for the terminal text panes (stdout and stderr).  The requirements
@@ -75,8 +73,8 @@ import java.util.stream.Collectors;
  */
 public abstract class TerminalTextPane extends BaseEditorPane
 {
-    // One list entry per line of content.  Will always be at least one entry:
-    private final ArrayList<ContentLine> content = new ArrayList<>();
+    // The lines of content.  Will always be at least one entry:
+    private final ScrollbackStore content = new ScrollbackStore();
     // Listeners to call when the content of the pane changes
     private final ArrayList<FXPlatformRunnable> contentListeners = new ArrayList<>();
 
@@ -110,14 +108,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
     // calculation about trailing newlines.
     private TerminalPos getCurStart()
     {
-        if (content.isEmpty())
-        {
-            return new TerminalPos(0, 0);
-        }
-        else
-        {
-            return new TerminalPos(content.size() - 1, content.get(content.size() - 1).getText().length());
-        }
+        return new TerminalPos(content.size() - 1, content.getLineLength(content.size() - 1));
     }
     
     // Get the current end position of the content as an end position
@@ -127,21 +118,14 @@ public abstract class TerminalTextPane extends BaseEditorPane
     private TerminalPos getCurEnd()
     {
         // If the final line is empty, we count the current end as the whole of the line before
-        if (content.isEmpty())
+        int lastLineLength = content.getLineLength(content.size() - 1);
+        if (lastLineLength == 0)
         {
-            return new TerminalPos(0, 0);
+            return new TerminalPos(content.size() - 2, Integer.MAX_VALUE);
         }
         else
         {
-            String lastLine = content.get(content.size() - 1).getText();
-            if (lastLine.isEmpty())
-            {
-                return new TerminalPos(content.size() - 2, Integer.MAX_VALUE);
-            }
-            else
-            {
-                return new TerminalPos(content.size() - 1, lastLine.length());
-            }
+            return new TerminalPos(content.size() - 1, lastLineLength);
         }
     }
     
@@ -347,11 +331,10 @@ public abstract class TerminalTextPane extends BaseEditorPane
         boolean reschedule = false;
         if (PrefMgr.getFlag(PrefMgr.SHOW_TERMINAL_SCOPES))
         {
-            for (int i = 0; i < content.size(); i++)
+            // Can't work it out for non visible lines:
+            int[] visibleRange = lineDisplay.getLineRangeVisible();
+            for (int i = Math.max(0, visibleRange[0]); i <= visibleRange[1] && i < content.size(); i++)
             {
-                // Can't work it out for non visible lines:
-                if (!lineDisplay.isLineVisible(i))
-                    continue;
                 for (Section s : currentSections)
                 {
                     final double singleRadius = 5;
@@ -490,7 +473,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
     @Override
     protected Pos makePosition(int line, int column)
     {
-        return new Pos(content.stream().limit(line).mapToInt(l -> l.getText().length()).sum() + column, line, column);
+        return new Pos(content.getLineStartPosition(line) + column, line, column);
     }
 
     @Override
@@ -512,9 +495,9 @@ public abstract class TerminalTextPane extends BaseEditorPane
     {
         if (content.size() > numLines)
         {
-            // Important to take a copy, as content will be blanked during the set:
             int linesToSubtract = content.size() - numLines;
-            setContent(new ArrayList<>(content.subList(linesToSubtract, content.size())));
+            content.removeFirst(linesToSubtract);
+            contentChanged();
             // Adjust caret and anchor positions upwards by the trimmed lines:
             int newCaretLine = Math.max(0, caretPos.getLine() - linesToSubtract);
             caretPos = makePosition(
@@ -542,15 +525,6 @@ public abstract class TerminalTextPane extends BaseEditorPane
         }
     }
 
-    // Helper to set content and call listeners:
-    private void setContent(List<ContentLine> lines)
-    {
-        content.clear();
-        content.addAll(lines);
-        refreshDisplay();
-        contentChanged();
-    }
-
     // Helper to call all the content listeners:
     private void contentChanged()
     {
@@ -569,11 +543,13 @@ public abstract class TerminalTextPane extends BaseEditorPane
     public void clear()
     {
         // Reset cursor and anchor to only remaining valid position:
-        // Important to do this before setContent because that may use the caret position
+        // Important to do this before refreshing because that may use the caret position
         // while updating the display:
         caretPos = new Pos(0, 0, 0);
         anchorPos = new Pos(0, 0, 0);
-        setContent(Collections.singletonList(new ContentLine(new ArrayList<>())));
+        content.clear();
+        refreshDisplay();
+        contentChanged();
         currentSections.clear();
         lineDisplay.applyScopeBackgrounds(Map.of());
     }
@@ -584,25 +560,30 @@ public abstract class TerminalTextPane extends BaseEditorPane
      */
     public List<String> getLines()
     {
-        return content.stream().map(line -> line.getText()).collect(Collectors.toList());
+        List<String> lines = new ArrayList<>(content.size());
+        for (int i = 0; i < content.size(); i++)
+        {
+            lines.add(content.getText(i));
+        }
+        return lines;
     }
 
     @Override
     protected int getLineLength(int lineIndex)
     {
-        return content.get(lineIndex).getText().length();
+        return content.getLineLength(lineIndex);
     }
 
     @Override
     protected String getLineContentAtCaret()
     {
-        return content.get(caretPos.line).getText();
+        return content.getText(caretPos.line);
     }
 
     @Override
     protected String getLongestLineInWholeDocument()
     {
-        return content.stream().map(l -> l.getText()).max(Comparator.comparing(String::length)).orElse("");
+        return content.getLongestLine();
     }
 
     @Override
@@ -611,10 +592,33 @@ public abstract class TerminalTextPane extends BaseEditorPane
         return content.size();
     }
 
-    // Returns a copy, to avoid sharing.
-    public List<List<StyledSegment>> getStyledLines()
+    // Returns a view, which only fetches the lines which are actually used (usually just those
+    // on screen), so that rendering does not need to copy (or read back in) the whole content.
+    @Override
+    protected List<List<StyledSegment>> getStyledLines()
+    {
+        return new AbstractList<>()
+        {
+            @Override
+            public List<StyledSegment> get(int index)
+            {
+                return ImmutableList.copyOf(content.get(index));
+            }
+
+            @Override
+            public int size()
+            {
+                return content.size();
+            }
+        };
+    }
+
+    /**
+     * Get the styled content of the pane.  Returns a copy, to avoid sharing.
+     */
+    public List<List<StyledSegment>> copyStyledLines()
     {
-        return content.stream().map(line -> ImmutableList.copyOf(line)).collect(Collectors.toList());
+        return new ArrayList<>(getStyledLines());
     }
 
     @Override
@@ -643,13 +647,13 @@ public abstract class TerminalTextPane extends BaseEditorPane
             if (newlineIndex == -1)
             {
                 // No newline, just append it:
-                content.get(content.size() - 1).append(new StyledSegment(styledSegment.getStyleClasses(), remainder));
+                content.appendToLastLine(new StyledSegment(styledSegment.getStyleClasses(), remainder));
                 remainder = "";
             }
             else
             {
                 String beforeNewline = remainder.substring(0, newlineIndex);
-                content.get(content.size() - 1).append(new StyledSegment(styledSegment.getStyleClasses(), beforeNewline));
+                content.appendToLastLine(new StyledSegment(styledSegment.getStyleClasses(), beforeNewline));
                 content.add(new ContentLine(new ArrayList<>()));
                 remainder = remainder.substring(newlineIndex + 1);
             }
@@ -728,22 +732,21 @@ public abstract class TerminalTextPane extends BaseEditorPane
         StringBuilder copied = new StringBuilder();
         Pos startPos = anchorPos.getPosition() < caretPos.getPosition() ? anchorPos : caretPos;
         Pos endPos = anchorPos.getPosition() < caretPos.getPosition() ? caretPos : anchorPos;
-        List<String> lines = getLines();
         if (startPos.getLine() == endPos.getLine())
         {
-            copied.append(lines.get(startPos.getLine()).substring(startPos.getColumn(), endPos.getColumn()));
+            copied.append(content.getText(startPos.getLine()).substring(startPos.getColumn(), endPos.getColumn()));
         }
         else
         {
             // First line:
-            copied.append(lines.get(startPos.getLine()).substring(startPos.getColumn())).append("\n");
+            copied.append(content.getText(startPos.getLine()).substring(startPos.getColumn())).append("\n");
             // Inbetween lines:
             for (int line = startPos.getLine() + 1; line < endPos.getLine(); line++)
             {
-                copied.append(lines.get(line)).append("\n");
+                copied.append(content.getText(line)).append("\n");
             }
             // Last line (no newline):
-            copied.append(lines.get(endPos.getLine()).substring(0, endPos.getColumn()));
+            copied.append(content.getText(endPos.getLine()).substring(0, endPos.getColumn()));
         }
         if (copied.length() > 0)
             Clipboard.getSystemClipboard().setContent(Map.of(DataFormat.PLAIN_TEXT, copied.toString()));
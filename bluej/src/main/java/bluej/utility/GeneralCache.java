@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,10 +21,7 @@
  */
 package bluej.utility;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -35,16 +32,21 @@ import java.util.Map;
  */
 public class GeneralCache<K,V>
 {
-    private Map<K,V> cacheMap = new HashMap<K,V>();
-    private List<K> cachedKeys = new LinkedList<K>();
-    private int cacheSize;
+    private Map<K,V> cacheMap;
     
     /**
      * Construct a cache to cache the given number of items.
      */
     public GeneralCache(int cacheSize)
     {
-        this.cacheSize = cacheSize;
+        // An access-ordered map keeps the least recently used entry first:
+        cacheMap = new LinkedHashMap<K,V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K,V> eldest)
+            {
+                return size() > cacheSize;
+            }
+        };
     }
     
     /**
@@ -54,19 +56,8 @@ public class GeneralCache<K,V>
      */
     public V get(K key)
     {
-        V rval = cacheMap.get(key);
-        if (rval != null) {
-            // Mark the retrieved key as recently used
-            for (Iterator<K> i = cachedKeys.iterator(); ; ) {
-                K k = i.next();
-                if (k.equals(key)) {
-                    i.remove();
-                    cachedKeys.add(key);
-                    break;
-                }
-            }
-        }
-        return rval;
+        // Marks the retrieved key as recently used
+        return cacheMap.get(key);
     }
     
     /**
@@ -82,13 +73,7 @@ public class GeneralCache<K,V>
      */
     public void put(K key, V value)
     {
-        if (cachedKeys.size() >= cacheSize) {
-            K toRemove = cachedKeys.remove(0);
-            cacheMap.remove(toRemove);
-        }
-        
         cacheMap.put(key, value);
-        cachedKeys.add(key);
     }
     
     /**
@@ -97,6 +82,5 @@ public class GeneralCache<K,V>
     public void clear()
     {
         cacheMap.clear();
-        cachedKeys.clear();
     }
 }
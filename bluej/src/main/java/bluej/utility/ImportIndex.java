@@ -0,0 +1,458 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import bluej.parser.AssistContent.Access;
+import bluej.parser.AssistContent.CompletionKind;
+import bluej.parser.AssistContentThreadSafe;
+import bluej.pkgmgr.target.role.Kind;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A persistent index of the types available in each classpath entry (library JAR, or the
+ * JDK's modules), used by ImportScanner so that entries which have not changed since the
+ * last session do not need to be scanned again.
+ * 
+ * <p>Each entry is keyed by its path, size and modification time; if any of these change, the
+ * entry is stale and must be re-scanned.  For each type the index holds its name and modifiers,
+ * and (for JDK types which have been used in completion) the details needed for completion.
+ * 
+ * <p>The index is a binary file which is read into memory when loaded; the entries are only
+ * decoded when they are asked for.  The index for a file is shared by the import scanners of
+ * all open projects (see get()), so that they do not overwrite each other's updates, and
+ * entries written to the file by another process are kept when saving.
+ */
+@OnThread(Tag.Any)
+final class ImportIndex
+{
+    // "BJII":
+    private static final int MAGIC = 0x424A4949;
+    private static final int FORMAT_VERSION = 1;
+    // Used to stop two scanners in the same VM from writing the file at once:
+    private static final Object FILE_LOCK = new Object();
+    // The index loaded from each file:
+    private static final HashMap<File, ImportIndex> loaded = new HashMap<>();
+    
+    /**
+     * The identity of a classpath entry.  If any part changes, the entry must be re-scanned.
+     */
+    record Key(String path, long size, long lastModified)
+    {
+        static Key forFile(File file)
+        {
+            return new Key(file.getAbsolutePath(), file.length(), file.lastModified());
+        }
+    }
+    
+    /**
+     * A type found in a classpath entry.
+     * 
+     * @param name  The fully qualified (binary) name, e.g. "java.util.Map$Entry"
+     * @param modifiers  The class modifiers, as in the class file
+     * @param details  The cached completion details, or null if not known
+     */
+    record IndexedType(String name, int modifiers, AssistContentThreadSafe details) {}
+    
+    private static class Entry
+    {
+        private final Key key;
+        // The encoded types (a slice of the file's content), or null if not loaded from the file:
+        private final ByteBuffer data;
+        // The decoded types, or null if not yet decoded:
+        private List<IndexedType> types;
+        
+        private Entry(Key key, ByteBuffer data, List<IndexedType> types)
+        {
+            this.key = key;
+            this.data = data;
+            this.types = types;
+        }
+    }
+    
+    private final File file;
+    private final String version;
+    private final String javaHome;
+    // Keyed by path:
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    // Whether there have been changes since loading:
+    private boolean changed;
+    
+    private ImportIndex(File file, String version, String javaHome)
+    {
+        this.file = file;
+        this.version = version;
+        this.javaHome = javaHome;
+    }
+    
+    /**
+     * Get the index for the given file, loading it if it has not already been loaded (for the
+     * same version and JDK).  The same index is returned to all callers, so that they do not
+     * overwrite each other's updates when saving.
+     */
+    public static ImportIndex get(File file, String version, String javaHome)
+    {
+        synchronized (loaded)
+        {
+            ImportIndex index = loaded.get(file);
+            if (index == null || !index.version.equals(version) || !index.javaHome.equals(javaHome))
+            {
+                index = load(file, version, javaHome);
+                loaded.put(file, index);
+            }
+            return index;
+        }
+    }
+    
+    /**
+     * Load the index from the given file.  If the file does not exist, cannot be read, or was
+     * written by a different version or for a different JDK, the index will be empty.
+     */
+    static ImportIndex load(File file, String version, String javaHome)
+    {
+        ImportIndex index = new ImportIndex(file, version, javaHome);
+        if (!file.exists())
+        {
+            return index;
+        }
+        
+        try
+        {
+            // Not memory-mapped, as the file could then not be replaced on Windows:
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                    || !version.equals(readString(buffer)) || !javaHome.equals(readString(buffer)))
+            {
+                return index;
+            }
+            int entryCount = buffer.getInt();
+            for (int i = 0; i < entryCount; i++)
+            {
+                Key key = new Key(readString(buffer), buffer.getLong(), buffer.getLong());
+                int length = buffer.getInt();
+                ByteBuffer data = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                index.entries.put(key.path(), new Entry(key, data, null));
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // RuntimeException covers a truncated or corrupt file:
+            Debug.message(e.getClass().getName() + " while reading import index: " + e.getMessage());
+            index.entries.clear();
+        }
+        return index;
+    }
+    
+    /**
+     * Get the types of the entry with the given key, or null if the index has no up-to-date
+     * entry for it.
+     */
+    public synchronized List<IndexedType> getTypes(Key key)
+    {
+        Entry entry = entries.get(key.path());
+        if (entry == null || !entry.key.equals(key))
+        {
+            return null;
+        }
+        if (entry.types == null)
+        {
+            try
+            {
+                entry.types = decodeTypes(entry.data.duplicate());
+            }
+            catch (RuntimeException e)
+            {
+                // A truncated or corrupt entry:
+                Debug.message("Corrupt import index entry for " + key.path());
+                entries.remove(key.path());
+                return null;
+            }
+        }
+        return Collections.unmodifiableList(entry.types);
+    }
+    
+    /**
+     * Set the types of the entry with the given key (replacing any existing entry for the same path).
+     */
+    public synchronized void putTypes(Key key, List<IndexedType> types)
+    {
+        entries.put(key.path(), new Entry(key, null, new ArrayList<>(types)));
+        changed = true;
+    }
+    
+    /**
+     * Record completion details for types in the entry with the given key.  Details for types not
+     * in the entry are ignored.
+     * 
+     * @param details  Details, keyed by the type's fully qualified (binary) name.
+     */
+    public synchronized void putDetails(Key key, Map<String, AssistContentThreadSafe> details)
+    {
+        List<IndexedType> types = getTypes(key);
+        if (types == null)
+        {
+            return;
+        }
+        List<IndexedType> updated = new ArrayList<>(types.size());
+        boolean anyChanged = false;
+        for (IndexedType type : types)
+        {
+            AssistContentThreadSafe typeDetails = details.get(type.name());
+            // We can't store parameters, which types don't have anyway:
+            if (type.details() == null && typeDetails != null && typeDetails.getParams() == null)
+            {
+                updated.add(new IndexedType(type.name(), type.modifiers(), typeDetails));
+                anyChanged = true;
+            }
+            else
+            {
+                updated.add(type);
+            }
+        }
+        if (anyChanged)
+        {
+            putTypes(key, updated);
+        }
+    }
+    
+    /**
+     * Write the index back to its file, if it has changed.  Entries which are in the file but
+     * not in this index (because another process has written them) are kept, and entries for
+     * files which no longer exist are dropped.
+     */
+    public void save()
+    {
+        List<Entry> toWrite;
+        synchronized (this)
+        {
+            if (!changed)
+                return;
+            toWrite = new ArrayList<>(entries.values());
+            changed = false;
+        }
+        
+        synchronized (FILE_LOCK)
+        {
+            HashSet<String> paths = new HashSet<>();
+            toWrite.forEach(e -> paths.add(e.key.path()));
+            for (Entry entry : load(file, version, javaHome).entries.values())
+            {
+                if (!paths.contains(entry.key.path()))
+                {
+                    toWrite.add(entry);
+                }
+            }
+            
+            File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, version);
+                writeString(out, javaHome);
+                toWrite.removeIf(e -> new File(e.key.path()).isAbsolute() && !new File(e.key.path()).exists());
+                out.writeInt(toWrite.size());
+                for (Entry entry : toWrite)
+                {
+                    writeString(out, entry.key.path());
+                    out.writeLong(entry.key.size());
+                    out.writeLong(entry.key.lastModified());
+                    byte[] data;
+                    if (entry.types != null)
+                    {
+                        data = encodeTypes(entry.types);
+                    }
+                    else
+                    {
+                        data = new byte[entry.data.remaining()];
+                        entry.data.duplicate().get(data);
+                    }
+                    out.writeInt(data.length);
+                    out.write(data);
+                }
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Could not write import index", e);
+                tempFile.delete();
+                markUnsaved();
+                return;
+            }
+            
+            try
+            {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (IOException e)
+            {
+                // e.g. on Windows, if the old file is open elsewhere; we'll try again next time
+                Debug.message("Could not replace import index: " + e.getMessage());
+                tempFile.delete();
+                markUnsaved();
+            }
+        }
+    }
+
+    /**
+     * Note that the index could not be written, so that the next save tries again.
+     */
+    private synchronized void markUnsaved()
+    {
+        changed = true;
+    }
+    
+    static List<IndexedType> decodeTypes(ByteBuffer buffer)
+    {
+        int count = buffer.getInt();
+        List<IndexedType> types = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            String name = readString(buffer);
+            int modifiers = buffer.getInt();
+            AssistContentThreadSafe details = null;
+            if (buffer.get() != 0)
+            {
+                Access access = readEnum(Access.class, buffer);
+                String declaringClass = readString(buffer);
+                String javadoc = readString(buffer);
+                CompletionKind kind = readEnum(CompletionKind.class, buffer);
+                String simpleName = readString(buffer);
+                String packageName = readString(buffer);
+                List<String> superTypes = null;
+                int superTypeCount = buffer.getInt();
+                if (superTypeCount >= 0)
+                {
+                    superTypes = new ArrayList<>(superTypeCount);
+                    for (int j = 0; j < superTypeCount; j++)
+                    {
+                        superTypes.add(readString(buffer));
+                    }
+                }
+                String type = readString(buffer);
+                Kind typeKind = readEnum(Kind.class, buffer);
+                details = new AssistContentThreadSafe(access, declaringClass, javadoc, kind, simpleName, packageName, null, superTypes, type, typeKind);
+            }
+            types.add(new IndexedType(name, modifiers, details));
+        }
+        return types;
+    }
+    
+    static byte[] encodeTypes(List<IndexedType> types) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(types.size());
+        for (IndexedType type : types)
+        {
+            writeString(out, type.name());
+            out.writeInt(type.modifiers());
+            AssistContentThreadSafe details = type.details();
+            out.writeByte(details == null ? 0 : 1);
+            if (details != null)
+            {
+                writeEnum(out, details.getAccessPermission());
+                writeString(out, details.getDeclaringClass());
+                writeString(out, details.getJavadoc());
+                writeEnum(out, details.getKind());
+                writeString(out, details.getName());
+                writeString(out, details.getPackage());
+                List<String> superTypes = details.getSuperTypes();
+                out.writeInt(superTypes == null ? -1 : superTypes.size());
+                if (superTypes != null)
+                {
+                    for (String superType : superTypes)
+                    {
+                        writeString(out, superType);
+                    }
+                }
+                writeString(out, details.getType());
+                writeEnum(out, details.getTypeKind());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    // Strings are written as a length in bytes (-1 for null) followed by UTF-8:
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        if (s == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+    
+    private static String readString(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // Enums are written by name, so that the index is not invalidated if more are added:
+    private static void writeEnum(DataOutputStream out, Enum<?> e) throws IOException
+    {
+        writeString(out, e == null ? null : e.name());
+    }
+    
+    private static <E extends Enum<E>> E readEnum(Class<E> enumClass, ByteBuffer buffer)
+    {
+        String name = readString(buffer);
+        if (name == null)
+            return null;
+        try
+        {
+            return Enum.valueOf(enumClass, name);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2019,2020,2021,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2019,2020,2021,2024,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,8 +22,6 @@
 package bluej.utility;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,20 +30,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import bluej.Config;
+import bluej.utility.ImportIndex.IndexedType;
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ScanResult;
 import javafx.application.Platform;
-import nu.xom.Attribute;
-import nu.xom.Builder;
-import nu.xom.Document;
-import nu.xom.Element;
-import nu.xom.ParsingException;
 
 import bluej.Boot;
 import bluej.parser.ImportedTypeCompletion;
@@ -60,12 +55,19 @@ import threadchecker.Tag;
  */
 public class ImportScanner
 {
+    // The class file modifier for synthetic classes:
+    private static final int ACC_SYNTHETIC = 0x1000;
+    
     // A lock item :
     private final Object monitor = new Object();
     // Root package with "" as ident.
     private CompletableFuture<RootPackageInfo> root;
     // The Project which we are scanning for:
     private final Project project;
+    // The index of previously scanned types, and the key of the system entry in it.
+    // Both are set when scanning begins:
+    private volatile ImportIndex index;
+    private volatile ImportIndex.Key systemKey;
 
     public ImportScanner(Project project)
     {
@@ -87,7 +89,8 @@ public class ImportScanner
         // So first we call addClass({"java","lang"},"String") on the root package, then
         // addClass({"lang"}, "String"} on the java package, then
         // addClass({}, "String)" on the java.lang package.
-        protected void addClass(Iterator<String> packageIdents, String name)
+        // The details may be null if not yet known.
+        protected void addClass(Iterator<String> packageIdents, String name, AssistContentThreadSafe details)
         {
             // If it's a sub-package, create it if necessary, then recurse:
             if (packageIdents.hasNext())
@@ -99,12 +102,16 @@ public class ImportScanner
                     subPkg = new PackageInfo();
                     subPackages.put(ident, subPkg);
                 }
-                subPkg.addClass(packageIdents, name);
+                subPkg.addClass(packageIdents, name, details);
             }
-            else
+            else if (details != null)
             {
                 // Lives in this package:
-                types.put(name, null);
+                types.put(name, details);
+            }
+            else
+            {
+                types.putIfAbsent(name, null);
             }
         }
 
@@ -238,13 +245,19 @@ public class ImportScanner
             }
         }
 
-        public void addTypes(PackageInfo from)
+        /**
+         * Collects all the types in this package (and sub-packages) for which details are known.
+         * 
+         * @param prefix The package name, ending in ".", e.g. "java.lang."
+         * @param details The map to add to, keyed by fully qualified (binary) name.
+         */
+        public void collectDetails(String prefix, Map<String, AssistContentThreadSafe> details)
         {
-            types.putAll(from.types);
-            from.subPackages.forEach((name, pkg) -> {
-                subPackages.putIfAbsent(name, new PackageInfo());
-                subPackages.get(name).addTypes(pkg);
+            types.forEach((name, acts) -> {
+                if (acts != null)
+                    details.put(prefix + name, acts);
             });
+            subPackages.forEach((name, pkg) -> pkg.collectDetails(prefix + name + ".", details));
         }
     }
     
@@ -253,9 +266,28 @@ public class ImportScanner
     {
         // Adds fully qualified class name to type list.
         public void addClass(String name)
+        {
+            addClass(name, null);
+        }
+
+        // Adds fully qualified class name to type list, with its details if known.
+        public void addClass(String name, AssistContentThreadSafe details)
         {
             String[] splitParts = name.split("\\.", -1);
-            addClass(Arrays.asList(Arrays.copyOf(splitParts, splitParts.length - 1)).iterator(), splitParts[splitParts.length - 1]);
+            addClass(Arrays.asList(Arrays.copyOf(splitParts, splitParts.length - 1)).iterator(), splitParts[splitParts.length - 1], details);
+        }
+
+        // Adds the given types from the index.
+        public void addTypes(List<IndexedType> types)
+        {
+            for (IndexedType type : types)
+            {
+                // Synthetic types can't be referred to in source:
+                if ((type.modifiers() & ACC_SYNTHETIC) == 0)
+                {
+                    addClass(type.name(), type.details());
+                }
+            }
         }
     }
     
@@ -280,10 +312,10 @@ public class ImportScanner
                 // future to complete):
                 new Thread("Import scanner") { public void run()
                 {
-                    RootPackageInfo rootPkg = findAllTypes();
+                    RootPackageInfo rootPkg = new RootPackageInfo();
                     try
                     {
-                        loadCachedImports(rootPkg);
+                        rootPkg = findAllTypes();
                     }
                     finally
                     {
@@ -318,17 +350,17 @@ public class ImportScanner
     }
 
     /**
-     * Gets a list of ClassGraph items which can be used to find available classes.
+     * Gets a ClassGraph for user code libraries (e.g. JUnit, other configured BlueJ libraries,
+     * and the project's own classes).
      * 
      * Because of the way ClassGraph works, one item is not enough for all classes;
-     * we use one for system classes and one for user classes.
+     * we use this one for user classes and another for system classes (see getSystemClassGraph).
      */
     @OnThread(Tag.Worker)
-    private List<ClassGraph> getClassloaderConfig()
+    private ClassGraph getUserClassGraph()
     {
         // When you override the class loaders in ClassGraph's config, it no longer
-        // loads the JDK classes.  So we have one ClassGraph for user code libraries
-        // (e.g. JUnit, other configured BlueJ libraries):
+        // loads the JDK classes.  So we have one ClassGraph for user code libraries:
         ArrayList<ClassLoader> cl = new ArrayList<>();
         
         try
@@ -347,58 +379,133 @@ public class ImportScanner
         cl.add(new URLClassLoader(Boot.getInstance().getRuntimeUserClassPath()));
 
         // We hide bluej.* classes as users shouldn't be accessing them:
-        ClassGraph userClassGraph = new ClassGraph()
+        return new ClassGraph()
                 .overrideClassLoaders(cl.toArray(new ClassLoader[0]))
                 .rejectPackages("bluej.*");
-        
-        // We have a separate class graph for system libraries (java.*, javafx.*), from which
-        // we only take public packages, thus avoiding all the com.sun classes and so on:
-        // This has to be separate because enableSystemPackages() doesn't work alongside 
-        // overrideClassLoaders():
-        ClassGraph systemClassGraph = new ClassGraph()
+    }
+
+    /**
+     * Gets a ClassGraph for system libraries (java.*, javafx.*), from which we only take
+     * public packages, thus avoiding all the com.sun classes and so on.
+     * This has to be separate because enableSystemPackages() doesn't work alongside 
+     * overrideClassLoaders().
+     */
+    @OnThread(Tag.Any)
+    private static ClassGraph getSystemClassGraph()
+    {
+        return new ClassGraph()
             .enableSystemJarsAndModules()
             .acceptPackages("java.*", "javax.*", "javafx.*");
+    }
 
-        return List.of(
-            userClassGraph.enableClassInfo(),
-            systemClassGraph.enableClassInfo()
-        );
+    /**
+     * Gets the key for the system classes in the import index.  The system classes come
+     * from the JDK's modules and BlueJ's own JARs, which only change when the JDK or BlueJ does,
+     * so we use a single entry for all of them, whose size and modification time is made up
+     * from all the files involved.
+     */
+    @OnThread(Tag.Worker)
+    private static ImportIndex.Key getSystemKey(ClassGraph systemClassGraph)
+    {
+        List<File> files = new ArrayList<>(systemClassGraph.getClasspathFiles());
+        files.add(new File(Boot.getInstance().getJavaHome(), "lib" + File.separator + "modules"));
+        long size = 0;
+        long lastModified = 0;
+        for (File file : files)
+        {
+            size += file.length();
+            lastModified = Math.max(lastModified, file.lastModified());
+        }
+        return new ImportIndex.Key("system:" + getJavaHome(), size, lastModified);
+    }
+
+    /**
+     * Scans with the given ClassGraph, and returns the types found, grouped by the absolute
+     * path of the classpath entry they were found in (null for types from modules).
+     */
+    @OnThread(Tag.Worker)
+    private static Map<String, List<IndexedType>> scanTypes(ClassGraph classGraph)
+    {
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        HashMap<String, List<IndexedType>> types = new HashMap<>();
+        try (ScanResult result = classGraph.enableClassInfo().scan(threads))
+        {
+            for (ClassInfo c : result.getAllClasses())
+            {
+                File entry = c.getClasspathElementFile();
+                types.computeIfAbsent(entry == null ? null : entry.getAbsolutePath(), e -> new ArrayList<>())
+                    .add(new IndexedType(c.getName(), c.getModifiers(), null));
+            }
+        }
+        catch (Throwable t)
+        {
+            Debug.reportError(t);
+        }
+        return types;
     }
 
     /**
      * Gets a package-tree structure which includes all packages and class-names
-     * on the current class-path (by scanning all JARs and class-files on the path).
+     * on the current class-path.  Classpath entries which are in the import index and have not
+     * changed since it was written are taken from there; everything else is scanned (and
+     * library JARs are then added to the index).
      *
-     * @return A package-tree structure with all class names present, but not any further
-     * details about the classes.
+     * @return A package-tree structure with all class names present, but only further
+     * details about the classes if they were saved in the index.
      */
     @OnThread(Tag.Worker)
     private RootPackageInfo findAllTypes()
     {
-        List<ClassGraph> classGraphs = getClassloaderConfig();
+        ImportIndex index = ImportIndex.get(getImportIndexPath(), getVersion(), getJavaHome());
+        this.index = index;
         RootPackageInfo r = new RootPackageInfo();
         
-        if (classGraphs != null)
+        // Special case -- ClassGraph library (deliberately) doesn't return Object in its list
+        // so we must add it ourselves to avoid problems like "Unknown type: Object" messages.
+        r.addClass("java.lang.Object");
+        
+        ClassGraph systemClassGraph = getSystemClassGraph();
+        ImportIndex.Key systemKey = getSystemKey(systemClassGraph);
+        this.systemKey = systemKey;
+        List<IndexedType> systemTypes = index.getTypes(systemKey);
+        if (systemTypes == null)
         {
-            // Special case -- ClassGraph library (deliberately) doesn't return Object in its list
-            // so we must add it ourselves to avoid problems like "Unknown type: Object" messages.
-            r.addClass("java.lang.Object");
-            final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
-            for (ClassGraph classGraph : classGraphs)
+            systemTypes = scanTypes(systemClassGraph).values().stream().flatMap(List::stream).collect(Collectors.toList());
+            index.putTypes(systemKey, systemTypes);
+        }
+        r.addTypes(systemTypes);
+
+        // Only scan the user classpath entries which are not in the index.  Directories
+        // (e.g. the project's own classes) can change without their modification time
+        // changing, so they are always scanned, but they are usually small:
+        List<File> toScan = new ArrayList<>();
+        for (File entry : getUserClassGraph().getClasspathFiles())
+        {
+            List<IndexedType> types = entry.isFile() ? index.getTypes(ImportIndex.Key.forFile(entry)) : null;
+            if (types != null)
             {
-                try (ScanResult result = classGraph.scan(threads))
-                {
-                    for (ClassInfo c : result.getAllClasses())
-                    {
-                        r.addClass(c.getName());
-                    }
-                }
-                catch (Throwable t)
+                r.addTypes(types);
+            }
+            else
+            {
+                toScan.add(entry);
+            }
+        }
+        if (!toScan.isEmpty())
+        {
+            Map<String, List<IndexedType>> scanned = scanTypes(new ClassGraph().overrideClasspath(toScan).rejectPackages("bluej.*"));
+            scanned.values().forEach(r::addTypes);
+            for (File entry : toScan)
+            {
+                if (entry.isFile())
                 {
-                    Debug.reportError(t);
+                    // We record JARs with no types, too, so that they are not scanned again:
+                    index.putTypes(ImportIndex.Key.forFile(entry), scanned.getOrDefault(entry.getAbsolutePath(), List.of()));
                 }
             }
         }
+        
+        index.save();
         return r;
     }
 
@@ -413,31 +520,25 @@ public class ImportScanner
     }
 
     /**
-     * Saves all java.** type information to a cache
+     * Saves the details of the system types which have been used, to the import index.
      */
     public void saveCachedImports()
     {
-        if (getRoot().isDone())
+        if (getRoot().isDone() && index != null && systemKey != null)
         {
-            Element cache = new Element("packages");
-            cache.addAttribute(new Attribute("javaHome", getJavaHome()));
-            cache.addAttribute(new Attribute("version", getVersion()));
             try
             {
-                PackageInfo javaPkg = getRoot().get().subPackages.get("java");
-                if (javaPkg != null)
-                {
-                    cache.appendChild(toXML(javaPkg, "java"));
-                    FileOutputStream os = new FileOutputStream(getImportCachePath());
-                    Utility.serialiseCodeTo(cache, os);
-                    os.close();
-                }
+                HashMap<String, AssistContentThreadSafe> details = new HashMap<>();
+                getRoot().get().collectDetails("", details);
+                index.putDetails(systemKey, details);
+                index.save();
+                // Remove the cache file used by earlier versions:
+                new File(Config.getUserConfigDir(), "import-cache.xml").delete();
             }
-            catch (InterruptedException | ExecutionException | IOException e)
+            catch (InterruptedException | ExecutionException e)
             {
                 Debug.reportError(e);
             }
-
         }
     }
 
@@ -453,75 +554,9 @@ public class ImportScanner
         return Boot.getInstance().getJavaHome().getAbsolutePath();
     }
 
-    /** Import cache path to save to/load from */
-    private static File getImportCachePath()
-    {
-        return new File(Config.getUserConfigDir(), "import-cache.xml");
-    }
-
-    /**
-     * Loads cached (java.**) imports into the given root package, if possible.
-     */
-    public void loadCachedImports(PackageInfo rootPkg)
-    {
-        try {
-            Document xml = new Builder().build(getImportCachePath());
-            Element packagesEl = xml.getRootElement();
-            if (!packagesEl.getLocalName().equals("packages"))
-                return;
-            // If they've changed JDK or BlueJ/Greenfoot version, ignore the cache
-            // (and thus generate fresh data later on):
-            if (!getJavaHome().equals(packagesEl.getAttributeValue("javaHome")) || !getVersion().equals(packagesEl.getAttributeValue("version")))
-                return;
-            for (int i = 0; i < packagesEl.getChildElements().size(); i++)
-            {
-                fromXML(packagesEl.getChildElements().get(i), rootPkg);
-            }
-        }
-        catch (ParsingException | IOException e) {
-            Debug.message(e.getClass().getName() + " while reading import cache: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Loads the given XML package item and puts it into the given parent package.
-     */
-    private void fromXML(Element pkgEl, PackageInfo addToParent)
-    {
-        String name = pkgEl.getAttributeValue("name");
-        if (name == null)
-            return;
-        PackageInfo loadPkg = new PackageInfo();
-
-        for (int i = 0; i < pkgEl.getChildElements().size(); i++)
-        {
-            Element el = pkgEl.getChildElements().get(i);
-            if (el.getLocalName().equals("package"))
-            {
-                fromXML(el, loadPkg);
-            }
-            else
-            {
-                AssistContentThreadSafe acts = new AssistContentThreadSafe(el);
-                String nameWithoutPackage = (acts.getDeclaringClass() == null ? "" : acts.getDeclaringClass() + "$") + acts.getName();
-                loadPkg.types.put(nameWithoutPackage, acts);
-            }
-        }
-
-        // Only store if successful:
-        addToParent.subPackages.putIfAbsent(name, new PackageInfo());
-        addToParent.subPackages.get(name).addTypes(loadPkg);
-    }
-
-    /**
-     * Save the given PackageInfo item (with package name) to XML
-     */
-    private static Element toXML(PackageInfo pkg, String name)
+    /** Import index path to save to/load from */
+    private static File getImportIndexPath()
     {
-        Element el = new Element("package");
-        el.addAttribute(new Attribute("name", name));
-        pkg.types.values().forEach(acts -> {if (acts != null) el.appendChild(acts.toXML());});
-        pkg.subPackages.forEach((subName, subPkg) -> el.appendChild(toXML(subPkg, subName)));
-        return el;
+        return new File(Config.getUserConfigDir(), "import-index.bin");
     }
 }
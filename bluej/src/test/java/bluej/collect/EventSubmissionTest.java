@@ -0,0 +1,292 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+import org.apache.http.entity.mime.MultipartEntity;
+
+/**
+ * Tests for spooling and posting Blackbox events, against a local stand-in for the server.
+ */
+public class EventSubmissionTest extends TestCase
+{
+    private HttpServer server;
+    private final List<String> received = new ArrayList<>();
+    private final Set<Integer> clientPorts = new HashSet<>();
+    // If non-zero, the status (without an X-Status header) which the server gives to "failing" events:
+    private volatile int failureStatus = 0;
+    private File spoolFile;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        startServer(0);
+        spoolFile = File.createTempFile("spool", ".dat");
+        spoolFile.delete();
+    }
+
+    private void startServer(int port) throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/master_events", exchange -> {
+            String body;
+            try (InputStream in = exchange.getRequestBody())
+            {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                synchronized (received)
+                {
+                    received.add(body);
+                    clientPorts.add(exchange.getRemoteAddress().getPort());
+                }
+            }
+            byte[] reply = "ok".getBytes(StandardCharsets.UTF_8);
+            if (failureStatus != 0 && body.contains("failing"))
+            {
+                exchange.sendResponseHeaders(failureStatus, reply.length);
+                exchange.getResponseBody().write(reply);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("X-Status", body.contains("rejected") ? "Invalid" : "Created");
+            exchange.sendResponseHeaders(200, reply.length);
+            exchange.getResponseBody().write(reply);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        server.stop(0);
+        spoolFile.delete();
+    }
+
+    private String getUrl()
+    {
+        return "http://localhost:" + server.getAddress().getPort() + "/master_events";
+    }
+
+    private static List<Event> makeEvents(String prefix, int count)
+    {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            String name = prefix + i;
+            events.add(new Event() {
+                @Override
+                public MultipartEntity makeData(int sequenceNum, Map<FileKey, List<String>> fileVersions)
+                {
+                    MultipartEntity mpe = new MultipartEntity();
+                    mpe.addPart("event[name]", CollectUtility.toBody(name + "@" + sequenceNum));
+                    return mpe;
+                }
+
+                @Override
+                public void success(Map<FileKey, List<String>> fileVersions)
+                {
+                }
+            });
+        }
+        return events;
+    }
+
+    private void assertReceived(String prefix, int count)
+    {
+        synchronized (received)
+        {
+            assertEquals(count, received.size());
+            for (int i = 0; i < count; i++)
+            {
+                assertTrue(received.get(i).contains(prefix + i + "@"));
+            }
+        }
+    }
+
+    public void testBatchSentInOrderOverOneConnection()
+    {
+        EventPoster poster = new EventPoster(getUrl(), new EventSpool(spoolFile), 5000);
+        assertTrue(poster.submit(makeEvents("first", 10)));
+        assertTrue(poster.submit(makeEvents("second", 5)));
+        poster.close();
+
+        synchronized (received)
+        {
+            assertEquals(15, received.size());
+            assertTrue(received.get(0).contains("first0@1"));
+            assertTrue(received.get(9).contains("first9@10"));
+            // Sequence numbers carry on across batches:
+            assertTrue(received.get(14).contains("second4@15"));
+            assertEquals(1, clientPorts.size());
+        }
+        assertFalse(spoolFile.exists());
+    }
+
+    public void testSpooledWhileServerUnreachable() throws IOException
+    {
+        String url = getUrl();
+        server.stop(0);
+
+        EventPoster poster = new EventPoster(url, new EventSpool(spoolFile), 5000);
+        assertFalse(poster.submit(makeEvents("event", 7)));
+        poster.close();
+        assertTrue(spoolFile.exists());
+
+        // A later session, with the server back:
+        startServer(0);
+        EventSpool spool = new EventSpool(spoolFile);
+        assertEquals(7, spool.getPendingCount());
+        poster = new EventPoster(getUrl(), spool, 5000);
+        assertTrue(poster.sendPending());
+        poster.close();
+
+        assertReceived("event", 7);
+        assertFalse(spoolFile.exists());
+    }
+
+    public void testPartialRecordIgnored() throws IOException
+    {
+        EventSpool spool = new EventSpool(spoolFile);
+        spool.append(List.of(new EventSpool.SpooledEvent("text/plain", "one".getBytes(StandardCharsets.UTF_8)),
+                new EventSpool.SpooledEvent("text/plain", "two".getBytes(StandardCharsets.UTF_8))));
+        spool.markSent();
+        spool.close();
+
+        // Simulate a crash part way through writing an event:
+        try (FileOutputStream out = new FileOutputStream(spoolFile, true))
+        {
+            out.write(new byte[] {'E', 0, 10, 't', 'e'});
+        }
+
+        spool = new EventSpool(spoolFile);
+        assertEquals(1, spool.getPendingCount());
+        assertEquals("two", new String(spool.peek().body(), StandardCharsets.UTF_8));
+        // And appending after the damaged record still works:
+        spool.append(List.of(new EventSpool.SpooledEvent("text/plain", "three".getBytes(StandardCharsets.UTF_8))));
+        spool.close();
+        assertEquals(2, new EventSpool(spoolFile).getPendingCount());
+    }
+
+    public void testRejectedEventSkipped()
+    {
+        EventPoster poster = new EventPoster(getUrl(), new EventSpool(spoolFile), 5000);
+        List<Event> events = makeEvents("event", 3);
+        events.addAll(1, makeEvents("rejected", 1));
+        // Only the rejected event is dropped; the ones after it are still sent:
+        assertTrue(poster.submit(events));
+        assertFalse(poster.hasPending());
+        poster.close();
+
+        synchronized (received)
+        {
+            assertEquals(4, received.size());
+            assertTrue(received.get(1).contains("rejected0@2"));
+            assertTrue(received.get(3).contains("event2@4"));
+        }
+        assertFalse(spoolFile.exists());
+    }
+
+    public void testRetryAfterServerReturns() throws IOException
+    {
+        String url = getUrl();
+        int port = server.getAddress().getPort();
+        server.stop(0);
+
+        EventPoster poster = new EventPoster(url, new EventSpool(spoolFile), 5000);
+        assertFalse(poster.submit(makeEvents("event", 2)));
+        // Events keep being spooled while the server is unreachable:
+        poster.spool(makeEvents("later", 1));
+        assertTrue(poster.hasPending());
+        poster.close();
+
+        // The same poster (and sequence numbers) carries on once the server is back:
+        startServer(port);
+        assertTrue(poster.sendPending());
+        poster.close();
+
+        synchronized (received)
+        {
+            assertEquals(3, received.size());
+            assertTrue(received.get(0).contains("event0@1"));
+            assertTrue(received.get(2).contains("later0@3"));
+        }
+        assertFalse(spoolFile.exists());
+    }
+
+    public void testServerErrorRetried()
+    {
+        for (int status : new int[] {500, 503, 429})
+        {
+            failureStatus = status;
+            EventPoster poster = new EventPoster(getUrl(), new EventSpool(spoolFile), 5000);
+            List<Event> events = makeEvents("event", 2);
+            events.addAll(1, makeEvents("failing", 1));
+            // The failing event is kept, and holds up the ones after it:
+            assertFalse(poster.submit(events));
+            assertTrue(poster.hasPending());
+
+            failureStatus = 0;
+            assertTrue(poster.sendPending());
+            poster.close();
+
+            synchronized (received)
+            {
+                assertEquals(4, received.size());
+                assertTrue(received.get(1).contains("failing0@2"));
+                assertTrue(received.get(2).contains("failing0@2"));
+                assertTrue(received.get(3).contains("event1@3"));
+                received.clear();
+            }
+            assertFalse(spoolFile.exists());
+        }
+    }
+
+    public void testClientErrorSkipped()
+    {
+        failureStatus = 400;
+        EventPoster poster = new EventPoster(getUrl(), new EventSpool(spoolFile), 5000);
+        List<Event> events = makeEvents("event", 2);
+        events.addAll(1, makeEvents("failing", 1));
+        assertTrue(poster.submit(events));
+        assertFalse(poster.hasPending());
+        poster.close();
+
+        synchronized (received)
+        {
+            assertEquals(3, received.size());
+            assertTrue(received.get(2).contains("event1@3"));
+        }
+    }
+}
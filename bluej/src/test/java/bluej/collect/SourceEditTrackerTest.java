@@ -0,0 +1,120 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import bluej.editor.flow.HoleDocument;
+import bluej.utility.Utility;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the line changes tracked from document edits transform the
+ * previously recorded source into the current source.
+ */
+public class SourceEditTrackerTest extends TestCase
+{
+    private static final String[] FRAGMENTS = {"", "x", "int y;", "\n", "\n\n", "}\n", "a\nb", "\n  c = 1;\n"};
+
+    private static List<String> split(HoleDocument document)
+    {
+        return Arrays.asList(Utility.splitLines(document.getFullContent()));
+    }
+
+    public void testSingleEdit()
+    {
+        HoleDocument document = new HoleDocument();
+        document.replaceText(0, 0, "class A\n{\n    int x;\n}\n");
+        SourceEditTracker tracker = new SourceEditTracker(document);
+        document.addListener(true, tracker);
+        tracker.checkpointRecorded(0);
+
+        document.replaceText(document.getFullContent().indexOf("x"), document.getFullContent().indexOf("x") + 1, "y;\n    int z");
+        List<LineChange> changes = tracker.getChanges();
+        assertEquals(1, changes.size());
+        assertEquals(2, changes.get(0).oldStart());
+        assertEquals(List.of("    int x;"), changes.get(0).oldLines());
+        assertEquals(List.of("    int y;", "    int z;"), changes.get(0).newLines());
+        assertEquals("@@ -3,1 +3,2 @@\n-    int x;\n+    int y;\n+    int z;\n", DataCollectorImpl.makeDiff(changes));
+
+        // Undoing the edit leaves nothing to record:
+        document.replaceText(document.getFullContent().indexOf("y"), document.getFullContent().indexOf("z") + 1, "x");
+        assertTrue(tracker.getChanges().isEmpty());
+    }
+
+    public void testRandomEdits()
+    {
+        Random random = new Random(42);
+        HoleDocument document = new HoleDocument();
+        document.replaceText(0, 0, "class A\n{\n    int x;\n\n    void m()\n    {\n    }\n}\n");
+        SourceEditTracker tracker = new SourceEditTracker(document);
+        document.addListener(true, tracker);
+        tracker.checkpointRecorded(0);
+        List<String> recorded = split(document);
+
+        for (int i = 0; i < 2000; i++)
+        {
+            int length = document.getLength();
+            int start = random.nextInt(length + 1);
+            int end = Math.min(length, start + random.nextInt(12));
+            document.replaceText(start, end, FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+
+            if (random.nextInt(5) == 0)
+            {
+                List<LineChange> changes = tracker.getChanges();
+                recorded = DataCollectorImpl.applyChanges(recorded, changes);
+                assertEquals(split(document), recorded);
+                assertEquals(recorded.size(), tracker.getLineCount());
+                tracker.changesRecorded(0);
+            }
+        }
+    }
+
+    public void testMismatchedVersion()
+    {
+        HoleDocument document = new HoleDocument();
+        document.replaceText(0, 0, "class A\n{\n    int x;\n}\n");
+        SourceEditTracker tracker = new SourceEditTracker(document);
+        document.addListener(true, tracker);
+        tracker.checkpointRecorded(0);
+        List<String> recorded = split(document);
+
+        document.replaceText(document.getFullContent().indexOf("x"), document.getFullContent().indexOf("x") + 1, "y");
+        List<LineChange> changes = tracker.getChanges();
+        assertEquals(split(document), DataCollectorImpl.applyChanges(recorded, changes));
+
+        // A version which does not have the replaced lines cannot be updated from the changes:
+        assertNull(DataCollectorImpl.applyChanges(List.of("class A", "{", "    int w;", "}"), changes));
+        assertNull(DataCollectorImpl.applyChanges(List.of("class A", "{"), changes));
+
+        // Nothing is then tracked until the next checkpoint:
+        tracker.checkpointNeeded();
+        assertFalse(tracker.isTracking());
+        document.replaceText(document.getFullContent().indexOf("y"), document.getFullContent().indexOf("y") + 1, "z");
+        tracker.checkpointRecorded(0);
+        assertTrue(tracker.isTracking());
+        assertTrue(tracker.getChanges().isEmpty());
+    }
+}
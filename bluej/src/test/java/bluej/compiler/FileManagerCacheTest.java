@@ -0,0 +1,100 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import bluej.utility.FileUtility;
+
+public class FileManagerCacheTest extends junit.framework.TestCase
+{
+    private JavaCompiler compiler;
+    private File projectDir;
+    private FileManagerCache cache;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        projectDir = Files.createTempDirectory("fmcache").toFile();
+        cache = new FileManagerCache();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        cache.discard(projectDir);
+        FileUtility.deleteDir(projectDir);
+    }
+
+    private FileManagerCache.Entry acquire() throws Exception
+    {
+        return cache.acquire(compiler, projectDir, List.of(), null, StandardCharsets.UTF_8, List.of());
+    }
+
+    public void testReuse() throws Exception
+    {
+        FileManagerCache.Entry first = acquire();
+        assertFalse(first.isReused());
+        cache.release(first);
+        FileManagerCache.Entry second = acquire();
+        assertSame(first, second);
+        assertTrue(second.isReused());
+        cache.release(second);
+    }
+
+    public void testConcurrentUseDoesNotDiscardCached() throws Exception
+    {
+        FileManagerCache.Entry first = acquire();
+        // A second compilation for the same project, while the first is running:
+        FileManagerCache.Entry second = acquire();
+        assertNotSame(first, second);
+        cache.release(second);
+        cache.release(first);
+
+        // The cached file manager is still the first one:
+        FileManagerCache.Entry third = acquire();
+        assertSame(first, third);
+        cache.release(third);
+    }
+
+    public void testClassOutputReset() throws Exception
+    {
+        FileManagerCache.Entry entry = acquire();
+        File tempDir = Files.createTempDirectory("fmcache-out").toFile();
+        entry.getFileManager().setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(tempDir));
+        tempDir.delete();
+        cache.release(entry);
+
+        entry = acquire();
+        assertEquals(projectDir, entry.getFileManager().getLocation(StandardLocation.CLASS_OUTPUT).iterator().next());
+        cache.release(entry);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import bluej.parser.InitConfig;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the queueing of compile jobs: which jobs are superseded, and the order
+ * in which jobs are taken to be run.
+ */
+public class JobQueueTest extends TestCase
+{
+    private static final File PROJECT_A = new File("projectA");
+    private static final File PROJECT_B = new File("projectB");
+
+    // A queue with no compiler threads, so that only the test takes jobs from it:
+    private JobQueue queue;
+
+    @Override
+    protected void setUp()
+    {
+        InitConfig.init();
+        queue = new JobQueue(0);
+    }
+
+    private static CompileInputFile[] sources(File destDir, String... names)
+    {
+        CompileInputFile[] sources = new CompileInputFile[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            File file = new File(destDir, names[i] + ".java");
+            sources[i] = new CompileInputFile(file, file);
+        }
+        return sources;
+    }
+
+    private void addJob(File destDir, CompileType type, String... names)
+    {
+        queue.addJob(sources(destDir, names), null, null, destDir, false, StandardCharsets.UTF_8,
+                CompileReason.MODIFIED, type);
+    }
+
+    public void testErrorCheckSupersededByLaterJob()
+    {
+        addJob(PROJECT_A, CompileType.ERROR_CHECK_ONLY, "A");
+        addJob(PROJECT_A, CompileType.ERROR_CHECK_ONLY, "B");
+        addJob(PROJECT_A, CompileType.EXPLICIT_USER_COMPILE, "A", "C");
+
+        Job checkA = queue.takeJob();
+        assertTrue(checkA.isCancelled());
+        queue.jobFinished(checkA, null);
+        Job checkB = queue.takeJob();
+        assertFalse(checkB.isCancelled());
+        queue.jobFinished(checkB, null);
+
+
+        Job compile = queue.takeJob();
+        assertEquals(CompileType.EXPLICIT_USER_COMPILE, compile.getType());
+        queue.jobFinished(compile, null);
+        assertEquals(1, queue.getMetrics().jobsCancelled());
+    }
+
+    public void testCompileNotSuperseded()
+    {
+        addJob(PROJECT_A, CompileType.EXPLICIT_USER_COMPILE, "A");
+        // A job for another project never supersedes one for this project:
+        addJob(PROJECT_B, CompileType.ERROR_CHECK_ONLY, "A");
+        addJob(PROJECT_A, CompileType.ERROR_CHECK_ONLY, "A", "B");
+
+        Job compile = queue.takeJob();
+        assertEquals(CompileType.EXPLICIT_USER_COMPILE, compile.getType());
+        assertFalse(compile.isCancelled());
+        Job otherProject = queue.takeJob();
+        assertEquals(PROJECT_B, otherProject.getDestDir());
+        assertFalse(otherProject.isCancelled());
+        queue.jobFinished(compile, null);
+        queue.jobFinished(otherProject, null);
+        assertEquals(0, queue.getMetrics().jobsCancelled());
+    }
+
+    public void testSourceModified()
+    {
+        addJob(PROJECT_A, CompileType.ERROR_CHECK_ONLY, "A", "B");
+        addJob(PROJECT_A, CompileType.EXPLICIT_USER_COMPILE, "A");
+
+        // An error check is only out of date once all its sources have been modified:
+        queue.sourceModified(new File(PROJECT_A, "A.java"));
+        Job check = queue.takeJob();
+        assertFalse(check.isCancelled());
+        queue.sourceModified(new File(PROJECT_A, "B.java"));
+        // ...which also applies once it is running:
+        assertTrue(check.isCancelled());
+        queue.jobFinished(check, null);
+
+        // A compile whose classes are kept is never cancelled, even once all its sources are modified:
+        Job compile = queue.takeJob();
+        assertFalse(compile.isCancelled());
+        queue.jobFinished(compile, null);
+    }
+
+    public void testOrderPerDestDir()
+    {
+        addJob(PROJECT_A, CompileType.EXPLICIT_USER_COMPILE, "A");
+        addJob(PROJECT_A, CompileType.INTERNAL_COMPILE, "B");
+        addJob(PROJECT_B, CompileType.EXTENSION, "C");
+
+        Job first = queue.takeJob();
+        assertEquals(CompileType.EXPLICIT_USER_COMPILE, first.getType());
+        // The second job for project A must wait for the first, but project B can go ahead:
+        Job other = queue.takeJob();
+        assertEquals(CompileType.EXTENSION, other.getType());
+        assertEquals(1, queue.getMetrics().queueDepth());
+        assertEquals(2, queue.getMetrics().runningJobs());
+
+        queue.jobFinished(first, null);
+        Job second = queue.takeJob();
+        assertEquals(CompileType.INTERNAL_COMPILE, second.getType());
+        queue.jobFinished(second, null);
+        queue.jobFinished(other, null);
+        assertEquals(3, queue.getMetrics().jobsStarted());
+    }
+
+    public void testWaitForEmptyQueue() throws InterruptedException
+    {
+        addJob(PROJECT_A, CompileType.EXPLICIT_USER_COMPILE, "A");
+        Thread waiter = new Thread(queue::waitForEmptyQueue);
+        waiter.start();
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+
+        // Still waiting while the job runs:
+        Job job = queue.takeJob();
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+
+        queue.jobFinished(job, null);
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+    }
+}
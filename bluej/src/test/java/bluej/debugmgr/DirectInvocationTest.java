@@ -0,0 +1,99 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugmgr;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the literal parsing used to decide whether an interactive call
+ * can be made directly (without compiling a shell class).
+ */
+public class DirectInvocationTest extends TestCase
+{
+    private static void assertNotLiteral(String arg, Class<?> type)
+    {
+        assertSame(arg + " as " + type, DirectInvocation.NOT_LITERAL, DirectInvocation.parseLiteral(arg, type));
+    }
+
+    public void testIntegers()
+    {
+        assertEquals(5, DirectInvocation.parseLiteral("5", int.class));
+        assertEquals(-5, DirectInvocation.parseLiteral("-5", Integer.class));
+        assertEquals(Integer.MIN_VALUE, DirectInvocation.parseLiteral("-2147483648", int.class));
+        assertEquals(5L, DirectInvocation.parseLiteral("5", long.class));
+        assertEquals(5.0, DirectInvocation.parseLiteral("5", double.class));
+        assertEquals((byte) 100, DirectInvocation.parseLiteral("100", byte.class));
+        assertEquals((short) 1000, DirectInvocation.parseLiteral("1000", Short.class));
+        assertEquals('A', DirectInvocation.parseLiteral("65", char.class));
+        assertEquals(5L, DirectInvocation.parseLiteral("5L", Long.class));
+
+        assertNotLiteral("2147483648", int.class);
+        assertNotLiteral("300", byte.class);
+        assertNotLiteral("5", Long.class);
+        assertNotLiteral("5", Double.class);
+        assertNotLiteral("5L", int.class);
+        assertNotLiteral("010", int.class);
+        assertNotLiteral("09", double.class);
+        assertNotLiteral("0x10", int.class);
+        assertNotLiteral("1_000", int.class);
+        assertNotLiteral("5", Object.class);
+    }
+
+    public void testFloatingPoint()
+    {
+        assertEquals(1.5, DirectInvocation.parseLiteral("1.5", double.class));
+        assertEquals(1.5, DirectInvocation.parseLiteral("1.5d", Double.class));
+        assertEquals(-0.5, DirectInvocation.parseLiteral("-.5", double.class));
+        assertEquals(1e10, DirectInvocation.parseLiteral("1e10", double.class));
+        assertEquals(1.5f, DirectInvocation.parseLiteral("1.5f", float.class));
+        assertEquals(1.5, DirectInvocation.parseLiteral("1.5F", double.class));
+
+        assertNotLiteral("1.5", float.class);
+        assertNotLiteral("1.5", int.class);
+        assertNotLiteral("1.5f", Double.class);
+        assertNotLiteral("1e400", double.class);
+        assertNotLiteral("1e-400", double.class);
+    }
+
+    public void testOtherLiterals()
+    {
+        assertEquals(Boolean.TRUE, DirectInvocation.parseLiteral("true", boolean.class));
+        assertEquals(Boolean.FALSE, DirectInvocation.parseLiteral("false", Boolean.class));
+        assertEquals('x', DirectInvocation.parseLiteral("'x'", char.class));
+        assertEquals('\n', DirectInvocation.parseLiteral("'\\n'", Character.class));
+        assertEquals(120, DirectInvocation.parseLiteral("'x'", int.class));
+        assertEquals("a \"b\"\t", DirectInvocation.parseLiteral("\"a \\\"b\\\"\\t\"", String.class));
+        assertEquals("abc", DirectInvocation.parseLiteral("\"abc\"", Object.class));
+        assertEquals("abc", DirectInvocation.parseLiteral("\"abc\"", CharSequence.class));
+        assertNull(DirectInvocation.parseLiteral("null", String.class));
+
+        assertNotLiteral("null", int.class);
+        assertNotLiteral("true", int.class);
+        assertNotLiteral("\"abc\"", Integer.class);
+        assertNotLiteral("\"a\" + \"b\"", String.class);
+        assertNotLiteral("\"\\u0041\"", String.class);
+        assertNotLiteral("'ab'", char.class);
+        assertNotLiteral("'x'", Integer.class);
+        assertNotLiteral("x", int.class);
+        assertNotLiteral("2+3", int.class);
+    }
+}
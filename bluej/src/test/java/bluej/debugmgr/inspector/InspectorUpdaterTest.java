@@ -0,0 +1,55 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugmgr.inspector;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the adaptive interval between checks of auto-updating inspectors.
+ */
+public class InspectorUpdaterTest extends TestCase
+{
+    public void testIntervalLengthensWhileUnchanged()
+    {
+        long interval = 1000;
+        long last = interval;
+        for (int i = 0; i < 10; i++) {
+            interval = InspectorUpdater.nextInterval(interval, false, 5);
+            assertTrue(interval >= last);
+            last = interval;
+        }
+        assertEquals(4000, interval);
+    }
+    
+    public void testIntervalResetsOnChange()
+    {
+        assertEquals(1000, InspectorUpdater.nextInterval(4000, true, 5));
+    }
+    
+    public void testIntervalFollowsCheckTime()
+    {
+        // A slow check (because the debug VM is busy) lengthens the interval, even on change:
+        assertEquals(6000, InspectorUpdater.nextInterval(1000, true, 300));
+        // ...up to a limit:
+        assertEquals(15000, InspectorUpdater.nextInterval(1000, true, 10000));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.fixes;
+
+import java.util.List;
+
+public class SuggestionIndexTest extends junit.framework.TestCase
+{
+    private final SuggestionIndex index = new SuggestionIndex(List.of(
+            "getX", "getActorDetails", "this.foodList", "get_actor_details", "Greenfoot.isKeyDown", "GETY", "add"));
+    
+    public void testPrefix()
+    {
+        assertEquals(List.of(0, 1, 3, 5), index.withPrefix("get"));
+        assertEquals(List.of(1), index.withPrefix("getac"));
+        assertEquals(List.of(2), index.withPrefix("this.foo"));
+        assertEquals(List.of(), index.withPrefix("z"));
+        assertEquals(7, index.withPrefix("").size());
+    }
+    
+    public void testWordStarts()
+    {
+        assertEquals(List.of(0, 3, 8), asList(index.getWordStarts(1)));
+        assertEquals(List.of(0, 4, 10), asList(index.getWordStarts(3)));
+    }
+    
+    public void testDistance()
+    {
+        assertEquals(0, index.distanceTo("actor", 1, 3, 1));
+        assertEquals(1, index.distanceTo("acter", 1, 3, 1));
+        // Transposition counts as one edit:
+        assertEquals(1, index.distanceTo("catord", 1, 3, 2));
+        // Too far away; we only promise a result above the limit:
+        assertTrue(index.distanceTo("xyzzy", 1, 3, 1) > 1);
+    }
+    
+    private static List<Integer> asList(int[] ints)
+    {
+        return java.util.Arrays.stream(ints).boxed().toList();
+    }
+}
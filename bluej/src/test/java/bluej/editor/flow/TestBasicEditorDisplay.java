@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program.
- Copyright (C) 2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or
  modify it under the terms of the GNU General Public License 
@@ -23,6 +23,7 @@ package bluej.editor.flow;
 
 import bluej.Config;
 import bluej.collect.DiagnosticWithShown;
+import bluej.collect.SourceEditTracker;
 import bluej.collect.StrideEditReason;
 import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
@@ -155,7 +156,7 @@ public class TestBasicEditorDisplay extends FXTest
             }
 
             @Override
-            public void recordJavaEdit(String javaSource, boolean includeOneLineEdits)
+            public void recordJavaEdit(SourceEditTracker edits, boolean includeOneLineEdits)
             {
 
             }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2022,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -300,7 +300,7 @@ public class TestDocument
                 {
                     for (TrackedPosition position : entry.getKey().onePosPerDoc)
                     {
-                        position.position = entry.getValue();
+                        position.moveTo(entry.getValue());
                     }
                 }
             }
@@ -313,7 +313,7 @@ public class TestDocument
 
         for (Pos pos : trackedPositions)
         {
-            positions.put(pos, pos.onePosPerDoc.get(0).position);
+            positions.put(pos, pos.onePosPerDoc.get(0).getPosition());
         }
         
         return positions;
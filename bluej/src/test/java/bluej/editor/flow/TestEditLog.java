@@ -0,0 +1,102 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.flow.Document.Bias;
+import bluej.editor.flow.gen.GenRandom;
+import com.pholser.junit.quickcheck.From;
+import com.pholser.junit.quickcheck.Property;
+import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that positions updated lazily from an EditLog end up where positions updated on
+ * every edit do, including across the points where the log fills up and is emptied.
+ */
+@RunWith(JUnitQuickcheck.class)
+public class TestEditLog
+{
+    @Property(trials = 50, shrink = false)
+    public void propLazyMatchesEager(@From(GenRandom.class) Random r)
+    {
+        // The positions are not tracked by this document, only by the log or the test:
+        Document document = new SlowDocument();
+        EditLog editLog = new EditLog();
+        // Pairs of positions, one updated lazily and one directly:
+        List<TrackedPosition> lazy = new ArrayList<>();
+        List<TrackedPosition> eager = new ArrayList<>();
+        int length = 0;
+        
+        // Enough edits to fill the log several times over:
+        for (int i = 0; i < 2000; i++)
+        {
+            if (lazy.isEmpty() || r.nextInt(20) == 0)
+            {
+                int position = r.nextInt(length + 1);
+                Bias bias = Bias.values()[r.nextInt(Bias.values().length)];
+                lazy.add(editLog.track(document, position, bias));
+                eager.add(new TrackedPosition(document, position, bias));
+            }
+            
+            int start = r.nextInt(length + 1);
+            int end = r.nextInt(4) == 0 ? start + r.nextInt(length - start + 1) : start;
+            int insertedLength = r.nextInt(4) == 0 ? 0 : r.nextInt(30);
+            // The document is edited too, as moving positions depends on its length:
+            document.replaceText(start, end, "x".repeat(insertedLength));
+            editLog.add(start, end, insertedLength);
+            for (TrackedPosition position : eager)
+            {
+                position.updateTrackedPosition(start, end, insertedLength);
+            }
+            length += insertedLength - (end - start);
+            
+            // Check a few positions (which brings them up to date) and leave the rest, so that
+            // positions are behind by varying amounts when the log is emptied:
+            for (int j = 0; j < 2; j++)
+            {
+                int k = r.nextInt(lazy.size());
+                assertEquals("Edit " + i + ", position " + k, eager.get(k).getPosition(), lazy.get(k).getPosition());
+            }
+            
+            // Moving a lazy position brings it up to date first:
+            if (r.nextInt(10) == 0)
+            {
+                int k = r.nextInt(lazy.size());
+                int target = r.nextInt(length + 1);
+                lazy.get(k).moveTo(target);
+                eager.get(k).moveTo(target);
+                assertEquals(target, lazy.get(k).getPosition());
+            }
+        }
+        
+        for (int k = 0; k < lazy.size(); k++)
+        {
+            assertEquals("Position " + k, eager.get(k).getPosition(), lazy.get(k).getPosition());
+        }
+    }
+}
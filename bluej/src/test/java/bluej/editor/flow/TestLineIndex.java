@@ -0,0 +1,149 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.flow.gen.GenRandom;
+import com.pholser.junit.quickcheck.From;
+import com.pholser.junit.quickcheck.Property;
+import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks LineIndex against a simple list of line lengths, through random replacements of lines.
+ */
+@RunWith(JUnitQuickcheck.class)
+public class TestLineIndex
+{
+    @Property(trials = 50, shrink = false)
+    public void propLineIndexMatchesList(@From(GenRandom.class) Random r)
+    {
+        LineIndex index = new LineIndex();
+        List<Integer> lengths = new ArrayList<>(List.of(0));
+        // The attribute value on each line, or null:
+        List<Object> attributes = new ArrayList<>(Collections.singletonList(null));
+        
+        for (int i = 0; i < 500; i++)
+        {
+            int line = r.nextInt(lengths.size());
+            int newLength = r.nextInt(100);
+            int linesToRemove = r.nextInt(Math.min(lengths.size() - line, 1 + r.nextInt(20)));
+            // Mostly small inserts, like typing, with the odd large paste:
+            int insertedCount = r.nextInt(10) == 0 ? r.nextInt(200) : r.nextInt(3);
+            int[] insertedLengths = new int[insertedCount + r.nextInt(3)];
+            for (int j = 0; j < insertedLengths.length; j++)
+            {
+                insertedLengths[j] = r.nextInt(120);
+            }
+            
+            index.replaceLinesAfter(line, newLength, linesToRemove, insertedLengths, insertedCount);
+            lengths.set(line, newLength);
+            lengths.subList(line + 1, line + 1 + linesToRemove).clear();
+            attributes.subList(line + 1, line + 1 + linesToRemove).clear();
+            for (int j = 0; j < insertedCount; j++)
+            {
+                lengths.add(line + 1 + j, insertedLengths[j]);
+                attributes.add(line + 1 + j, null);
+            }
+            
+            if (r.nextInt(4) == 0)
+            {
+                int attrLine = r.nextInt(lengths.size());
+                Object value = i;
+                index.getOrCreateAttributes(attrLine).put("key", value);
+                attributes.set(attrLine, value);
+            }
+            if (r.nextInt(50) == 0)
+            {
+                index.removeAttributeThroughout("key");
+                Collections.fill(attributes, null);
+            }
+            
+            checkMatches(r, index, lengths, attributes);
+        }
+    }
+    
+    private static void checkMatches(Random r, LineIndex index, List<Integer> lengths, List<Object> attributes)
+    {
+        assertEquals(lengths.size(), index.getLineCount());
+        
+        int start = 0;
+        int longest = 0;
+        for (int line = 0; line < lengths.size(); line++)
+        {
+            assertEquals(lengths.get(line).intValue(), index.getLineLength(line));
+            assertEquals(start, index.getLineStart(line));
+            // Both ends of the line (the end being the position of the newline) are in the line:
+            assertEquals(line, index.getLineFromPosition(start));
+            assertEquals(line, index.getLineFromPosition(start + lengths.get(line)));
+            if (lengths.get(line) > lengths.get(longest))
+            {
+                longest = line;
+            }
+            Object attribute = index.getAttributes(line) == null ? null : index.getAttributes(line).get("key");
+            assertEquals(attributes.get(line), attribute);
+            start += lengths.get(line) + 1;
+        }
+        assertEquals(longest, index.getLongestLine());
+        
+        int documentLength = start - 1;
+        assertEquals(-1, index.getLineFromPosition(-1));
+        assertEquals(lengths.size() - 1, index.getLineFromPosition(documentLength + 1 + r.nextInt(10)));
+    }
+    
+    @Property(trials = 20, shrink = false)
+    public void propInvalidLines(@From(GenRandom.class) Random r)
+    {
+        LineIndex index = new LineIndex();
+        int lineCount = 1 + r.nextInt(50);
+        index.replaceLinesAfter(0, 0, 0, new int[lineCount - 1], lineCount - 1);
+        
+        for (int line : new int[] {-1, lineCount, lineCount + r.nextInt(10)})
+        {
+            try
+            {
+                index.getLineStart(line);
+                fail("Expected exception for line " + line + " of " + lineCount);
+            }
+            catch (IndexOutOfBoundsException e)
+            {
+                // Expected
+            }
+        }
+        try
+        {
+            index.replaceLinesAfter(0, 0, lineCount, new int[0], 0);
+            fail("Expected exception removing " + lineCount + " lines after line 0");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // Expected
+        }
+        assertEquals(lineCount, index.getLineCount());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+
+import bluej.utility.FileUtility;
+import junit.framework.TestCase;
+
+public class GitStatusCacheTest extends TestCase
+{
+    private static final int DIR_COUNT = 20;
+    private static final int FILES_PER_DIR = 100;
+
+    private File dir;
+    private Git git;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("gitstatus").toFile();
+        git = Git.init().setDirectory(dir).call();
+        for (int i = 0; i < DIR_COUNT; i++) {
+            File pkg = new File(dir, "pkg" + i);
+            pkg.mkdir();
+            for (int j = 0; j < FILES_PER_DIR; j++) {
+                Files.writeString(new File(pkg, "C" + j + ".java").toPath(), "class C" + j + " { }\n");
+            }
+        }
+        PersonIdent ident = new PersonIdent("Test", "test@example.com");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("Initial").setAuthor(ident).setCommitter(ident).setSign(false).call();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        GitStatusCache.projectClosed(dir);
+        git.close();
+        FileUtility.deleteDir(dir);
+    }
+
+    public void testSavedFileRefresh() throws Exception
+    {
+        GitStatusCache cache = GitStatusCache.forProject(dir);
+        assertTrue(cache.getLocalStatus(git).getUncommittedChanges().isEmpty());
+
+        File file = new File(dir, "pkg3/C7.java");
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file.toPath(), "class C7 { int v = " + i + "; }\n");
+            GitStatusCache.fileSaved(file);
+            GitStatusCache.LocalStatus status = cache.getLocalStatus(git);
+            assertEquals(Set.of("pkg3/C7.java"), status.getUncommittedChanges());
+            times.add(cache.getLastRefreshMillis());
+        }
+        // After a save, the status should refresh in well under 100ms even with thousands of
+        // files; take the best of several refreshes to allow for a busy test machine:
+        assertTrue("Refresh took " + times + "ms", Collections.min(times) < 100);
+    }
+
+    public void testNewAndDeletedFiles() throws Exception
+    {
+        GitStatusCache cache = GitStatusCache.forProject(dir);
+        cache.getLocalStatus(git);
+
+        File added = new File(dir, "pkg1/New.java");
+        Files.writeString(added.toPath(), "class New { }\n");
+        GitStatusCache.fileSaved(added);
+        assertEquals(Set.of("pkg1/New.java"), cache.getLocalStatus(git).getUntracked());
+
+        File deleted = new File(dir, "pkg2/C0.java");
+        deleted.delete();
+        GitStatusCache.fileSaved(deleted);
+        GitStatusCache.LocalStatus status = cache.getLocalStatus(git);
+        assertEquals(Set.of("pkg2/C0.java"), status.getMissing());
+        assertEquals(Set.of("pkg1/New.java"), status.getUntracked());
+    }
+
+    public void testIgnoreRulesChanged() throws Exception
+    {
+        File exclude = new File(dir, ".git/info/exclude");
+        exclude.getParentFile().mkdirs();
+        GitStatusCache cache = GitStatusCache.forProject(dir);
+        File scratch = new File(dir, "pkg1/Scratch.txt");
+        Files.writeString(scratch.toPath(), "notes\n");
+        GitStatusCache.fileSaved(scratch);
+        assertEquals(Set.of("pkg1/Scratch.txt"), cache.getLocalStatus(git).getUntracked());
+
+        // Ignoring a file is only a change to .gitignore, but changes the status of the file:
+        File gitIgnore = new File(dir, ".gitignore");
+        Files.writeString(gitIgnore.toPath(), "*.txt\n");
+        GitStatusCache.fileSaved(gitIgnore);
+        assertEquals(Set.of(".gitignore"), cache.getLocalStatus(git).getUntracked());
+
+        // Files excluded in .git/info/exclude are not saved by BlueJ, so we rely on the watcher:
+        File temp = new File(dir, "pkg2/Temp.tmp");
+        Files.writeString(temp.toPath(), "temp\n");
+        GitStatusCache.fileSaved(temp);
+        assertEquals(Set.of(".gitignore", "pkg2/Temp.tmp"), cache.getLocalStatus(git).getUntracked());
+        Files.writeString(exclude.toPath(), "*.tmp\n");
+        long end = System.currentTimeMillis() + 10000;
+        while (cache.getLocalStatus(git).getUntracked().contains("pkg2/Temp.tmp") && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+        assertEquals(Set.of(".gitignore"), cache.getLocalStatus(git).getUntracked());
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2013,2014,2016,2019,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2013,2014,2016,2019,2022,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,6 +21,10 @@
  */
 package bluej.parser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
@@ -1710,4 +1714,63 @@ public class BasicParseTest
         assertNotNull(info);
         assertTrue(info.hadParseError());
     }
+
+    /**
+     * Check that ClassInfo survives being written out and read back in (as it is
+     * when cached between sessions).
+     */
+    @Test
+    public void testClassInfoSerialization() throws Exception
+    {
+        for (String name : new String[] {"AffinedTransformer.dat", "multi_interface.dat", "15_generic.dat"})
+        {
+            ClassInfo info = InfoParser.parse(getFile(name));
+            assertNotNull(info);
+            
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes))
+            {
+                info.writeTo(out);
+            }
+            ClassInfo copy = ClassInfo.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            
+            assertEquals(info.getName(), copy.getName());
+            assertEquals(info.getSuperclass(), copy.getSuperclass());
+            assertEquals(info.getPackage(), copy.getPackage());
+            assertEquals(info.getImplements(), copy.getImplements());
+            assertEquals(info.getUsed(), copy.getUsed());
+            assertEquals(info.getPermits(), copy.getPermits());
+            assertEquals(info.getTypeParameterTexts(), copy.getTypeParameterTexts());
+            assertEquals(info.getComments(), copy.getComments());
+            assertEquals(info.hasTypeParameter(), copy.hasTypeParameter());
+            assertEquals(info.isInterface(), copy.isInterface());
+            assertEquals(info.isAbstract(), copy.isAbstract());
+            assertEquals(info.isEnum(), copy.isEnum());
+            assertEquals(info.hadParseError(), copy.hadParseError());
+            assertEquals(info.hasPackageStatement(), copy.hasPackageStatement());
+            assertSameSelection(info.getPackageNameSelection(), copy.getPackageNameSelection());
+            assertSameSelection(info.getExtendsInsertSelection(), copy.getExtendsInsertSelection());
+            assertSameSelection(info.getImplementsInsertSelection(), copy.getImplementsInsertSelection());
+            assertSameSelection(info.getSuperReplaceSelection(), copy.getSuperReplaceSelection());
+            assertEquals(info.hasInterfaceSelections(), copy.hasInterfaceSelections());
+            if (info.hasInterfaceSelections())
+            {
+                assertEquals(info.getInterfaceSelections().size(), copy.getInterfaceSelections().size());
+                for (int i = 0; i < info.getInterfaceSelections().size(); i++)
+                {
+                    assertSameSelection(info.getInterfaceSelections().get(i), copy.getInterfaceSelections().get(i));
+                }
+            }
+        }
+    }
+    
+    private static void assertSameSelection(Selection expected, Selection actual)
+    {
+        if (expected == null)
+        {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getLocation(), actual.getLocation());
+    }
 }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2009,2010,2011,2012,2014,2016,2022,2024  Michael Kolling and John Rosenberg
+ Copyright (C) 2009,2010,2011,2012,2014,2016,2022,2024,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,6 +21,7 @@
  */
 package bluej.parser;
 
+import bluej.parser.lexer.JavaLexer;
 import bluej.parser.lexer.JavaTokenFilter;
 import bluej.parser.lexer.JavaTokenTypes;
 import bluej.parser.lexer.LineColPos;
@@ -1062,4 +1063,47 @@ public class LexerTest extends junit.framework.TestCase
             }
         }
     }
+    
+    /**
+     * Check that lexing directly from a CharSequence gives
+     * exactly the same tokens as lexing via a Reader.
+     */
+    public void testCharSequenceLexer()
+    {
+        String source = "package a.b;\n"
+                + "/** doc */ public non-sealed class X\\u0059z extends non-sealed-pipe {\n"
+                + "  // comment \\u0041\n"
+                + "  String s = \"\\u0022\\n\" + \"\\\\u0041\" + 'c' + \"\"\"\n  text\n  \"\"\";\n"
+                + "  int i = 0x1F + 1_000L + .5e3f + a--b + \\uuu0062;\n"
+                + "  \\uXYZ \\\\\n"
+                + "}\n";
+        
+        for (boolean whitespace : new boolean[] {false, true})
+        {
+            JavaLexer readerLexer = new JavaLexer(new StringReader(source));
+            readerLexer.setGenerateWhitespaceTokens(whitespace);
+            JavaLexer charLexer = new JavaLexer(source);
+            charLexer.setGenerateWhitespaceTokens(whitespace);
+            
+            LocatableToken expected;
+            do
+            {
+                expected = readerLexer.nextToken();
+                assertSameToken(expected, charLexer.nextToken());
+            }
+            while (expected.getType() != JavaTokenTypes.EOF);
+        }
+    }
+    
+    private static void assertSameToken(LocatableToken expected, LocatableToken actual)
+    {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getLine(), actual.getLine());
+        assertEquals(expected.getColumn(), actual.getColumn());
+        assertEquals(expected.getEndLine(), actual.getEndLine());
+        assertEquals(expected.getEndColumn(), actual.getEndColumn());
+        assertEquals(expected.getPosition(), actual.getPosition());
+        assertEquals(expected.getEndPosition(), actual.getEndPosition());
+    }
 }
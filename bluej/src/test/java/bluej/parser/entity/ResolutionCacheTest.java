@@ -0,0 +1,108 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResolutionCacheTest extends junit.framework.TestCase
+{
+    private final List<String> loads = new ArrayList<>();
+    
+    private Class<?> load(String name)
+    {
+        loads.add(name);
+        return name.equals("java.lang.String") ? String.class : null;
+    }
+    
+    public void testCachesHitsAndMisses()
+    {
+        ResolutionCache cache = new ResolutionCache();
+        assertSame(String.class, cache.loadClass("java.lang.String", this::load));
+        assertNull(cache.loadClass("java.lang.foo", this::load));
+        assertSame(String.class, cache.loadClass("java.lang.String", this::load));
+        assertNull(cache.loadClass("java.lang.foo", this::load));
+        
+        assertEquals(2, loads.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getNegativeHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+        assertEquals(2, cache.size());
+    }
+    
+    public void testInvalidatePackage()
+    {
+        ResolutionCache cache = new ResolutionCache();
+        cache.loadClass("a.b.C", this::load);
+        cache.loadClass("a.D", this::load);
+        cache.loadClass("E", this::load);
+        cache.invalidatePackage("a.b");
+        assertEquals(2, cache.size());
+        
+        cache.loadClass("a.b.C", this::load);
+        cache.loadClass("a.D", this::load);
+        cache.loadClass("E", this::load);
+        assertEquals(List.of("a.b.C", "a.D", "E", "a.b.C"), loads);
+    }
+    
+    public void testInvalidateLoadedBy()
+    {
+        ResolutionCache cache = new ResolutionCache();
+        Class<?> testClass = getClass();
+        cache.loadClass("x.Test", n -> testClass);
+        cache.loadClass("x.Missing", this::load);
+        cache.invalidateLoadedBy(testClass.getClassLoader());
+        
+        // The class goes, but the failed lookup stays:
+        assertEquals(1, cache.size());
+        assertNull(cache.loadClass("x.Missing", this::load));
+        assertEquals(List.of("x.Missing"), loads);
+    }
+    
+    public void testInvalidateDuringLoad()
+    {
+        ResolutionCache cache = new ResolutionCache();
+        // The package is compiled while the lookup is in progress, so the result
+        // of the lookup must not be kept:
+        assertNull(cache.loadClass("a.b.C", n -> {
+            cache.invalidatePackage("a.b");
+            return load(n);
+        }));
+        assertEquals(0, cache.size());
+        cache.loadClass("a.b.C", this::load);
+        assertEquals(List.of("a.b.C", "a.b.C"), loads);
+    }
+    
+    public void testGeneration()
+    {
+        ResolutionCache cache = new ResolutionCache();
+        long start = cache.getGeneration();
+        cache.loadClass("a.b.C", this::load);
+        assertEquals(start, cache.getGeneration());
+        cache.invalidatePackage("a.b");
+        assertTrue(cache.getGeneration() != start);
+        long afterInvalidate = cache.getGeneration();
+        cache.clear();
+        assertTrue(cache.getGeneration() != afterInvalidate);
+    }
+}
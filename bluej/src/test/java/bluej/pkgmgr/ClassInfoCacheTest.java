@@ -0,0 +1,70 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import bluej.utility.FileUtility;
+import junit.framework.TestCase;
+
+public class ClassInfoCacheTest extends TestCase
+{
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("parsecache").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        FileUtility.deleteDir(dir);
+    }
+
+    public void testStaleCachesEvicted() throws Exception
+    {
+        File[] projects = new File[4];
+        for (int i = 0; i < projects.length; i++) {
+            projects[i] = new File(dir, "project" + i);
+            projects[i].mkdirs();
+            Files.write(new File(projects[i], "A.info").toPath(), new byte[600]);
+            Files.write(new File(projects[i], "B.info").toPath(), new byte[400]);
+            // project0 is the least recently used:
+            projects[i].setLastModified(1000000L * (i + 1));
+        }
+
+        // The oldest, even if it is the one in use, must not be removed:
+        ClassInfoCache.evictStaleCaches(dir, projects[0], 2500);
+        assertTrue(projects[0].exists());
+        assertFalse(projects[1].exists());
+        assertTrue(projects[2].exists());
+        assertTrue(projects[3].exists());
+
+        // Nothing more to remove once the total is small enough:
+        ClassInfoCache.evictStaleCaches(dir, projects[0], 3000);
+        assertTrue(projects[2].exists());
+        assertTrue(projects[3].exists());
+    }
+}
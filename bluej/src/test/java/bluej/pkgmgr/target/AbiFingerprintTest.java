@@ -0,0 +1,120 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr.target;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import bluej.utility.FileUtility;
+import junit.framework.TestCase;
+
+public class AbiFingerprintTest extends TestCase
+{
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("abitest").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        FileUtility.deleteDir(dir);
+    }
+
+    /**
+     * Compile the given source for class A, and return its fingerprint.
+     */
+    private String fingerprint(String source) throws IOException
+    {
+        File src = new File(dir, "A.java");
+        Files.writeString(src.toPath(), source);
+        for (File f : dir.listFiles((d, name) -> name.endsWith(".class"))) {
+            f.delete();
+        }
+        JavaCompiler jc = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, jc.run(null, null, null, "-d", dir.getPath(), src.getPath()));
+        return AbiFingerprint.compute(dir, "A");
+    }
+
+    public void testImplementationChanges() throws IOException
+    {
+        String base = fingerprint("public class A { public int f(int x) { return x; } private int p; }");
+        assertNotNull(base);
+        // Method bodies:
+        assertEquals(base, fingerprint("public class A { public int f(int x) { return x * 2; } private int p; }"));
+        // Private members:
+        assertEquals(base, fingerprint("public class A { public int f(int x) { return x; } private String p; private void g() { } }"));
+        // Anonymous classes:
+        assertEquals(base, fingerprint("public class A { public int f(int x) { Runnable r = new Runnable() { public void run() { } }; return x; } private int p; }"));
+    }
+
+    public void testInterfaceChanges() throws IOException
+    {
+        String base = fingerprint("public class A { public int f(int x) { return x; } }");
+        assertFalse(base.equals(fingerprint("public class A { public long f(int x) { return x; } }")));
+        assertFalse(base.equals(fingerprint("public class A { public int f(int x) { return x; } void g() { } }")));
+        assertFalse(base.equals(fingerprint("public class A { protected int f(int x) { return x; } }")));
+        assertFalse(base.equals(fingerprint("public class A implements Runnable { public int f(int x) { return x; } public void run() { } }")));
+        assertFalse(base.equals(fingerprint("public class A { public int f(int x) throws Exception { return x; } }")));
+        assertFalse(base.equals(fingerprint("public class A { public int f(int x) { return x; } public static class B { } }")));
+    }
+
+    public void testConstantChanges() throws IOException
+    {
+        String base = fingerprint("public class A { public static final int N = 1; public static final String S = \"a\"; }");
+        assertFalse(base.equals(fingerprint("public class A { public static final int N = 2; public static final String S = \"a\"; }")));
+        assertFalse(base.equals(fingerprint("public class A { public static final int N = 1; public static final String S = \"b\"; }")));
+    }
+
+    public void testSealedChanges() throws IOException
+    {
+        String base = fingerprint("public sealed class A permits B, C { } final class B extends A { } final class C extends A { }");
+        assertFalse(base.equals(fingerprint("public sealed class A permits B { } final class B extends A { } final class C { }")));
+    }
+
+    public void testRecordChanges() throws IOException
+    {
+        // The same fields, methods and constructor descriptor, but different components:
+        String base = fingerprint("public record A(int x, int y) { }");
+        assertFalse(base.equals(fingerprint("public record A(int y, int x) { }")));
+    }
+
+    public void testMemberClassModifierChanges() throws IOException
+    {
+        // A protected member class is public in its own class file; only the InnerClasses
+        // attribute records the difference:
+        String base = fingerprint("public class A { public static class B { public B() { } } }");
+        assertFalse(base.equals(fingerprint("public class A { protected static class B { public B() { } } }")));
+    }
+
+    public void testMissingClass()
+    {
+        assertNull(AbiFingerprint.compute(dir, "Missing"));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.runtime;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the object state hashes computed by ExecServer (used to find out
+ * whether an inspected object needs to be re-displayed).
+ */
+public class StateHashTest extends TestCase
+{
+    @SuppressWarnings("unused")
+    private static class Base
+    {
+        private int baseValue;
+    }
+    
+    @SuppressWarnings("unused")
+    private static class Sample extends Base
+    {
+        private static int staticValue;
+        private int value;
+        private double other;
+        private Object ref;
+    }
+    
+    private static long hash(Object object)
+    {
+        return ExecServer.stateHashes(new Object[] {object})[0];
+    }
+    
+    public void testUnchangedState()
+    {
+        Sample s = new Sample();
+        s.value = 5;
+        s.ref = "abc";
+        long hash = hash(s);
+        assertTrue(hash != 0);
+        assertEquals(hash, hash(s));
+        
+        // Static fields are not part of the state:
+        Sample.staticValue++;
+        assertEquals(hash, hash(s));
+    }
+    
+    public void testChangedFields()
+    {
+        Sample s = new Sample();
+        long hash = hash(s);
+        s.value = 1;
+        long valueHash = hash(s);
+        assertTrue(valueHash != hash);
+        
+        s.other = 2.5;
+        long otherHash = hash(s);
+        assertTrue(otherHash != valueHash);
+        
+        // Inherited fields are included:
+        ((Base) s).baseValue = 3;
+        long baseHash = hash(s);
+        assertTrue(baseHash != otherHash);
+        
+        // References are hashed by identity:
+        s.ref = new StringBuilder("x");
+        long refHash = hash(s);
+        assertTrue(refHash != baseHash);
+        ((StringBuilder) s.ref).append("y");
+        assertEquals(refHash, hash(s));
+    }
+    
+    public void testArrays()
+    {
+        int[] small = new int[10];
+        long hash = hash(small);
+        small[9] = 1;
+        assertTrue(hash(small) != hash);
+        
+        // In a large array, elements at the start and end are hashed...
+        int[] large = new int[100000];
+        hash = hash(large);
+        large[0] = 1;
+        long startHash = hash(large);
+        assertTrue(startHash != hash);
+        large[large.length - 1] = 1;
+        long endHash = hash(large);
+        assertTrue(endHash != startHash);
+        
+        // ...but not those in the middle:
+        large[50000] = 1;
+        assertEquals(endHash, hash(large));
+        
+        // The length is always hashed:
+        assertTrue(hash(new Object[0]) != hash(new Object[1]));
+    }
+    
+    public void testMultipleObjects()
+    {
+        Sample a = new Sample();
+        Sample b = new Sample();
+        b.value = 7;
+        long[] hashes = ExecServer.stateHashes(new Object[] {a, null, b});
+        assertEquals(3, hashes.length);
+        assertEquals(hash(a), hashes[0]);
+        assertEquals(hash(b), hashes[2]);
+        assertTrue(hashes[1] != 0);
+    }
+}
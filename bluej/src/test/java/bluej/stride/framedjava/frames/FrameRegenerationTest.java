@@ -0,0 +1,229 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.framedjava.frames;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import bluej.JavaFXThreadingRule;
+import bluej.editor.stride.FrameShelf;
+import bluej.editor.stride.FrameShelfStorage;
+import bluej.parser.InitConfig;
+import bluej.parser.entity.ClassLoaderResolver;
+import bluej.stride.framedjava.elements.ClassElement;
+import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.framedjava.slots.ExpressionSlot;
+import bluej.stride.generic.Frame;
+import nu.xom.Builder;
+import nu.xom.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that regenerating the code for a class after an edit, which only regenerates
+ * the changed frames and patches the previous analysis document, gives the same
+ * result as regenerating everything.
+ */
+public class FrameRegenerationTest
+{
+    @Rule
+    public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    @BeforeClass
+    public static void initConfig()
+    {
+        InitConfig.init();
+    }
+
+    /**
+     * A shelf is the simplest editor which frames can be created in.  Unlike the
+     * real editor it doesn't track modifications, so we do that here.
+     */
+    private static class TestEditor extends FrameShelf
+    {
+        public TestEditor(File dir)
+        {
+            super(null, new FrameShelfStorage(dir));
+        }
+
+        @Override
+        public void modifiedFrame(Frame f, boolean force)
+        {
+            if (f != null)
+                f.markCodeChanged();
+        }
+    }
+
+    private static final String[] METHOD_NAMES = {"first", "second", "third"};
+
+    private File tempDir;
+    private ClassFrame classFrame;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        tempDir = Files.createTempDirectory("frames").toFile();
+        StringBuilder xml = new StringBuilder("<class name=\"Test\" enable=\"true\" strideversion=\"1\"><javadoc/><imports/><implements/><fields/><constructors/><methods>");
+        for (String name : METHOD_NAMES)
+        {
+            xml.append("<method access=\"public\" type=\"void\" type-java=\"void\" name=\"" + name + "\" enable=\"true\">"
+                + "<javadoc xml:space=\"preserve\"/><params/><throws/><body>"
+                + "<call expression=\"" + name + "Call()\" expression-java=\"" + name + "Call()\" enable=\"true\"/>"
+                + "</body></method>");
+        }
+        xml.append("</methods></class>");
+        Element root = new Builder().build(new StringReader(xml.toString())).getRootElement();
+        ClassElement element = new ClassElement(root, new ClassLoaderResolver(getClass().getClassLoader()), "");
+        classFrame = element.createTopLevelFrame(new TestEditor(tempDir));
+        classFrame.regenerateCodeIfChanged();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        File[] files = tempDir.listFiles();
+        if (files != null)
+        {
+            for (File f : files)
+                Files.delete(f.toPath());
+        }
+        Files.delete(tempDir.toPath());
+    }
+
+    private List<Frame> getMethodFrames()
+    {
+        return classFrame.getMethodsCanvas().getBlockContents();
+    }
+
+    private CallFrame getCallFrame(int method)
+    {
+        return (CallFrame)getMethodFrames().get(method).getAllFrames()
+            .filter(f -> f instanceof CallFrame).findFirst().get();
+    }
+
+    private void setCall(int method, String text)
+    {
+        ExpressionSlot<?> slot = (ExpressionSlot<?>)getCallFrame(method).getEditableSlots()
+            .filter(s -> s instanceof ExpressionSlot).findFirst().get();
+        slot.setText(text);
+    }
+
+    private List<CodeElement> getMethodElements()
+    {
+        return getMethodFrames().stream().map(f -> ((CodeFrame<?>)f).getCode()).collect(Collectors.toList());
+    }
+
+    private String getXML()
+    {
+        return classFrame.getCode().toXML().toXML();
+    }
+
+    private String getJava()
+    {
+        return classFrame.getCode().toJavaSource().toDiskJavaCodeString();
+    }
+
+    @Test
+    public void testUpToDateAfterRegeneration()
+    {
+        assertTrue(classFrame.isCodeUpToDate());
+        classFrame.getAllFrames().forEach(f -> assertTrue(f.isCodeUpToDate()));
+    }
+
+    @Test
+    public void testEditMarksEnclosingFrames()
+    {
+        setCall(1, "changed()");
+        assertFalse(getCallFrame(1).isCodeUpToDate());
+        assertFalse(getMethodFrames().get(1).isCodeUpToDate());
+        assertFalse(classFrame.isCodeUpToDate());
+        for (int other : new int[] {0, 2})
+        {
+            assertTrue(getCallFrame(other).isCodeUpToDate());
+            assertTrue(getMethodFrames().get(other).isCodeUpToDate());
+        }
+    }
+
+    @Test
+    public void testRegenerateOnlyChanged()
+    {
+        List<CodeElement> before = getMethodElements();
+        setCall(1, "changed()");
+        classFrame.regenerateCodeIfChanged();
+        List<CodeElement> after = getMethodElements();
+
+        assertSame(before.get(0), after.get(0));
+        assertNotSame(before.get(1), after.get(1));
+        assertSame(before.get(2), after.get(2));
+        assertTrue(classFrame.isCodeUpToDate());
+        classFrame.getAllFrames().forEach(f -> assertTrue(f.isCodeUpToDate()));
+        assertTrue(getJava().contains("changed()"));
+    }
+
+    @Test
+    public void testMatchesFullRegeneration()
+    {
+        String[][] edits = {{"0", "a(1)"}, {"2", "b(2, 3)"}, {"0", "c()"}, {"1", "d(\"x\")"}, {"2", ""}};
+        for (String[] edit : edits)
+        {
+            setCall(Integer.parseInt(edit[0]), edit[1]);
+            classFrame.regenerateCodeIfChanged();
+            // Use the analysis document each time, so that the next version patches it:
+            classFrame.getCode().updateSourcePositions();
+            String xml = getXML();
+            String java = getJava();
+
+            classFrame.markAllCodeChanged();
+            classFrame.regenerateCodeIfChanged();
+            assertEquals(xml, getXML());
+            assertEquals(java, getJava());
+        }
+    }
+
+    @Test
+    public void testReplacedElementKeepsWorking()
+    {
+        ClassElement previous = classFrame.getCode();
+        assertNotNull(previous.qualifyType("String", previous.getPosInsideClass()));
+
+        setCall(1, "changed()");
+        classFrame.regenerateCodeIfChanged();
+        ClassElement current = classFrame.getCode();
+        assertNotSame(previous, current);
+        // The new element takes over the previous element's document:
+        assertNotNull(current.qualifyType("String", current.getPosInsideClass()));
+
+        // The previous element must make a new document, rather than share (or lose) its old one:
+        assertNotNull(previous.qualifyType("String", previous.getPosInsideClass()));
+        assertNotSame(previous.getResolver(), current.getResolver());
+        assertFalse(previous.toJavaSource().toDiskJavaCodeString().contains("changed()"));
+    }
+}
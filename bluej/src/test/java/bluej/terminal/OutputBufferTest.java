@@ -0,0 +1,157 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.terminal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bluej.utility.javafx.FXPlatformRunnable;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the buffering of terminal output.
+ */
+public class OutputBufferTest extends TestCase
+{
+    private final List<FXPlatformRunnable> scheduled = new ArrayList<>();
+    private final List<String> delivered = new ArrayList<>();
+    
+    // Output to standard error is recorded with this prefix:
+    private static final String ERR = "err:";
+    
+    private OutputBuffer makeBuffer(int capacity, OutputBuffer.OverflowPolicy policy)
+    {
+        return new OutputBuffer(capacity, policy, r -> {
+            synchronized (scheduled)
+            {
+                scheduled.add(r);
+            }
+        }, new OutputBuffer.Sink()
+        {
+            @Override
+            public void output(boolean isError, String text)
+            {
+                delivered.add(isError ? ERR + text : text);
+            }
+
+            @Override
+            public void dropped(long chars)
+            {
+                delivered.add("[" + chars + " dropped]");
+            }
+        });
+    }
+    
+    private void runScheduled()
+    {
+        List<FXPlatformRunnable> toRun;
+        synchronized (scheduled)
+        {
+            toRun = new ArrayList<>(scheduled);
+            scheduled.clear();
+        }
+        toRun.forEach(FXPlatformRunnable::run);
+    }
+
+    public void testCoalesces()
+    {
+        OutputBuffer buffer = makeBuffer(1000, OutputBuffer.OverflowPolicy.BLOCK);
+        buffer.write(false, "a\n");
+        buffer.write(false, "b\n");
+        buffer.write(false, "c\n");
+        // Only one delivery is scheduled for all three writes:
+        assertEquals(1, scheduled.size());
+        assertTrue(buffer.hasPendingOutput());
+        
+        runScheduled();
+        assertEquals(List.of("a\nb\nc\n"), delivered);
+        assertFalse(buffer.hasPendingOutput());
+        assertEquals(3, buffer.takeThroughput().lines());
+        
+        buffer.write(false, "d");
+        assertEquals(1, scheduled.size());
+        runScheduled();
+        assertEquals(List.of("a\nb\nc\n", "d"), delivered);
+    }
+    
+    public void testDrop()
+    {
+        OutputBuffer buffer = makeBuffer(4, OutputBuffer.OverflowPolicy.DROP);
+        buffer.write(false, "abc");
+        buffer.write(false, "defgh");
+        buffer.write(false, "i");
+        runScheduled();
+        assertEquals(List.of("abci", "[5 dropped]"), delivered);
+        assertEquals(5, buffer.takeThroughput().droppedChars());
+    }
+    
+    public void testBlockWaitsForDelivery() throws InterruptedException
+    {
+        OutputBuffer buffer = makeBuffer(4, OutputBuffer.OverflowPolicy.BLOCK);
+        buffer.write(false, "abc");
+        Thread writer = new Thread(() -> buffer.write(false, "defgh"));
+        writer.start();
+        writer.join(200);
+        // Can't write until the pending output has been delivered:
+        assertTrue(writer.isAlive());
+        
+        runScheduled();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        runScheduled();
+        assertEquals(List.of("abc", "defgh"), delivered);
+    }
+    
+    public void testKeepsStreamsInOrder()
+    {
+        OutputBuffer buffer = makeBuffer(1000, OutputBuffer.OverflowPolicy.BLOCK);
+        buffer.write(false, "a\n");
+        buffer.write(true, "b\n");
+        buffer.write(true, "c\n");
+        buffer.write(false, "d\n");
+        buffer.write(false, "e\n");
+        assertEquals(1, scheduled.size());
+        
+        runScheduled();
+        // Consecutive output to the same stream is combined, but the order is kept:
+        assertEquals(List.of("a\n", ERR + "b\nc\n", "d\ne\n"), delivered);
+        assertFalse(buffer.hasPendingOutput());
+        assertEquals(5, buffer.takeThroughput().lines());
+    }
+    
+    public void testErrorOutputSharesCapacity() throws InterruptedException
+    {
+        OutputBuffer buffer = makeBuffer(4, OutputBuffer.OverflowPolicy.BLOCK);
+        buffer.write(false, "abc");
+        Thread writer = new Thread(() -> buffer.write(true, "defgh"));
+        writer.start();
+        writer.join(200);
+        // Standard error must also wait for the pending standard output to be delivered:
+        assertTrue(writer.isAlive());
+        
+        runScheduled();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        runScheduled();
+        assertEquals(List.of("abc", ERR + "defgh"), delivered);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.terminal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bluej.editor.base.TextLine.StyledSegment;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the terminal scrollback store, including lines which have been spilled to disk.
+ */
+public class ScrollbackStoreTest extends TestCase
+{
+    private static final List<String> STYLE = List.of("terminal-output");
+    
+    // Enough lines that the earliest are spilled:
+    private static final int LINES = 100000;
+    
+    private static List<StyledSegment> segments(ContentLine line)
+    {
+        List<StyledSegment> segments = new ArrayList<>();
+        line.forEach(segments::add);
+        return segments;
+    }
+    
+    private ScrollbackStore makeStore()
+    {
+        ScrollbackStore store = new ScrollbackStore();
+        for (int i = 0; i < LINES; i++)
+        {
+            store.appendToLastLine(new StyledSegment(STYLE, "line "));
+            store.appendToLastLine(new StyledSegment(List.of(), Integer.toString(i)));
+            store.add(new ContentLine(List.of()));
+        }
+        return store;
+    }
+
+    public void testSpilledLines()
+    {
+        ScrollbackStore store = makeStore();
+        assertEquals(LINES + 1, store.size());
+        // Read in order from the start, and then at random, so that chunks are read back in and re-spilled:
+        for (int i = 0; i < LINES; i += 97)
+        {
+            assertEquals("line " + i, store.getText(i));
+        }
+        for (int i : new int[] {LINES - 1, 0, 55555, 3, 99999, 1024, 1023})
+        {
+            assertEquals("line " + i, store.getText(i));
+            assertEquals(("line " + i).length(), store.getLineLength(i));
+        }
+        // Styles survive spilling:
+        List<StyledSegment> segments = segments(store.get(0));
+        assertEquals(2, segments.size());
+        assertEquals(STYLE, segments.get(0).getStyleClasses());
+        assertEquals(List.of(), segments.get(1).getStyleClasses());
+        assertEquals("", store.getText(LINES));
+    }
+    
+    public void testPositionsAndLongest()
+    {
+        ScrollbackStore store = makeStore();
+        int position = 0;
+        for (int i = 0; i < 3000; i++)
+        {
+            assertEquals(position, store.getLineStartPosition(i));
+            position += ("line " + i).length();
+        }
+        assertEquals("line 10000", store.getLongestLine());
+        
+        store.removeFirst(5000);
+        assertEquals(LINES + 1 - 5000, store.size());
+        assertEquals("line 5000", store.getText(0));
+        assertEquals(0, store.getLineStartPosition(0));
+        assertEquals(9, store.getLineStartPosition(1));
+        assertEquals("line 10000", store.getLongestLine());
+        
+        store.removeFirst(LINES - 5000);
+        assertEquals(1, store.size());
+        assertEquals("", store.getLongestLine());
+    }
+    
+    public void testSetStyleAfterSpill()
+    {
+        ScrollbackStore store = makeStore();
+        Object data = new Object();
+        store.set(7, new ContentLine(List.of(new StyledSegment(List.of("link"), "line 7", data))));
+        // Force line 7 to be spilled again:
+        for (int i = 0; i < LINES; i += 1000)
+        {
+            store.get(LINES - 1 - i);
+        }
+        assertEquals("line 7", store.getText(7));
+        assertSame(data, store.get(7).getCustomStyleDataAtColumn(2));
+        assertEquals(List.of("link"), segments(store.get(7)).get(0).getStyleClasses());
+    }
+    
+    public void testClear()
+    {
+        ScrollbackStore store = makeStore();
+        store.clear();
+        assertEquals(1, store.size());
+        assertEquals("", store.getText(0));
+        assertEquals(0, store.getLineStartPosition(0));
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bluej.parser.AssistContent.Access;
+import bluej.parser.AssistContent.CompletionKind;
+import bluej.parser.AssistContentThreadSafe;
+import bluej.pkgmgr.target.role.Kind;
+import bluej.utility.ImportIndex.IndexedType;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the encoding and persistence of the import index.
+ */
+public class ImportIndexTest extends TestCase
+{
+    private File dir;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("importindex").toFile();
+    }
+    
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+    
+    private static List<IndexedType> makeTypes()
+    {
+        AssistContentThreadSafe listDetails = new AssistContentThreadSafe(Access.PUBLIC, null,
+                "An ordered collection — a <i>sequence</i>.", CompletionKind.TYPE, "List", "java.util",
+                null, Arrays.asList("java.util.Collection", "java.lang.Iterable"), null, Kind.INTERFACE);
+        AssistContentThreadSafe entryDetails = new AssistContentThreadSafe(null, "java.util.Map", null,
+                null, "Entry", "java.util", null, null, "Entry", null);
+        return Arrays.asList(
+                new IndexedType("java.util.List", 0x601, listDetails),
+                new IndexedType("java.util.Map$Entry", 0x609, entryDetails),
+                new IndexedType("java.util.ArrayList", 0x1, null));
+    }
+    
+    private static void assertSameTypes(List<IndexedType> expected, List<IndexedType> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            IndexedType e = expected.get(i);
+            IndexedType a = actual.get(i);
+            assertEquals(e.name(), a.name());
+            assertEquals(e.modifiers(), a.modifiers());
+            if (e.details() == null)
+            {
+                assertNull(a.details());
+                continue;
+            }
+            assertNotNull(a.details());
+            assertEquals(e.details().getAccessPermission(), a.details().getAccessPermission());
+            assertEquals(e.details().getDeclaringClass(), a.details().getDeclaringClass());
+            assertEquals(e.details().getJavadoc(), a.details().getJavadoc());
+            assertEquals(e.details().getKind(), a.details().getKind());
+            assertEquals(e.details().getName(), a.details().getName());
+            assertEquals(e.details().getPackage(), a.details().getPackage());
+            assertEquals(e.details().getSuperTypes(), a.details().getSuperTypes());
+            assertEquals(e.details().getType(), a.details().getType());
+            assertEquals(e.details().getTypeKind(), a.details().getTypeKind());
+        }
+    }
+    
+    public void testEncodeDecode() throws IOException
+    {
+        List<IndexedType> types = makeTypes();
+        ByteBuffer buffer = ByteBuffer.wrap(ImportIndex.encodeTypes(types));
+        assertSameTypes(types, ImportIndex.decodeTypes(buffer));
+        assertEquals(0, buffer.remaining());
+        
+        assertSameTypes(List.of(), ImportIndex.decodeTypes(ByteBuffer.wrap(ImportIndex.encodeTypes(List.of()))));
+    }
+    
+    public void testSaveLoad()
+    {
+        File file = new File(dir, "index.bin");
+        ImportIndex.Key systemKey = new ImportIndex.Key("system:jdk", 5, 6);
+        ImportIndex.Key otherKey = new ImportIndex.Key("system:other", 7, 8);
+        ImportIndex index = ImportIndex.load(file, "1.0", "jdk");
+        assertNull(index.getTypes(systemKey));
+        index.putTypes(systemKey, makeTypes().subList(2, 3));
+        index.putTypes(otherKey, List.of());
+        index.save();
+        
+        // Details added after loading are saved, too:
+        index = ImportIndex.load(file, "1.0", "jdk");
+        Map<String, AssistContentThreadSafe> details = new HashMap<>();
+        details.put("java.util.ArrayList", makeTypes().get(0).details());
+        index.putDetails(systemKey, details);
+        index.save();
+        
+        index = ImportIndex.load(file, "1.0", "jdk");
+        List<IndexedType> expected = List.of(new IndexedType("java.util.ArrayList", 0x1, makeTypes().get(0).details()));
+        assertSameTypes(expected, index.getTypes(systemKey));
+        assertSameTypes(List.of(), index.getTypes(otherKey));
+        // A changed entry is stale:
+        assertNull(index.getTypes(new ImportIndex.Key("system:jdk", 5, 7)));
+        
+        // An index for another version or JDK is not used:
+        assertNull(ImportIndex.load(file, "1.1", "jdk").getTypes(systemKey));
+        assertNull(ImportIndex.load(file, "1.0", "jdk2").getTypes(systemKey));
+    }
+    
+    public void testReplaceLoadedFile()
+    {
+        // The file can be replaced while an index loaded from it is still in use:
+        File file = new File(dir, "index.bin");
+        ImportIndex.Key key = new ImportIndex.Key("system:jdk", 1, 1);
+        ImportIndex first = ImportIndex.load(file, "1.0", "jdk");
+        first.putTypes(key, makeTypes());
+        first.save();
+        
+        ImportIndex loaded = ImportIndex.load(file, "1.0", "jdk");
+        ImportIndex.Key otherKey = new ImportIndex.Key("system:other", 2, 2);
+        loaded.putTypes(otherKey, List.of());
+        loaded.save();
+        assertSameTypes(makeTypes(), ImportIndex.load(file, "1.0", "jdk").getTypes(key));
+        assertSameTypes(makeTypes(), loaded.getTypes(key));
+    }
+    
+    public void testMergeOnSave()
+    {
+        // Two indexes for the same file (as if in separate processes) don't lose each other's entries:
+        File file = new File(dir, "index.bin");
+        ImportIndex.Key keyA = new ImportIndex.Key("system:a", 1, 1);
+        ImportIndex.Key keyB = new ImportIndex.Key("system:b", 2, 2);
+        ImportIndex a = ImportIndex.load(file, "1.0", "jdk");
+        ImportIndex b = ImportIndex.load(file, "1.0", "jdk");
+        a.putTypes(keyA, makeTypes());
+        b.putTypes(keyB, makeTypes().subList(0, 1));
+        a.save();
+        b.save();
+        
+        ImportIndex merged = ImportIndex.load(file, "1.0", "jdk");
+        assertSameTypes(makeTypes(), merged.getTypes(keyA));
+        assertSameTypes(makeTypes().subList(0, 1), merged.getTypes(keyB));
+    }
+    
+    public void testShared()
+    {
+        File file = new File(dir, "index.bin");
+        ImportIndex index = ImportIndex.get(file, "1.0", "jdk");
+        assertSame(index, ImportIndex.get(file, "1.0", "jdk"));
+        assertNotSame(index, ImportIndex.get(file, "1.1", "jdk"));
+    }
+    
+    public void testCorruptFile() throws IOException
+    {
+        File file = new File(dir, "index.bin");
+        ImportIndex.Key key = new ImportIndex.Key("system:jdk", 1, 1);
+        ImportIndex index = ImportIndex.load(file, "1.0", "jdk");
+        index.putTypes(key, makeTypes());
+        index.save();
+        
+        // Truncate the file part-way through the entry's types:
+        byte[] content = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(content, content.length - 10));
+        index = ImportIndex.load(file, "1.0", "jdk");
+        assertNull(index.getTypes(key));
+    }
+}
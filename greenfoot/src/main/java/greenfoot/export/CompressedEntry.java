@@ -0,0 +1,121 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.export;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * An archive entry whose data has already been compressed, ready to be
+ * written out by a PrecompressedZipWriter.
+ */
+class CompressedEntry
+{
+    private final String name;
+    private final long time;
+    private final int method;
+    private final long crc;
+    private final long size;
+    private final byte[] data;
+
+    /**
+     * Construct a compressed entry.
+     *
+     * @param name   The entry name (a path with '/' separators)
+     * @param time   The modification time, in milliseconds since the epoch
+     * @param method ZipEntry.DEFLATED or ZipEntry.STORED
+     * @param crc    The CRC-32 of the uncompressed data
+     * @param size   The size of the uncompressed data
+     * @param data   The (possibly compressed) data as it will appear in the archive
+     */
+    CompressedEntry(String name, long time, int method, long crc, long size, byte[] data)
+    {
+        this.name = name;
+        this.time = time;
+        this.method = method;
+        this.crc = crc;
+        this.size = size;
+        this.data = data;
+    }
+
+    /**
+     * Compress the given content.  If deflating does not make the content any smaller
+     * (as is usual for images and sounds) the content is stored uncompressed instead.
+     */
+    static CompressedEntry compress(String name, long time, byte[] content)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 16);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+        }
+        finally {
+            deflater.end();
+        }
+
+        if (out.size() >= content.length) {
+            return new CompressedEntry(name, time, ZipEntry.STORED, crc.getValue(), content.length, content);
+        }
+        return new CompressedEntry(name, time, ZipEntry.DEFLATED, crc.getValue(), content.length, out.toByteArray());
+    }
+
+    String getName()
+    {
+        return name;
+    }
+
+    long getTime()
+    {
+        return time;
+    }
+
+    int getMethod()
+    {
+        return method;
+    }
+
+    long getCrc()
+    {
+        return crc;
+    }
+
+    long getSize()
+    {
+        return size;
+    }
+
+    byte[] getData()
+    {
+        return data;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.export;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import bluej.Config;
+import bluej.utility.Debug;
+
+/**
+ * A cache of compressed archive entries from previous exports of a scenario, keyed
+ * by the SHA-256 hash of the entry content.  When a scenario is exported again, any
+ * entry whose content has not changed is taken from the cache rather than being
+ * compressed again.
+ *
+ * <p>Each cached entry is held in its own file in the cache directory, named after its
+ * hash.  An index maps source files to their size, modification time and hash, so that
+ * unchanged files do not even need to be read.  After a successful export, cached
+ * entries which were not used are removed, so the cache holds at most one export's
+ * worth of data for each project.  The caches of the least recently exported projects
+ * are removed once all the caches together exceed MAX_TOTAL_BYTES.
+ *
+ * <p>The methods for obtaining entries are safe to call from several threads at once.
+ */
+class ExportCache
+{
+    private static final int CACHE_VERSION = 1;
+    /** Content smaller than this is always compressed directly rather than cached. */
+    private static final int MIN_CACHED_SIZE = 1024;
+    private static final String INDEX_NAME = "index";
+    private static final String ENTRY_SUFFIX = ".z";
+    /** The total size of all projects' caches, above which old caches are removed. */
+    private static final long MAX_TOTAL_BYTES = 256L * 1024 * 1024;
+
+    private final File cacheDir;
+    /** File stamps loaded from the index of the previous export */
+    private final Map<String, FileStamp> previousStamps;
+    /** File stamps for the export in progress */
+    private final Map<String, FileStamp> currentStamps = new ConcurrentHashMap<>();
+    /** Hashes of the cached entries used by the export in progress */
+    private final Set<String> usedHashes = ConcurrentHashMap.newKeySet();
+
+    ExportCache(File cacheDir)
+    {
+        this.cacheDir = cacheDir;
+        this.previousStamps = loadIndex();
+    }
+
+    /**
+     * Get the export cache for the given project directory.  Separate caches are kept
+     * for jar and zip exports, since they contain different sets of files.
+     */
+    static ExportCache forProject(File projectDir, boolean isZip)
+    {
+        String projectKey;
+        try {
+            projectKey = hash(projectDir.getCanonicalPath().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        }
+        catch (IOException e) {
+            projectKey = hash(projectDir.getAbsolutePath().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        }
+        File root = Config.getUserConfigFile("export-cache");
+        File dir = new File(root, projectKey + (isZip ? "-zip" : "-jar"));
+        dir.mkdirs();
+        // The modification time of the directory records when it was last used:
+        dir.setLastModified(System.currentTimeMillis());
+        evictStaleCaches(root, dir, MAX_TOTAL_BYTES);
+        return new ExportCache(dir);
+    }
+
+    /**
+     * Remove the least recently used cache directories within the given root until
+     * the total size of those remaining is no more than maxBytes.  The cache which
+     * is in use is never removed.
+     */
+    static void evictStaleCaches(File root, File inUse, long maxBytes)
+    {
+        File[] dirs = root.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        // Most recently used first:
+        Arrays.sort(dirs, Comparator.comparingLong(File::lastModified).reversed());
+        long total = 0;
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            long size = 0;
+            if (files != null) {
+                for (File f : files) {
+                    size += f.length();
+                }
+            }
+            total += size;
+            if (total > maxBytes && !dir.equals(inUse)) {
+                total -= size;
+                if (files != null) {
+                    for (File f : files) {
+                        f.delete();
+                    }
+                }
+                if (!dir.delete()) {
+                    Debug.message("Could not remove export cache " + dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the compressed entry for a file on disk.  If the file has the same size and
+     * modification time as at the previous export, and its compressed form is cached,
+     * the file is not read at all.
+     */
+    CompressedEntry getFileEntry(File file, String name, long time) throws IOException
+    {
+        String path = file.getAbsolutePath();
+        long length = file.length();
+        long modified = file.lastModified();
+
+        if (length >= MIN_CACHED_SIZE) {
+            FileStamp stamp = previousStamps.get(path);
+            if (stamp != null && stamp.length == length && stamp.modified == modified) {
+                CompressedEntry cached = readEntry(stamp.hash, name, time);
+                if (cached != null) {
+                    currentStamps.put(path, stamp);
+                    usedHashes.add(stamp.hash);
+                    return cached;
+                }
+            }
+        }
+
+        byte[] content = Files.readAllBytes(file.toPath());
+        if (content.length < MIN_CACHED_SIZE) {
+            return CompressedEntry.compress(name, time, content);
+        }
+        String contentHash = hash(content);
+        currentStamps.put(path, new FileStamp(length, modified, contentHash));
+        return getEntry(name, time, content, contentHash);
+    }
+
+    /**
+     * Get the compressed entry for some content (for example, an entry read from
+     * another jar file).
+     */
+    CompressedEntry getEntry(String name, long time, byte[] content)
+    {
+        if (content.length < MIN_CACHED_SIZE) {
+            return CompressedEntry.compress(name, time, content);
+        }
+        return getEntry(name, time, content, hash(content));
+    }
+
+    private CompressedEntry getEntry(String name, long time, byte[] content, String contentHash)
+    {
+        usedHashes.add(contentHash);
+        CompressedEntry cached = readEntry(contentHash, name, time);
+        if (cached != null && cached.getSize() == content.length) {
+            return cached;
+        }
+
+        CompressedEntry entry = CompressedEntry.compress(name, time, content);
+        writeEntry(contentHash, entry);
+        return entry;
+    }
+
+    /**
+     * Save the index, and remove any cached entries which were not used by this export.
+     * Should only be called once the export has completed successfully.
+     */
+    void finish()
+    {
+        File indexFile = new File(cacheDir, INDEX_NAME);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(currentStamps.size());
+            for (Map.Entry<String, FileStamp> e : currentStamps.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().length);
+                out.writeLong(e.getValue().modified);
+                out.writeUTF(e.getValue().hash);
+            }
+        }
+        catch (IOException e) {
+            Debug.reportError("Error writing export cache index", e);
+            indexFile.delete();
+        }
+
+        File[] files = cacheDir.listFiles((dir, fileName) -> !fileName.equals(INDEX_NAME));
+        if (files != null) {
+            for (File f : files) {
+                String fileName = f.getName();
+                // Temporary files are left behind if writing an entry failed:
+                if (!fileName.endsWith(ENTRY_SUFFIX)) {
+                    f.delete();
+                    continue;
+                }
+                String entryHash = fileName.substring(0, fileName.length() - ENTRY_SUFFIX.length());
+                if (!usedHashes.contains(entryHash)) {
+                    f.delete();
+                }
+            }
+        }
+    }
+
+    private Map<String, FileStamp> loadIndex()
+    {
+        Map<String, FileStamp> stamps = new HashMap<>();
+        File indexFile = new File(cacheDir, INDEX_NAME);
+        if (!indexFile.exists()) {
+            return stamps;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != CACHE_VERSION) {
+                return stamps;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long length = in.readLong();
+                long modified = in.readLong();
+                String entryHash = in.readUTF();
+                stamps.put(path, new FileStamp(length, modified, entryHash));
+            }
+        }
+        catch (IOException e) {
+            // A damaged index just means we read and hash everything again:
+            Debug.message("Ignoring unreadable export cache index: " + e);
+            stamps.clear();
+        }
+        return stamps;
+    }
+
+    /**
+     * Read a cached entry, returning null if it is not present or cannot be read.
+     */
+    private CompressedEntry readEntry(String entryHash, String name, long time)
+    {
+        File f = new File(cacheDir, entryHash + ENTRY_SUFFIX);
+        if (!f.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (in.readInt() != CACHE_VERSION) {
+                return null;
+            }
+            int method = in.readInt();
+            long crc = in.readLong();
+            long size = in.readLong();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return new CompressedEntry(name, time, method, crc, size, data);
+        }
+        catch (IOException e) {
+            Debug.message("Ignoring unreadable export cache entry " + f + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Write an entry into the cache.  The entry is written to a temporary file first and
+     * then moved into place, so that concurrent writers of identical content (and
+     * readers) never see a partial entry.
+     */
+    private void writeEntry(String entryHash, CompressedEntry entry)
+    {
+        File target = new File(cacheDir, entryHash + ENTRY_SUFFIX);
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(entryHash, ".tmp", cacheDir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(entry.getMethod());
+                out.writeLong(entry.getCrc());
+                out.writeLong(entry.getSize());
+                out.writeInt(entry.getData().length);
+                out.write(entry.getData());
+            }
+            try {
+                Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException e) {
+            // The cache is only an optimisation; the export itself can continue.
+            Debug.message("Could not write export cache entry: " + e);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private static String hash(byte[] content)
+    {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        }
+        catch (NoSuchAlgorithmException e) {
+            // All Java platforms are required to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The size, modification time and content hash of a file at the time it was exported.
+     */
+    private static class FileStamp
+    {
+        private final long length;
+        private final long modified;
+        private final String hash;
+
+        private FileStamp(long length, long modified, String hash)
+        {
+            this.length = length;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2013,2014,2015,2018,2019,2023  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2013,2014,2015,2018,2019,2023,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,28 +24,34 @@ package greenfoot.export;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipOutputStream;
 
 import bluej.Boot;
 import bluej.Config;
@@ -255,17 +261,20 @@ public class JarCreator
     
     /**
      * Creates the jar file with the current settings.
+     * 
+     * <p>Entries are compressed in parallel, and the compressed form of each entry is
+     * kept in an ExportCache so that unchanged files do not need to be compressed
+     * again the next time the same project is exported.
      */
     public void create()
     {        
         File jarFile = new File(exportDir, jarName);
         File propertiesFile = null;
         File soundFile = null;
-        OutputStream oStream = null;
-        ZipOutputStream jStream = null;
+        ExportCache cache = ExportCache.forProject(projectDir, isZip);
 
-        try {
-            oStream = new BufferedOutputStream(new FileOutputStream(jarFile));
+        try (EntryPipeline pipeline = new EntryPipeline(
+                new PrecompressedZipWriter(new BufferedOutputStream(new FileOutputStream(jarFile))), cache)) {
             String pathPrefix = ""; // Put everything in top level of jar
             if (! isZip) {
                 // It is a jar file so we write the manifest and the properties.
@@ -274,34 +283,35 @@ public class JarCreator
                 writePropertiesFile(propertiesFile);
                 soundFile = new File(projectDir, "soundindex.list");
                 writeSoundFilesList(soundFile);
-                jStream = new JarOutputStream(oStream, manifest);
+                // As with JarOutputStream, the manifest must be the first entry:
+                ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+                manifest.write(manifestBytes);
+                pipeline.addContent(JarFile.MANIFEST_NAME, System.currentTimeMillis(), manifestBytes.toByteArray());
             }
             else {
                 // It is a zip, so we want a dir with the project name inside the zip
                 pathPrefix = projectDir.getName() + "/";
-                jStream = new ZipOutputStream(oStream);
             }
             // Write contents of directories added
             for(File dir : dirs) {
-                writeFileToJar(dir, pathPrefix, jStream, jarFile.getCanonicalFile(), true);
+                writeFileToJar(dir, pathPrefix, pipeline, jarFile.getCanonicalFile(), true);
             }
             for(PrefixedFile dir : prefixDirs) {
-                writeFileToJar(dir.getFile(), pathPrefix + dir.getPrefix(), jStream, jarFile.getCanonicalFile(), true);
+                writeFileToJar(dir.getFile(), pathPrefix + dir.getPrefix(), pipeline, jarFile.getCanonicalFile(), true);
             }
             for(File jar : extraJarsInJar) {
-                writeJarToJar(jar, jStream);
+                writeJarToJar(jar, pipeline);
             }
+            pipeline.finish();
+            cache.finish();
             copyLibsToDir(extraJars, exportDir);            
         }
         catch (IOException exc) {
             Debug.reportError("problem writing jar file: " + exc);
+            // Don't leave an incomplete archive behind:
+            jarFile.delete();
         }
         finally {
-            try {
-                if (jStream != null)
-                    jStream.close();
-            }
-            catch (IOException e) {}
             if(propertiesFile != null) {
                 propertiesFile.delete();
             }
@@ -516,7 +526,7 @@ public class JarCreator
      * the Jar file we are creating (to prevent including itself in the Jar
      * file)
      */
-    private void writeDirToJar(File sourceDir, String pathPrefix, ZipOutputStream stream, File outputFile)
+    private void writeDirToJar(File sourceDir, String pathPrefix, EntryPipeline pipeline, File outputFile)
         throws IOException
     {
         if (!skipDir(sourceDir))
@@ -524,7 +534,7 @@ public class JarCreator
             File[] dir = sourceDir.listFiles();
             for (File sourceFile : dir)
             {
-                writeFileToJar(sourceFile, pathPrefix, stream, outputFile, false);
+                writeFileToJar(sourceFile, pathPrefix, pipeline, outputFile, false);
             }
         }
     }
@@ -539,7 +549,7 @@ public class JarCreator
      * @param onlyDirContents If sourceFile is a dir, this parameter indicates that
      *           the contents of the dir should be added, not the dir itself.
      */
-    private void writeFileToJar(File sourceFile, String pathPrefix, ZipOutputStream stream, File outputFile, boolean onlyDirContents)
+    private void writeFileToJar(File sourceFile, String pathPrefix, EntryPipeline pipeline, File outputFile, boolean onlyDirContents)
         throws IOException
     {
         if(!sourceFile.exists()) {
@@ -551,7 +561,7 @@ public class JarCreator
             if(!onlyDirContents) {
                 pathPrefix += sourceFile.getName()  + "/";
             }
-            writeDirToJar(sourceFile, pathPrefix, stream, outputFile);
+            writeDirToJar(sourceFile, pathPrefix, pipeline, outputFile);
         }
         else {
             // check against a list of files we don't want to export and also
@@ -559,16 +569,16 @@ public class JarCreator
             // (hangs the machine)
             if (!skipFile(sourceFile.getName(), !includeSource)
                     && !outputFile.equals(sourceFile.getCanonicalFile())) {
-                writeJarEntry(sourceFile, stream, pathPrefix + sourceFile.getName());
+                pipeline.addFile(sourceFile, pathPrefix + sourceFile.getName());
             }
         }
     }
     
     /**
-     * Write the contents of a jar into another jar stream. If the source file does not exist,
+     * Write the contents of a jar into the archive being created. If the source file does not exist,
      * this method will just return without doing anything.
      */
-    private void writeJarToJar(File inputJar, ZipOutputStream outputStream)
+    private void writeJarToJar(File inputJar, EntryPipeline pipeline)
         throws IOException
     {
         if(!inputJar.exists()) {
@@ -576,18 +586,16 @@ public class JarCreator
             return;
         }
         
-        JarInputStream inputStream = new JarInputStream(
-                new BufferedInputStream(new FileInputStream(inputJar)));
-        
-        ZipEntry inputEntry = inputStream.getNextJarEntry();
-        while(inputEntry != null) {
-            //TODO: What if we have duplicate files????
-            outputStream.putNextEntry(inputEntry);
-            FileUtility.copyStream(inputStream, outputStream);
-            inputStream.closeEntry();
-            inputEntry = inputStream.getNextJarEntry();
-        }        
-        inputStream.close();
+        try (JarInputStream inputStream = new JarInputStream(
+                new BufferedInputStream(new FileInputStream(inputJar)))) {
+            ZipEntry inputEntry = inputStream.getNextJarEntry();
+            while(inputEntry != null) {
+                long time = inputEntry.getTime() != -1 ? inputEntry.getTime() : System.currentTimeMillis();
+                pipeline.addContent(inputEntry.getName(), time, inputStream.readAllBytes());
+                inputStream.closeEntry();
+                inputEntry = inputStream.getNextJarEntry();
+            }
+        }
     }
 
     /**
@@ -648,29 +656,6 @@ public class JarCreator
         return false;
     }
 
-    /**
-     * Write a jar file entry to the jar output stream. Note: entryName should
-     * always be a path with / seperators (NOT the platform dependant
-     * File.seperator)
-     */
-    private void writeJarEntry(File file, ZipOutputStream stream, String entryName)
-        throws IOException
-    {
-        InputStream in = null;
-        try {
-            in = new BufferedInputStream(new FileInputStream(file));
-            stream.putNextEntry(new ZipEntry(entryName));
-            FileUtility.copyStream(in, stream);
-        }
-        catch (ZipException exc) {
-            Debug.message("warning: " + exc);
-        }
-        finally {
-            if (in != null)
-                in.close();
-        }
-    }
-    
     public void generateHTMLSkeleton(File outputFile, String title, int width, int height)
     {
         Hashtable<String,String> translations = new Hashtable<>();
@@ -720,6 +705,101 @@ public class JarCreator
         }
     }
     
+    /**
+     * Compresses entries in parallel and writes them, in the order they were added, to a
+     * PrecompressedZipWriter.  A bounded number of entries are compressed ahead of the one
+     * currently being written, so the archive is streamed out while later entries are
+     * still being compressed, without holding the whole archive in memory.
+     */
+    private static class EntryPipeline implements Closeable
+    {
+        /** The maximum number of entries in progress ahead of the one being written */
+        private static final int MAX_PENDING = 32;
+        
+        private final PrecompressedZipWriter writer;
+        private final ExportCache cache;
+        private final ExecutorService compressors;
+        private final ArrayDeque<Future<CompressedEntry>> pending = new ArrayDeque<>();
+        
+        EntryPipeline(PrecompressedZipWriter writer, ExportCache cache)
+        {
+            this.writer = writer;
+            this.cache = cache;
+            this.compressors = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "Export compressor");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        
+        /**
+         * Add a file from disk to the archive.  Note: entryName should always be a path
+         * with / separators (NOT the platform dependant File.separator)
+         */
+        void addFile(File file, String entryName) throws IOException
+        {
+            long time = System.currentTimeMillis();
+            submit(() -> cache.getFileEntry(file, entryName, time));
+        }
+        
+        /**
+         * Add an entry with the given content to the archive.
+         */
+        void addContent(String entryName, long time, byte[] content) throws IOException
+        {
+            submit(() -> cache.getEntry(entryName, time, content));
+        }
+        
+        private void submit(Callable<CompressedEntry> task) throws IOException
+        {
+            while (pending.size() >= MAX_PENDING) {
+                writeNext();
+            }
+            pending.add(compressors.submit(task));
+        }
+        
+        private void writeNext() throws IOException
+        {
+            CompressedEntry entry;
+            try {
+                entry = pending.remove().get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioe) {
+                    throw ioe;
+                }
+                throw new IOException(e.getCause());
+            }
+            
+            if (!writer.write(entry)) {
+                Debug.message("warning: duplicate entry: " + entry.getName());
+            }
+        }
+        
+        /**
+         * Write all remaining entries and complete the archive.  If this is not called
+         * before close(), the archive is left incomplete.
+         */
+        void finish() throws IOException
+        {
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            writer.finish();
+        }
+        
+        @Override
+        public void close() throws IOException
+        {
+            compressors.shutdownNow();
+            writer.close();
+        }
+    }
+    
     static class PrefixedFile 
     {
         private File file;
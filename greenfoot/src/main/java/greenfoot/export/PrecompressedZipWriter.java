@@ -0,0 +1,189 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes a zip (or jar) file from entries which have already been compressed.
+ * java.util.zip.ZipOutputStream always compresses the data it is given, which
+ * prevents re-use of previously compressed data; this writer just copies the
+ * compressed bytes into the archive.
+ *
+ * <p>Zip64 extensions are not supported, so archives are limited to 65535 entries
+ * and 4GB in size, which is far beyond any Greenfoot scenario.
+ */
+class PrecompressedZipWriter implements Closeable
+{
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int VERSION = 20;
+    /** General purpose flag bit 11: names are encoded in UTF-8 */
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private final OutputStream out;
+    private long written = 0;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private final Set<String> names = new HashSet<>();
+    private int entryCount = 0;
+    private boolean finished = false;
+
+    PrecompressedZipWriter(OutputStream out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Write an entry to the archive.
+     *
+     * @return true if the entry was written; false if an entry with the same name
+     *         has already been written (in which case nothing is written).
+     */
+    boolean write(CompressedEntry entry) throws IOException
+    {
+        if (finished) {
+            throw new IllegalStateException("Archive already finished");
+        }
+        if (!names.add(entry.getName())) {
+            return false;
+        }
+        byte[] data = entry.getData();
+        if (entry.getSize() > MAX_32 || written > MAX_32 || ++entryCount > MAX_ENTRIES) {
+            throw new IOException("Archive too large to export");
+        }
+
+        byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+        int dosTime = javaToDosTime(entry.getTime());
+        long offset = written;
+
+        ByteArrayOutputStream local = new ByteArrayOutputStream(30 + name.length);
+        writeInt(local, LOCAL_HEADER_SIG);
+        writeShort(local, VERSION);
+        writeShort(local, FLAG_UTF8);
+        writeShort(local, entry.getMethod());
+        writeInt(local, dosTime);
+        writeInt(local, (int) entry.getCrc());
+        writeInt(local, data.length);
+        writeInt(local, (int) entry.getSize());
+        writeShort(local, name.length);
+        writeShort(local, 0); // extra field length
+        local.write(name);
+        local.writeTo(out);
+        written += local.size();
+        out.write(data);
+        written += data.length;
+
+        writeInt(centralDirectory, CENTRAL_HEADER_SIG);
+        writeShort(centralDirectory, VERSION); // made by
+        writeShort(centralDirectory, VERSION); // needed to extract
+        writeShort(centralDirectory, FLAG_UTF8);
+        writeShort(centralDirectory, entry.getMethod());
+        writeInt(centralDirectory, dosTime);
+        writeInt(centralDirectory, (int) entry.getCrc());
+        writeInt(centralDirectory, data.length);
+        writeInt(centralDirectory, (int) entry.getSize());
+        writeShort(centralDirectory, name.length);
+        writeShort(centralDirectory, 0); // extra field length
+        writeShort(centralDirectory, 0); // comment length
+        writeShort(centralDirectory, 0); // disk number
+        writeShort(centralDirectory, 0); // internal attributes
+        writeInt(centralDirectory, 0); // external attributes
+        writeInt(centralDirectory, (int) offset);
+        centralDirectory.write(name);
+        return true;
+    }
+
+    /**
+     * Write the central directory, completing the archive.  No more entries can be
+     * written afterwards.
+     */
+    void finish() throws IOException
+    {
+        if (written > MAX_32) {
+            throw new IOException("Archive too large to export");
+        }
+        long centralOffset = written;
+        centralDirectory.writeTo(out);
+
+        ByteArrayOutputStream end = new ByteArrayOutputStream(22);
+        writeInt(end, END_SIG);
+        writeShort(end, 0); // this disk
+        writeShort(end, 0); // disk with central directory
+        writeShort(end, entryCount);
+        writeShort(end, entryCount);
+        writeInt(end, centralDirectory.size());
+        writeInt(end, (int) centralOffset);
+        writeShort(end, 0); // comment length
+        end.writeTo(out);
+        finished = true;
+    }
+
+    /**
+     * Close the underlying stream.  Unless finish() has been called, the archive is
+     * incomplete, and should be deleted.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int v)
+    {
+        out.write(v & 0xff);
+        out.write((v >>> 8) & 0xff);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v)
+    {
+        writeShort(out, v & 0xffff);
+        writeShort(out, (v >>> 16) & 0xffff);
+    }
+
+    /**
+     * Convert a Java time into the MS-DOS date (high 16 bits) and time (low 16 bits)
+     * format used in zip headers.
+     */
+    private static int javaToDosTime(long time)
+    {
+        LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        int year = ldt.getYear();
+        if (year < 1980) {
+            // Earliest representable: 1st January 1980
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25 | ldt.getMonthValue() << 21 | ldt.getDayOfMonth() << 16
+                | ldt.getHour() << 11 | ldt.getMinute() << 5 | ldt.getSecond() >> 1;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2017,2018,2019,2019,2020,2021,2022,2023,2024  Poul Henriksen and Michael Kolling
+ Copyright (C) 2017,2018,2019,2019,2020,2021,2022,2023,2024,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -2026,6 +2026,13 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
         classDiagram.recalculateGroups();
     }
 
+    @Override
+    public void compileCancelled(CompileInputFile[] sources, CompileType type)
+    {
+        // A cancelled compilation has been superseded by a newer one, which will
+        // restore the world display when it ends.
+    }
+
     @Override
     @OnThread(Tag.Any)
     public void simulationStartedRunning()
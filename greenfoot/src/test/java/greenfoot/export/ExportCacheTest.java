@@ -0,0 +1,198 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.export;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the export cache and the writer of pre-compressed archives.
+ */
+public class ExportCacheTest extends TestCase
+{
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        tempDir = Files.createTempDirectory("exportcache").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        deleteAll(tempDir);
+    }
+
+    private static void deleteAll(File f)
+    {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteAll(child);
+            }
+        }
+        f.delete();
+    }
+
+    private static byte[] text(int length)
+    {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append("public void act() { move(4); }\n");
+        }
+        return sb.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] random(int length)
+    {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] readEntry(ZipFile zip, String name) throws IOException
+    {
+        ZipEntry entry = zip.getEntry(name);
+        assertNotNull(name, entry);
+        try (InputStream in = zip.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    public void testArchiveContents() throws IOException
+    {
+        byte[] source = text(20000);
+        byte[] image = random(5000);
+        File archive = new File(tempDir, "test.jar");
+        try (PrecompressedZipWriter writer = new PrecompressedZipWriter(new FileOutputStream(archive))) {
+            CompressedEntry sourceEntry = CompressedEntry.compress("src/Actor.java", 0, source);
+            CompressedEntry imageEntry = CompressedEntry.compress("images/a.png", 0, image);
+            assertEquals(ZipEntry.DEFLATED, sourceEntry.getMethod());
+            assertEquals(ZipEntry.STORED, imageEntry.getMethod());
+            assertTrue(writer.write(sourceEntry));
+            assertTrue(writer.write(imageEntry));
+            // Duplicates are skipped:
+            assertFalse(writer.write(CompressedEntry.compress("images/a.png", 0, source)));
+            writer.finish();
+        }
+
+        try (ZipFile zip = new ZipFile(archive)) {
+            assertEquals(2, zip.size());
+            assertTrue(Arrays.equals(source, readEntry(zip, "src/Actor.java")));
+            assertTrue(Arrays.equals(image, readEntry(zip, "images/a.png")));
+        }
+    }
+
+    public void testUnfinishedArchiveIsInvalid() throws IOException
+    {
+        File archive = new File(tempDir, "test.jar");
+        try (PrecompressedZipWriter writer = new PrecompressedZipWriter(new FileOutputStream(archive))) {
+            writer.write(CompressedEntry.compress("a.txt", 0, text(100)));
+        }
+        try (ZipFile zip = new ZipFile(archive)) {
+            fail("Incomplete archive should not be readable");
+        }
+        catch (ZipException e) {
+            // expected
+        }
+    }
+
+    public void testUnchangedFileTakenFromCache() throws IOException
+    {
+        File cacheDir = new File(tempDir, "cache");
+        cacheDir.mkdirs();
+        File file = new File(tempDir, "World.java");
+        byte[] content = text(4000);
+        Files.write(file.toPath(), content);
+        long modified = file.lastModified();
+
+        ExportCache cache = new ExportCache(cacheDir);
+        CompressedEntry first = cache.getFileEntry(file, "World.java", 0);
+        cache.finish();
+
+        // Same size and modification time, different content: the cached entry should
+        // be used without reading the file.
+        byte[] changed = content.clone();
+        changed[0] = 'X';
+        Files.write(file.toPath(), changed);
+        file.setLastModified(modified);
+
+        cache = new ExportCache(cacheDir);
+        CompressedEntry second = cache.getFileEntry(file, "World.java", 0);
+        assertEquals(first.getCrc(), second.getCrc());
+        assertTrue(Arrays.equals(first.getData(), second.getData()));
+
+        // A different modification time means the file is read again:
+        file.setLastModified(modified - 10000);
+        cache = new ExportCache(cacheDir);
+        CompressedEntry third = cache.getFileEntry(file, "World.java", 0);
+        assertFalse(first.getCrc() == third.getCrc());
+    }
+
+    public void testUnusedEntriesRemoved() throws IOException
+    {
+        File cacheDir = new File(tempDir, "cache");
+        cacheDir.mkdirs();
+        ExportCache cache = new ExportCache(cacheDir);
+        cache.getEntry("a", 0, text(3000));
+        cache.getEntry("b", 0, random(3000));
+        cache.finish();
+        assertEquals(2, cacheDir.listFiles((d, n) -> n.endsWith(".z")).length);
+
+        cache = new ExportCache(cacheDir);
+        cache.getEntry("a", 0, text(3000));
+        cache.finish();
+        assertEquals(1, cacheDir.listFiles((d, n) -> n.endsWith(".z")).length);
+    }
+
+    public void testStaleCachesEvicted() throws IOException
+    {
+        File root = new File(tempDir, "root");
+        File[] dirs = new File[4];
+        for (int i = 0; i < dirs.length; i++) {
+            dirs[i] = new File(root, "project" + i);
+            dirs[i].mkdirs();
+            Files.write(new File(dirs[i], "entry.z").toPath(), new byte[1000]);
+            // project0 is the least recently used:
+            dirs[i].setLastModified(1000000L * (i + 1));
+        }
+
+        // The oldest, even if it is the one in use, must not be removed:
+        ExportCache.evictStaleCaches(root, dirs[0], 2500);
+        assertTrue(dirs[0].exists());
+        assertFalse(dirs[1].exists());
+        assertTrue(dirs[2].exists());
+        assertTrue(dirs[3].exists());
+    }
+}